@@ -0,0 +1,81 @@
+package com.example.videoagent.benchmark;
+
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import com.example.videoagent.config.IntentRuleProperties;
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.intent.IntentRuleMatcher;
+import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelCallScheduler;
+import com.example.videoagent.service.ModelConcurrencyLimiter;
+import com.example.videoagent.service.ModelMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 意图分类基准：前缀 / 触发词规则 / 缓存命中三条本地路径，以及 LLM 响应解析（模型调用由桩替代）
+ * 意图分类只依赖问题文本，与字幕大小无关，因此不按字幕大小参数化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntentClassificationBenchmark {
+
+    private static final String LLM_RESPONSE = """
+            根据用户问题判断，意图如下：
+            {"intent": "QA", "confidence": 0.87}
+            """;
+
+    private static final String CACHED_QUESTION = "这段讲得对吗";
+
+    private IntentClassificationService service;
+
+    @Setup
+    public void setUp() {
+        ChatClient.Builder builder = ChatClient.builder(new StubChatModel(LLM_RESPONSE, 16));
+        ModelMetrics metrics = new ModelMetrics(new SimpleMeterRegistry(), "stub");
+        service = new IntentClassificationService(builder, new IntentRuleMatcher(new IntentRuleProperties()), metrics,
+                new ModelConcurrencyLimiter(new ConcurrencyLimitProperties()),
+                new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry()));
+        // 预热缓存：之后对同一问题的分类都走缓存
+        service.classifyIntentWithCache(CACHED_QUESTION);
+    }
+
+    @Benchmark
+    public IntentResult prefix() {
+        return service.classifyLocally("/deep 为什么作者这样认为？");
+    }
+
+    @Benchmark
+    public IntentResult ruleMatch() {
+        return service.classifyLocally("帮我总结一下这个视频");
+    }
+
+    @Benchmark
+    public IntentResult cacheHit() {
+        return service.classifyLocally(CACHED_QUESTION);
+    }
+
+    /**
+     * 不带缓存的完整分类：拼接 Prompt、经 ChatClient 调用桩模型、解析 JSON
+     */
+    @Benchmark
+    public IntentResult parseLlmResponse() {
+        return service.classifyIntent(CACHED_QUESTION);
+    }
+}
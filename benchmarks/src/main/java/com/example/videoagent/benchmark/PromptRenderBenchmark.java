@@ -0,0 +1,100 @@
+package com.example.videoagent.benchmark;
+
+import com.example.videoagent.config.PromptVersionConfig;
+import com.example.videoagent.service.CompiledTemplate;
+import com.example.videoagent.service.PromptTemplateService;
+import com.example.videoagent.subtitle.Bm25Index;
+import com.example.videoagent.subtitle.SubtitleParser;
+import com.example.videoagent.subtitle.TokenEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt 渲染基准：旧的逐参数 String.replace 与预编译模板单次追加对比
+ * 以及经 PromptTemplateService 的完整渲染路径；使用 deep-qa/v1 模板（字幕 + 问题两个占位符），字幕 10 KB ~ 2 MB
+ * estimateTokens 为每次模型调用前准入检查估算渲染结果 token 数的开销
+ * relevantExcerpt 为问答前按问题检索相关字幕窗口（BM25 打分 + 渲染片段）的开销，字幕中只有一处相关片段
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptRenderBenchmark {
+
+    @Param({"10", "100", "512", "2048"})
+    public int transcriptKb;
+
+    private String templateSource;
+    private CompiledTemplate compiled;
+    private Map<String, Object> params;
+    private PromptTemplateService templateService;
+    private String rendered;
+    private Bm25Index relevanceIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        templateSource = new ClassPathResource("prompts/deep-qa/v1.st")
+                .getContentAsString(StandardCharsets.UTF_8);
+        compiled = CompiledTemplate.compile(templateSource);
+        templateService = new PromptTemplateService(new PromptVersionConfig());
+        params = new LinkedHashMap<>();
+        params.put("subtitle", Transcripts.generate(transcriptKb * 1024));
+        params.put("question", "视频里提到的注意力机制和 RNN 有什么区别？");
+        rendered = compiled.render(params);
+        relevanceIndex = Bm25Index.build(
+                SubtitleParser.parse(Transcripts.generate(transcriptKb * 1024, "这一段讲量子计算的纠错难题")),
+                Bm25Index.DEFAULT_WINDOW_TOKENS);
+    }
+
+    /**
+     * 重构前 PromptTemplateService.render 的实现
+     */
+    @Benchmark
+    public String legacyReplace() {
+        String result = templateSource;
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            String placeholder = "<" + entry.getKey() + ">";
+            String value = entry.getValue() != null ? entry.getValue().toString() : "";
+            result = result.replace(placeholder, value);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        return compiled.render(params);
+    }
+
+    @Benchmark
+    public String serviceRender() {
+        return templateService.render("deep-qa", params);
+    }
+
+    @Benchmark
+    public int estimateTokens() {
+        return TokenEstimator.estimate(rendered);
+    }
+
+    @Benchmark
+    public String relevantExcerpt() {
+        return relevanceIndex.excerpt("量子计算的纠错为什么难？", 4, 1);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.videoagent.benchmark;
+
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import com.example.videoagent.config.IntentRuleProperties;
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.config.PromptCacheProperties;
+import com.example.videoagent.config.PromptVersionConfig;
+import com.example.videoagent.config.ResponseCacheProperties;
+import com.example.videoagent.config.RetrievalProperties;
+import com.example.videoagent.config.SearchProperties;
+import com.example.videoagent.config.SpeculationProperties;
+import com.example.videoagent.config.StreamProperties;
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.config.SummarizeProperties;
+import com.example.videoagent.config.TokenBudgetProperties;
+import com.example.videoagent.intent.IntentRuleMatcher;
+import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelCallScheduler;
+import com.example.videoagent.service.ModelConcurrencyLimiter;
+import com.example.videoagent.service.ModelMetrics;
+import com.example.videoagent.service.PromptTemplateService;
+import com.example.videoagent.service.ResponseCache;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
+import com.example.videoagent.service.TokenBudget;
+import com.example.videoagent.service.VideoServiceImpl;
+import com.example.videoagent.subtitle.SubtitleSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 流式问答基准：VideoServiceImpl.smartAskStream（渲染 Prompt、经 ChatClient 调用桩模型）
+ * 加上每个分块构建 SSE 事件，对应 VideoApiController 的 /stream/ask
+ * 桩模型返回约 4000 字的回答，按 8 字一块共约 500 个分块
+ * streamAskCoalesced 先经 SseChunkCoalescer 合并成帧，对比每流构建的事件数减少后的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseEmissionBenchmark {
+
+    private static final String QUESTION = "/deep 作者为什么认为注意力机制可以取代循环结构？";
+
+    @Param({"10", "100", "512", "2048"})
+    public int transcriptKb;
+
+    private VideoServiceImpl videoService;
+    private SseChunkCoalescer chunkCoalescer;
+    private SubtitleSession session;
+
+    @Setup
+    public void setUp() {
+        StringBuilder answer = new StringBuilder();
+        while (answer.length() < 4000) {
+            answer.append("## 分析\n作者认为自注意力让每个 token 直接看到全部上下文，[00:05:30] 处给出了并行计算的例子。\n");
+        }
+        ChatClient.Builder builder = ChatClient.builder(new StubChatModel(answer.toString(), 8));
+        ModelMetrics metrics = new ModelMetrics(new SimpleMeterRegistry(), "stub");
+        ModelConcurrencyLimiter limiter = new ModelConcurrencyLimiter(new ConcurrencyLimitProperties());
+        ModelCallScheduler callScheduler = new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry());
+
+        // 关闭响应缓存，每次调用都完整走一遍流式路径
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties();
+        cacheProperties.setEnabled(false);
+        SubtitleStore subtitleStore = new SubtitleStore(new SubtitleStoreProperties());
+
+        videoService = new VideoServiceImpl(
+                builder,
+                new IntentClassificationService(builder, new IntentRuleMatcher(new IntentRuleProperties()), metrics, limiter, callScheduler),
+                new PromptTemplateService(new PromptVersionConfig()),
+                subtitleStore,
+                new SearchProperties(),
+                new SummarizeProperties(),
+                new RetrievalProperties(),
+                new PromptCacheProperties(),
+                new ResponseCache(cacheProperties, "stub"),
+                new SpeculationProperties(),
+                new TokenBudget(new TokenBudgetProperties()),
+                limiter,
+                callScheduler,
+                metrics,
+                Schedulers.boundedElastic());
+        chunkCoalescer = new SseChunkCoalescer(new StreamProperties());
+        session = subtitleStore.save(Transcripts.generate(transcriptKb * 1024));
+    }
+
+    @Benchmark
+    public void streamAsk(Blackhole blackhole) {
+        videoService.smartAskStream(session, QUESTION, null)
+                .doOnNext(chunk -> blackhole.consume(SseEmitter.event().data(chunk).build()))
+                .blockLast();
+    }
+
+    @Benchmark
+    public void streamAskCoalesced(Blackhole blackhole) {
+        videoService.smartAskStream(session, QUESTION, null)
+                .transform(chunkCoalescer::coalesce)
+                .doOnNext(frame -> blackhole.consume(SseEmitter.event().data(frame).build()))
+                .blockLast();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.videoagent.benchmark;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 固定返回内容的 ChatModel，替代真实模型调用，只测量应用自身的开销
+ * 同步调用返回完整内容，流式调用把同一内容按固定长度切块逐个返回
+ */
+public class StubChatModel implements ChatModel {
+
+    private final String content;
+    private final List<ChatResponse> chunks;
+
+    public StubChatModel(String content, int chunkChars) {
+        this.content = content;
+        this.chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += chunkChars) {
+            chunks.add(response(content.substring(i, Math.min(content.length(), i + chunkChars))));
+        }
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response(content);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.fromIterable(chunks);
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
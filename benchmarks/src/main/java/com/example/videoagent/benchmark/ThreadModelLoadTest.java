@@ -0,0 +1,174 @@
+package com.example.videoagent.benchmark;
+
+import com.example.videoagent.config.ExecutionConfig;
+import com.example.videoagent.config.ExecutionProperties;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程模型压测：平台线程与虚拟线程在高并发长耗时模型调用下的对比
+ * 模型由注入固定延迟的桩替代，不产生真实调用
+ *
+ * 两个场景：
+ * - 阻塞调用：每个请求占用一个请求线程等待 ChatClient.call()，平台线程池大小同 Tomcat 默认的 200
+ * - 流式推送：每个分块在模型调度器上执行一次阻塞的 SSE 写出，平台线程模式为默认的有界弹性线程池
+ *
+ * 运行：java -cp benchmarks/target/benchmarks.jar com.example.videoagent.benchmark.ThreadModelLoadTest \
+ *          [并发数列表，默认 200,1000,4000] [模型延迟毫秒，默认 2000]
+ * 虚拟线程结果需要在 JDK 21+ 上运行，JDK 17 上只输出平台线程结果
+ */
+public final class ThreadModelLoadTest {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int STREAM_CHUNKS = 20;
+    private static final Duration CHUNK_INTERVAL = Duration.ofMillis(50);
+    private static final long SEND_MILLIS = 2;
+
+    private ThreadModelLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] concurrencyLevels = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{200, 1000, 4000};
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        boolean virtualSupported = ExecutionConfig.newVirtualThreadExecutor() != null;
+
+        ChatClient chatClient = ChatClient.builder(new LatencyChatModel(Duration.ofMillis(latencyMillis))).build();
+
+        System.out.printf("JDK %d，模型延迟 %d ms，流式 %d 块 × %d ms%n%n",
+                Runtime.version().feature(), latencyMillis, STREAM_CHUNKS, CHUNK_INTERVAL.toMillis());
+        System.out.printf("%-10s %-10s %8s %12s %12s %12s%n", "场景", "线程模型", "并发", "总耗时(ms)", "p50(ms)", "p99(ms)");
+
+        for (int concurrency : concurrencyLevels) {
+            print("阻塞调用", "平台线程", concurrency,
+                    blockingCalls(chatClient, Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), concurrency));
+            if (virtualSupported) {
+                print("阻塞调用", "虚拟线程", concurrency,
+                        blockingCalls(chatClient, ExecutionConfig.newVirtualThreadExecutor(), concurrency));
+            }
+
+            ExecutionProperties properties = new ExecutionProperties();
+            print("流式推送", "平台线程", concurrency,
+                    streams(chatClient, ExecutionConfig.newScheduler(properties, false), concurrency));
+            if (virtualSupported) {
+                print("流式推送", "虚拟线程", concurrency,
+                        streams(chatClient, ExecutionConfig.newScheduler(properties, true), concurrency));
+            }
+        }
+        if (!virtualSupported) {
+            System.out.println("\n当前 JDK 不支持虚拟线程，请用 JDK 21+ 运行以得到对比结果");
+        }
+    }
+
+    /**
+     * 每个请求在请求线程上阻塞等待完整回答，返回 [总耗时, 各请求耗时...]
+     */
+    private static long[] blockingCalls(ChatClient chatClient, ExecutorService executor, int concurrency) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> requests = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            requests.add(CompletableFuture.supplyAsync(() -> {
+                chatClient.prompt().user("问题").call().content();
+                return System.nanoTime() - start;
+            }, executor));
+        }
+        long[] result = collect(start, requests);
+        executor.shutdown();
+        return result;
+    }
+
+    /**
+     * 与 VideoApiController 的 /stream/ask 相同：分块 publishOn 到模型调度器后阻塞写出
+     * 返回 [总耗时, 各流完成耗时...]
+     */
+    private static long[] streams(ChatClient chatClient, Scheduler scheduler, int concurrency) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> requests = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            requests.add(chatClient.prompt().user("问题").stream().content()
+                    .publishOn(scheduler)
+                    .doOnNext(chunk -> sleep(SEND_MILLIS))
+                    .then(Mono.fromCallable(() -> System.nanoTime() - start))
+                    .toFuture());
+        }
+        long[] result = collect(start, requests);
+        scheduler.dispose();
+        return result;
+    }
+
+    private static long[] collect(long start, List<CompletableFuture<Long>> requests) {
+        long[] result = new long[requests.size() + 1];
+        for (int i = 0; i < requests.size(); i++) {
+            result[i + 1] = requests.get(i).join();
+        }
+        result[0] = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void print(String scenario, String threadModel, int concurrency, long[] result) {
+        long[] latencies = Arrays.copyOfRange(result, 1, result.length);
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %-10s %8d %12d %12d %12d%n", scenario, threadModel, concurrency,
+                TimeUnit.NANOSECONDS.toMillis(result[0]),
+                TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 0.50)),
+                TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 0.99)));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 注入固定延迟的桩模型：同步调用阻塞 latency，流式调用按固定间隔输出分块
+     */
+    private static final class LatencyChatModel implements ChatModel {
+
+        private final Duration latency;
+
+        LatencyChatModel(Duration latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            sleep(latency.toMillis());
+            return response("回答");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.range(0, STREAM_CHUNKS)
+                    .delayElements(CHUNK_INTERVAL)
+                    .map(i -> response("分块" + i));
+        }
+
+        private static ChatResponse response(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.videoagent.benchmark;
+
+import com.example.videoagent.subtitle.Timestamps;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 生成基准测试用的中英混合字幕
+ */
+final class Transcripts {
+
+    private static final String[] LINES = {
+            "今天我们来聊聊 Transformer 架构的核心设计",
+            "自注意力机制让每个 token 都能看到整段上下文",
+            "相比 RNN，它可以并行计算，训练速度快很多",
+            "位置编码弥补了注意力本身不感知顺序的问题",
+            "BERT 和 GPT 分别只用了编码器和解码器",
+    };
+
+    private Transcripts() {
+    }
+
+    /**
+     * 生成 "[HH:MM:SS] 文本" 格式的字幕，UTF-8 字节数不小于 targetBytes
+     */
+    static String generate(int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes);
+        int bytes = 0;
+        for (int i = 0; bytes < targetBytes; i++) {
+            String line = "[" + Timestamps.format(i * 3000L) + "] " + LINES[i % LINES.length] + "\n";
+            sb.append(line);
+            bytes += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 生成字幕并把正中间一条字幕的文本替换为 topic，用于检索基准中只有一处相关片段的问题
+     */
+    static String generate(int targetBytes, String topic) {
+        String transcript = generate(targetBytes);
+        int lineStart = transcript.indexOf('\n', transcript.length() / 2) + 1;
+        int textStart = transcript.indexOf("] ", lineStart) + 2;
+        int lineEnd = transcript.indexOf('\n', textStart);
+        return transcript.substring(0, textStart) + topic + transcript.substring(lineEnd);
+    }
+}
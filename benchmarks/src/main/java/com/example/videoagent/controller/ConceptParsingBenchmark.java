@@ -0,0 +1,66 @@
+package com.example.videoagent.controller;
+
+import com.example.videoagent.dto.Concept;
+import com.example.videoagent.subtitle.Timestamps;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识点解析基准：VideoController.extractJsonArray + Jackson 反序列化
+ * 与控制器保持一致，每次解析新建 ObjectMapper；知识点数量按字幕大小折算（约每 4 KB 字幕一个）
+ *
+ * 位于 controller 包内以访问包可见的 extractJsonArray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConceptParsingBenchmark {
+
+    private static final TypeReference<List<Concept>> CONCEPT_LIST = new TypeReference<>() {};
+
+    @Param({"10", "100", "512", "2048"})
+    public int transcriptKb;
+
+    private String response;
+
+    @Setup
+    public void setUp() throws Exception {
+        int count = Math.max(1, transcriptKb / 4);
+        Concept[] concepts = new Concept[count];
+        for (int i = 0; i < count; i++) {
+            concepts[i] = new Concept(
+                    Timestamps.format(i * 60_000L),
+                    Timestamps.format(i * 60_000L + 45_000L),
+                    "知识点 " + i,
+                    "自注意力机制让每个 token 都能看到整段上下文，相比 RNN 可以并行计算");
+        }
+        // 模型通常会在 JSON 前后附带说明文字或代码块标记
+        response = "以下是提取的知识点：\n```json\n"
+                + new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(concepts)
+                + "\n```\n以上共 " + count + " 个知识点。";
+    }
+
+    @Benchmark
+    public List<Concept> extractAndParse() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String jsonArray = VideoController.extractJsonArray(response);
+        return mapper.readValue(jsonArray, CONCEPT_LIST);
+    }
+}
@@ -37,6 +37,14 @@ async function postText<T>(url: string, body: string): Promise<T> {
   return response.json()
 }
 
+// 只携带 subtitleId，字幕内容保存在服务端
+async function postWithSubtitleId<T>(url: string, subtitleId: string): Promise<T> {
+  const response = await fetch(`${url}?subtitleId=${encodeURIComponent(subtitleId)}`, {
+    method: 'POST'
+  })
+  return response.json()
+}
+
 export const videoApi = {
   // 上传文件
   upload: async (file: File): Promise<UploadResponse> => {
@@ -55,8 +63,8 @@ export const videoApi = {
   },
 
   // 生成摘要
-  summarize: async (subtitleContent: string): Promise<VideoResponse> => {
-    return postText<VideoResponse>(`${BASE_URL}/summarize`, subtitleContent)
+  summarize: async (subtitleId: string): Promise<VideoResponse> => {
+    return postWithSubtitleId<VideoResponse>(`${BASE_URL}/summarize`, subtitleId)
   },
 
   // 基础问答
@@ -65,13 +73,13 @@ export const videoApi = {
   },
 
   // 提取概念
-  extractConcepts: async (subtitleContent: string): Promise<VideoResponse> => {
-    return postText<VideoResponse>(`${BASE_URL}/extract`, subtitleContent)
+  extractConcepts: async (subtitleId: string): Promise<VideoResponse> => {
+    return postWithSubtitleId<VideoResponse>(`${BASE_URL}/extract`, subtitleId)
   },
 
   // 提取金句
-  extractQuotes: async (subtitleContent: string): Promise<VideoResponse> => {
-    return postText<VideoResponse>(`${BASE_URL}/quotes`, subtitleContent)
+  extractQuotes: async (subtitleId: string): Promise<VideoResponse> => {
+    return postWithSubtitleId<VideoResponse>(`${BASE_URL}/quotes`, subtitleId)
   },
 
   // 关键词搜索
@@ -85,9 +93,9 @@ export const videoApi = {
     return postJson<SmartAskResponse>(url, request)
   },
 
-  // 流式问答（POST 请求，支持长字幕内容）
+  // 流式问答（POST 请求，字幕通过 subtitleId 引用）
   streamAsk: (
-    subtitleContent: string,
+    subtitleId: string,
     question: string,
     onMessage: (chunk: string) => void,
     onError: (error: string) => void,
@@ -98,7 +106,7 @@ export const videoApi = {
     fetch(`${BASE_URL}/stream/ask`, {
       method: 'POST',
       headers: { 'Content-Type': 'application/json' },
-      body: JSON.stringify({ subtitleContent, question })
+      body: JSON.stringify({ subtitleId, question })
     })
       .then(async (response) => {
         if (!response.ok) {
@@ -4,6 +4,7 @@ export interface UploadResponse {
   message: string
   fileName?: string
   charCount?: number
+  subtitleId?: string
   content?: string
 }
 
@@ -31,12 +32,12 @@ export interface Concept {
 
 // 聊天请求
 export interface ChatRequest {
-  subtitleContent: string
+  subtitleId: string
   question: string
 }
 
 // 搜索请求
 export interface SearchRequest {
-  subtitleContent: string
+  subtitleId: string
   keyword: string
 }
@@ -0,0 +1,110 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量分析任务配置
+ * 前缀：video-agent.batch
+ *
+ * 一个任务对多个字幕文件依次执行总结、知识点、金句三项分析，
+ * 结果逐项落盘，服务重启后可以从未完成的分析继续
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.batch")
+public class BatchJobProperties {
+
+    /**
+     * 同一任务同时进行的分析数
+     */
+    private int parallelism = 4;
+
+    /**
+     * 批量任务可用的每分钟 token 数（输入 + 预计输出），按令牌桶匀速发出调用，0 表示不限
+     */
+    private long tokensPerMinute = 0;
+
+    /**
+     * 每次模型调用预计的输出 token 数，计入每分钟 token 预算
+     */
+    private int outputTokensPerCall = 800;
+
+    /**
+     * 模型并发已满时单项分析最多尝试的次数
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 任务清单、上传的字幕与分析结果的保存目录
+     */
+    private String storagePath = "";
+
+    /**
+     * 允许按目录提交任务的本地目录，为空时不支持目录提交
+     */
+    private List<String> allowedDirectories = new ArrayList<>();
+
+    /**
+     * 按目录提交时读取的字幕文件扩展名
+     */
+    private List<String> fileExtensions = new ArrayList<>(List.of("srt", "vtt", "txt"));
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public long getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    public void setTokensPerMinute(long tokensPerMinute) {
+        this.tokensPerMinute = tokensPerMinute;
+    }
+
+    public int getOutputTokensPerCall() {
+        return outputTokensPerCall;
+    }
+
+    public void setOutputTokensPerCall(int outputTokensPerCall) {
+        this.outputTokensPerCall = outputTokensPerCall;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public List<String> getAllowedDirectories() {
+        return allowedDirectories;
+    }
+
+    public void setAllowedDirectories(List<String> allowedDirectories) {
+        this.allowedDirectories = allowedDirectories;
+    }
+
+    public List<String> getFileExtensions() {
+        return fileExtensions;
+    }
+
+    public void setFileExtensions(List<String> fileExtensions) {
+        this.fileExtensions = fileExtensions;
+    }
+}
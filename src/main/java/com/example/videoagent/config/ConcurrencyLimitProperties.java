@@ -0,0 +1,145 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模型调用并发限制配置
+ * 前缀：video-agent.concurrency-limit
+ *
+ * 模型调用按操作（Prompt 名称）划入隔离舱，每个隔离舱有独立的并发上限，
+ * 超长字幕的总结占满自己的隔离舱时不会挤占问答。上限在 [minLimit, maxLimit] 内按观测到的延迟自适应调整，
+ * 达到上限的调用立即拒绝（HTTP 429），不排队等待。未列入任何隔离舱的操作不受限制
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否启用并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 延迟容忍倍数：最近一次延迟不超过长期平均延迟的该倍数时不降低上限
+     */
+    private double tolerance = 2.0;
+
+    /**
+     * 上限调整的平滑系数（0~1），越大调整越快
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 隔离舱：名称 -> 配置
+     */
+    private Map<String, Bulkhead> bulkheads = new LinkedHashMap<>(Map.of(
+            "long-summary", new Bulkhead(List.of("summarize-map-reduce"), 2, 1, 4),
+            "analysis", new Bulkhead(List.of("summarize", "extract-concepts", "extract-quotes", "analyze-all", "deep-qa"), 4, 1, 8),
+            "interactive", new Bulkhead(List.of("chat", "search-keyword", "search-summary", "intent-classification"), 16, 2, 32),
+            "optimize", new Bulkhead(List.of("prompt-optimize"), 2, 1, 4)));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    public void setBulkheads(Map<String, Bulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    /**
+     * 单个隔离舱的配置
+     */
+    public static class Bulkhead {
+
+        /**
+         * 归入该隔离舱的操作；分段总结整体计为 summarize-map-reduce，其中的分段调用不单独计数
+         */
+        private List<String> operations = new ArrayList<>();
+
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 4;
+
+        /**
+         * 自适应调整的下限
+         */
+        private int minLimit = 1;
+
+        /**
+         * 自适应调整的上限
+         */
+        private int maxLimit = 8;
+
+        public Bulkhead() {}
+
+        public Bulkhead(List<String> operations, int initialLimit, int minLimit, int maxLimit) {
+            this.operations = new ArrayList<>(operations);
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        public List<String> getOperations() {
+            return operations;
+        }
+
+        public void setOperations(List<String> operations) {
+            this.operations = operations;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+}
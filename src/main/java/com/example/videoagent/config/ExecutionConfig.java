@@ -0,0 +1,61 @@
+package com.example.videoagent.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 模型调用调度器配置
+ *
+ * 虚拟线程为可选模式：与 Spring Boot 共用 spring.threads.virtual.enabled 开关，
+ * 开启后 Tomcat 请求线程（由 Spring Boot 配置）和模型调用调度器都使用虚拟线程。
+ * 工程按 JDK 17 编译，虚拟线程执行器通过反射创建；在 JDK 17 上开启时回退到平台线程
+ */
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    /**
+     * 阻塞模型调用与 SSE 推送使用的调度器
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler modelScheduler(ExecutionProperties properties,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Scheduler scheduler = newScheduler(properties, virtualThreads);
+        log.info("模型调用调度器: {}", scheduler);
+        return scheduler;
+    }
+
+    /**
+     * 创建调度器；请求虚拟线程但当前 JDK 不支持时使用有界弹性线程池
+     */
+    public static Scheduler newScheduler(ExecutionProperties properties, boolean virtualThreads) {
+        if (virtualThreads) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                return Schedulers.fromExecutorService(executor, "model-vt");
+            }
+            log.warn("当前 JDK {} 不支持虚拟线程，使用平台线程池", Runtime.version().feature());
+        }
+        return Schedulers.newBoundedElastic(properties.getThreadCap(), properties.getQueuedTaskCap(), "model-call");
+    }
+
+    /**
+     * JDK 21+ 返回每任务一个虚拟线程的执行器，否则返回 null
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
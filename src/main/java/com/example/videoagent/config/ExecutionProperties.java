@@ -0,0 +1,44 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 模型调用执行配置
+ * 前缀：video-agent.execution
+ *
+ * 阻塞的模型调用、推测执行和 SSE 推送运行在同一个调度器上：
+ * - 默认：有界弹性线程池（平台线程），容量由下列参数控制
+ * - spring.threads.virtual.enabled=true 且运行在 JDK 21+ 时：每个任务一个虚拟线程，下列参数不再生效
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.execution")
+public class ExecutionProperties {
+
+    /**
+     * 平台线程模式下的最大线程数，默认 10 × CPU 核数
+     */
+    private int threadCap = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+    /**
+     * 平台线程模式下线程用满后可排队的任务数
+     */
+    private int queuedTaskCap = Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+    public int getThreadCap() {
+        return threadCap;
+    }
+
+    public void setThreadCap(int threadCap) {
+        this.threadCap = threadCap;
+    }
+
+    public int getQueuedTaskCap() {
+        return queuedTaskCap;
+    }
+
+    public void setQueuedTaskCap(int queuedTaskCap) {
+        this.queuedTaskCap = queuedTaskCap;
+    }
+}
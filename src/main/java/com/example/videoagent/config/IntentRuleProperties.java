@@ -0,0 +1,82 @@
+package com.example.videoagent.config;
+
+import com.example.videoagent.enums.UserIntent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 意图规则快速通道配置
+ * 前缀：video-agent.intent-rules
+ *
+ * 问题只命中一种意图的触发词时直接返回，不调用 LLM；
+ * 未命中、命中多种意图或问题过长时仍交给 LLM 分类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.intent-rules")
+public class IntentRuleProperties {
+
+    /**
+     * 是否启用规则快速通道
+     */
+    private boolean enabled = true;
+
+    /**
+     * 规则命中时给出的置信度
+     */
+    private double confidence = 0.9;
+
+    /**
+     * 超过该长度的问题视为复杂问题，交给 LLM 判断
+     */
+    private int maxQuestionLength = 40;
+
+    /**
+     * 各意图的触发词（与 intent-classification 模板中的示例保持一致），可在配置中按意图覆盖
+     * QA 只保留不会与深度分析混淆的问法；"为什么"、"如何" 这类问法既可能是简单问答也可能要求推理，不作为触发词，
+     * 与 DEEP_QA 触发词同时出现时按多意图冲突交给 LLM 判断
+     */
+    private Map<UserIntent, List<String>> triggers = new EnumMap<>(Map.of(
+            UserIntent.SUMMARIZE, List.of("总结", "概括", "概览", "讲了什么", "说了什么", "主要内容", "大意"),
+            UserIntent.QA, List.of("什么是", "是什么", "有什么区别", "有什么优势"),
+            UserIntent.EXTRACT_CONCEPTS, List.of("知识点", "核心概念", "关键概念", "关键点", "重点"),
+            UserIntent.EXTRACT_QUOTES, List.of("金句", "精彩语录", "语录", "好句子", "名言"),
+            UserIntent.SEARCH_KEYWORD, List.of("哪里提到", "在什么位置", "什么时候提到", "搜索", "查找"),
+            UserIntent.DEEP_QA, List.of("详细解释", "深入分析", "分析一下", "深入讨论", "深度讨论", "深入讲解", "推理过程")
+    ));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    public int getMaxQuestionLength() {
+        return maxQuestionLength;
+    }
+
+    public void setMaxQuestionLength(int maxQuestionLength) {
+        this.maxQuestionLength = maxQuestionLength;
+    }
+
+    public Map<UserIntent, List<String>> getTriggers() {
+        return triggers;
+    }
+
+    public void setTriggers(Map<UserIntent, List<String>> triggers) {
+        this.triggers = triggers;
+    }
+}
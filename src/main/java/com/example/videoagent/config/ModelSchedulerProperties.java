@@ -0,0 +1,131 @@
+package com.example.videoagent.config;
+
+import com.example.videoagent.enums.ModelPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模型调用调度配置
+ * 前缀：video-agent.model-scheduler
+ *
+ * 所有模型调用共享 maxConcurrency 个调用槽位，槽位用满时按优先级排队：
+ * 各优先级按权重轮流放行，最后 reservedInteractiveSlots 个槽位只留给交互调用，
+ * 等待超过 maxWaitMillis 的调用不再受权重和预留限制，保证低优先级不会一直饿死
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.model-scheduler")
+public class ModelSchedulerProperties {
+
+    /**
+     * 是否启用调度；关闭时调用直接发出
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时进行的模型调用数上限
+     */
+    private int maxConcurrency = 24;
+
+    /**
+     * 只有交互调用可以使用的槽位数
+     */
+    private int reservedInteractiveSlots = 4;
+
+    /**
+     * 各优先级的放行权重
+     */
+    private Map<ModelPriority, Integer> weights = new EnumMap<>(Map.of(
+            ModelPriority.INTERACTIVE, 8,
+            ModelPriority.STANDARD, 3,
+            ModelPriority.BATCH, 1));
+
+    /**
+     * 每个优先级的排队上限，超出时拒绝（HTTP 429）
+     */
+    private int maxQueueDepth = 64;
+
+    /**
+     * 排队超过该时长的调用优先放行，不受权重和预留槽位限制
+     */
+    private long maxWaitMillis = 5000;
+
+    /**
+     * 按交互优先级调度的操作；流式智能问答中的调用总是交互优先级
+     */
+    private List<String> interactiveOperations = new ArrayList<>(List.of("intent-classification"));
+
+    /**
+     * 按批量优先级调度的操作，其余操作为普通优先级
+     */
+    private List<String> batchOperations = new ArrayList<>(List.of(
+            "summarize", "summarize-map", "summarize-reduce", "extract-concepts", "extract-quotes", "analyze-all"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getReservedInteractiveSlots() {
+        return reservedInteractiveSlots;
+    }
+
+    public void setReservedInteractiveSlots(int reservedInteractiveSlots) {
+        this.reservedInteractiveSlots = reservedInteractiveSlots;
+    }
+
+    public Map<ModelPriority, Integer> getWeights() {
+        return weights;
+    }
+
+    public void setWeights(Map<ModelPriority, Integer> weights) {
+        this.weights = weights;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public List<String> getInteractiveOperations() {
+        return interactiveOperations;
+    }
+
+    public void setInteractiveOperations(List<String> interactiveOperations) {
+        this.interactiveOperations = interactiveOperations;
+    }
+
+    public List<String> getBatchOperations() {
+        return batchOperations;
+    }
+
+    public void setBatchOperations(List<String> batchOperations) {
+        this.batchOperations = batchOperations;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Prompt 前缀缓存布局配置
+ * 前缀：video-agent.prompt-cache
+ *
+ * 开启后，引用整份字幕的调用按 (system, 字幕, 指令与问题) 三条消息发送：
+ * 同一视频的连续提问共享 "系统提示 + 字幕" 这段稳定前缀，可命中 DashScope 的上下文缓存。
+ * 只对整份发送字幕的调用生效；分段总结的窗口、检索裁剪后的问答片段每次内容不同，仍按单条消息发送
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.prompt-cache")
+public class PromptCacheProperties {
+
+    /**
+     * 是否启用前缀缓存布局
+     */
+    private boolean enabled = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模型响应缓存配置
+ * 前缀：video-agent.response-cache
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存层最多缓存的响应条数
+     */
+    private long maxEntries = 1000;
+
+    /**
+     * 磁盘层追加日志文件路径，为空时只使用内存层
+     * 日志按段存放为 <diskPath>.<序号>
+     */
+    private String diskPath = "";
+
+    /**
+     * 磁盘层日志总大小上限（MB），超出时删除最旧的日志段，其中的条目随之失效
+     */
+    private long diskMaxMb = 256;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public String getDiskPath() {
+        return diskPath;
+    }
+
+    public void setDiskPath(String diskPath) {
+        this.diskPath = diskPath;
+    }
+
+    public long getDiskMaxMb() {
+        return diskMaxMb;
+    }
+
+    public void setDiskMaxMb(long diskMaxMb) {
+        this.diskMaxMb = diskMaxMb;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 问答检索配置
+ * 前缀：video-agent.retrieval
+ *
+ * 长字幕的问答（chat / deep-qa）不再整份发送：按问题对字幕窗口做 BM25 打分，
+ * 只发送最相关的窗口及其相邻窗口；问题没有命中任何窗口时仍发送完整字幕
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.retrieval")
+public class RetrievalProperties {
+
+    /**
+     * 是否启用检索裁剪
+     */
+    private boolean enabled = true;
+
+    /**
+     * 字幕估算 token 数超过该值才裁剪，较短的字幕仍整份发送
+     */
+    private int minTranscriptTokens = 8000;
+
+    /**
+     * 选取的最相关窗口数
+     */
+    private int topK = 4;
+
+    /**
+     * 每个选中窗口前后各附带的相邻窗口数，补全问题所在片段的上下文
+     */
+    private int neighbors = 1;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinTranscriptTokens() {
+        return minTranscriptTokens;
+    }
+
+    public void setMinTranscriptTokens(int minTranscriptTokens) {
+        this.minTranscriptTokens = minTranscriptTokens;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public int getNeighbors() {
+        return neighbors;
+    }
+
+    public void setNeighbors(int neighbors) {
+        this.neighbors = neighbors;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 关键词搜索配置
+ * 前缀：video-agent.search
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.search")
+public class SearchProperties {
+
+    /**
+     * 是否调用模型生成一句话 summary；关闭时使用本地生成的统计描述，搜索完全不经过模型
+     */
+    private boolean llmSummary = false;
+
+    /**
+     * 返回的出现位置上限，summary 中的次数仍按全部命中统计
+     */
+    private int maxOccurrences = 100;
+
+    public boolean isLlmSummary() {
+        return llmSummary;
+    }
+
+    public void setLlmSummary(boolean llmSummary) {
+        this.llmSummary = llmSummary;
+    }
+
+    public int getMaxOccurrences() {
+        return maxOccurrences;
+    }
+
+    public void setMaxOccurrences(int maxOccurrences) {
+        this.maxOccurrences = maxOccurrences;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 智能问答推测执行配置
+ * 前缀：video-agent.speculation
+ *
+ * 意图需要 LLM 分类时，同时按最常见的 QA 意图开始生成回答；
+ * 分类结果为 QA 则直接复用，否则取消推测的调用
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.speculation")
+public class SpeculationProperties {
+
+    /**
+     * 是否启用推测执行（未命中时会多消耗一次部分生成的 token）
+     */
+    private boolean enabled = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE 流式输出配置
+ * 前缀：video-agent.stream
+ *
+ * 模型逐 token 返回的分块先合并成帧再推送，每帧对应一次 SSE 写出和 flush；
+ * 时间窗口到期或分块数达到上限时输出一帧
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.stream")
+public class StreamProperties {
+
+    /**
+     * 客户端接收跟不上时的处理策略
+     */
+    public enum SlowClientPolicy {
+        /**
+         * 停止向模型请求后续分块，等客户端消费后继续
+         */
+        PAUSE_UPSTREAM,
+        /**
+         * 积压帧超过上限时推送错误事件并结束该流，模型调用随之取消
+         */
+        DROP_CLIENT
+    }
+
+    /**
+     * 合并窗口（毫秒），0 表示不合并、每个分块单独推送
+     */
+    private int coalesceWindowMillis = 30;
+
+    /**
+     * 单帧最多合并的分块数，达到后不等窗口到期立即输出
+     */
+    private int maxChunksPerFrame = 64;
+
+    /**
+     * DROP_CLIENT 策略下等待写出的帧数上限
+     */
+    private int maxPendingFrames = 32;
+
+    private SlowClientPolicy slowClientPolicy = SlowClientPolicy.PAUSE_UPSTREAM;
+
+    public int getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public void setCoalesceWindowMillis(int coalesceWindowMillis) {
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    public int getMaxChunksPerFrame() {
+        return maxChunksPerFrame;
+    }
+
+    public void setMaxChunksPerFrame(int maxChunksPerFrame) {
+        this.maxChunksPerFrame = maxChunksPerFrame;
+    }
+
+    public int getMaxPendingFrames() {
+        return maxPendingFrames;
+    }
+
+    public void setMaxPendingFrames(int maxPendingFrames) {
+        this.maxPendingFrames = maxPendingFrames;
+    }
+
+    public SlowClientPolicy getSlowClientPolicy() {
+        return slowClientPolicy;
+    }
+
+    public void setSlowClientPolicy(SlowClientPolicy slowClientPolicy) {
+        this.slowClientPolicy = slowClientPolicy;
+    }
+}
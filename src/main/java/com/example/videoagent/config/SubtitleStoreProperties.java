@@ -0,0 +1,40 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 字幕会话存储配置
+ * 前缀：video-agent.subtitle-store
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.subtitle-store")
+public class SubtitleStoreProperties {
+
+    /**
+     * 存储总容量上限（MB），按字幕占用的内存大小（堆上索引 + 堆外文本）淘汰
+     * 字幕文本在直接内存中，该值应小于 -XX:MaxDirectMemorySize，避免分配直接内存时触发 Full GC
+     */
+    private long maxSizeMb = 256;
+
+    /**
+     * 字幕闲置多久后过期（分钟）
+     */
+    private long expireAfterAccessMinutes = 120;
+
+    public long getMaxSizeMb() {
+        return maxSizeMb;
+    }
+
+    public void setMaxSizeMb(long maxSizeMb) {
+        this.maxSizeMb = maxSizeMb;
+    }
+
+    public long getExpireAfterAccessMinutes() {
+        return expireAfterAccessMinutes;
+    }
+
+    public void setExpireAfterAccessMinutes(long expireAfterAccessMinutes) {
+        this.expireAfterAccessMinutes = expireAfterAccessMinutes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 长视频分段总结（map-reduce）配置
+ * 前缀：video-agent.summarize
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.summarize")
+public class SummarizeProperties {
+
+    /**
+     * 字幕估算 token 数超过该值时改用分段总结，未超过时仍整份发送
+     */
+    private int mapReduceThresholdTokens = 24000;
+
+    /**
+     * 每个分段窗口的 token 上限
+     */
+    private int windowTokens = 6000;
+
+    /**
+     * 同时进行的分段总结调用数上限
+     */
+    private int maxConcurrency = 4;
+
+    public int getMapReduceThresholdTokens() {
+        return mapReduceThresholdTokens;
+    }
+
+    public void setMapReduceThresholdTokens(int mapReduceThresholdTokens) {
+        this.mapReduceThresholdTokens = mapReduceThresholdTokens;
+    }
+
+    public int getWindowTokens() {
+        return windowTokens;
+    }
+
+    public void setWindowTokens(int windowTokens) {
+        this.windowTokens = windowTokens;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.videoagent.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Token 预算与上下文窗口准入配置
+ * 前缀：video-agent.token-budget
+ *
+ * 每次调用模型前估算渲染后 Prompt 的 token 数：
+ * - 加上预留的输出 token 超过上下文窗口时拒绝请求，总结类请求改走分段总结
+ * - 按单价给出费用估算，供 /api/estimate 在调用前返回
+ * 默认值对应 qwen-plus
+ */
+@Configuration
+@ConfigurationProperties(prefix = "video-agent.token-budget")
+public class TokenBudgetProperties {
+
+    /**
+     * 是否启用准入控制（关闭后仍可估算，但不拒绝请求）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 模型上下文窗口（输入 + 输出）
+     */
+    private int contextWindowTokens = 131072;
+
+    /**
+     * 为输出预留的 token 数，也是单次调用输出费用的估算上限
+     */
+    private int maxOutputTokens = 8192;
+
+    /**
+     * 估算值校准系数：实际用量（videoagent.model.tokens）与估算长期偏离时调整
+     */
+    private double calibration = 1.0;
+
+    /**
+     * 输入单价（元 / 百万 token）
+     */
+    private double inputPricePerMillion = 0.8;
+
+    /**
+     * 输出单价（元 / 百万 token）
+     */
+    private double outputPricePerMillion = 2.0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getContextWindowTokens() {
+        return contextWindowTokens;
+    }
+
+    public void setContextWindowTokens(int contextWindowTokens) {
+        this.contextWindowTokens = contextWindowTokens;
+    }
+
+    public int getMaxOutputTokens() {
+        return maxOutputTokens;
+    }
+
+    public void setMaxOutputTokens(int maxOutputTokens) {
+        this.maxOutputTokens = maxOutputTokens;
+    }
+
+    public double getCalibration() {
+        return calibration;
+    }
+
+    public void setCalibration(double calibration) {
+        this.calibration = calibration;
+    }
+
+    public double getInputPricePerMillion() {
+        return inputPricePerMillion;
+    }
+
+    public void setInputPricePerMillion(double inputPricePerMillion) {
+        this.inputPricePerMillion = inputPricePerMillion;
+    }
+
+    public double getOutputPricePerMillion() {
+        return outputPricePerMillion;
+    }
+
+    public void setOutputPricePerMillion(double outputPricePerMillion) {
+        this.outputPricePerMillion = outputPricePerMillion;
+    }
+}
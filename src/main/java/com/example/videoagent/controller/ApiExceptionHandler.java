@@ -0,0 +1,32 @@
+package com.example.videoagent.controller;
+
+import com.example.videoagent.dto.VideoResponse;
+import com.example.videoagent.service.ModelOverloadedException;
+import com.example.videoagent.service.SubtitleTooLargeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * /api 接口的异常响应
+ * 其余失败仍由各接口转换为 success=false 的 200 响应；模型并发已满时快速返回 429，
+ * 客户端按 Retry-After 退避，而不是在服务端排队直到超时；字幕超过存储容量时返回 413
+ */
+@RestControllerAdvice(assignableTypes = {VideoApiController.class, ReactiveVideoApiController.class})
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(ModelOverloadedException.class)
+    public ResponseEntity<VideoResponse> overloaded(ModelOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(VideoResponse.error(e.getMessage()));
+    }
+
+    @ExceptionHandler(SubtitleTooLargeException.class)
+    public ResponseEntity<VideoResponse> tooLarge(SubtitleTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(VideoResponse.error(e.getMessage()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.videoagent.controller;
+
+import com.example.videoagent.dto.VideoResponse;
+import com.example.videoagent.service.BatchJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * 批量分析任务接口：提交一批字幕后立即返回任务进度，分析在后台执行，结果按视频查询
+ * Servlet 与响应式两种 /api 实现共用
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchJobController {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchJobController.class);
+
+    private final BatchJobService batchJobService;
+
+    public BatchJobController(BatchJobService batchJobService) {
+        this.batchJobService = batchJobService;
+    }
+
+    /**
+     * 上传多个字幕文件创建任务
+     */
+    @PostMapping("/jobs")
+    public VideoResponse submit(@RequestParam(value = "files", required = false) List<MultipartFile> files) {
+        try {
+            return VideoResponse.successWithData(batchJobService.submit(files));
+        } catch (Exception e) {
+            return error("提交批量任务失败", e);
+        }
+    }
+
+    /**
+     * 以服务器本地目录中的字幕文件创建任务
+     */
+    @PostMapping("/jobs/directory")
+    public VideoResponse submitDirectory(@RequestParam("path") String path) {
+        try {
+            return VideoResponse.successWithData(batchJobService.submitDirectory(path));
+        } catch (Exception e) {
+            return error("提交批量任务失败", e);
+        }
+    }
+
+    /**
+     * 所有任务的进度
+     */
+    @GetMapping("/jobs")
+    public VideoResponse list() {
+        return VideoResponse.successWithData(batchJobService.list());
+    }
+
+    /**
+     * 任务进度
+     */
+    @GetMapping("/jobs/{jobId}")
+    public VideoResponse status(@PathVariable String jobId) {
+        try {
+            return VideoResponse.successWithData(batchJobService.status(jobId));
+        } catch (Exception e) {
+            return error("查询批量任务失败", e);
+        }
+    }
+
+    /**
+     * 单个视频已完成的分析结果
+     */
+    @GetMapping("/jobs/{jobId}/items/{index}")
+    public VideoResponse results(@PathVariable String jobId, @PathVariable int index) {
+        try {
+            return VideoResponse.successWithData(batchJobService.results(jobId, index));
+        } catch (Exception e) {
+            return error("查询分析结果失败", e);
+        }
+    }
+
+    /**
+     * 继续执行未完成和失败的分析（服务重启后或部分分析失败时）
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public VideoResponse resume(@PathVariable String jobId) {
+        try {
+            return VideoResponse.successWithData(batchJobService.resume(jobId));
+        } catch (Exception e) {
+            return error("继续批量任务失败", e);
+        }
+    }
+
+    private static VideoResponse error(String message, Exception e) {
+        log.error(message, e);
+        return VideoResponse.error(message + ": " + e.getMessage());
+    }
+}
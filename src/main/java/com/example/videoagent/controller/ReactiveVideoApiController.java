@@ -0,0 +1,320 @@
+package com.example.videoagent.controller;
+
+import com.example.videoagent.dto.ChatRequest;
+import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.PromptOptimizeRequest;
+import com.example.videoagent.dto.SearchRequest;
+import com.example.videoagent.dto.SmartAskResponse;
+import com.example.videoagent.dto.VideoResponse;
+import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelOverloadedException;
+import com.example.videoagent.service.PromptOptimizeService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
+import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.SubtitleSession;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * /api 接口的响应式实现，路径、参数和响应结构与 {@link VideoApiController} 一致
+ * 开启方式：video-agent.web.reactive=true（环境变量 REACTIVE_API）
+ *
+ * 处理方法返回 Mono / Flux，由 Spring MVC 的异步请求处理订阅：
+ * 等待模型期间不占用请求线程，模型结果到达后在回调线程上写出响应。
+ * 流式问答直接返回 ServerSentEvent 流，不再需要 SseEmitter 和逐帧阻塞写出；
+ * Spring MVC 写完一帧才请求下一帧，积压控制与 Servlet 版本一致
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(prefix = "video-agent.web", name = "reactive", havingValue = "true")
+public class ReactiveVideoApiController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveVideoApiController.class);
+
+    private final VideoService videoService;
+    private final IntentClassificationService intentClassificationService;
+    private final PromptOptimizeService promptOptimizeService;
+    private final SubtitleStore subtitleStore;
+    private final Scheduler modelScheduler;
+    private final SseChunkCoalescer chunkCoalescer;
+
+    public ReactiveVideoApiController(VideoService videoService,
+                                      IntentClassificationService intentClassificationService,
+                                      PromptOptimizeService promptOptimizeService,
+                                      SubtitleStore subtitleStore,
+                                      Scheduler modelScheduler,
+                                      SseChunkCoalescer chunkCoalescer) {
+        this.videoService = videoService;
+        this.intentClassificationService = intentClassificationService;
+        this.promptOptimizeService = promptOptimizeService;
+        this.subtitleStore = subtitleStore;
+        this.modelScheduler = modelScheduler;
+        this.chunkCoalescer = chunkCoalescer;
+    }
+
+    /**
+     * 上传字幕文件
+     */
+    @PostMapping("/upload")
+    public Mono<VideoResponse> upload(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "useSample", required = false) Boolean useSample) {
+
+        if (Boolean.TRUE.equals(useSample)) {
+            return Mono.fromCallable(() -> subtitleStore.save(VideoApiController.loadSampleSubtitle()))
+                .map(session -> VideoApiController.uploadSuccess("sample.srt (示例)", session));
+        }
+        if (file.isEmpty()) {
+            return Mono.just(VideoResponse.error("请选择文件或使用示例字幕"));
+        }
+        return Mono.fromCallable(() -> subtitleStore.save(file.getInputStream()))
+            .map(session -> VideoApiController.uploadSuccess(file.getOriginalFilename(), session));
+    }
+
+    /**
+     * 获取上传的字幕内容（用于示例字幕或直接提交内容）
+     */
+    @PostMapping("/upload/content")
+    public Mono<VideoResponse> uploadWithContent(@RequestBody(required = false) String content) {
+        String resolved = content == null || content.isEmpty() ? VideoApiController.loadSampleSubtitle() : content;
+        return Mono.fromCallable(() -> {
+            SubtitleSession session = subtitleStore.save(resolved);
+            VideoResponse response = VideoResponse.success("字幕加载成功", resolved);
+            response.setSubtitleId(session.getId());
+            response.setData(VideoApiController.stats(session));
+            return response;
+        });
+    }
+
+    /**
+     * 生成视频摘要
+     */
+    @PostMapping("/summarize")
+    public Mono<VideoResponse> summarize(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return session(subtitleId, subtitleContent)
+            .flatMap(session -> videoService.summarizeAsync(session, null))
+            .map(VideoResponse::success)
+            .onErrorResume(e -> error("生成摘要失败", e));
+    }
+
+    /**
+     * 基础问答
+     */
+    @PostMapping("/chat")
+    public Mono<VideoResponse> chat(@RequestBody ChatRequest request) {
+        return session(request.getSubtitleId(), request.getSubtitleContent())
+            .flatMap(session -> videoService.chatAsync(session, request.getQuestion(), null))
+            .map(VideoResponse::success)
+            .onErrorResume(e -> error("问答失败", e));
+    }
+
+    /**
+     * 提取知识概念
+     */
+    @PostMapping("/extract")
+    public Mono<VideoResponse> extractConcepts(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return session(subtitleId, subtitleContent)
+            .flatMap(session -> videoService.extractConceptsAsync(session, null))
+            .map(VideoResponse::success)
+            .onErrorResume(e -> error("提取知识点失败", e));
+    }
+
+    /**
+     * 提取金句
+     */
+    @PostMapping("/quotes")
+    public Mono<VideoResponse> extractQuotes(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return session(subtitleId, subtitleContent)
+            .flatMap(session -> videoService.extractQuotesAsync(session, null))
+            .map(VideoResponse::success)
+            .onErrorResume(e -> error("提取金句失败", e));
+    }
+
+    /**
+     * 完整分析：总结、知识点、金句一次生成
+     * 合并输出需要整体解析后拆分，以同步调用放到模型调度器上执行
+     */
+    @PostMapping("/analyze")
+    public Mono<VideoResponse> analyzeAll(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return session(subtitleId, subtitleContent)
+            .flatMap(session -> Mono.fromCallable(() -> videoService.analyzeAll(session, null))
+                .subscribeOn(modelScheduler))
+            .map(VideoResponse::successWithData)
+            .onErrorResume(e -> error("完整分析失败", e));
+    }
+
+    /**
+     * 关键词搜索
+     */
+    @PostMapping("/search")
+    public Mono<VideoResponse> searchKeyword(@RequestBody SearchRequest request) {
+        return session(request.getSubtitleId(), request.getSubtitleContent())
+            .flatMap(session -> videoService.searchKeywordAsync(session, request.getKeyword(), null))
+            .map(VideoResponse::success)
+            .onErrorResume(e -> error("搜索失败", e));
+    }
+
+    /**
+     * 智能问答（自动意图分类）
+     */
+    @PostMapping("/ask")
+    public Mono<SmartAskResponse> smartAsk(
+            @RequestBody ChatRequest request,
+            @RequestParam(value = "debug", required = false, defaultValue = "false") Boolean debug) {
+        Mono<String> answer = session(request.getSubtitleId(), request.getSubtitleContent())
+            .flatMap(session -> videoService.smartAskAsync(session, request.getQuestion(), null));
+
+        Mono<SmartAskResponse> response = Boolean.TRUE.equals(debug)
+            ? answer.flatMap(content -> Mono.fromCallable(() -> {
+                    IntentResult intentResult = intentClassificationService
+                        .classifyIntentWithCache(request.getQuestion());
+                    return new SmartAskResponse(
+                        intentResult.getIntent().name(),
+                        intentResult.getConfidence(),
+                        content);
+                }).subscribeOn(modelScheduler))
+            : answer.map(SmartAskResponse::new);
+
+        return response.onErrorResume(e -> !(e instanceof ModelOverloadedException), e -> {
+            log.error("智能问答失败", e);
+            SmartAskResponse failed = new SmartAskResponse();
+            failed.setContent("智能问答失败: " + e.getMessage());
+            return Mono.just(failed);
+        });
+    }
+
+    /**
+     * 流式智能问答（SSE）- POST 版本，支持长字幕内容
+     */
+    @PostMapping(value = "/stream/ask", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> smartAskStream(@RequestBody ChatRequest request) {
+        return session(request.getSubtitleId(), request.getSubtitleContent())
+            .flatMapMany(session -> videoService.smartAskStream(session, request.getQuestion(), null))
+            .transform(chunkCoalescer::coalesce)
+            .map(frame -> ServerSentEvent.builder(frame).build())
+            .onErrorResume(error -> {
+                log.error("SSE error", error);
+                return Mono.just(ServerSentEvent.builder("生成失败: " + error.getMessage())
+                    .event("error")
+                    .build());
+            });
+    }
+
+    /**
+     * 流式提取知识概念（SSE）：每个概念解析完成即以 concept 事件推送
+     */
+    @PostMapping(value = "/stream/extract", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> extractConceptsStream(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return elementEvents("concept", session(subtitleId, subtitleContent)
+            .flatMapMany(session -> videoService.extractConceptsStream(session, null)));
+    }
+
+    /**
+     * 流式提取金句（SSE）：每条金句解析完成即以 quote 事件推送
+     */
+    @PostMapping(value = "/stream/quotes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> extractQuotesStream(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return elementEvents("quote", session(subtitleId, subtitleContent)
+            .flatMapMany(session -> videoService.extractQuotesStream(session, null)));
+    }
+
+    /**
+     * 元素以 JSON 数据的命名事件推送，失败时推送 error 事件
+     */
+    private static Flux<ServerSentEvent<Object>> elementEvents(String eventName, Flux<?> elements) {
+        return elements
+            .map(element -> ServerSentEvent.<Object>builder(element).event(eventName).build())
+            .onErrorResume(error -> {
+                log.error("SSE error", error);
+                return Mono.just(ServerSentEvent.<Object>builder("提取失败: " + error.getMessage())
+                    .event("error")
+                    .build());
+            });
+    }
+
+    /**
+     * 估算一次请求的 token 数与费用，不调用模型
+     * intent 为空时按问题用本地规则判断意图
+     */
+    @PostMapping("/estimate")
+    public Mono<VideoResponse> estimate(
+            @RequestBody ChatRequest request,
+            @RequestParam(value = "intent", required = false) UserIntent intent) {
+        return session(request.getSubtitleId(), request.getSubtitleContent())
+            .map(session -> videoService.estimateTokens(session, request.getQuestion(), intent, null))
+            .map(VideoResponse::successWithData)
+            .onErrorResume(e -> error("估算失败", e));
+    }
+
+    /**
+     * 意图分类来源统计（本地规则 / LLM / 缓存）
+     */
+    @GetMapping("/intent/stats")
+    public Mono<VideoResponse> intentStats() {
+        return Mono.fromSupplier(() -> VideoResponse.successWithData(intentClassificationService.getStats()));
+    }
+
+    /**
+     * 智能问答推测执行命中统计
+     */
+    @GetMapping("/speculation/stats")
+    public Mono<VideoResponse> speculationStats() {
+        return Mono.fromSupplier(() -> VideoResponse.successWithData(videoService.getSpeculationStats()));
+    }
+
+    /**
+     * Prompt 优化
+     * 优化服务内部是多轮同步模型调用，放到模型调度器上执行
+     */
+    @PostMapping("/prompt/optimize")
+    public Mono<VideoResponse> optimizePrompt(@Valid @RequestBody PromptOptimizeRequest request) {
+        return Mono.fromCallable(() -> promptOptimizeService.optimize(request))
+            .subscribeOn(modelScheduler)
+            .map(VideoResponse::successWithData)
+            .onErrorResume(e -> error("优化失败", e));
+    }
+
+    /**
+     * 按 subtitleId 取回字幕会话，未提供时保存请求中的字幕内容
+     * 字幕失效等错误延迟到订阅时抛出，由各接口统一转换为错误响应
+     */
+    private Mono<SubtitleSession> session(String subtitleId, String subtitleContent) {
+        return Mono.fromCallable(() -> subtitleId != null
+            ? subtitleStore.get(subtitleId)
+            : subtitleStore.save(subtitleContent));
+    }
+
+    /**
+     * 失败响应；模型并发已满的异常原样传出，由 {@link ApiExceptionHandler} 返回 429
+     */
+    private static Mono<VideoResponse> error(String message, Throwable e) {
+        if (e instanceof ModelOverloadedException) {
+            return Mono.error(e);
+        }
+        log.error(message, e);
+        return Mono.just(VideoResponse.error(message + ": " + e.getMessage()));
+    }
+}
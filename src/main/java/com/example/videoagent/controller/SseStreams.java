@@ -0,0 +1,77 @@
+package com.example.videoagent.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Servlet 控制器共用的 SSE 推送：把 Flux 逐个写到 SseEmitter
+ * 订阅随连接结束（完成、超时、客户端断开）一并取消，无人接收时模型流不再继续生成、不再占用调度与并发名额
+ */
+final class SseStreams {
+
+    private static final Logger log = LoggerFactory.getLogger(SseStreams.class);
+
+    private static final long TIMEOUT_MILLIS = 60_000L;
+
+    private SseStreams() {
+    }
+
+    /**
+     * 在模型调度器上逐个写出事件，失败时推送 error 事件
+     */
+    static <T> SseEmitter stream(Flux<T> source, Function<T, SseEmitter.SseEventBuilder> toEvent,
+                                 String errorPrefix, Scheduler scheduler) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+        Disposable.Swap subscription = Disposables.swap();
+
+        emitter.onTimeout(() -> {
+            log.info("SSE connection timeout");
+            subscription.dispose();
+            emitter.complete();
+        });
+        emitter.onError(e -> {
+            log.error("SSE error", e);
+            subscription.dispose();
+        });
+        emitter.onCompletion(subscription::dispose);
+
+        subscription.update(source
+            .publishOn(scheduler, 1)
+            .subscribe(
+                item -> send(emitter, toEvent.apply(item)),
+                error -> {
+                    try {
+                        emitter.send(SseEmitter.event()
+                            .name("error")
+                            .data(errorPrefix + ": " + error.getMessage()));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException ignored) {
+                        // 连接已断开或已结束
+                    }
+                },
+                emitter::complete));
+
+        return emitter;
+    }
+
+    /**
+     * 写出单个事件；连接已断开（IOException）或已结束（IllegalStateException）时抛出，由订阅转为错误并取消上游
+     */
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw Exceptions.propagate(e);
+        }
+    }
+}
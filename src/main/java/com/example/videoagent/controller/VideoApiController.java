@@ -3,31 +3,47 @@ package com.example.videoagent.controller;
 import com.example.videoagent.dto.ChatRequest;
 import com.example.videoagent.dto.Concept;
 import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.IntentStats;
 import com.example.videoagent.dto.PromptOptimizeRequest;
 import com.example.videoagent.dto.PromptOptimizeResponse;
 import com.example.videoagent.dto.SearchRequest;
 import com.example.videoagent.dto.SmartAskResponse;
+import com.example.videoagent.dto.SpeculationStats;
+import com.example.videoagent.dto.SubtitleStats;
+import com.example.videoagent.dto.TokenEstimate;
 import com.example.videoagent.dto.VideoResponse;
+import com.example.videoagent.enums.UserIntent;
 import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelOverloadedException;
 import com.example.videoagent.service.PromptOptimizeService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
 import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.SubtitleSession;
 import jakarta.validation.Valid;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * /api 接口的 Servlet 实现：请求线程同步等待模型结果，流式问答通过 SseEmitter 推送
+ * video-agent.web.reactive=true 时由 {@link ReactiveVideoApiController} 替代
+ */
 @RestController
 @RequestMapping("/api")
+@ConditionalOnProperty(prefix = "video-agent.web", name = "reactive", havingValue = "false", matchIfMissing = true)
 public class VideoApiController {
 
     private static final Logger log = LoggerFactory.getLogger(VideoApiController.class);
@@ -35,38 +51,48 @@ public class VideoApiController {
     private final VideoService videoService;
     private final IntentClassificationService intentClassificationService;
     private final PromptOptimizeService promptOptimizeService;
+    private final SubtitleStore subtitleStore;
+    private final Scheduler modelScheduler;
+    private final SseChunkCoalescer chunkCoalescer;
 
     public VideoApiController(VideoService videoService,
                               IntentClassificationService intentClassificationService,
-                              PromptOptimizeService promptOptimizeService) {
+                              PromptOptimizeService promptOptimizeService,
+                              SubtitleStore subtitleStore,
+                              Scheduler modelScheduler,
+                              SseChunkCoalescer chunkCoalescer) {
         this.videoService = videoService;
         this.intentClassificationService = intentClassificationService;
         this.promptOptimizeService = promptOptimizeService;
+        this.subtitleStore = subtitleStore;
+        this.modelScheduler = modelScheduler;
+        this.chunkCoalescer = chunkCoalescer;
     }
 
     /**
      * 上传字幕文件
+     * 字幕保存在服务端，返回的 subtitleId 用于后续所有分析请求；文件以流的方式解码，支持 UTF-8 / UTF-16 / GBK
      */
     @PostMapping("/upload")
     public VideoResponse upload(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "useSample", required = false) Boolean useSample) throws IOException {
 
-        String content;
+        SubtitleSession session;
         String fileName;
 
         if (Boolean.TRUE.equals(useSample)) {
-            content = loadSampleSubtitle();
+            session = subtitleStore.save(loadSampleSubtitle());
             fileName = "sample.srt (示例)";
         } else {
             if (file.isEmpty()) {
                 return VideoResponse.error("请选择文件或使用示例字幕");
             }
-            content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            session = subtitleStore.save(file.getInputStream());
             fileName = file.getOriginalFilename();
         }
 
-        return VideoResponse.uploadSuccess(fileName, content.length());
+        return uploadSuccess(fileName, session);
     }
 
     /**
@@ -77,10 +103,27 @@ public class VideoApiController {
         if (content == null || content.isEmpty()) {
             content = loadSampleSubtitle();
         }
-        return VideoResponse.success("字幕加载成功", content);
+        SubtitleSession session = subtitleStore.save(content);
+        VideoResponse response = VideoResponse.success("字幕加载成功", content);
+        response.setSubtitleId(session.getId());
+        response.setData(stats(session));
+        return response;
+    }
+
+    /**
+     * 上传成功响应，data 中附带压缩前后的 token 估算
+     */
+    static VideoResponse uploadSuccess(String fileName, SubtitleSession session) {
+        VideoResponse response = VideoResponse.uploadSuccess(fileName, session.getContentLength(), session.getId());
+        response.setData(stats(session));
+        return response;
+    }
+
+    static SubtitleStats stats(SubtitleSession session) {
+        return new SubtitleStats(session.getCues().size(), session.getRawEstimatedTokens(), session.getEstimatedTokens());
     }
 
-    private String loadSampleSubtitle() {
+    static String loadSampleSubtitle() {
         return """
                 1
                 00:00:00,000 --> 00:00:05,000
@@ -137,13 +180,16 @@ public class VideoApiController {
      * 生成视频摘要
      */
     @PostMapping("/summarize")
-    public VideoResponse summarize(@RequestBody String subtitleContent) {
+    public VideoResponse summarize(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
         try {
-            String summary = videoService.summarize(subtitleContent);
+            String summary = subtitleId != null
+                ? videoService.summarize(subtitleStore.get(subtitleId), null)
+                : videoService.summarize(subtitleContent);
             return VideoResponse.success(summary);
         } catch (Exception e) {
-            log.error("生成摘要失败", e);
-            return VideoResponse.error("生成摘要失败: " + e.getMessage());
+            return error("生成摘要失败", e);
         }
     }
 
@@ -153,11 +199,12 @@ public class VideoApiController {
     @PostMapping("/chat")
     public VideoResponse chat(@RequestBody ChatRequest request) {
         try {
-            String answer = videoService.chat(request.getSubtitleContent(), request.getQuestion());
+            String answer = request.getSubtitleId() != null
+                ? videoService.chat(subtitleStore.get(request.getSubtitleId()), request.getQuestion(), null)
+                : videoService.chat(request.getSubtitleContent(), request.getQuestion());
             return VideoResponse.success(answer);
         } catch (Exception e) {
-            log.error("问答失败", e);
-            return VideoResponse.error("问答失败: " + e.getMessage());
+            return error("问答失败", e);
         }
     }
 
@@ -165,13 +212,16 @@ public class VideoApiController {
      * 提取知识概念
      */
     @PostMapping("/extract")
-    public VideoResponse extractConcepts(@RequestBody String subtitleContent) {
+    public VideoResponse extractConcepts(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
         try {
-            String jsonResponse = videoService.extractConcepts(subtitleContent);
+            String jsonResponse = subtitleId != null
+                ? videoService.extractConcepts(subtitleStore.get(subtitleId), null)
+                : videoService.extractConcepts(subtitleContent);
             return VideoResponse.success(jsonResponse);
         } catch (Exception e) {
-            log.error("提取知识点失败", e);
-            return VideoResponse.error("提取知识点失败: " + e.getMessage());
+            return error("提取知识点失败", e);
         }
     }
 
@@ -179,13 +229,30 @@ public class VideoApiController {
      * 提取金句
      */
     @PostMapping("/quotes")
-    public VideoResponse extractQuotes(@RequestBody String subtitleContent) {
+    public VideoResponse extractQuotes(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
         try {
-            String jsonResponse = videoService.extractQuotes(subtitleContent);
+            String jsonResponse = subtitleId != null
+                ? videoService.extractQuotes(subtitleStore.get(subtitleId), null)
+                : videoService.extractQuotes(subtitleContent);
             return VideoResponse.success(jsonResponse);
         } catch (Exception e) {
-            log.error("提取金句失败", e);
-            return VideoResponse.error("提取金句失败: " + e.getMessage());
+            return error("提取金句失败", e);
+        }
+    }
+
+    /**
+     * 完整分析：总结、知识点、金句一次生成
+     */
+    @PostMapping("/analyze")
+    public VideoResponse analyzeAll(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        try {
+            return VideoResponse.successWithData(videoService.analyzeAll(session(subtitleId, subtitleContent), null));
+        } catch (Exception e) {
+            return error("完整分析失败", e);
         }
     }
 
@@ -195,12 +262,12 @@ public class VideoApiController {
     @PostMapping("/search")
     public VideoResponse searchKeyword(@RequestBody SearchRequest request) {
         try {
-            String jsonResponse = videoService.searchKeyword(
-                request.getSubtitleContent(), request.getKeyword());
+            String jsonResponse = request.getSubtitleId() != null
+                ? videoService.searchKeyword(subtitleStore.get(request.getSubtitleId()), request.getKeyword(), null)
+                : videoService.searchKeyword(request.getSubtitleContent(), request.getKeyword());
             return VideoResponse.success(jsonResponse);
         } catch (Exception e) {
-            log.error("搜索失败", e);
-            return VideoResponse.error("搜索失败: " + e.getMessage());
+            return error("搜索失败", e);
         }
     }
 
@@ -212,8 +279,9 @@ public class VideoApiController {
             @RequestBody ChatRequest request,
             @RequestParam(value = "debug", required = false, defaultValue = "false") Boolean debug) {
         try {
-            String answer = videoService.smartAsk(
-                request.getSubtitleContent(), request.getQuestion());
+            String answer = request.getSubtitleId() != null
+                ? videoService.smartAsk(subtitleStore.get(request.getSubtitleId()), request.getQuestion(), null)
+                : videoService.smartAsk(request.getSubtitleContent(), request.getQuestion());
 
             if (Boolean.TRUE.equals(debug)) {
                 IntentResult intentResult = intentClassificationService
@@ -224,6 +292,8 @@ public class VideoApiController {
                     answer);
             }
             return new SmartAskResponse(answer);
+        } catch (ModelOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("智能问答失败", e);
             SmartAskResponse response = new SmartAskResponse();
@@ -237,37 +307,102 @@ public class VideoApiController {
      */
     @PostMapping(value = "/stream/ask", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter smartAskStream(@RequestBody ChatRequest request) {
+        // 逐帧请求：写出阻塞时积压留在合并器的有界缓冲中
+        return SseStreams.stream(
+            openAskStream(request).transform(chunkCoalescer::coalesce),
+            frame -> SseEmitter.event().data(frame),
+            "生成失败",
+            modelScheduler);
+    }
+
+    /**
+     * 打开智能问答流，字幕失效等错误以 error 事件的形式推送给客户端
+     */
+    private Flux<String> openAskStream(ChatRequest request) {
+        try {
+            return request.getSubtitleId() != null
+                ? videoService.smartAskStream(subtitleStore.get(request.getSubtitleId()), request.getQuestion(), null)
+                : videoService.smartAskStream(request.getSubtitleContent(), request.getQuestion());
+        } catch (IllegalArgumentException e) {
+            return Flux.error(e);
+        }
+    }
+
+    /**
+     * 流式提取知识概念（SSE）：每个概念解析完成即以 concept 事件推送
+     */
+    @PostMapping(value = "/stream/extract", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter extractConceptsStream(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return elementStream("concept", () -> videoService.extractConceptsStream(
+            session(subtitleId, subtitleContent), null));
+    }
+
+    /**
+     * 流式提取金句（SSE）：每条金句解析完成即以 quote 事件推送
+     */
+    @PostMapping(value = "/stream/quotes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter extractQuotesStream(
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestBody(required = false) String subtitleContent) {
+        return elementStream("quote", () -> videoService.extractQuotesStream(
+            session(subtitleId, subtitleContent), null));
+    }
+
+    /**
+     * 把元素流逐个以 JSON 数据的命名事件推送，失败时推送 error 事件
+     */
+    private <T> SseEmitter elementStream(String eventName, Supplier<Flux<T>> elements) {
+        return SseStreams.stream(
+            Flux.defer(elements),
+            element -> SseEmitter.event().name(eventName).data(element, MediaType.APPLICATION_JSON),
+            "提取失败",
+            modelScheduler);
+    }
+
+    /**
+     * 按 subtitleId 取回字幕会话，未提供时保存请求中的字幕内容
+     */
+    private SubtitleSession session(String subtitleId, String subtitleContent) {
+        return subtitleId != null ? subtitleStore.get(subtitleId) : subtitleStore.save(subtitleContent);
+    }
+
+    /**
+     * 估算一次请求的 token 数与费用，不调用模型
+     * intent 为空时按问题用本地规则判断意图
+     */
+    @PostMapping("/estimate")
+    public VideoResponse estimate(
+            @RequestBody ChatRequest request,
+            @RequestParam(value = "intent", required = false) UserIntent intent) {
+        try {
+            SubtitleSession session = request.getSubtitleId() != null
+                ? subtitleStore.get(request.getSubtitleId())
+                : subtitleStore.save(request.getSubtitleContent());
+            TokenEstimate estimate = videoService.estimateTokens(session, request.getQuestion(), intent, null);
+            return VideoResponse.successWithData(estimate);
+        } catch (Exception e) {
+            return error("估算失败", e);
+        }
+    }
+
+    /**
+     * 意图分类来源统计（本地规则 / LLM / 缓存）
+     */
+    @GetMapping("/intent/stats")
+    public VideoResponse intentStats() {
+        IntentStats stats = intentClassificationService.getStats();
+        return VideoResponse.successWithData(stats);
+    }
 
-        SseEmitter emitter = new SseEmitter(60_000L);
-
-        emitter.onTimeout(() -> {
-            log.info("SSE connection timeout");
-            emitter.complete();
-        });
-
-        emitter.onError(e -> log.error("SSE error", e));
-
-        videoService.smartAskStream(request.getSubtitleContent(), request.getQuestion())
-            .publishOn(Schedulers.boundedElastic())
-            .doOnNext(chunk -> {
-                try {
-                    emitter.send(SseEmitter.event().data(chunk));
-                } catch (IOException e) {
-                    emitter.completeWithError(e);
-                }
-            })
-            .doOnComplete(emitter::complete)
-            .doOnError(error -> {
-                try {
-                    emitter.send(SseEmitter.event()
-                        .name("error")
-                        .data("生成失败: " + error.getMessage()));
-                    emitter.complete();
-                } catch (IOException ignored) {}
-            })
-            .subscribe();
-
-        return emitter;
+    /**
+     * 智能问答推测执行命中统计
+     */
+    @GetMapping("/speculation/stats")
+    public VideoResponse speculationStats() {
+        SpeculationStats stats = videoService.getSpeculationStats();
+        return VideoResponse.successWithData(stats);
     }
 
     /**
@@ -279,8 +414,18 @@ public class VideoApiController {
             PromptOptimizeResponse result = promptOptimizeService.optimize(request);
             return VideoResponse.successWithData(result);
         } catch (Exception e) {
-            log.error("Prompt 优化失败", e);
-            return VideoResponse.error("优化失败: " + e.getMessage());
+            return error("优化失败", e);
+        }
+    }
+
+    /**
+     * 失败响应；模型并发已满的异常继续抛出，由 {@link ApiExceptionHandler} 返回 429
+     */
+    private static VideoResponse error(String message, Exception e) {
+        if (e instanceof ModelOverloadedException overloaded) {
+            throw overloaded;
         }
+        log.error(message, e);
+        return VideoResponse.error(message + ": " + e.getMessage());
     }
 }
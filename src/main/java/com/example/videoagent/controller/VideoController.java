@@ -5,36 +5,45 @@ import com.example.videoagent.dto.Concept;
 import com.example.videoagent.dto.IntentResult;
 import com.example.videoagent.dto.VideoResponse;
 import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
+import com.example.videoagent.service.SubtitleTooLargeException;
 import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.SubtitleSession;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Controller
 @RequestMapping("/")
 public class VideoController {
 
-    private static final Logger log = LoggerFactory.getLogger(VideoController.class);
-
     private final VideoService videoService;
+    private final SubtitleStore subtitleStore;
     private final IntentClassificationService intentClassificationService;
+    private final Scheduler modelScheduler;
+    private final SseChunkCoalescer chunkCoalescer;
 
     public VideoController(VideoService videoService,
-                          IntentClassificationService intentClassificationService) {
+                          SubtitleStore subtitleStore,
+                          IntentClassificationService intentClassificationService,
+                          Scheduler modelScheduler,
+                          SseChunkCoalescer chunkCoalescer) {
         this.videoService = videoService;
+        this.subtitleStore = subtitleStore;
         this.intentClassificationService = intentClassificationService;
+        this.modelScheduler = modelScheduler;
+        this.chunkCoalescer = chunkCoalescer;
     }
 
     @GetMapping
@@ -42,51 +51,61 @@ public class VideoController {
         return "index";
     }
 
+    /**
+     * 上传字幕
+     * 字幕以流的方式保存到服务端，页面只携带 subtitleId，不把整份字幕回显到表单中
+     */
     @PostMapping("/upload")
     public String uploadSubtitle(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "useSample", required = false) Boolean useSample,
             Model model) throws IOException {
 
-        String content;
+        SubtitleSession session;
         String fileName;
 
         if (Boolean.TRUE.equals(useSample)) {
-            content = loadSampleSubtitle();
+            session = subtitleStore.save(loadSampleSubtitle());
             fileName = "sample.srt (示例)";
         } else {
             if (file.isEmpty()) {
                 model.addAttribute("error", "请选择文件或使用示例字幕");
                 return "index";
             }
-            content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            try {
+                session = subtitleStore.save(file.getInputStream());
+            } catch (SubtitleTooLargeException e) {
+                model.addAttribute("error", e.getMessage());
+                return "index";
+            }
             fileName = file.getOriginalFilename();
         }
 
         model.addAttribute("subtitleLoaded", true);
         model.addAttribute("fileName", fileName);
-        model.addAttribute("charCount", content.length());
-        model.addAttribute("subtitleContent", content);
+        model.addAttribute("charCount", session.getContentLength());
+        model.addAttribute("subtitleId", session.getId());
 
         return "index";
     }
 
     @PostMapping("/summarize")
     public String summarize(
-            @RequestParam("subtitleContent") String subtitleContent,
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestParam(value = "subtitleContent", required = false) String subtitleContent,
             @RequestParam(value = "promptVersion", required = false) String promptVersion,
             Model model) {
 
         try {
-            String summary = videoService.summarize(subtitleContent, promptVersion);
+            String summary = subtitleId != null
+                ? videoService.summarize(subtitleStore.get(subtitleId), promptVersion)
+                : videoService.summarize(subtitleContent, promptVersion);
 
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
             model.addAttribute("summary", summary);
         } catch (Exception e) {
             model.addAttribute("error", "生成总结失败: " + e.getMessage());
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
         }
 
         return "index";
@@ -94,27 +113,40 @@ public class VideoController {
 
     @PostMapping("/chat")
     public String chat(
-            @RequestParam("subtitleContent") String subtitleContent,
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestParam(value = "subtitleContent", required = false) String subtitleContent,
             @RequestParam("question") String question,
             @RequestParam(value = "promptVersion", required = false) String promptVersion,
             Model model) {
 
         try {
-            String answer = videoService.chat(subtitleContent, question, promptVersion);
+            String answer = subtitleId != null
+                ? videoService.chat(subtitleStore.get(subtitleId), question, promptVersion)
+                : videoService.chat(subtitleContent, question, promptVersion);
 
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
             model.addAttribute("question", question);
             model.addAttribute("answer", answer);
         } catch (Exception e) {
             model.addAttribute("error", "问答失败: " + e.getMessage());
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
         }
 
         return "index";
     }
 
+    /**
+     * 页面继续携带当前字幕：上传的字幕只回传 subtitleId，直接提交内容的旧表单回传原内容
+     */
+    private static void keepSubtitle(Model model, String subtitleId, String subtitleContent) {
+        model.addAttribute("subtitleLoaded", true);
+        if (subtitleId != null) {
+            model.addAttribute("subtitleId", subtitleId);
+        } else {
+            model.addAttribute("subtitleContent", subtitleContent);
+        }
+    }
+
     private String loadSampleSubtitle() {
         return """
                 1
@@ -173,12 +205,15 @@ public class VideoController {
      */
     @PostMapping("/extract")
     public String extractConcepts(
-            @RequestParam("subtitleContent") String subtitleContent,
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestParam(value = "subtitleContent", required = false) String subtitleContent,
             @RequestParam(value = "promptVersion", required = false) String promptVersion,
             Model model) {
 
         try {
-            String jsonResponse = videoService.extractConcepts(subtitleContent, promptVersion);
+            String jsonResponse = subtitleId != null
+                ? videoService.extractConcepts(subtitleStore.get(subtitleId), promptVersion)
+                : videoService.extractConcepts(subtitleContent, promptVersion);
 
             // 解析 JSON 为 List<Concept>
             ObjectMapper mapper = new ObjectMapper();
@@ -186,22 +221,20 @@ public class VideoController {
             List<Concept> concepts = mapper.readValue(jsonArray,
                     new TypeReference<List<Concept>>(){});
 
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
             model.addAttribute("concepts", concepts);
         } catch (Exception e) {
             model.addAttribute("error", "提取知识点失败: " + e.getMessage());
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
         }
 
         return "index";
     }
 
     /**
-     * 从 AI 响应中提取 JSON 数组
+     * 从 AI 响应中提取 JSON 数组（包可见，供基准测试使用）
      */
-    private String extractJsonArray(String response) {
+    static String extractJsonArray(String response) {
         int start = response.indexOf('[');
         int end = response.lastIndexOf(']');
         if (start >= 0 && end > start) {
@@ -216,7 +249,8 @@ public class VideoController {
      */
     @PostMapping("/ask")
     public String smartAsk(
-            @RequestParam("subtitleContent") String subtitleContent,
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestParam(value = "subtitleContent", required = false) String subtitleContent,
             @RequestParam("question") String question,
             @RequestParam(value = "debug", required = false, defaultValue = "false") Boolean debug,
             @RequestParam(value = "promptVersion", required = false) String promptVersion,
@@ -224,10 +258,11 @@ public class VideoController {
 
         try {
             // 执行智能问答
-            String answer = videoService.smartAsk(subtitleContent, question, promptVersion);
+            String answer = subtitleId != null
+                ? videoService.smartAsk(subtitleStore.get(subtitleId), question, promptVersion)
+                : videoService.smartAsk(subtitleContent, question, promptVersion);
 
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
             model.addAttribute("smartQuestion", question);
             model.addAttribute("smartAnswer", answer);
 
@@ -239,8 +274,7 @@ public class VideoController {
             }
         } catch (Exception e) {
             model.addAttribute("error", "智能问答失败: " + e.getMessage());
-            model.addAttribute("subtitleLoaded", true);
-            model.addAttribute("subtitleContent", subtitleContent);
+            keepSubtitle(model, subtitleId, subtitleContent);
         }
 
         return "index";
@@ -252,42 +286,20 @@ public class VideoController {
      */
     @GetMapping(value = "/stream/ask", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter smartAskStream(
-            @RequestParam("subtitleContent") String subtitleContent,
+            @RequestParam(value = "subtitleId", required = false) String subtitleId,
+            @RequestParam(value = "subtitleContent", required = false) String subtitleContent,
             @RequestParam("question") String question,
             @RequestParam(value = "promptVersion", required = false) String promptVersion) {
 
-        SseEmitter emitter = new SseEmitter(60_000L); // 60秒超时
-
-        // 超时处理
-        emitter.onTimeout(() -> {
-            log.info("SSE connection timeout");
-            emitter.complete();
-        });
-
-        // 异常处理
-        emitter.onError(e -> log.error("SSE error", e));
-
-        // 订阅 Flux 流并推送到 SseEmitter
-        videoService.smartAskStream(subtitleContent, question, promptVersion)
-            .publishOn(Schedulers.boundedElastic())
-            .doOnNext(chunk -> {
-                try {
-                    emitter.send(SseEmitter.event().data(chunk));
-                } catch (IOException e) {
-                    emitter.completeWithError(e);
-                }
-            })
-            .doOnComplete(emitter::complete)
-            .doOnError(error -> {
-                try {
-                    emitter.send(SseEmitter.event()
-                        .name("error")
-                        .data("生成失败: " + error.getMessage()));
-                    emitter.complete();
-                } catch (IOException ignored) {}
-            })
-            .subscribe();
-
-        return emitter;
+        // 分块合并成帧后推送，逐帧请求：写出阻塞时积压留在合并器的有界缓冲中
+        // 字幕已过期等错误同样以 error 事件推送；连接结束即取消模型流
+        return SseStreams.stream(
+            Flux.defer(() -> subtitleId != null
+                ? videoService.smartAskStream(subtitleStore.get(subtitleId), question, promptVersion)
+                : videoService.smartAskStream(subtitleContent, question, promptVersion))
+                .transform(chunkCoalescer::coalesce),
+            frame -> SseEmitter.event().data(frame),
+            "生成失败",
+            modelScheduler);
     }
 }
@@ -0,0 +1,61 @@
+package com.example.videoagent.dto;
+
+import com.example.videoagent.enums.BatchTaskState;
+
+import java.util.Map;
+
+/**
+ * 批量任务中单个视频的分析进度
+ */
+public class BatchItemStatus {
+
+    // 视频在任务中的序号，从 0 开始
+    private int index;
+    // 字幕文件名（目录提交时为相对路径）
+    private String name;
+    // 分析名称（summarize / extract-concepts / extract-quotes）-> 状态
+    private Map<String, BatchTaskState> tasks;
+    // 失败的分析 -> 错误信息
+    private Map<String, String> errors;
+
+    public BatchItemStatus() {}
+
+    public BatchItemStatus(int index, String name, Map<String, BatchTaskState> tasks, Map<String, String> errors) {
+        this.index = index;
+        this.name = name;
+        this.tasks = tasks;
+        this.errors = errors;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, BatchTaskState> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(Map<String, BatchTaskState> tasks) {
+        this.tasks = tasks;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.videoagent.dto;
+
+import java.util.List;
+
+/**
+ * 批量分析任务的进度
+ */
+public class BatchJobStatus {
+
+    private String id;
+    // 创建时间（毫秒时间戳）
+    private long createdAt;
+    // 是否正在执行；服务重启后未完成的任务为 false，可继续执行
+    private boolean running;
+    // 分析总数（视频数 × 3）
+    private int totalTasks;
+    private int doneTasks;
+    private int failedTasks;
+    private List<BatchItemStatus> items;
+
+    public BatchJobStatus() {}
+
+    public BatchJobStatus(String id, long createdAt, boolean running, int totalTasks, int doneTasks, int failedTasks,
+                          List<BatchItemStatus> items) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.running = running;
+        this.totalTasks = totalTasks;
+        this.doneTasks = doneTasks;
+        this.failedTasks = failedTasks;
+        this.items = items;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public int getTotalTasks() {
+        return totalTasks;
+    }
+
+    public void setTotalTasks(int totalTasks) {
+        this.totalTasks = totalTasks;
+    }
+
+    public int getDoneTasks() {
+        return doneTasks;
+    }
+
+    public void setDoneTasks(int doneTasks) {
+        this.doneTasks = doneTasks;
+    }
+
+    public int getFailedTasks() {
+        return failedTasks;
+    }
+
+    public void setFailedTasks(int failedTasks) {
+        this.failedTasks = failedTasks;
+    }
+
+    public List<BatchItemStatus> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchItemStatus> items) {
+        this.items = items;
+    }
+}
@@ -5,7 +5,8 @@ package com.example.videoagent.dto;
  */
 public class ChatRequest {
 
-    private String subtitleContent;  // 新增：字幕内容
+    private String subtitleId;       // 已上传字幕的 ID（优先使用）
+    private String subtitleContent;  // 字幕内容（兼容旧客户端）
     private String question;
 
     public ChatRequest() {}
@@ -15,6 +16,14 @@ public class ChatRequest {
         this.question = question;
     }
 
+    public String getSubtitleId() {
+        return subtitleId;
+    }
+
+    public void setSubtitleId(String subtitleId) {
+        this.subtitleId = subtitleId;
+    }
+
     public String getSubtitleContent() {
         return subtitleContent;
     }
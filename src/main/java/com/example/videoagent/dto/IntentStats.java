@@ -0,0 +1,46 @@
+package com.example.videoagent.dto;
+
+/**
+ * 意图分类来源统计
+ */
+public class IntentStats {
+
+    // 前缀规则（/deep）与触发词规则在本地完成的分类次数
+    private long local;
+    // 调用 LLM 完成的分类次数
+    private long remote;
+    // 命中缓存的次数
+    private long cached;
+
+    public IntentStats() {}
+
+    public IntentStats(long local, long remote, long cached) {
+        this.local = local;
+        this.remote = remote;
+        this.cached = cached;
+    }
+
+    public long getLocal() {
+        return local;
+    }
+
+    public void setLocal(long local) {
+        this.local = local;
+    }
+
+    public long getRemote() {
+        return remote;
+    }
+
+    public void setRemote(long remote) {
+        this.remote = remote;
+    }
+
+    public long getCached() {
+        return cached;
+    }
+
+    public void setCached(long cached) {
+        this.cached = cached;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.videoagent.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 关键词搜索结果
+ * 字段与 search-keyword 模板约定的 JSON 输出一致
+ */
+public class KeywordSearchResult {
+
+    private String keyword;
+    private List<Occurrence> occurrences = new ArrayList<>();
+    private String summary;
+
+    public KeywordSearchResult() {}
+
+    public KeywordSearchResult(String keyword, List<Occurrence> occurrences, String summary) {
+        this.keyword = keyword;
+        this.occurrences = occurrences;
+        this.summary = summary;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public List<Occurrence> getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(List<Occurrence> occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * 关键词出现位置
+     */
+    public static class Occurrence {
+
+        private String timestamp;
+        private String context;
+
+        public Occurrence() {}
+
+        public Occurrence(String timestamp, String context) {
+            this.timestamp = timestamp;
+            this.context = context;
+        }
+
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(String timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public String getContext() {
+            return context;
+        }
+
+        public void setContext(String context) {
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.videoagent.dto;
+
+/**
+ * 金句数据传输对象
+ */
+public class Quote {
+
+    private String timestamp;
+    private String quote;
+    private String context;
+
+    public Quote() {}
+
+    public Quote(String timestamp, String quote, String context) {
+        this.timestamp = timestamp;
+        this.quote = quote;
+        this.context = context;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getQuote() {
+        return quote;
+    }
+
+    public void setQuote(String quote) {
+        this.quote = quote;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public void setContext(String context) {
+        this.context = context;
+    }
+}
@@ -5,7 +5,8 @@ package com.example.videoagent.dto;
  */
 public class SearchRequest {
 
-    private String subtitleContent;
+    private String subtitleId;       // 已上传字幕的 ID（优先使用）
+    private String subtitleContent;  // 字幕内容（兼容旧客户端）
     private String keyword;
 
     public SearchRequest() {}
@@ -15,6 +16,14 @@ public class SearchRequest {
         this.keyword = keyword;
     }
 
+    public String getSubtitleId() {
+        return subtitleId;
+    }
+
+    public void setSubtitleId(String subtitleId) {
+        this.subtitleId = subtitleId;
+    }
+
     public String getSubtitleContent() {
         return subtitleContent;
     }
@@ -0,0 +1,43 @@
+package com.example.videoagent.dto;
+
+/**
+ * 推测执行命中统计
+ */
+public class SpeculationStats {
+
+    // 分类结果为 QA，推测的回答被采用
+    private long hits;
+    // 分类结果为其他意图，推测的回答被取消
+    private long misses;
+
+    public SpeculationStats() {}
+
+    public SpeculationStats(long hits, long misses) {
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * 命中率，尚无推测时为 0
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
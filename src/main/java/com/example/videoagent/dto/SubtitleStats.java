@@ -0,0 +1,60 @@
+package com.example.videoagent.dto;
+
+/**
+ * 上传字幕的压缩统计：原始字幕与 Prompt 中实际发送的紧凑字幕的估算 token 数
+ */
+public class SubtitleStats {
+
+    // 解析出的字幕条数，纯文本字幕为 0
+    private int cueCount;
+    // 原始字幕（含 SRT 序号、时间行、空行等）的估算 token 数
+    private int rawTokens;
+    // 紧凑字幕的估算 token 数
+    private int compactTokens;
+
+    public SubtitleStats() {}
+
+    public SubtitleStats(int cueCount, int rawTokens, int compactTokens) {
+        this.cueCount = cueCount;
+        this.rawTokens = rawTokens;
+        this.compactTokens = compactTokens;
+    }
+
+    public int getCueCount() {
+        return cueCount;
+    }
+
+    public void setCueCount(int cueCount) {
+        this.cueCount = cueCount;
+    }
+
+    public int getRawTokens() {
+        return rawTokens;
+    }
+
+    public void setRawTokens(int rawTokens) {
+        this.rawTokens = rawTokens;
+    }
+
+    public int getCompactTokens() {
+        return compactTokens;
+    }
+
+    public void setCompactTokens(int compactTokens) {
+        this.compactTokens = compactTokens;
+    }
+
+    /**
+     * 每次整份发送字幕节省的 token 数
+     */
+    public int getSavedTokens() {
+        return rawTokens - compactTokens;
+    }
+
+    /**
+     * 节省比例，空字幕为 0
+     */
+    public double getSavingRatio() {
+        return rawTokens == 0 ? 0 : (double) getSavedTokens() / rawTokens;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.videoagent.dto;
+
+/**
+ * 调用模型前的 token 与费用估算
+ */
+public class TokenEstimate {
+
+    // 所有模型调用的 Prompt 估算 token 数合计
+    private long promptTokens;
+    // 模型调用次数，分段总结为各分段调用加一次合并调用
+    private int modelCalls;
+    // 输出 token 上限合计（每次调用预留的输出 token × 调用次数）
+    private long maxOutputTokens;
+    // 单次调用允许的最大 Prompt token 数（上下文窗口减去预留输出）
+    private int maxPromptTokens;
+    // 每次调用都在上下文窗口之内
+    private boolean withinWindow;
+    // 是否改走分段总结
+    private boolean mapReduce;
+    // 输入费用（元）
+    private double inputCost;
+    // 输出按上限计的总费用上限（元）
+    private double maxCost;
+
+    public TokenEstimate() {}
+
+    public TokenEstimate(long promptTokens, int modelCalls, long maxOutputTokens, int maxPromptTokens,
+                         boolean withinWindow, boolean mapReduce, double inputCost, double maxCost) {
+        this.promptTokens = promptTokens;
+        this.modelCalls = modelCalls;
+        this.maxOutputTokens = maxOutputTokens;
+        this.maxPromptTokens = maxPromptTokens;
+        this.withinWindow = withinWindow;
+        this.mapReduce = mapReduce;
+        this.inputCost = inputCost;
+        this.maxCost = maxCost;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public int getModelCalls() {
+        return modelCalls;
+    }
+
+    public void setModelCalls(int modelCalls) {
+        this.modelCalls = modelCalls;
+    }
+
+    public long getMaxOutputTokens() {
+        return maxOutputTokens;
+    }
+
+    public void setMaxOutputTokens(long maxOutputTokens) {
+        this.maxOutputTokens = maxOutputTokens;
+    }
+
+    public int getMaxPromptTokens() {
+        return maxPromptTokens;
+    }
+
+    public void setMaxPromptTokens(int maxPromptTokens) {
+        this.maxPromptTokens = maxPromptTokens;
+    }
+
+    public boolean isWithinWindow() {
+        return withinWindow;
+    }
+
+    public void setWithinWindow(boolean withinWindow) {
+        this.withinWindow = withinWindow;
+    }
+
+    public boolean isMapReduce() {
+        return mapReduce;
+    }
+
+    public void setMapReduce(boolean mapReduce) {
+        this.mapReduce = mapReduce;
+    }
+
+    public double getInputCost() {
+        return inputCost;
+    }
+
+    public void setInputCost(double inputCost) {
+        this.inputCost = inputCost;
+    }
+
+    public double getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(double maxCost) {
+        this.maxCost = maxCost;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.videoagent.dto;
+
+/**
+ * 完整分析结果：总结、知识点、金句
+ * 各字段与单项接口的返回格式一致（Markdown 总结、JSON 概念列表、JSON 金句列表）
+ */
+public class VideoAnalysis {
+
+    private String summary;
+    private String concepts;
+    private String quotes;
+
+    public VideoAnalysis() {}
+
+    public VideoAnalysis(String summary, String concepts, String quotes) {
+        this.summary = summary;
+        this.concepts = concepts;
+        this.quotes = quotes;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getConcepts() {
+        return concepts;
+    }
+
+    public void setConcepts(String concepts) {
+        this.concepts = concepts;
+    }
+
+    public String getQuotes() {
+        return quotes;
+    }
+
+    public void setQuotes(String quotes) {
+        this.quotes = quotes;
+    }
+}
@@ -10,6 +10,7 @@ public class VideoResponse {
     private String content;
     private String fileName;
     private int charCount;
+    private String subtitleId;
     private Object data;
 
     public VideoResponse() {}
@@ -41,11 +42,12 @@ public class VideoResponse {
         return response;
     }
 
-    public static VideoResponse uploadSuccess(String fileName, int charCount) {
+    public static VideoResponse uploadSuccess(String fileName, int charCount, String subtitleId) {
         VideoResponse response = new VideoResponse();
         response.setSuccess(true);
         response.setFileName(fileName);
         response.setCharCount(charCount);
+        response.setSubtitleId(subtitleId);
         response.setMessage("字幕上传成功");
         return response;
     }
@@ -91,6 +93,14 @@ public class VideoResponse {
         this.charCount = charCount;
     }
 
+    public String getSubtitleId() {
+        return subtitleId;
+    }
+
+    public void setSubtitleId(String subtitleId) {
+        this.subtitleId = subtitleId;
+    }
+
     public Object getData() {
         return data;
     }
@@ -0,0 +1,11 @@
+package com.example.videoagent.enums;
+
+/**
+ * 批量任务中单项分析（某个视频的总结 / 知识点 / 金句）的状态
+ */
+public enum BatchTaskState {
+    PENDING,  // 等待执行（含服务重启前未完成的分析）
+    RUNNING,  // 正在调用模型
+    DONE,     // 结果已保存
+    FAILED    // 失败，可通过继续执行重试
+}
@@ -0,0 +1,11 @@
+package com.example.videoagent.enums;
+
+/**
+ * 模型调用的调度优先级
+ * 用于模型调用调度器在并发已满时决定放行顺序
+ */
+public enum ModelPriority {
+    INTERACTIVE,  // 流式智能问答等用户正在等待首字的调用
+    STANDARD,     // 普通同步接口
+    BATCH         // 总结、提取等重任务，负载高时延后
+}
@@ -0,0 +1,118 @@
+package com.example.videoagent.intent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick 多模式匹配自动机
+ * 构建后不可变，线程安全；一次线性扫描即可找出文本中所有模式的出现位置
+ */
+public final class AhoCorasick {
+
+    /**
+     * 匹配回调
+     */
+    public interface MatchListener {
+        /**
+         * @param pattern 模式下标（构建时的顺序）
+         * @param end     匹配在文本中的结束位置（不含）
+         */
+        void onMatch(int pattern, int end);
+    }
+
+    // 转移表：(状态 << 16 | 字符) -> 下一状态
+    private final Map<Long, Integer> transitions = new HashMap<>();
+    private final int[] failure;
+    // 每个状态命中的模式（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    public AhoCorasick(List<String> patterns) {
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        nodeOutputs.add(new ArrayList<>());
+
+        // 1. 构建 trie
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern must not be empty");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                long edge = edge(state, pattern.charAt(i));
+                Integer next = transitions.get(edge);
+                if (next == null) {
+                    next = nodeOutputs.size();
+                    nodeOutputs.add(new ArrayList<>());
+                    transitions.put(edge, next);
+                }
+                state = next;
+            }
+            nodeOutputs.get(state).add(p);
+        }
+
+        // 2. BFS 计算失败指针
+        int stateCount = nodeOutputs.size();
+        int[] fail = new int[stateCount];
+        List<List<long[]>> children = new ArrayList<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, Integer> entry : transitions.entrySet()) {
+            long edge = entry.getKey();
+            children.get((int) (edge >>> 16)).add(new long[]{edge & 0xFFFF, entry.getValue()});
+        }
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (long[] child : children.get(0)) {
+            queue.add((int) child[1]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (long[] child : children.get(state)) {
+                char c = (char) child[0];
+                int next = (int) child[1];
+                int f = fail[state];
+                while (f != 0 && !transitions.containsKey(edge(f, c))) {
+                    f = fail[f];
+                }
+                Integer target = transitions.get(edge(f, c));
+                fail[next] = target != null && target != next ? target : 0;
+                nodeOutputs.get(next).addAll(nodeOutputs.get(fail[next]));
+                queue.add(next);
+            }
+        }
+
+        this.failure = fail;
+        this.outputs = new int[stateCount][];
+        for (int i = 0; i < stateCount; i++) {
+            outputs[i] = nodeOutputs.get(i).stream().mapToInt(Integer::intValue).toArray();
+            Arrays.sort(outputs[i]);
+        }
+    }
+
+    /**
+     * 扫描文本，对每个命中调用 listener
+     */
+    public void match(CharSequence text, MatchListener listener) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Integer next;
+            while ((next = transitions.get(edge(state, c))) == null && state != 0) {
+                state = failure[state];
+            }
+            state = next != null ? next : 0;
+            for (int pattern : outputs[state]) {
+                listener.onMatch(pattern, i + 1);
+            }
+        }
+    }
+
+    private static long edge(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+}
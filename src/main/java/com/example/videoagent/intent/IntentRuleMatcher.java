@@ -0,0 +1,65 @@
+package com.example.videoagent.intent;
+
+import com.example.videoagent.config.IntentRuleProperties;
+import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.enums.UserIntent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 基于触发词的意图规则匹配
+ * 启动时把配置中的触发词编译为 Aho-Corasick 自动机，每次匹配只需一次线性扫描
+ */
+@Component
+public class IntentRuleMatcher {
+
+    private final boolean enabled;
+    private final double confidence;
+    private final int maxQuestionLength;
+    private final AhoCorasick automaton;
+    // 模式下标 -> 所属意图
+    private final UserIntent[] patternIntents;
+
+    public IntentRuleMatcher(IntentRuleProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.confidence = properties.getConfidence();
+        this.maxQuestionLength = properties.getMaxQuestionLength();
+
+        List<String> patterns = new ArrayList<>();
+        List<UserIntent> intents = new ArrayList<>();
+        for (Map.Entry<UserIntent, List<String>> entry : properties.getTriggers().entrySet()) {
+            for (String trigger : entry.getValue()) {
+                if (trigger != null && !trigger.isBlank()) {
+                    patterns.add(trigger.trim().toLowerCase(Locale.ROOT));
+                    intents.add(entry.getKey());
+                }
+            }
+        }
+        this.automaton = new AhoCorasick(patterns);
+        this.patternIntents = intents.toArray(new UserIntent[0]);
+    }
+
+    /**
+     * 规则匹配
+     *
+     * @return 只命中一种意图时返回结果；未命中、命中多种意图或问题过长时返回 null，由 LLM 判断
+     */
+    public IntentResult match(String question) {
+        String text = question.trim();
+        if (!enabled || text.isEmpty() || text.length() > maxQuestionLength) {
+            return null;
+        }
+
+        EnumSet<UserIntent> matched = EnumSet.noneOf(UserIntent.class);
+        automaton.match(text.toLowerCase(Locale.ROOT), (pattern, end) -> matched.add(patternIntents[pattern]));
+        if (matched.size() != 1) {
+            return null;
+        }
+        return new IntentResult(matched.iterator().next(), confidence);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.videoagent.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个隔离舱：非阻塞地获取许可，按观测到的延迟自适应调整并发上限
+ * 调整方式参考 Netflix concurrency-limits 的 Gradient2：
+ * - 以指数加权的长期平均延迟为基线，gradient = clamp(tolerance * 基线 / 本次延迟, 0.5, 1)
+ * - 新上限 = 上限 * gradient + sqrt(上限)，再与旧上限按 smoothing 平滑；延迟稳定时缓慢增长，上游排队变慢时收缩
+ * - 在途调用不到上限一半时不调整：并发没有用满，延迟说明不了上游的承载能力
+ * - 调用失败（限流、超时等）直接按 0.9 倍收缩
+ */
+final class AdaptiveBulkhead {
+
+    // 长期平均延迟约覆盖最近 100 次调用
+    private static final double LONG_RTT_ALPHA = 2.0 / (100 + 1);
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // 只在 synchronized 方法中写入
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("隔离舱 " + name + " 的并发上限配置无效: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * 在途调用未达上限时占用一个许可，否则计一次拒绝并返回 false
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 调用成功结束：释放许可，并用本次延迟调整上限
+     */
+    void onSuccess(long rttNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), concurrent);
+    }
+
+    /**
+     * 调用失败：释放许可并收缩上限
+     */
+    synchronized void onDropped() {
+        inFlight.decrementAndGet();
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    /**
+     * 调用被取消：只释放许可，延迟不完整，不参与调整
+     */
+    void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long rttNanos, int concurrent) {
+        double longRtt = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) * LONG_RTT_ALPHA;
+        // 延迟大幅回落时（如上游恢复）加快基线下降
+        if (longRtt / rttNanos > 2) {
+            longRtt *= 0.95;
+        }
+        longRttNanos = longRtt;
+
+        if (concurrent < limit / 2) {
+            return;
+        }
+        double gradient = clamp(tolerance * longRtt / rttNanos, 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - smoothing) + target * smoothing, minLimit, maxLimit);
+    }
+
+    /**
+     * 建议的重试等待秒数：平均延迟按在途调用均摊，即预计下一个许可释放的时间，取 [1, 60]
+     */
+    long retryAfterSeconds() {
+        double seconds = longRttNanos / Math.max(1, inFlight.get()) / 1_000_000_000.0;
+        return (long) clamp(Math.ceil(seconds), 1, MAX_RETRY_AFTER_SECONDS);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * 当前并发上限
+     */
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.videoagent.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * analyze-all 模板输出按分隔标记拆分后的三部分
+ * 缺失或无法解析的部分为 null，由调用方回退到对应的单项调用
+ *
+ * @param summary Markdown 总结
+ * @param concepts JSON 概念数组
+ * @param quotes JSON 金句数组
+ */
+record AnalysisSections(String summary, String concepts, String quotes) {
+
+    // 单独一行的 =====NAME=====，容忍等号个数与首尾空白的差异
+    private static final Pattern MARKER = Pattern.compile(
+            "^[ \\t]*=+[ \\t]*(SUMMARY|CONCEPTS|QUOTES)[ \\t]*=+[ \\t]*$", Pattern.MULTILINE);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static AnalysisSections parse(String output) {
+        String summary = null;
+        String concepts = null;
+        String quotes = null;
+        Matcher matcher = MARKER.matcher(output);
+        String name = null;
+        int start = 0;
+        while (true) {
+            boolean found = matcher.find();
+            if (name != null) {
+                String body = output.substring(start, found ? matcher.start() : output.length());
+                switch (name) {
+                    case "SUMMARY" -> summary = body.isBlank() ? null : body.strip();
+                    case "CONCEPTS" -> concepts = jsonArray(body);
+                    default -> quotes = jsonArray(body);
+                }
+            }
+            if (!found) {
+                return new AnalysisSections(summary, concepts, quotes);
+            }
+            name = matcher.group(1);
+            start = matcher.end();
+        }
+    }
+
+    /**
+     * 取出合法的 JSON 数组，忽略模型可能添加的代码块标记；不合法时返回 null
+     */
+    private static String jsonArray(String body) {
+        int from = body.indexOf('[');
+        int to = body.lastIndexOf(']');
+        if (from < 0 || to < from) {
+            return null;
+        }
+        String json = body.substring(from, to + 1);
+        try {
+            return MAPPER.readTree(json).isArray() ? json : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
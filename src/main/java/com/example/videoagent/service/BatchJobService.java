@@ -0,0 +1,482 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.BatchJobProperties;
+import com.example.videoagent.dto.BatchItemStatus;
+import com.example.videoagent.dto.BatchJobStatus;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.enums.BatchTaskState;
+import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.subtitle.SubtitleSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 批量分析任务：对一批字幕文件分别执行总结、知识点、金句三项分析（{@link BatchJobProperties}）
+ * - 所有任务的分析展开后以有限并发执行，按每分钟 token 预算匀速发出调用（{@link TokenRateLimiter}）
+ * - 分析以批量优先级进入模型调度，不挤占交互请求；模型并发已满时按 Retry-After 等待后重试
+ * - 上传的字幕与每项结果都写入磁盘：任务目录下 job.json 为清单，results/ 中每项分析一个结果文件，
+ *   结果文件存在即视为完成，服务重启后任务可从未完成的分析继续
+ */
+@Service
+public class BatchJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchJobService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // 每个视频执行的分析，名称与 Prompt 名称一致
+    private static final List<UserIntent> OPERATIONS =
+            List.of(UserIntent.SUMMARIZE, UserIntent.EXTRACT_CONCEPTS, UserIntent.EXTRACT_QUOTES);
+    private static final List<String> OPERATION_NAMES = List.of("summarize", "extract-concepts", "extract-quotes");
+
+    private static final String MANIFEST = "job.json";
+
+    private final BatchJobProperties properties;
+    private final VideoService videoService;
+    private final SubtitleStore subtitleStore;
+    private final Scheduler modelScheduler;
+    private final TokenRateLimiter rateLimiter;
+    private final Path root;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public BatchJobService(BatchJobProperties properties,
+                           VideoService videoService,
+                           SubtitleStore subtitleStore,
+                           Scheduler modelScheduler) {
+        this.properties = properties;
+        this.videoService = videoService;
+        this.subtitleStore = subtitleStore;
+        this.modelScheduler = modelScheduler;
+        this.rateLimiter = new TokenRateLimiter(properties.getTokensPerMinute());
+        try {
+            this.root = properties.getStoragePath().isBlank()
+                    ? Files.createTempDirectory("video-agent-batch")
+                    : Files.createDirectories(Path.of(properties.getStoragePath()));
+            restore();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开批量任务目录: " + properties.getStoragePath(), e);
+        }
+    }
+
+    /**
+     * 提交上传的字幕文件，文件先保存到任务目录再开始分析
+     */
+    public BatchJobStatus submit(List<MultipartFile> files) throws IOException {
+        List<MultipartFile> uploads = files == null ? List.of()
+                : files.stream().filter(file -> !file.isEmpty()).toList();
+        if (uploads.isEmpty()) {
+            throw new IllegalArgumentException("请至少上传一个字幕文件");
+        }
+        String id = newJobId();
+        Path inputs = Files.createDirectories(root.resolve(id).resolve("inputs"));
+        List<Source> sources = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            MultipartFile file = uploads.get(i);
+            Path input = inputs.resolve(String.valueOf(i));
+            file.transferTo(input);
+            String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : input.getFileName().toString();
+            sources.add(new Source(name, input.toString()));
+        }
+        return start(id, sources);
+    }
+
+    /**
+     * 提交本地目录（含子目录）中的字幕文件；目录必须位于 allowed-directories 之内
+     */
+    public BatchJobStatus submitDirectory(String directory) throws IOException {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalArgumentException("目录不能为空");
+        }
+        Path dir = Path.of(directory).toRealPath();
+        if (!isAllowed(dir)) {
+            throw new IllegalArgumentException("目录不在允许的范围内: " + directory);
+        }
+        List<Source> sources;
+        try (Stream<Path> files = Files.walk(dir)) {
+            sources = files.filter(Files::isRegularFile)
+                    .filter(this::isSubtitleFile)
+                    .sorted()
+                    .map(file -> new Source(dir.relativize(file).toString(), file.toString()))
+                    .toList();
+        }
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("目录中没有字幕文件: " + directory);
+        }
+        String id = newJobId();
+        Files.createDirectories(root.resolve(id));
+        return start(id, sources);
+    }
+
+    /**
+     * 所有任务的进度，按创建时间倒序
+     */
+    public List<BatchJobStatus> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong((Job job) -> job.createdAt).reversed())
+                .map(Job::status)
+                .toList();
+    }
+
+    /**
+     * 任务进度
+     * @throws IllegalArgumentException 任务不存在
+     */
+    public BatchJobStatus status(String jobId) {
+        return job(jobId).status();
+    }
+
+    /**
+     * 单个视频已完成的分析结果：分析名称 -> 结果（总结为 Markdown，知识点与金句为 JSON）
+     * @throws IllegalArgumentException 任务或序号不存在
+     */
+    public Map<String, String> results(String jobId, int index) throws IOException {
+        Job job = job(jobId);
+        if (index < 0 || index >= job.sources.size()) {
+            throw new IllegalArgumentException("视频序号不存在: " + index);
+        }
+        Map<String, String> results = new LinkedHashMap<>();
+        for (int op = 0; op < OPERATIONS.size(); op++) {
+            Path result = resultFile(job, index, op);
+            if (Files.exists(result)) {
+                results.put(OPERATION_NAMES.get(op), Files.readString(result));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 继续执行未完成和失败的分析；任务正在执行时不重复启动
+     * @throws IllegalArgumentException 任务不存在
+     */
+    public BatchJobStatus resume(String jobId) throws IOException {
+        Job job = job(jobId);
+        synchronized (job) {
+            if (job.run == null) {
+                for (int item = 0; item < job.sources.size(); item++) {
+                    for (int op = 0; op < OPERATIONS.size(); op++) {
+                        if (job.states[item][op] == BatchTaskState.FAILED) {
+                            Files.deleteIfExists(errorFile(job, item, op));
+                            job.errors[item][op] = null;
+                            job.states[item][op] = BatchTaskState.PENDING;
+                        }
+                    }
+                }
+                run(job);
+            }
+        }
+        return job.status();
+    }
+
+    @PreDestroy
+    public void close() {
+        // 执行中的分析没有结果文件，重启后仍是待执行状态
+        jobs.values().forEach(job -> {
+            Disposable run = job.run;
+            if (run != null) {
+                run.dispose();
+            }
+        });
+    }
+
+    private BatchJobStatus start(String id, List<Source> sources) throws IOException {
+        Job job = new Job(id, System.currentTimeMillis(), root.resolve(id), sources);
+        Files.createDirectories(job.dir.resolve("results"));
+        Path manifest = job.dir.resolve(MANIFEST);
+        Path temp = job.dir.resolve(MANIFEST + ".tmp");
+        MAPPER.writeValue(temp.toFile(), new Manifest(id, job.createdAt, sources));
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        jobs.put(id, job);
+        log.info("批量任务已提交: id={}, {} 个视频", id, sources.size());
+        synchronized (job) {
+            run(job);
+        }
+        return job.status();
+    }
+
+    /**
+     * 展开待执行的分析并以有限并发执行，需持有 job 锁
+     */
+    private void run(Job job) {
+        List<int[]> pending = new ArrayList<>();
+        for (int item = 0; item < job.sources.size(); item++) {
+            for (int op = 0; op < OPERATIONS.size(); op++) {
+                if (job.states[item][op] == BatchTaskState.PENDING) {
+                    pending.add(new int[]{item, op});
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 先登记再订阅：分析全部同步完成时 doFinally 早于 subscribe 返回
+        Disposable.Swap run = Disposables.swap();
+        job.run = run;
+        run.update(Flux.fromIterable(pending)
+                .flatMap(task -> execute(job, task[0], task[1]), Math.max(1, properties.getParallelism()))
+                .doFinally(signal -> {
+                    synchronized (job) {
+                        if (job.run == run) {
+                            job.run = null;
+                        }
+                    }
+                    BatchJobStatus status = job.status();
+                    log.info("批量任务结束: id={}, 完成 {}/{}, 失败 {}",
+                            job.id, status.getDoneTasks(), status.getTotalTasks(), status.getFailedTasks());
+                })
+                .subscribe());
+    }
+
+    private Mono<Void> execute(Job job, int item, int op) {
+        UserIntent intent = OPERATIONS.get(op);
+        return Mono.fromCallable(() -> session(job, item))
+                .subscribeOn(modelScheduler)
+                .flatMap(session -> {
+                    long tokens = estimateTokens(session, intent);
+                    Mono<String> call = Mono.fromCallable(() -> analyze(job, item, op, session, tokens))
+                            .subscribeOn(modelScheduler);
+                    long waitNanos = rateLimiter.reserve(tokens);
+                    return waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(call) : call;
+                })
+                .retryWhen(Retry.from(signals -> signals.concatMap(signal ->
+                        signal.failure() instanceof ModelOverloadedException overloaded
+                                && signal.totalRetries() + 1 < properties.getMaxAttempts()
+                                ? Mono.delay(Duration.ofSeconds(overloaded.getRetryAfterSeconds()))
+                                : Mono.error(signal.failure()))))
+                .onErrorResume(error -> {
+                    fail(job, item, op, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 按字幕内容取回会话；会话已被存储淘汰时从任务目录或原目录重新读取
+     */
+    private SubtitleSession session(Job job, int item) throws IOException {
+        String subtitleId = job.subtitleIds[item];
+        if (subtitleId != null && subtitleStore.contains(subtitleId)) {
+            try {
+                return subtitleStore.get(subtitleId);
+            } catch (IllegalArgumentException evicted) {
+                // 检查之后恰好被淘汰，重新读取
+            }
+        }
+        try (InputStream in = Files.newInputStream(Path.of(job.sources.get(item).path()))) {
+            SubtitleSession session = subtitleStore.save(in);
+            job.subtitleIds[item] = session.getId();
+            return session;
+        }
+    }
+
+    /**
+     * 预约的 token：所有调用的 Prompt 估算 + 每次调用预计的输出
+     */
+    private long estimateTokens(SubtitleSession session, UserIntent intent) {
+        TokenEstimate estimate = videoService.estimateTokens(session, null, intent, null);
+        return estimate.getPromptTokens() + (long) estimate.getModelCalls() * properties.getOutputTokensPerCall();
+    }
+
+    private String analyze(Job job, int item, int op, SubtitleSession session, long tokens) throws IOException {
+        job.setState(item, op, BatchTaskState.RUNNING);
+        String result;
+        try {
+            result = switch (OPERATIONS.get(op)) {
+                case SUMMARIZE -> videoService.summarize(session, null);
+                case EXTRACT_CONCEPTS -> videoService.extractConcepts(session, null);
+                case EXTRACT_QUOTES -> videoService.extractQuotes(session, null);
+                default -> throw new IllegalStateException("不支持的批量分析: " + OPERATIONS.get(op));
+            };
+        } catch (ModelOverloadedException e) {
+            // 调用没有发出，预约的 token 归还给后续调用
+            rateLimiter.refund(tokens);
+            job.setState(item, op, BatchTaskState.PENDING);
+            throw e;
+        }
+        writeAtomically(resultFile(job, item, op), result);
+        job.setState(item, op, BatchTaskState.DONE);
+        return result;
+    }
+
+    private void fail(Job job, int item, int op, Throwable error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        log.warn("批量分析失败: job={}, {} [{}]: {}", job.id, job.sources.get(item).name(), OPERATION_NAMES.get(op), message);
+        synchronized (job) {
+            job.errors[item][op] = message;
+            job.states[item][op] = BatchTaskState.FAILED;
+        }
+        try {
+            writeAtomically(errorFile(job, item, op), message);
+        } catch (IOException e) {
+            log.warn("保存批量分析错误信息失败: {}", job.id, e);
+        }
+    }
+
+    /**
+     * 启动时加载已有任务：有结果文件的分析为完成，有错误文件的为失败，其余待执行
+     * 未完成的任务不会自动继续，避免重启后在无人确认时消耗配额
+     */
+    private void restore() throws IOException {
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                Path manifest = dir.resolve(MANIFEST);
+                if (!Files.exists(manifest)) {
+                    continue;
+                }
+                Manifest saved = MAPPER.readValue(manifest.toFile(), Manifest.class);
+                Job job = new Job(saved.id(), saved.createdAt(), dir, saved.sources());
+                for (int item = 0; item < job.sources.size(); item++) {
+                    for (int op = 0; op < OPERATIONS.size(); op++) {
+                        if (Files.exists(resultFile(job, item, op))) {
+                            job.states[item][op] = BatchTaskState.DONE;
+                        } else if (Files.exists(errorFile(job, item, op))) {
+                            job.states[item][op] = BatchTaskState.FAILED;
+                            job.errors[item][op] = Files.readString(errorFile(job, item, op));
+                        }
+                    }
+                }
+                jobs.put(job.id, job);
+            }
+        }
+        if (!jobs.isEmpty()) {
+            log.info("已加载批量任务 {} 个: {}", jobs.size(), root);
+        }
+    }
+
+    private Job job(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("批量任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    private boolean isAllowed(Path dir) {
+        for (String allowed : properties.getAllowedDirectories()) {
+            try {
+                if (dir.startsWith(Path.of(allowed).toRealPath())) {
+                    return true;
+                }
+            } catch (IOException ignored) {
+                // 配置的目录不存在
+            }
+        }
+        return false;
+    }
+
+    private boolean isSubtitleFile(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && properties.getFileExtensions().contains(name.substring(dot + 1).toLowerCase());
+    }
+
+    private static String newJobId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    }
+
+    private static Path resultFile(Job job, int item, int op) {
+        return job.dir.resolve("results").resolve(item + "-" + OPERATION_NAMES.get(op) + ".txt");
+    }
+
+    private static Path errorFile(Job job, int item, int op) {
+        return job.dir.resolve("results").resolve(item + "-" + OPERATION_NAMES.get(op) + ".error");
+    }
+
+    /**
+     * 先写临时文件再原子替换，进程中途退出不会留下不完整的结果
+     */
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(temp, Objects.requireNonNullElse(content, ""), StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 任务清单：只在提交时写入一次，进度由结果文件推导
+     */
+    record Manifest(String id, long createdAt, List<Source> sources) {}
+
+    /**
+     * 字幕来源：显示名称与磁盘路径（上传的文件为任务目录中的副本，目录提交为原文件）
+     */
+    record Source(String name, String path) {}
+
+    private static final class Job {
+
+        private final String id;
+        private final long createdAt;
+        private final Path dir;
+        private final List<Source> sources;
+        // 以下数组下标为 [视频序号][分析序号]；状态与错误只在持有 this 锁时读写
+        private final BatchTaskState[][] states;
+        private final String[][] errors;
+        private final String[] subtitleIds;
+        private volatile Disposable run;
+
+        Job(String id, long createdAt, Path dir, List<Source> sources) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.dir = dir;
+            this.sources = sources;
+            this.states = new BatchTaskState[sources.size()][OPERATIONS.size()];
+            this.errors = new String[sources.size()][OPERATIONS.size()];
+            this.subtitleIds = new String[sources.size()];
+            for (BatchTaskState[] row : states) {
+                Arrays.fill(row, BatchTaskState.PENDING);
+            }
+        }
+
+        synchronized void setState(int item, int op, BatchTaskState state) {
+            states[item][op] = state;
+        }
+
+        synchronized BatchJobStatus status() {
+            List<BatchItemStatus> items = new ArrayList<>(sources.size());
+            int done = 0;
+            int failed = 0;
+            for (int item = 0; item < sources.size(); item++) {
+                Map<String, BatchTaskState> tasks = new LinkedHashMap<>();
+                Map<String, String> itemErrors = new LinkedHashMap<>();
+                for (int op = 0; op < OPERATIONS.size(); op++) {
+                    tasks.put(OPERATION_NAMES.get(op), states[item][op]);
+                    if (states[item][op] == BatchTaskState.DONE) {
+                        done++;
+                    } else if (states[item][op] == BatchTaskState.FAILED) {
+                        failed++;
+                        itemErrors.put(OPERATION_NAMES.get(op), errors[item][op]);
+                    }
+                }
+                items.add(new BatchItemStatus(item, sources.get(item).name(), tasks, itemErrors));
+            }
+            return new BatchJobStatus(id, createdAt, run != null, sources.size() * OPERATIONS.size(),
+                    done, failed, items);
+        }
+    }
+}
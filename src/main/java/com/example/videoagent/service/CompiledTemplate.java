@@ -0,0 +1,97 @@
+package com.example.videoagent.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的 Prompt 模板
+ * 加载时把模板切分为字面量 / 占位符片段，渲染时只需一次顺序追加：
+ * - 输出缓冲区按最终长度预分配，不再对整份字幕反复 String.replace
+ * - 参数值原样写入、不会被再次扫描，字幕中出现的 "<question>" 等文本不会被误替换
+ */
+public final class CompiledTemplate {
+
+    private final String source;
+    // 偶数下标为字面量，奇数下标为占位符名称；首尾均为字面量（可能为空串）
+    private final String[] segments;
+    private final int literalLength;
+
+    private CompiledTemplate(String source, String[] segments, int literalLength) {
+        this.source = source;
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * 编译模板：形如 &lt;name&gt; 且 name 仅含字母、数字、下划线、连字符的片段视为占位符
+     */
+    public static CompiledTemplate compile(String template) {
+        List<String> segments = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < template.length()) {
+            int open = template.indexOf('<', i);
+            if (open < 0) {
+                break;
+            }
+            int close = open + 1;
+            while (close < template.length() && isNameChar(template.charAt(close))) {
+                close++;
+            }
+            if (close < template.length() && template.charAt(close) == '>' && close > open + 1
+                    && Character.isLetter(template.charAt(open + 1))) {
+                segments.add(template.substring(literalStart, open));
+                segments.add(template.substring(open + 1, close));
+                literalStart = close + 1;
+                i = close + 1;
+            } else {
+                i = open + 1;
+            }
+        }
+        segments.add(template.substring(literalStart));
+
+        int literalLength = 0;
+        for (int s = 0; s < segments.size(); s += 2) {
+            literalLength += segments.get(s).length();
+        }
+        return new CompiledTemplate(template, segments.toArray(new String[0]), literalLength);
+    }
+
+    /**
+     * 渲染模板；params 中不存在的占位符原样保留，null 值渲染为空串
+     */
+    public String render(Map<String, Object> params) {
+        String[] values = new String[segments.length];
+        int length = literalLength;
+        for (int s = 1; s < segments.length; s += 2) {
+            String name = segments[s];
+            String value;
+            if (params.containsKey(name)) {
+                Object raw = params.get(name);
+                value = raw != null ? raw.toString() : "";
+            } else {
+                value = "<" + name + ">";
+            }
+            values[s] = value;
+            length += value.length();
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        for (int s = 0; s < segments.length; s++) {
+            sb.append((s & 1) == 0 ? segments[s] : values[s]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 模板原文
+     */
+    public String getSource() {
+        return source;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+}
@@ -2,62 +2,140 @@ package com.example.videoagent.service;
 
 import com.example.videoagent.config.PromptConstants;
 import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.IntentStats;
 import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.intent.IntentRuleMatcher;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
  * 意图分类服务
- * 使用 LLM 进行意图识别，带缓存
+ * 先用触发词规则在本地识别明确的意图，规则无法判断时再使用 LLM 识别，带缓存
  */
 @Service
 public class IntentClassificationService {
 
     private final ChatClient chatClient;
     private final ObjectMapper objectMapper;
+    private final IntentRuleMatcher ruleMatcher;
+    private final ModelMetrics modelMetrics;
+    private final ModelConcurrencyLimiter concurrencyLimiter;
+    private final ModelCallScheduler callScheduler;
+
+    // 分类来源计数
+    private final AtomicLong localCount = new AtomicLong();
+    private final AtomicLong remoteCount = new AtomicLong();
+    private final AtomicLong cachedCount = new AtomicLong();
 
     // Caffeine 缓存：问题 -> 意图结果
-    private final Cache<String, IntentResult> intentCache = Caffeine.newBuilder()
+    // 异步缓存只存放 future，LLM 调用在 map 之外执行，不会在计算期间占用哈希桶的锁；失败的 future 自动移除
+    private final AsyncCache<String, IntentResult> intentCache = Caffeine.newBuilder()
             .maximumSize(100)
             .expireAfterWrite(10, TimeUnit.MINUTES)
-            .build();
+            .buildAsync();
 
     // 置信度阈值，低于此值默认走 QA
     private static final double CONFIDENCE_THRESHOLD = 0.6;
 
-    public IntentClassificationService(ChatClient.Builder chatClientBuilder) {
+    // 分类 Prompt 内置于 PromptConstants，不参与版本管理
+    private static final ModelMetrics.ModelCall MODEL_CALL =
+            new ModelMetrics.ModelCall("intent-classification", "builtin", "none");
+
+    public IntentClassificationService(ChatClient.Builder chatClientBuilder, IntentRuleMatcher ruleMatcher,
+                                       ModelMetrics modelMetrics, ModelConcurrencyLimiter concurrencyLimiter,
+                                       ModelCallScheduler callScheduler) {
         this.chatClient = chatClientBuilder.build();
         this.objectMapper = new ObjectMapper();
+        this.ruleMatcher = ruleMatcher;
+        this.modelMetrics = modelMetrics;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.callScheduler = callScheduler;
     }
 
     /**
      * 带缓存的意图分类
      */
     public IntentResult classifyIntentWithCache(String question) {
+        // 0~2. 前缀、触发词规则、缓存
+        IntentResult local = classifyLocally(question);
+        if (local != null) {
+            return local;
+        }
+
+        // 3. 调用 LLM 分类并存入缓存
+        // 先放入未完成的 future 再在当前线程调用，同一问题的并发未命中等待并共享这一次 LLM 调用
+        CompletableFuture<IntentResult> created = new CompletableFuture<>();
+        CompletableFuture<IntentResult> inFlight = intentCache.asMap().putIfAbsent(question, created);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        remoteCount.incrementAndGet();
+        try {
+            IntentResult result = classifyIntent(question);
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            intentCache.asMap().remove(question, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static IntentResult await(CompletableFuture<IntentResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 仅用本地手段分类（前缀、触发词规则、缓存），需要调用 LLM 时返回 null
+     */
+    public IntentResult classifyLocally(String question) {
         // 0. 前缀检测：深度分析模式
         if (question.startsWith("/deep ") || question.startsWith("深度分析：") || question.startsWith("深度分析:")) {
+            localCount.incrementAndGet();
             return new IntentResult(UserIntent.DEEP_QA, 1.0);
         }
 
-        // 1. 尝试从缓存获取
-        IntentResult cached = intentCache.getIfPresent(question);
-        if (cached != null) {
-            return cached;
+        // 1. 触发词规则：只命中一种意图时直接返回
+        IntentResult ruleResult = ruleMatcher.match(question);
+        if (ruleResult != null) {
+            localCount.incrementAndGet();
+            return ruleResult;
         }
 
-        // 2. 调用 LLM 分类
-        IntentResult result = classifyIntent(question);
-
-        // 3. 存入缓存
-        intentCache.put(question, result);
+        // 2. 尝试从缓存获取（进行中的分类不等待）
+        CompletableFuture<IntentResult> cached = intentCache.getIfPresent(question);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            cachedCount.incrementAndGet();
+            return cached.join();
+        }
+        return null;
+    }
 
-        return result;
+    /**
+     * 分类来源统计：本地规则 / LLM / 缓存
+     */
+    public IntentStats getStats() {
+        return new IntentStats(localCount.get(), remoteCount.get(), cachedCount.get());
     }
 
     /**
@@ -66,10 +144,13 @@ public class IntentClassificationService {
     public IntentResult classifyIntent(String question) {
         String prompt = String.format(PromptConstants.INTENT_CLASSIFICATION_PROMPT, question);
 
-        String response = chatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
+        String response = callScheduler.call(
+                callScheduler.priorityOf(MODEL_CALL.promptName()),
+                () -> concurrencyLimiter.call(MODEL_CALL.promptName(),
+                        () -> modelMetrics.call(MODEL_CALL, () -> chatClient.prompt()
+                                .user(prompt)
+                                .call()
+                                .chatResponse())));
 
         return parseIntentResult(response);
     }
@@ -0,0 +1,142 @@
+package com.example.videoagent.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量解析模型输出的 JSON 数组：分片到达时喂给 Jackson 的非阻塞解析器，顶层元素对象一闭合就反序列化并产出
+ * - 第一个 '[' 之前的说明文字、```json 代码块标记，以及数组结束之后的内容都忽略
+ * - 没有输出数组时为空流（与整段解析时的 "[]" 回退一致）；数组没有闭合（输出被截断）时以错误结束
+ * - 数组中的标量元素跳过，对象中多余的字段忽略
+ */
+final class JsonArrayElements<T> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Class<T> type;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean finished;
+    // 当前位置相对于文档顶层的嵌套深度：1 表示在数组内、元素之间
+    private int depth;
+    // 正在读取的元素，元素之间为 null
+    private TokenBuffer element;
+
+    private JsonArrayElements(Class<T> type) throws IOException {
+        this.type = type;
+        this.parser = MAPPER.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 把文本分片流转换为数组元素流，每个订阅者独立解析
+     */
+    static <T> Flux<T> parse(Flux<String> chunks, Class<T> type) {
+        return Flux.defer(() -> {
+            JsonArrayElements<T> elements;
+            try {
+                elements = new JsonArrayElements<>(type);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+            return chunks.concatMapIterable(elements::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(elements.finish())));
+        });
+    }
+
+    /**
+     * 喂入一个分片，返回其中闭合的元素
+     */
+    List<T> feed(String chunk) {
+        if (finished) {
+            return List.of();
+        }
+        int from = 0;
+        if (!started) {
+            from = chunk.indexOf('[');
+            if (from < 0) {
+                return List.of();
+            }
+            started = true;
+        }
+        byte[] bytes = chunk.substring(from).getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * 输入结束：数组已开始但没有闭合时抛出异常
+     */
+    List<T> finish() {
+        if (!started || finished) {
+            return List.of();
+        }
+        try {
+            feeder.endOfInput();
+            List<T> remaining = drain();
+            if (!finished) {
+                throw new JsonParseException(parser, "模型输出的 JSON 数组不完整");
+            }
+            return remaining;
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private List<T> drain() throws IOException {
+        List<T> closed = new ArrayList<>(1);
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (depth == 0) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "模型输出不是 JSON 数组");
+                }
+                depth = 1;
+                continue;
+            }
+            if (element == null) {
+                if (token == JsonToken.END_ARRAY) {
+                    finished = true;
+                } else if (token.isStructStart()) {
+                    element = new TokenBuffer(parser);
+                    element.copyCurrentEvent(parser);
+                    depth = 2;
+                }
+                // 标量元素：跳过
+                continue;
+            }
+            element.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 1) {
+                try (JsonParser buffered = element.asParser()) {
+                    closed.add(MAPPER.readValue(buffered, type));
+                }
+                element = null;
+            }
+        }
+        return closed;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.enums.ModelPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 模型调用调度器：所有模型调用共享固定数量的调用槽位，槽位用满时按优先级排队（{@link ModelSchedulerProperties}）
+ * - 各优先级队列之间按权重做平滑加权轮询（同 nginx 的 smooth weighted round-robin），交互调用优先，批量任务也能按比例得到槽位
+ * - 最后几个槽位只留给交互调用，负载高时总结、提取等任务延后
+ * - 队首等待超过 maxWaitMillis 的调用不受权重和预留限制，按等待先后放行，饿死时间有上界
+ * - 队列已满时立即拒绝（{@link ModelOverloadedException}）
+ *
+ * 指标：
+ * - videoagent.model.queue.depth：各优先级的排队数（priority）
+ * - videoagent.model.queue.wait：从排队到获得槽位的等待时间（priority）
+ * - videoagent.model.scheduler.running：占用中的槽位数
+ */
+@Service
+public class ModelCallScheduler {
+
+    private static final String PRIORITY_KEY = ModelCallScheduler.class.getName() + ".priority";
+    private static final ModelPriority[] PRIORITIES = ModelPriority.values();
+
+    private final ModelSchedulerProperties properties;
+    private final Map<String, ModelPriority> priorityByOperation = new HashMap<>();
+    // 同步调用链上由 callAs 指定的优先级，作用同流的订阅上下文
+    private final ThreadLocal<ModelPriority> threadPriority = new ThreadLocal<>();
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 以下字段只在持有 lock 时访问
+    private final EnumMap<ModelPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(ModelPriority.class);
+    private final int[] currentWeights = new int[PRIORITIES.length];
+    private int running;
+
+    private final EnumMap<ModelPriority, Timer> waitTimers = new EnumMap<>(ModelPriority.class);
+
+    public ModelCallScheduler(ModelSchedulerProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMillis());
+        properties.getInteractiveOperations().forEach(op -> priorityByOperation.put(op, ModelPriority.INTERACTIVE));
+        properties.getBatchOperations().forEach(op -> priorityByOperation.put(op, ModelPriority.BATCH));
+        for (ModelPriority priority : PRIORITIES) {
+            queues.put(priority, new ArrayDeque<>());
+            String tag = priority.name().toLowerCase();
+            waitTimers.put(priority, Timer.builder("videoagent.model.queue.wait")
+                    .description("模型调用排队等待时间")
+                    .tag("priority", tag)
+                    .register(registry));
+            Gauge.builder("videoagent.model.queue.depth", this, s -> s.getQueueDepth(priority))
+                    .description("排队等待调用槽位的模型调用数")
+                    .tag("priority", tag)
+                    .register(registry);
+        }
+        Gauge.builder("videoagent.model.scheduler.running", this, ModelCallScheduler::getRunning)
+                .description("占用中的模型调用槽位数")
+                .register(registry);
+    }
+
+    /**
+     * 把流中的模型调用标记为指定优先级，覆盖按操作配置的优先级
+     */
+    public static Context withPriority(ModelPriority priority) {
+        return Context.of(PRIORITY_KEY, priority);
+    }
+
+    /**
+     * 在当前线程上以指定优先级执行同步调用链，其中的模型调用覆盖按操作配置的优先级；与 {@link #withPriority} 对应
+     */
+    public <T> T callAs(ModelPriority priority, Supplier<T> body) {
+        ModelPriority previous = threadPriority.get();
+        threadPriority.set(priority);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) {
+                threadPriority.remove();
+            } else {
+                threadPriority.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 操作的优先级：当前线程在 {@link #callAs} 中时取指定的优先级，否则按配置，未配置时为普通优先级
+     */
+    public ModelPriority priorityOf(String operation) {
+        ModelPriority priority = threadPriority.get();
+        return priority != null ? priority : priorityByOperation.getOrDefault(operation, ModelPriority.STANDARD);
+    }
+
+    /**
+     * 流中操作的优先级：优先取订阅上下文中 {@link #withPriority} 写入的值
+     */
+    public ModelPriority priorityOf(String operation, ContextView context) {
+        return context.getOrDefault(PRIORITY_KEY, priorityOf(operation));
+    }
+
+    /**
+     * 获得槽位后同步执行调用，调用结束释放槽位；排队期间阻塞当前线程
+     * @throws ModelOverloadedException 所在优先级的队列已满
+     */
+    public <T> T call(ModelPriority priority, Supplier<T> invocation) {
+        if (!properties.isEnabled()) {
+            return invocation.get();
+        }
+        Slot slot = acquire(priority).block();
+        try {
+            return invocation.get();
+        } finally {
+            slot.release();
+        }
+    }
+
+    /**
+     * 订阅时排队获取槽位，获得后再订阅上游流，流结束、出错或取消时释放槽位
+     */
+    public <T> Flux<T> stream(ModelPriority priority, Supplier<Flux<T>> invocation) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(invocation);
+        }
+        return Flux.usingWhen(
+                acquire(priority),
+                slot -> invocation.get(),
+                Slot::releaseAsync,
+                (slot, error) -> slot.releaseAsync(),
+                Slot::releaseAsync);
+    }
+
+    Mono<Slot> acquire(ModelPriority priority) {
+        return Mono.<Slot>create(sink -> {
+                    Waiter waiter = new Waiter(priority, sink, System.nanoTime());
+                    sink.onCancel(() -> cancel(waiter));
+                    List<Waiter> granted;
+                    lock.lock();
+                    try {
+                        ArrayDeque<Waiter> queue = queues.get(priority);
+                        if (queue.size() >= properties.getMaxQueueDepth()) {
+                            granted = null;
+                        } else {
+                            queue.addLast(waiter);
+                            granted = dispatch();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (granted == null) {
+                        sink.error(new ModelOverloadedException(priority.name().toLowerCase() + " 队列", 1));
+                        return;
+                    }
+                    grant(granted);
+                })
+                // 槽位交付前订阅者已取消时，槽位被丢弃，在此归还
+                .doOnDiscard(Slot.class, Slot::release);
+    }
+
+    private void cancel(Waiter waiter) {
+        lock.lock();
+        try {
+            queues.get(waiter.priority).remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        List<Waiter> granted;
+        lock.lock();
+        try {
+            running--;
+            granted = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        grant(granted);
+    }
+
+    /**
+     * 有空闲槽位时依次选出下一个放行的调用，需持有 lock
+     */
+    private List<Waiter> dispatch() {
+        List<Waiter> granted = new ArrayList<>(1);
+        Waiter next;
+        while (running < properties.getMaxConcurrency() && (next = next()) != null) {
+            running++;
+            granted.add(next);
+        }
+        return granted;
+    }
+
+    private Waiter next() {
+        // 1. 等待过久的调用按等待先后放行
+        long now = System.nanoTime();
+        Waiter oldest = null;
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            Waiter head = queue.peekFirst();
+            if (head != null && now - head.enqueuedAt >= maxWaitNanos
+                    && (oldest == null || head.enqueuedAt < oldest.enqueuedAt)) {
+                oldest = head;
+            }
+        }
+        if (oldest != null) {
+            return queues.get(oldest.priority).pollFirst();
+        }
+
+        // 2. 平滑加权轮询：有资格的队列各加上自身权重，取最大者，被选中的减去本轮总权重
+        ModelPriority best = null;
+        int total = 0;
+        for (ModelPriority priority : PRIORITIES) {
+            if (queues.get(priority).isEmpty() || !hasCapacity(priority)) {
+                continue;
+            }
+            int weight = Math.max(1, properties.getWeights().getOrDefault(priority, 1));
+            currentWeights[priority.ordinal()] += weight;
+            total += weight;
+            if (best == null || currentWeights[priority.ordinal()] > currentWeights[best.ordinal()]) {
+                best = priority;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        currentWeights[best.ordinal()] -= total;
+        return queues.get(best).pollFirst();
+    }
+
+    private boolean hasCapacity(ModelPriority priority) {
+        return priority == ModelPriority.INTERACTIVE
+                || running < properties.getMaxConcurrency() - properties.getReservedInteractiveSlots();
+    }
+
+    private void grant(List<Waiter> granted) {
+        long now = System.nanoTime();
+        for (Waiter waiter : granted) {
+            waitTimers.get(waiter.priority).record(now - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            waiter.sink.success(new Slot());
+        }
+    }
+
+    /**
+     * 指定优先级的排队数
+     */
+    public int getQueueDepth(ModelPriority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 占用中的槽位数
+     */
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Waiter(ModelPriority priority, MonoSink<Slot> sink, long enqueuedAt) {}
+
+    /**
+     * 一个调用槽位，重复释放只生效一次
+     */
+    final class Slot {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ModelCallScheduler.this.release();
+            }
+        }
+
+        Mono<Void> releaseAsync() {
+            return Mono.fromRunnable(this::release);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 模型调用并发限制：按操作把调用划入隔离舱（{@link ConcurrencyLimitProperties}），
+ * 隔离舱并发已满时立即抛出 {@link ModelOverloadedException}，不排队等待
+ * 成功调用的延迟用于自适应调整上限，失败调用收缩上限，取消的调用只释放许可；
+ * 调用内部被本地限流拒绝（{@link ModelOverloadedException}，未到达模型服务）同样只释放许可
+ */
+@Service
+public class ModelConcurrencyLimiter {
+
+    // 操作 -> 所属隔离舱；未启用或未列入的操作不受限制
+    private final Map<String, AdaptiveBulkhead> bulkheadByOperation = new HashMap<>();
+    private final List<AdaptiveBulkhead> bulkheads = new ArrayList<>();
+
+    public ModelConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        properties.getBulkheads().forEach((name, config) -> {
+            AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(name, config.getInitialLimit(),
+                    config.getMinLimit(), config.getMaxLimit(), properties.getTolerance(), properties.getSmoothing());
+            bulkheads.add(bulkhead);
+            for (String operation : config.getOperations()) {
+                AdaptiveBulkhead previous = bulkheadByOperation.put(operation, bulkhead);
+                if (previous != null) {
+                    throw new IllegalArgumentException(
+                            "操作 " + operation + " 同时属于隔离舱 " + previous.getName() + " 和 " + name);
+                }
+            }
+        });
+    }
+
+    /**
+     * 在操作所属的隔离舱内同步执行调用
+     * @throws ModelOverloadedException 隔离舱并发已满
+     */
+    public <T> T call(String operation, Supplier<T> invocation) {
+        AdaptiveBulkhead bulkhead = bulkheadByOperation.get(operation);
+        if (bulkhead == null) {
+            return invocation.get();
+        }
+        acquire(bulkhead);
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = invocation.get();
+        } catch (ModelOverloadedException e) {
+            bulkhead.onIgnored();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            bulkhead.onDropped();
+            throw e;
+        }
+        bulkhead.onSuccess(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 在操作所属的隔离舱内执行流式调用：订阅时获取许可，流结束时释放
+     * 隔离舱并发已满时返回以 {@link ModelOverloadedException} 结束的流
+     */
+    public <T> Flux<T> stream(String operation, Supplier<Flux<T>> invocation) {
+        return Flux.defer(() -> {
+            AdaptiveBulkhead bulkhead = bulkheadByOperation.get(operation);
+            if (bulkhead == null) {
+                return invocation.get();
+            }
+            acquire(bulkhead);
+            long start = System.nanoTime();
+            Flux<T> upstream;
+            try {
+                upstream = invocation.get();
+            } catch (ModelOverloadedException e) {
+                bulkhead.onIgnored();
+                throw e;
+            } catch (RuntimeException e) {
+                bulkhead.onDropped();
+                throw e;
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            return upstream
+                    .doOnError(failure::set)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) {
+                            bulkhead.onSuccess(System.nanoTime() - start);
+                        } else if (signal == SignalType.ON_ERROR
+                                && !(failure.get() instanceof ModelOverloadedException)) {
+                            bulkhead.onDropped();
+                        } else {
+                            bulkhead.onIgnored();
+                        }
+                    });
+        });
+    }
+
+    private static void acquire(AdaptiveBulkhead bulkhead) {
+        if (!bulkhead.tryAcquire()) {
+            throw new ModelOverloadedException(bulkhead.getName(), bulkhead.retryAfterSeconds());
+        }
+    }
+
+    /**
+     * 已配置的隔离舱，用于注册指标
+     */
+    Collection<AdaptiveBulkhead> getBulkheads() {
+        return bulkheads;
+    }
+}
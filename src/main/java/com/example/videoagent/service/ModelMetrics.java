@@ -0,0 +1,242 @@
+package com.example.videoagent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 模型调用指标
+ * 每次模型调用按 (prompt, version, intent, model) 打标签，记录：
+ * - videoagent.model.latency：整体耗时（outcome = success / error / cancelled）
+ * - videoagent.model.ttft：流式调用的首 token 延迟
+ * - videoagent.model.chunk.gap：流式分块之间的间隔
+ * - videoagent.model.tokens：响应元数据中的输入 / 输出 token 数（type = input / output）
+ * - videoagent.model.input.tokens：输入 token 中命中 / 未命中服务端上下文缓存的部分（cache = hit / miss），
+ *   供应商未在用量中返回 cached_tokens 时全部计为 miss
+ * - videoagent.model.errors：按异常类型计数
+ * - videoagent.singleflight.coalesced：被合并到进行中调用的重复请求数
+ *
+ * 通过 Actuator 的 /actuator/prometheus 暴露
+ */
+@Service
+public class ModelMetrics {
+
+    private final MeterRegistry registry;
+    private final String model;
+
+    public ModelMetrics(MeterRegistry registry,
+                        @Value("${spring.ai.dashscope.chat.options.model:unknown}") String model) {
+        this.registry = registry;
+        this.model = model;
+    }
+
+    /**
+     * 指标标签
+     *
+     * @param promptName Prompt 名称
+     * @param version    实际使用的 Prompt 版本
+     * @param intent     所属意图，不属于任何意图时为 none
+     */
+    public record ModelCall(String promptName, String version, String intent) {
+        public ModelCall {
+            // 标签值不能为 null
+            version = version != null ? version : "unknown";
+            intent = intent != null ? intent : "none";
+        }
+    }
+
+    /**
+     * 注册单飞合并计数
+     */
+    void bindSingleFlight(SingleFlight singleFlight) {
+        FunctionCounter.builder("videoagent.singleflight.coalesced", singleFlight, SingleFlight::getCoalescedCount)
+                .description("被合并到进行中调用的重复模型请求数")
+                .register(registry);
+    }
+
+    /**
+     * 同步调用模型并记录指标，返回响应文本
+     */
+    public String call(ModelCall call, Supplier<ChatResponse> invocation) {
+        long start = System.nanoTime();
+        ChatResponse response;
+        try {
+            response = invocation.get();
+        } catch (RuntimeException e) {
+            recordLatency(call, "error", start);
+            recordError(call, e);
+            throw e;
+        }
+        recordLatency(call, "success", start);
+        recordUsage(call, usageOf(response));
+        return textOf(response);
+    }
+
+    /**
+     * 流式调用模型并记录指标，返回非空的文本分块
+     */
+    public Flux<String> stream(ModelCall call, Supplier<Flux<ChatResponse>> invocation) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong lastChunk = new AtomicLong();
+            // 部分模型在每个分块里都带累计用量，以最后一次为准
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            Timer ttft = timer("videoagent.model.ttft", call, Tags.empty());
+            Timer gap = timer("videoagent.model.chunk.gap", call, Tags.empty());
+
+            return invocation.get()
+                    .doOnNext(response -> {
+                        long now = System.nanoTime();
+                        long previous = lastChunk.getAndSet(now);
+                        if (previous == 0) {
+                            ttft.record(now - start, TimeUnit.NANOSECONDS);
+                        } else {
+                            gap.record(now - previous, TimeUnit.NANOSECONDS);
+                        }
+                        Usage chunkUsage = usageOf(response);
+                        if (chunkUsage != null) {
+                            usage.set(chunkUsage);
+                        }
+                    })
+                    .map(ModelMetrics::textOf)
+                    .filter(text -> !text.isEmpty())
+                    .doOnComplete(() -> {
+                        recordLatency(call, "success", start);
+                        recordUsage(call, usage.get());
+                    })
+                    .doOnError(error -> {
+                        recordLatency(call, "error", start);
+                        recordError(call, error);
+                    })
+                    .doOnCancel(() -> recordLatency(call, "cancelled", start));
+        });
+    }
+
+    private void recordLatency(ModelCall call, String outcome, long start) {
+        timer("videoagent.model.latency", call, Tags.of("outcome", outcome))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordUsage(ModelCall call, Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        Integer promptTokens = usage.getPromptTokens();
+        if (promptTokens != null) {
+            tokenCounter(call, "input").increment(promptTokens);
+            long cached = Math.min(cachedTokens(usage.getNativeUsage()), promptTokens);
+            inputCounter(call, "hit").increment(cached);
+            inputCounter(call, "miss").increment(promptTokens - cached);
+        }
+        if (usage.getCompletionTokens() != null) {
+            tokenCounter(call, "output").increment(usage.getCompletionTokens());
+        }
+    }
+
+    private void recordError(ModelCall call, Throwable error) {
+        Counter.builder("videoagent.model.errors")
+                .description("模型调用失败次数")
+                .tags(tags(call).and("error", error.getClass().getSimpleName()))
+                .register(registry)
+                .increment();
+    }
+
+    private Counter tokenCounter(ModelCall call, String type) {
+        return Counter.builder("videoagent.model.tokens")
+                .description("模型调用消耗的 token 数")
+                .tags(tags(call).and("type", type))
+                .register(registry);
+    }
+
+    private Counter inputCounter(ModelCall call, String cache) {
+        return Counter.builder("videoagent.model.input.tokens")
+                .description("模型调用的输入 token 数，按是否命中上下文缓存区分")
+                .tags(tags(call).and("cache", cache))
+                .register(registry);
+    }
+
+    private Timer timer(String name, ModelCall call, Tags extra) {
+        return Timer.builder(name)
+                .tags(tags(call).and(extra))
+                .register(registry);
+    }
+
+    private Tags tags(ModelCall call) {
+        return Tags.of(
+                "prompt", call.promptName(),
+                "version", call.version(),
+                "intent", call.intent(),
+                "model", model);
+    }
+
+    private static Usage usageOf(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return null;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        // 元数据缺省时为全 0 的 EmptyUsage，视为无用量信息
+        if (usage == null || usage.getTotalTokens() == null || usage.getTotalTokens() == 0) {
+            return null;
+        }
+        return usage;
+    }
+
+    /**
+     * 从供应商原始用量中读取命中上下文缓存的输入 token 数
+     * 兼容 Map（原始 JSON）与带访问器的对象两种形式，字段为 prompt_tokens_details.cached_tokens
+     * 或顶层的 cached_tokens；缺失时为 0
+     */
+    static long cachedTokens(Object nativeUsage) {
+        if (nativeUsage == null) {
+            return 0;
+        }
+        Object cached = property(nativeUsage, "cached_tokens", "cachedTokens");
+        if (cached == null) {
+            Object details = property(nativeUsage, "prompt_tokens_details", "promptTokensDetails");
+            cached = details != null ? property(details, "cached_tokens", "cachedTokens") : null;
+        }
+        return cached instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static Object property(Object source, String jsonName, String javaName) {
+        if (source instanceof Map<?, ?> map) {
+            Object value = map.get(jsonName);
+            return value != null ? value : map.get(javaName);
+        }
+        String getter = "get" + Character.toUpperCase(javaName.charAt(0)) + javaName.substring(1);
+        for (String name : new String[]{javaName, getter}) {
+            try {
+                Method method = source.getClass().getMethod(name);
+                return method.invoke(source);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // 该形式不存在，尝试下一种
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 取第一个结果的文本，缺失时为空串
+     */
+    private static String textOf(ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
+            return "";
+        }
+        String text = response.getResult().getOutput().getText();
+        return text != null ? text : "";
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.videoagent.service;
+
+/**
+ * 模型调用所在隔离舱的并发已满，调用被立即拒绝
+ * /api 接口返回 HTTP 429，Retry-After 为建议的重试等待秒数
+ */
+public class ModelOverloadedException extends RuntimeException {
+
+    private final String bulkhead;
+    private final long retryAfterSeconds;
+
+    public ModelOverloadedException(String bulkhead, long retryAfterSeconds) {
+        super(String.format("模型服务繁忙（%s 并发已满），请 %d 秒后重试", bulkhead, retryAfterSeconds));
+        this.bulkhead = bulkhead;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
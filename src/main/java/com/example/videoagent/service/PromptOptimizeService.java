@@ -14,13 +14,19 @@ public class PromptOptimizeService {
     private final ChatClient chatClient;
     private final PromptTemplateService promptTemplateService;
     private final ObjectMapper objectMapper;
+    private final ModelConcurrencyLimiter concurrencyLimiter;
+    private final ModelCallScheduler callScheduler;
 
     public PromptOptimizeService(ChatClient.Builder chatClientBuilder,
                                   PromptTemplateService promptTemplateService,
-                                  ObjectMapper objectMapper) {
+                                  ObjectMapper objectMapper,
+                                  ModelConcurrencyLimiter concurrencyLimiter,
+                                  ModelCallScheduler callScheduler) {
         this.chatClient = chatClientBuilder.build();
         this.promptTemplateService = promptTemplateService;
         this.objectMapper = objectMapper;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.callScheduler = callScheduler;
     }
 
     public PromptOptimizeResponse optimize(PromptOptimizeRequest request) {
@@ -38,10 +44,12 @@ public class PromptOptimizeService {
             )
         );
 
-        String responseJson = chatClient.prompt()
-            .user(metaPrompt)
-            .call()
-            .content();
+        String responseJson = callScheduler.call(
+            callScheduler.priorityOf("prompt-optimize"),
+            () -> concurrencyLimiter.call("prompt-optimize", () -> chatClient.prompt()
+                .user(metaPrompt)
+                .call()
+                .content()));
 
         return parseResponse(responseJson);
     }
@@ -13,13 +13,14 @@ import java.util.concurrent.ConcurrentHashMap;
  * Prompt 模板服务
  * 加载、缓存、渲染 .st 模板文件
  *
- * 使用 < 和 > 作为模板变量分隔符，避免与 JSON 花括号冲突
+ * 使用 < 和 > 作为模板变量分隔符，避免与 JSON 花括号冲突；
+ * 模板加载时预编译为 {@link CompiledTemplate}，渲染为单次追加
  */
 @Service
 public class PromptTemplateService {
 
     private final PromptVersionConfig versionConfig;
-    private final Map<String, String> templateCache = new ConcurrentHashMap<>();
+    private final Map<String, CompiledTemplate> templateCache = new ConcurrentHashMap<>();
 
     public PromptTemplateService(PromptVersionConfig versionConfig) {
         this.versionConfig = versionConfig;
@@ -34,17 +35,15 @@ public class PromptTemplateService {
      * @return 渲染后的 Prompt 字符串
      */
     public String render(String promptName, String version, Map<String, Object> params) {
-        String actualVersion = version != null ? version : versionConfig.getDefaultVersion(promptName);
-        String templateContent = loadTemplate(promptName, actualVersion);
+        String actualVersion = resolveVersion(promptName, version);
+        return loadTemplate(promptName, actualVersion).render(params);
+    }
 
-        // 简单字符串替换：将 <variable> 替换为实际值
-        String result = templateContent;
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String placeholder = "<" + entry.getKey() + ">";
-            String value = entry.getValue() != null ? entry.getValue().toString() : "";
-            result = result.replace(placeholder, value);
-        }
-        return result;
+    /**
+     * 解析实际使用的版本号，null 时返回配置的默认版本
+     */
+    public String resolveVersion(String promptName, String version) {
+        return version != null ? version : versionConfig.getDefaultVersion(promptName);
     }
 
     /**
@@ -57,7 +56,7 @@ public class PromptTemplateService {
     /**
      * 加载模板内容（带缓存）
      */
-    private String loadTemplate(String promptName, String version) {
+    private CompiledTemplate loadTemplate(String promptName, String version) {
         String cacheKey = promptName + "/" + version;
 
         return templateCache.computeIfAbsent(cacheKey, key -> {
@@ -69,7 +68,7 @@ public class PromptTemplateService {
             }
 
             try {
-                return resource.getContentAsString(StandardCharsets.UTF_8);
+                return CompiledTemplate.compile(resource.getContentAsString(StandardCharsets.UTF_8));
             } catch (IOException e) {
                 throw new RuntimeException("Failed to load template: " + path, e);
             }
@@ -0,0 +1,373 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 模型响应缓存
+ * 按 (字幕内容哈希, Prompt 名称, 实际版本, 模型及采样参数) 缓存确定性任务（总结、知识点、金句）的模型输出
+ *
+ * 两级存储：
+ * - 内存层：Caffeine，按条数淘汰
+ * - 磁盘层：分段的追加写日志，启动时重放建立 key -> 文件偏移的索引，值按需读取，重启后依然命中；
+ *   每段不超过总上限的 1/{@value #SEGMENTS}，总大小超出 diskMaxMb 时删除最旧的一段，索引中指向该段的条目随之移除，
+ *   日志与索引的大小都有上界；
+ *   读写使用 RandomAccessFile 的阻塞 I/O 而不是 FileChannel：请求线程被中断时 FileChannel 会被关闭（ClosedByInterruptException），
+ *   磁盘层将对所有请求失效直到重启，RandomAccessFile 不响应中断
+ */
+@Service
+public class ResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    // 记录格式：[key 字节数][value 字节数][key][value]
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    // 磁盘层按段淘汰，段数决定淘汰粒度
+    static final int SEGMENTS = 4;
+
+    private final boolean enabled;
+    // 模型名与采样参数，决定同一 Prompt 的输出
+    private final String modelOptions;
+    private final Cache<String, String> memory;
+    // 磁盘层索引：key -> 所在段与 value 位置
+    private final Map<String, Location> diskIndex = new ConcurrentHashMap<>();
+    private final Path diskPath;
+    private final long diskMaxBytes;
+    private final long segmentBytes;
+    // 以下字段只在持有 this 锁时访问，读取已写入的记录不需要加锁
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResponseCache(ResponseCacheProperties properties, String model) {
+        this(properties, model, "", "", "");
+    }
+
+    /**
+     * 采样参数未配置时为空，使用模型服务的默认值
+     */
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties,
+                         @Value("${spring.ai.dashscope.chat.options.model:unknown}") String model,
+                         @Value("${spring.ai.dashscope.chat.options.temperature:}") String temperature,
+                         @Value("${spring.ai.dashscope.chat.options.top-p:}") String topP,
+                         @Value("${spring.ai.dashscope.chat.options.max-tokens:}") String maxTokens) {
+        this.enabled = properties.isEnabled();
+        this.modelOptions = model + "|temperature=" + temperature + ",top-p=" + topP + ",max-tokens=" + maxTokens;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .build();
+        this.diskPath = enabled && !properties.getDiskPath().isBlank()
+                ? Path.of(properties.getDiskPath())
+                : null;
+        this.diskMaxBytes = Math.max(1, properties.getDiskMaxMb()) * 1024 * 1024;
+        this.segmentBytes = diskMaxBytes / SEGMENTS;
+        if (diskPath != null) {
+            openLog();
+        }
+    }
+
+    /**
+     * 构建缓存 key
+     *
+     * @param contentHash 字幕内容哈希（即 subtitleId）
+     * @param promptName  Prompt 名称
+     * @param version     实际使用的 Prompt 版本
+     *                    模型名与采样参数（temperature、top-p、max-tokens）也计入 key，调整后不会命中旧参数下的输出
+     */
+    public String key(String contentHash, String promptName, String version) {
+        return contentHash + '|' + promptName + '|' + version + '|' + modelOptions;
+    }
+
+    /**
+     * 查询缓存，未命中返回 null
+     */
+    public String get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        String value = memory.getIfPresent(key);
+        if (value != null) {
+            memoryHits.incrementAndGet();
+            return value;
+        }
+        value = readFromDisk(key);
+        if (value != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, value);
+            return value;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存，空响应不缓存
+     */
+    public void put(String key, String value) {
+        if (!enabled || value == null || value.isBlank()) {
+            return;
+        }
+        memory.put(key, value);
+        if (diskPath != null) {
+            appendToDisk(key, value);
+        }
+    }
+
+    /**
+     * 命中时直接返回，否则调用 loader 并缓存结果
+     */
+    public String getOrCompute(String key, Supplier<String> loader) {
+        String cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String value = loader.get();
+        put(key, value);
+        return value;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 磁盘层日志的总字节数
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * 清空内存层（用于测试）
+     */
+    public void invalidateMemory() {
+        memory.invalidateAll();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("关闭响应缓存日志失败: {}", segment.path, e);
+            }
+        }
+    }
+
+    /**
+     * 打开已有的日志段并重放；旧版本的单文件日志作为第一段继续使用
+     */
+    private synchronized void openLog() {
+        try {
+            Path directory = diskPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            String prefix = diskPath.getFileName() + ".";
+            List<Long> sequences = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+                for (Path file : files) {
+                    String suffix = file.getFileName().toString().substring(prefix.length());
+                    if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                        sequences.add(Long.parseLong(suffix));
+                    }
+                }
+            }
+            if (sequences.isEmpty() && Files.isRegularFile(diskPath)) {
+                Files.move(diskPath, segmentPath(1));
+                sequences.add(1L);
+            }
+            if (sequences.isEmpty()) {
+                sequences.add(1L);
+            }
+            Collections.sort(sequences);
+            for (long sequence : sequences) {
+                Segment segment = openSegment(sequence);
+                replay(segment);
+                segments.addLast(segment);
+                diskBytes += segment.size;
+            }
+            evictOverflow();
+            log.info("响应缓存已加载: {} ({} 条, {} 段, {} 字节)", diskPath, diskIndex.size(), segments.size(), diskBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开响应缓存日志: " + diskPath, e);
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return diskPath.resolveSibling(diskPath.getFileName() + "." + sequence);
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Path path = segmentPath(sequence);
+        return new Segment(sequence, path, new RandomAccessFile(path.toFile(), "rw"));
+    }
+
+    /**
+     * 重放一段日志建立索引；末尾写了一半的记录（进程中途退出）会被截断
+     */
+    private void replay(Segment segment) throws IOException {
+        RandomAccessFile file = segment.file;
+        long size = file.length();
+        long position = 0;
+        byte[] header = new byte[HEADER_BYTES];
+        while (position + HEADER_BYTES <= size) {
+            file.seek(position);
+            file.readFully(header);
+            ByteBuffer lengths = ByteBuffer.wrap(header);
+            int keyLength = lengths.getInt();
+            int valueLength = lengths.getInt();
+            long valueOffset = position + HEADER_BYTES + keyLength;
+            if (keyLength <= 0 || valueLength < 0 || valueOffset + valueLength > size) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            file.readFully(keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            diskIndex.put(key, new Location(segment, valueOffset, valueLength));
+            position = valueOffset + valueLength;
+        }
+        if (position < size) {
+            log.warn("响应缓存日志末尾存在不完整记录，已截断 {} 字节: {}", size - position, segment.path);
+            file.setLength(position);
+        }
+        segment.size = position;
+    }
+
+    private String readFromDisk(String key) {
+        Location location = diskIndex.get(key);
+        if (location == null) {
+            return null;
+        }
+        try {
+            byte[] value = location.segment.read(location.offset, location.length);
+            // 所在的段刚被淘汰时返回 null
+            return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            log.warn("读取响应缓存失败: {}", key, e);
+            return null;
+        }
+    }
+
+    private synchronized void appendToDisk(String key, String value) {
+        // 在锁内检查，并发写入相同 key 时只追加一条记录
+        if (diskIndex.containsKey(key) || segments.isEmpty()) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + valueBytes.length);
+        record.putInt(keyBytes.length).putInt(valueBytes.length).put(keyBytes).put(valueBytes);
+        try {
+            Segment active = segments.peekLast();
+            if (active.size > 0 && active.size + record.capacity() > segmentBytes) {
+                active = openSegment(active.sequence + 1);
+                segments.addLast(active);
+            }
+            long start = active.size;
+            active.write(start, record.array());
+            long position = start + record.capacity();
+            active.size = position;
+            diskBytes += record.capacity();
+            diskIndex.put(key, new Location(active, position - valueBytes.length, valueBytes.length));
+            evictOverflow();
+        } catch (IOException e) {
+            // 磁盘层写入失败不影响本次请求，内存层仍然有效
+            log.warn("写入响应缓存失败: {}", key, e);
+        }
+    }
+
+    /**
+     * 总大小超出上限时从最旧的段开始删除，至少保留当前写入的段
+     */
+    private void evictOverflow() {
+        while (diskBytes > diskMaxBytes && segments.size() > 1) {
+            Segment oldest = segments.pollFirst();
+            diskIndex.values().removeIf(location -> location.segment == oldest);
+            diskBytes -= oldest.size;
+            try {
+                oldest.close();
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                log.warn("删除响应缓存日志段失败: {}", oldest.path, e);
+            }
+        }
+    }
+
+    /**
+     * 一个日志段；size 只在持有 ResponseCache 锁时访问
+     * RandomAccessFile 的读写依赖文件指针，seek 与读写在段的锁内完成；段关闭（淘汰）后读取返回 null
+     */
+    private static final class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private final RandomAccessFile file;
+        private long size;
+        private boolean closed;
+
+        private Segment(long sequence, Path path, RandomAccessFile file) {
+            this.sequence = sequence;
+            this.path = path;
+            this.file = file;
+        }
+
+        synchronized byte[] read(long offset, int length) throws IOException {
+            if (closed) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            file.seek(offset);
+            file.readFully(bytes);
+            return bytes;
+        }
+
+        synchronized void write(long offset, byte[] bytes) throws IOException {
+            file.seek(offset);
+            file.write(bytes);
+        }
+
+        synchronized void close() throws IOException {
+            closed = true;
+            file.close();
+        }
+    }
+
+    private record Location(Segment segment, long offset, int length) {}
+}
@@ -0,0 +1,150 @@
+package com.example.videoagent.service;
+
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 进行中请求合并（single-flight）
+ * 相同 key 的并发调用只执行一次上游调用，其余调用方等待并共享同一结果；
+ * 调用结束后立即移除，之后的请求会重新调用（结果缓存由 {@link ResponseCache} 负责）
+ */
+public final class SingleFlight {
+
+    /**
+     * 流式合并的回放缓冲容量（分片数）
+     */
+    static final int DEFAULT_REPLAY_CHUNKS = 256;
+
+    private final Map<String, CompletableFuture<String>> calls = new ConcurrentHashMap<>();
+    private final Map<String, SharedStream> streams = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final int replayChunks;
+
+    public SingleFlight() {
+        this(DEFAULT_REPLAY_CHUNKS);
+    }
+
+    SingleFlight(int replayChunks) {
+        this.replayChunks = replayChunks;
+    }
+
+    /**
+     * 同步调用：首个调用方执行 supplier，并发的相同调用等待其结果（异常同样共享）
+     * 包括 Error 在内的任何失败都会结束等待并移除 key，不会让等待方永久阻塞
+     */
+    public String call(String key, Supplier<String> supplier) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = calls.putIfAbsent(key, created);
+        if (inFlight != null) {
+            coalesced.incrementAndGet();
+            return await(inFlight);
+        }
+
+        try {
+            String result = supplier.get();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, created);
+        }
+    }
+
+    /**
+     * 流式调用：并发的相同请求共享同一个上游流，
+     * 后加入的订阅者先收到已输出分片的回放，再接着接收后续分片；所有订阅者取消时上游随之取消
+     * 回放缓冲有界（{@link #DEFAULT_REPLAY_CHUNKS} 个分片），上游按最慢订阅者的消费进度请求，慢订阅者可以让模型流暂停；
+     * 输出超过缓冲容量后开头的分片不再完整，之后的相同请求不再加入，改为各自调用
+     */
+    public Flux<String> stream(String key, Supplier<Flux<String>> source) {
+        return Flux.from(subscriber -> {
+            while (true) {
+                SharedStream inFlight = streams.get(key);
+                if (inFlight != null) {
+                    if (inFlight.tryJoin(subscriber)) {
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                    streams.remove(key, inFlight);
+                    continue;
+                }
+                SharedStream created = new SharedStream(key, source);
+                if (streams.putIfAbsent(key, created) == null) {
+                    created.shared.subscribe(subscriber);
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * 被合并（未触发上游调用）的请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 进行中的共享流；输出超过回放容量或上游结束后关闭，不再接受新的订阅者
+     */
+    private final class SharedStream {
+
+        private final Flux<String> shared;
+        // 以下字段只在持有 this 锁时访问
+        private long emitted;
+        private boolean closed;
+
+        SharedStream(String key, Supplier<Flux<String>> source) {
+            this.shared = Flux.defer(source)
+                    .doOnNext(chunk -> onChunk(key))
+                    .doFinally(signal -> close(key))
+                    .replay(replayChunks)
+                    .refCount();
+        }
+
+        /**
+         * 在锁内订阅：新分片的计数与回放缓冲的写入都要等订阅完成，回放的开头不会在检查之后被挤出
+         */
+        synchronized boolean tryJoin(Subscriber<? super String> subscriber) {
+            if (closed) {
+                return false;
+            }
+            shared.subscribe(subscriber);
+            return true;
+        }
+
+        private synchronized void onChunk(String key) {
+            if (++emitted >= replayChunks) {
+                close(key);
+            }
+        }
+
+        private synchronized void close(String key) {
+            closed = true;
+            streams.remove(key, this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.StreamProperties;
+import com.example.videoagent.config.StreamProperties.SlowClientPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 分块合并
+ * 把模型逐 token 返回的分块按时间窗口合并成帧，减少每个流的 SSE 写出和 flush 次数
+ *
+ * 积压控制（写出端需逐帧请求，见各控制器的 /stream/ask）：
+ * - PAUSE_UPSTREAM：合并按下游请求量输出，帧未被取走时停止向模型请求，积压上限为一帧；
+ *   模型流经 {@link SingleFlight} 共享，最慢的订阅者落后超过其回放缓冲后上游暂停
+ * - DROP_CLIENT：持续读取模型输出，待写出的帧超过 maxPendingFrames 时立即取消模型调用，
+ *   已积压的帧写完后以错误结束该流
+ */
+@Service
+public class SseChunkCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(SseChunkCoalescer.class);
+
+    private final Duration window;
+    private final int maxChunksPerFrame;
+    private final int maxPendingFrames;
+    private final SlowClientPolicy slowClientPolicy;
+
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong droppedStreams = new AtomicLong();
+
+    public SseChunkCoalescer(StreamProperties properties) {
+        this.window = Duration.ofMillis(properties.getCoalesceWindowMillis());
+        this.maxChunksPerFrame = Math.max(1, properties.getMaxChunksPerFrame());
+        this.maxPendingFrames = Math.max(1, properties.getMaxPendingFrames());
+        this.slowClientPolicy = properties.getSlowClientPolicy();
+    }
+
+    /**
+     * 合并分块为帧，帧内容为窗口内分块按顺序拼接
+     */
+    public Flux<String> coalesce(Flux<String> source) {
+        Flux<String> counted = source.doOnNext(chunk -> chunks.incrementAndGet());
+        Flux<String> merged = window.isZero() || maxChunksPerFrame == 1
+                ? counted
+                : counted.bufferTimeout(maxChunksPerFrame, window, true).map(SseChunkCoalescer::join);
+        Flux<String> output = merged.doOnNext(frame -> frames.incrementAndGet());
+
+        if (slowClientPolicy == SlowClientPolicy.DROP_CLIENT) {
+            return output
+                    .onBackpressureBuffer(maxPendingFrames, frame -> { }, BufferOverflowStrategy.ERROR)
+                    .onErrorMap(Exceptions::isOverflow, e -> {
+                        droppedStreams.incrementAndGet();
+                        log.warn("客户端接收过慢，积压超过 {} 帧，结束该流", maxPendingFrames);
+                        return new IllegalStateException("客户端接收过慢，连接已断开");
+                    });
+        }
+        return output;
+    }
+
+    private static String join(List<String> chunks) {
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        int length = 0;
+        for (String chunk : chunks) {
+            length += chunk.length();
+        }
+        StringBuilder frame = new StringBuilder(length);
+        for (String chunk : chunks) {
+            frame.append(chunk);
+        }
+        return frame.toString();
+    }
+
+    /**
+     * 进入合并的模型分块总数
+     */
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    /**
+     * 输出的帧总数，与分块数之比即合并效果
+     */
+    public long getFrames() {
+        return frames.get();
+    }
+
+    /**
+     * 因客户端过慢被结束的流数
+     */
+    public long getDroppedStreams() {
+        return droppedStreams.get();
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.subtitle.CueTable;
+import com.example.videoagent.subtitle.OffHeapText;
+import com.example.videoagent.subtitle.SubtitleDecoder;
+import com.example.videoagent.subtitle.SubtitleParser;
+import com.example.videoagent.subtitle.SubtitleSession;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 字幕会话存储
+ * 上传时保存字幕并返回内容寻址的 subtitleId，后续请求只需携带 ID，无需重复上传整份字幕
+ *
+ * 使用 Caffeine 按字幕大小加权淘汰，总容量由 video-agent.subtitle-store.max-size-mb 控制；
+ * 单份字幕超过总容量时拒绝保存（{@link SubtitleTooLargeException}），而不是存入后立即被淘汰
+ */
+@Service
+public class SubtitleStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SubtitleStore.class);
+    private static final int DIGEST_SLICE_CHARS = 8192;
+
+    private final long capacityBytes;
+    // Caffeine 缓存：subtitleId -> 字幕会话
+    private final Cache<String, SubtitleSession> sessions;
+
+    public SubtitleStore(SubtitleStoreProperties properties) {
+        this.capacityBytes = properties.getMaxSizeMb() * 1024 * 1024;
+        this.sessions = Caffeine.newBuilder()
+                .maximumWeight(capacityBytes)
+                .weigher((String id, SubtitleSession session) -> session.estimatedSize())
+                .expireAfterAccess(properties.getExpireAfterAccessMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 以流的方式保存上传的字幕文件：探测编码后边解码边解析，解码出的字符直接写入堆外并同时计算摘要，
+     * 堆上不保留整份文件的字节或文本
+     * subtitleId 按解码后文本的 UTF-8 编码计算，同一字幕不论以何种编码上传都得到同一会话
+     *
+     * @return 字幕会话，相同内容返回同一会话
+     * @throws SubtitleTooLargeException 字幕超过存储容量，读到超出的位置即停止
+     */
+    public SubtitleSession save(InputStream in) throws IOException {
+        CueTable cues;
+        ContentReader reader = new ContentReader(SubtitleDecoder.open(in), capacityBytes);
+        try (reader) {
+            cues = SubtitleParser.parse(reader);
+        }
+        OffHeapText content = reader.content.build();
+        Digest digest = reader.digester.finish();
+        return store(digest, key -> new SubtitleSession(key, content, digest.byteSize(), cues));
+    }
+
+    /**
+     * 保存上传的字幕字节，编码探测同 {@link #save(InputStream)}
+     */
+    public SubtitleSession save(byte[] bytes) {
+        try {
+            return save(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 保存字幕文本
+     */
+    public SubtitleSession save(String content) {
+        Digest digest = digest(content);
+        return store(digest, key -> new SubtitleSession(key, content, digest.byteSize(), SubtitleParser.parse(content)));
+    }
+
+    /**
+     * 首次保存时构建会话：解析字幕索引并压缩为 Prompt 使用的紧凑格式；超过存储容量的会话不放入缓存
+     */
+    private SubtitleSession store(Digest digest, Function<String, SubtitleSession> factory) {
+        return sessions.get(digest.id(), key -> {
+            SubtitleSession session = factory.apply(key);
+            if (session.estimatedSize() > capacityBytes) {
+                throw new SubtitleTooLargeException(session.estimatedSize(), capacityBytes);
+            }
+            log.info("字幕已保存: id={}, 字幕 {} 条, 估算 {} tokens, 压缩后 {} tokens",
+                    key, session.getCues().size(), session.getRawEstimatedTokens(), session.getEstimatedTokens());
+            return session;
+        });
+    }
+    /**
+     * 按 ID 获取字幕会话
+     *
+     * @throws IllegalArgumentException 字幕不存在或已被淘汰
+     */
+    public SubtitleSession get(String subtitleId) {
+        SubtitleSession session = sessions.getIfPresent(subtitleId);
+        if (session == null) {
+            throw new IllegalArgumentException("字幕不存在或已过期，请重新上传: " + subtitleId);
+        }
+        return session;
+    }
+
+    /**
+     * 检查字幕是否仍在存储中
+     */
+    public boolean contains(String subtitleId) {
+        return sessions.getIfPresent(subtitleId) != null;
+    }
+
+    /**
+     * 立即执行挂起的淘汰（用于测试）
+     */
+    public void cleanUp() {
+        sessions.cleanUp();
+    }
+
+    /**
+     * 计算内容寻址 ID（SHA-256 十六进制）
+     */
+    static String hash(byte[] bytes) {
+        MessageDigest digest = sha256();
+        return HexFormat.of().formatHex(digest.digest(bytes));
+    }
+
+    /**
+     * 按文本的 UTF-8 编码计算 ID 与字节数，分段编码，不生成整份文本的字节数组
+     */
+    static Digest digest(String content) {
+        Digester digester = new Digester();
+        char[] slice = new char[DIGEST_SLICE_CHARS];
+        for (int from = 0; from < content.length(); from += slice.length) {
+            int to = Math.min(content.length(), from + slice.length);
+            content.getChars(from, to, slice, 0);
+            digester.update(slice, 0, to - from);
+        }
+        return digester.finish();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    record Digest(String id, int byteSize) {}
+
+    /**
+     * 分段计算文本 UTF-8 编码的 SHA-256 与字节数；跨分段的代理对留到下一段一起编码
+     */
+    private static final class Digester {
+
+        private final MessageDigest digest = sha256();
+        private final StringBuilder pending = new StringBuilder(DIGEST_SLICE_CHARS + 1);
+        private int byteSize;
+
+        void update(char[] chars, int offset, int length) {
+            pending.append(chars, offset, length);
+            int end = pending.length();
+            if (end > 0 && Character.isHighSurrogate(pending.charAt(end - 1))) {
+                end--;
+            }
+            byte[] slice = pending.substring(0, end).getBytes(StandardCharsets.UTF_8);
+            digest.update(slice);
+            byteSize += slice.length;
+            pending.delete(0, end);
+        }
+
+        Digest finish() {
+            if (!pending.isEmpty()) {
+                byte[] slice = pending.toString().getBytes(StandardCharsets.UTF_8);
+                digest.update(slice);
+                byteSize += slice.length;
+            }
+            return new Digest(HexFormat.of().formatHex(digest.digest()), byteSize);
+        }
+    }
+
+    /**
+     * 解析器读取字符的同时把文本写入堆外并计算摘要；写入量超过存储容量时立即失败
+     */
+    private static final class ContentReader extends FilterReader {
+
+        private final OffHeapText.Builder content = new OffHeapText.Builder();
+        private final Digester digester = new Digester();
+        private final long capacityBytes;
+
+        ContentReader(Reader in, long capacityBytes) {
+            super(in);
+            this.capacityBytes = capacityBytes;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                content.append(buffer, offset, read);
+                digester.update(buffer, offset, read);
+                long bytes = (long) content.length() * Character.BYTES;
+                if (bytes > capacityBytes) {
+                    throw new SubtitleTooLargeException(bytes, capacityBytes);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public int read() throws IOException {
+            char[] one = new char[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.videoagent.service;
+
+/**
+ * 字幕解析后占用的内存超过字幕存储的总容量，无法保存
+ * /api 接口返回 HTTP 413
+ */
+public class SubtitleTooLargeException extends IllegalArgumentException {
+
+    private final long requiredBytes;
+    private final long capacityBytes;
+
+    public SubtitleTooLargeException(long requiredBytes, long capacityBytes) {
+        super(String.format("字幕过大：解析后至少占用 %d MB，超过字幕存储容量 %d MB，请拆分后上传",
+                toMegabytes(requiredBytes), capacityBytes / (1024 * 1024)));
+        this.requiredBytes = requiredBytes;
+        this.capacityBytes = capacityBytes;
+    }
+
+    public long getRequiredBytes() {
+        return requiredBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    private static long toMegabytes(long bytes) {
+        return (bytes + 1024 * 1024 - 1) / (1024 * 1024);
+    }
+}
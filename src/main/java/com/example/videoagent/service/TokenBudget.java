@@ -0,0 +1,130 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.TokenBudgetProperties;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.subtitle.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token 预算：估算渲染后 Prompt 的 token 数，超出上下文窗口的调用在发出前拒绝
+ * 估算基于 {@link TokenEstimator} 乘以校准系数
+ */
+@Service
+public class TokenBudget {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenBudget.class);
+
+    private final TokenBudgetProperties properties;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public TokenBudget(TokenBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 估算 Prompt 的 token 数（已校准）
+     */
+    public int estimate(String prompt) {
+        return calibrate(TokenEstimator.estimate(prompt));
+    }
+
+    /**
+     * 对未校准的估算值（如字幕会话缓存的估算）应用校准系数
+     */
+    public int calibrate(int estimatedTokens) {
+        return (int) Math.ceil(estimatedTokens * properties.getCalibration());
+    }
+
+    /**
+     * 单次调用允许的最大 Prompt token 数：上下文窗口减去预留输出
+     */
+    public int maxPromptTokens() {
+        return properties.getContextWindowTokens() - properties.getMaxOutputTokens();
+    }
+
+    /**
+     * 调用模型前检查 Prompt 是否放得进上下文窗口
+     * @throws IllegalArgumentException 超出窗口且启用了准入控制
+     */
+    public void admit(String promptName, String prompt) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int tokens = estimate(prompt);
+        if (tokens > maxPromptTokens()) {
+            rejected.incrementAndGet();
+            log.warn("拒绝模型调用: prompt={}, 估算 {} tokens, 上限 {}", promptName, tokens, maxPromptTokens());
+            throw new IllegalArgumentException(String.format(
+                    "内容过长：估算 %d tokens，超过单次调用上限 %d tokens（上下文窗口 %d，预留输出 %d），请缩短字幕后重试",
+                    tokens, maxPromptTokens(), properties.getContextWindowTokens(), properties.getMaxOutputTokens()));
+        }
+        admitted.incrementAndGet();
+    }
+
+    /**
+     * 估算一组模型调用的 token 数与费用
+     * @param prompts 每次调用渲染后的 Prompt
+     * @param mapReduce 是否为分段总结：额外一次合并调用，输入为各分段输出，按输出上限计
+     */
+    public TokenEstimate estimate(List<String> prompts, boolean mapReduce) {
+        int[] estimatedTokens = new int[prompts.size()];
+        for (int i = 0; i < estimatedTokens.length; i++) {
+            estimatedTokens[i] = TokenEstimator.estimate(prompts.get(i));
+        }
+        return estimate(estimatedTokens, mapReduce);
+    }
+
+    /**
+     * 按每次调用未校准的 token 估算值估算，调用方无需渲染出整份 Prompt
+     * @param estimatedTokens 每次调用的 Prompt 估算 token 数（未校准）
+     * @param mapReduce 是否为分段总结
+     */
+    public TokenEstimate estimate(int[] estimatedTokens, boolean mapReduce) {
+        long promptTokens = 0;
+        boolean withinWindow = true;
+        for (int estimated : estimatedTokens) {
+            int tokens = calibrate(estimated);
+            promptTokens += tokens;
+            withinWindow &= tokens <= maxPromptTokens();
+        }
+        int calls = estimatedTokens.length;
+        long reduceInputTokens = 0;
+        if (mapReduce) {
+            reduceInputTokens = (long) calls * properties.getMaxOutputTokens();
+            calls++;
+        }
+        long maxOutputTokens = (long) calls * properties.getMaxOutputTokens();
+
+        double inputCost = cost(promptTokens, properties.getInputPricePerMillion());
+        double maxCost = inputCost
+                + cost(reduceInputTokens, properties.getInputPricePerMillion())
+                + cost(maxOutputTokens, properties.getOutputPricePerMillion());
+        return new TokenEstimate(promptTokens, calls, maxOutputTokens, maxPromptTokens(),
+                withinWindow, mapReduce, inputCost, maxCost);
+    }
+
+    private static double cost(long tokens, double pricePerMillion) {
+        return tokens * pricePerMillion / 1_000_000;
+    }
+
+    /**
+     * 通过准入检查的调用次数
+     */
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    /**
+     * 因超出上下文窗口被拒绝的调用次数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
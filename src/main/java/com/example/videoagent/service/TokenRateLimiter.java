@@ -0,0 +1,56 @@
+package com.example.videoagent.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 每分钟 token 数的令牌桶
+ * 桶容量为一分钟的配额，按配额匀速补充；预约时立即扣除，余额不足时允许透支，返回需要等待的时间，
+ * 并发的调用按预约先后依次错开，配额既不闲置也不超出
+ */
+final class TokenRateLimiter {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final long tokensPerMinute;
+    private final LongSupplier nanoClock;
+
+    // 以下字段只在持有 this 锁时访问
+    private double available;
+    private long refilledAt;
+
+    TokenRateLimiter(long tokensPerMinute) {
+        this(tokensPerMinute, System::nanoTime);
+    }
+
+    TokenRateLimiter(long tokensPerMinute, LongSupplier nanoClock) {
+        this.tokensPerMinute = tokensPerMinute;
+        this.nanoClock = nanoClock;
+        this.available = tokensPerMinute;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * 预约 tokens 个 token
+     * @return 发出调用前需要等待的纳秒数；不限速时为 0
+     */
+    synchronized long reserve(long tokens) {
+        if (tokensPerMinute <= 0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        available = Math.min(tokensPerMinute, available + (double) (now - refilledAt) * tokensPerMinute / MINUTE_NANOS);
+        refilledAt = now;
+        available -= tokens;
+        return available >= 0 ? 0 : (long) Math.ceil(-available * MINUTE_NANOS / tokensPerMinute);
+    }
+
+    /**
+     * 归还预约但未使用的 token（调用被拒绝、未发出）
+     */
+    synchronized void refund(long tokens) {
+        if (tokensPerMinute > 0) {
+            available = Math.min(tokensPerMinute, available + tokens);
+        }
+    }
+}
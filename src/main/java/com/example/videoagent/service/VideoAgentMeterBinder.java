@@ -0,0 +1,92 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.subtitle.OffHeapText;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 把各组件已有的计数器注册为 Micrometer 指标：
+ * - videoagent.response.cache：响应缓存命中 / 未命中（result = memory_hit / disk_hit / miss）
+ * - videoagent.intent.classifications：意图分类来源（source = local / remote / cached）
+ * - videoagent.speculation：推测执行命中 / 未命中（result = hit / miss）
+ * - videoagent.token.admission：上下文窗口准入通过 / 拒绝（result = admitted / rejected）
+ * - videoagent.stream：SSE 合并前后的分块数与帧数、因客户端过慢结束的流数（type = chunk / frame / dropped）
+ * - videoagent.model.concurrency：各隔离舱当前的并发上限与在途调用数（bulkhead，type = limit / in_flight）
+ * - videoagent.model.concurrency.rejected：各隔离舱因并发已满拒绝的调用数（bulkhead）
+ * - videoagent.subtitle.offheap：常驻字幕文本占用的直接内存字节数
+ */
+@Component
+public class VideoAgentMeterBinder implements MeterBinder {
+
+    private final ResponseCache responseCache;
+    private final IntentClassificationService intentClassificationService;
+    private final VideoService videoService;
+    private final SseChunkCoalescer chunkCoalescer;
+    private final TokenBudget tokenBudget;
+    private final ModelConcurrencyLimiter concurrencyLimiter;
+
+    public VideoAgentMeterBinder(ResponseCache responseCache,
+                                 IntentClassificationService intentClassificationService,
+                                 VideoService videoService,
+                                 SseChunkCoalescer chunkCoalescer,
+                                 TokenBudget tokenBudget,
+                                 ModelConcurrencyLimiter concurrencyLimiter) {
+        this.responseCache = responseCache;
+        this.intentClassificationService = intentClassificationService;
+        this.videoService = videoService;
+        this.chunkCoalescer = chunkCoalescer;
+        this.tokenBudget = tokenBudget;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "videoagent.response.cache", responseCache, ResponseCache::getMemoryHits, "result", "memory_hit");
+        counter(registry, "videoagent.response.cache", responseCache, ResponseCache::getDiskHits, "result", "disk_hit");
+        counter(registry, "videoagent.response.cache", responseCache, ResponseCache::getMisses, "result", "miss");
+
+        counter(registry, "videoagent.intent.classifications", intentClassificationService,
+                s -> s.getStats().getLocal(), "source", "local");
+        counter(registry, "videoagent.intent.classifications", intentClassificationService,
+                s -> s.getStats().getRemote(), "source", "remote");
+        counter(registry, "videoagent.intent.classifications", intentClassificationService,
+                s -> s.getStats().getCached(), "source", "cached");
+
+        counter(registry, "videoagent.speculation", videoService, s -> s.getSpeculationStats().getHits(), "result", "hit");
+        counter(registry, "videoagent.speculation", videoService, s -> s.getSpeculationStats().getMisses(), "result", "miss");
+
+        counter(registry, "videoagent.token.admission", tokenBudget, TokenBudget::getAdmitted, "result", "admitted");
+        counter(registry, "videoagent.token.admission", tokenBudget, TokenBudget::getRejected, "result", "rejected");
+
+        counter(registry, "videoagent.stream", chunkCoalescer, SseChunkCoalescer::getChunks, "type", "chunk");
+        counter(registry, "videoagent.stream", chunkCoalescer, SseChunkCoalescer::getFrames, "type", "frame");
+        counter(registry, "videoagent.stream", chunkCoalescer, SseChunkCoalescer::getDroppedStreams, "type", "dropped");
+
+        for (AdaptiveBulkhead bulkhead : concurrencyLimiter.getBulkheads()) {
+            Gauge.builder("videoagent.model.concurrency", bulkhead, AdaptiveBulkhead::getLimit)
+                    .tags("bulkhead", bulkhead.getName(), "type", "limit")
+                    .register(registry);
+            Gauge.builder("videoagent.model.concurrency", bulkhead, AdaptiveBulkhead::getInFlight)
+                    .tags("bulkhead", bulkhead.getName(), "type", "in_flight")
+                    .register(registry);
+            counter(registry, "videoagent.model.concurrency.rejected", bulkhead, AdaptiveBulkhead::getRejected,
+                    "bulkhead", bulkhead.getName());
+        }
+
+        Gauge.builder("videoagent.subtitle.offheap", OffHeapText::allocatedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count,
+                                    String tagKey, String tagValue) {
+        FunctionCounter.builder(name, source, count)
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+}
@@ -1,6 +1,14 @@
 package com.example.videoagent.service;
 
+import com.example.videoagent.dto.Concept;
+import com.example.videoagent.dto.Quote;
+import com.example.videoagent.dto.SpeculationStats;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.dto.VideoAnalysis;
+import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.subtitle.SubtitleSession;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * 视频分析服务接口
@@ -22,6 +30,14 @@ public interface VideoService {
      */
     String summarize(String subtitleContent);
 
+    /**
+     * 生成视频总结（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 总结文本
+     */
+    String summarize(SubtitleSession subtitle, String promptVersion);
+
     /**
      * 问答对话
      * @param subtitleContent 字幕内容
@@ -39,6 +55,15 @@ public interface VideoService {
      */
     String chat(String subtitleContent, String question);
 
+    /**
+     * 问答对话（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return AI 回答
+     */
+    String chat(SubtitleSession subtitle, String question, String promptVersion);
+
     /**
      * 提取知识点
      * @param subtitleContent 字幕内容
@@ -54,6 +79,14 @@ public interface VideoService {
      */
     String extractConcepts(String subtitleContent);
 
+    /**
+     * 提取知识点（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的知识点列表
+     */
+    String extractConcepts(SubtitleSession subtitle, String promptVersion);
+
     /**
      * 提取金句
      * @param subtitleContent 字幕内容
@@ -69,6 +102,23 @@ public interface VideoService {
      */
     String extractQuotes(String subtitleContent);
 
+    /**
+     * 提取金句（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的金句列表
+     */
+    String extractQuotes(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 完整分析：总结、知识点、金句一次调用生成，字幕只发送一次
+     * 合并输出按 analyze-all 的版本缓存，读取时拆分，不写入单项缓存；单项缓存中已有的部分直接使用，无法解析的部分回退到单项调用
+     * @param subtitle 字幕会话
+     * @param promptVersion analyze-all Prompt 版本号（可选，null 使用默认版本）
+     * @return 三项结果，格式与单项接口一致
+     */
+    VideoAnalysis analyzeAll(SubtitleSession subtitle, String promptVersion);
+
     /**
      * 搜索关键词
      * @param subtitleContent 字幕内容
@@ -86,6 +136,15 @@ public interface VideoService {
      */
     String searchKeyword(String subtitleContent, String keyword);
 
+    /**
+     * 搜索关键词（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param keyword 关键词
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的搜索结果
+     */
+    String searchKeyword(SubtitleSession subtitle, String keyword, String promptVersion);
+
     /**
      * 智能问答（自动意图分类 + 路由执行）
      * @param subtitleContent 字幕内容
@@ -103,6 +162,15 @@ public interface VideoService {
      */
     String smartAsk(String subtitleContent, String question);
 
+    /**
+     * 智能问答（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 回答内容
+     */
+    String smartAsk(SubtitleSession subtitle, String question, String promptVersion);
+
     /**
      * 深度分析问答
      * 启用 CoT (思维链) 模式进行推理
@@ -121,6 +189,15 @@ public interface VideoService {
      */
     String deepAnalyze(String subtitleContent, String question);
 
+    /**
+     * 深度分析问答（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 深度分析回答
+     */
+    String deepAnalyze(SubtitleSession subtitle, String question, String promptVersion);
+
     /**
      * 智能问答流式输出
      * @param subtitleContent 字幕内容
@@ -137,4 +214,99 @@ public interface VideoService {
      * @return 流式回答内容
      */
     Flux<String> smartAskStream(String subtitleContent, String question);
+
+    /**
+     * 智能问答流式输出（基于已上传的字幕会话）
+     * @param subtitle 字幕会话，由 subtitleId 从 SubtitleStore 解析
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 流式回答内容
+     */
+    Flux<String> smartAskStream(SubtitleSession subtitle, String question, String promptVersion);
+
+    // ==================== 非阻塞版本（供响应式 API 使用） ====================
+    // 模型调用以流式方式发起并在完成后拼接为完整回答，调用线程不会阻塞等待模型
+
+    /**
+     * 生成视频摘要（非阻塞）
+     * @param subtitle 字幕会话
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 摘要内容
+     */
+    Mono<String> summarizeAsync(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 基础问答（非阻塞）
+     * @param subtitle 字幕会话
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 回答内容
+     */
+    Mono<String> chatAsync(SubtitleSession subtitle, String question, String promptVersion);
+
+    /**
+     * 提取知识概念（非阻塞）
+     * @param subtitle 字幕会话
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的概念列表
+     */
+    Mono<String> extractConceptsAsync(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 提取金句（非阻塞）
+     * @param subtitle 字幕会话
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的金句列表
+     */
+    Mono<String> extractQuotesAsync(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 流式提取知识概念：模型输出中每个概念对象闭合即产出，无需等待整个数组
+     * @param subtitle 字幕会话
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 概念流；模型输出的数组被截断时以错误结束
+     */
+    Flux<Concept> extractConceptsStream(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 流式提取金句：模型输出中每个金句对象闭合即产出，无需等待整个数组
+     * @param subtitle 字幕会话
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 金句流；模型输出的数组被截断时以错误结束
+     */
+    Flux<Quote> extractQuotesStream(SubtitleSession subtitle, String promptVersion);
+
+    /**
+     * 关键词搜索（非阻塞）
+     * @param subtitle 字幕会话
+     * @param keyword 搜索关键词
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return JSON 格式的搜索结果
+     */
+    Mono<String> searchKeywordAsync(SubtitleSession subtitle, String keyword, String promptVersion);
+
+    /**
+     * 智能问答（非阻塞）
+     * @param subtitle 字幕会话
+     * @param question 用户问题
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 回答内容
+     */
+    Mono<String> smartAskAsync(SubtitleSession subtitle, String question, String promptVersion);
+
+    /**
+     * 估算一次请求的 token 数与费用，不调用模型
+     * @param subtitle 字幕会话
+     * @param question 用户问题（总结、提取类意图可为 null）
+     * @param intent 意图（null 时按问题用本地规则判断，未命中按 QA 估算）
+     * @param promptVersion Prompt 版本号（可选，null 使用默认版本）
+     * @return 估算结果
+     */
+    TokenEstimate estimateTokens(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion);
+
+    /**
+     * 推测执行命中统计
+     * @return 推测的 QA 回答被采用 / 被取消的次数
+     */
+    SpeculationStats getSpeculationStats();
 }
@@ -1,13 +1,44 @@
 package com.example.videoagent.service;
 
+import com.example.videoagent.config.PromptCacheProperties;
 import com.example.videoagent.config.PromptConstants;
+import com.example.videoagent.config.RetrievalProperties;
+import com.example.videoagent.config.SearchProperties;
+import com.example.videoagent.config.SpeculationProperties;
+import com.example.videoagent.config.SummarizeProperties;
+import com.example.videoagent.dto.Concept;
 import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.KeywordSearchResult;
+import com.example.videoagent.dto.Quote;
+import com.example.videoagent.dto.SpeculationStats;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.dto.VideoAnalysis;
+import com.example.videoagent.enums.ModelPriority;
 import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.subtitle.CueTable;
+import com.example.videoagent.subtitle.CueWindows;
+import com.example.videoagent.subtitle.SubtitleSession;
+import com.example.videoagent.subtitle.Timestamps;
+import com.example.videoagent.subtitle.TokenEstimator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.ConnectableFlux;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * 视频分析服务实现
@@ -16,18 +47,70 @@ import java.util.Map;
 @Service
 public class VideoServiceImpl implements VideoService {
 
+    // 前缀缓存布局：字幕消息的开头，以及模板中替换字幕的引用说明
+    private static final String SUBTITLE_PREFIX = "字幕内容：\n";
+    private static final String SUBTITLE_REFERENCE = "（见上一条消息中的字幕）";
+
+    // 分段总结在并发限制中作为一个整体操作，其中的分段与合并调用不单独占用许可
+    private static final String MAP_REDUCE_OPERATION = "summarize-map-reduce";
+
     private final ChatClient chatClient;
+    // 前缀缓存布局使用的客户端（不带默认系统提示），未开启时为 null
+    private final ChatClient prefixChatClient;
     private final IntentClassificationService intentClassificationService;
     private final PromptTemplateService promptTemplateService;
+    private final SubtitleStore subtitleStore;
+    private final SearchProperties searchProperties;
+    private final SummarizeProperties summarizeProperties;
+    private final RetrievalProperties retrievalProperties;
+    private final ResponseCache responseCache;
+    private final SpeculationProperties speculationProperties;
+    private final TokenBudget tokenBudget;
+    private final ModelConcurrencyLimiter concurrencyLimiter;
+    private final ModelCallScheduler callScheduler;
+    private final ModelMetrics modelMetrics;
+    private final Scheduler modelScheduler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    // 推测执行命中 / 未命中计数
+    private final AtomicLong speculationHits = new AtomicLong();
+    private final AtomicLong speculationMisses = new AtomicLong();
 
     public VideoServiceImpl(ChatClient.Builder chatClientBuilder,
                            IntentClassificationService intentClassificationService,
-                           PromptTemplateService promptTemplateService) {
+                           PromptTemplateService promptTemplateService,
+                           SubtitleStore subtitleStore,
+                           SearchProperties searchProperties,
+                           SummarizeProperties summarizeProperties,
+                           RetrievalProperties retrievalProperties,
+                           PromptCacheProperties promptCacheProperties,
+                           ResponseCache responseCache,
+                           SpeculationProperties speculationProperties,
+                           TokenBudget tokenBudget,
+                           ModelConcurrencyLimiter concurrencyLimiter,
+                           ModelCallScheduler callScheduler,
+                           ModelMetrics modelMetrics,
+                           Scheduler modelScheduler) {
+        // 默认系统提示总是排在显式消息之后，前缀布局需要自行控制顺序，因此在设置默认系统提示前复制一份
+        this.prefixChatClient = promptCacheProperties.isEnabled() ? chatClientBuilder.clone().build() : null;
         this.chatClient = chatClientBuilder
                 .defaultSystem(PromptConstants.SYSTEM_PROMPT)
                 .build();
         this.intentClassificationService = intentClassificationService;
         this.promptTemplateService = promptTemplateService;
+        this.subtitleStore = subtitleStore;
+        this.searchProperties = searchProperties;
+        this.summarizeProperties = summarizeProperties;
+        this.retrievalProperties = retrievalProperties;
+        this.responseCache = responseCache;
+        this.speculationProperties = speculationProperties;
+        this.tokenBudget = tokenBudget;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.callScheduler = callScheduler;
+        this.modelMetrics = modelMetrics;
+        this.modelScheduler = modelScheduler;
+        modelMetrics.bindSingleFlight(singleFlight);
     }
 
     @Override
@@ -37,16 +120,29 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String summarize(String subtitleContent, String promptVersion) {
-        String userPrompt = promptTemplateService.render(
-                "summarize",
-                promptVersion,
-                Map.of("subtitle", subtitleContent)
-        );
+        return summarize(subtitleStore.save(subtitleContent), promptVersion);
+    }
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+    @Override
+    public String summarize(SubtitleSession subtitle, String promptVersion) {
+        return responseCache.getOrCompute(cacheKey(subtitle, "summarize", promptVersion), () -> {
+            // 超长字幕：分段并行总结后再合并，整个过程占用一个许可
+            if (needsMapReduce(subtitle)) {
+                return concurrencyLimiter.call(MAP_REDUCE_OPERATION, () -> mapReduceSummarizePrompt(subtitle)
+                        .map(userPrompt -> callModel("summarize-reduce", null, userPrompt))
+                        .block());
+            }
+
+            ModelPrompt prompt = renderWithSubtitle(
+                    "summarize",
+                    promptVersion,
+                    subtitle,
+                    subtitle.getCompactText(),
+                    Map.of()
+            );
+
+            return callModel("summarize", promptVersion, prompt);
+        });
     }
 
     @Override
@@ -56,16 +152,21 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String chat(String subtitleContent, String question, String promptVersion) {
-        String userPrompt = promptTemplateService.render(
+        return chat(subtitleStore.save(subtitleContent), question, promptVersion);
+    }
+
+    @Override
+    public String chat(SubtitleSession subtitle, String question, String promptVersion) {
+        ModelPrompt prompt = renderWithSubtitle(
                 "chat",
                 promptVersion,
-                Map.of("subtitle", subtitleContent, "question", question)
+                subtitle,
+                relevantSubtitle(subtitle, question),
+                Map.of("question", question)
         );
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+        // 用户在同步等待回答，与流式问答一样按交互优先级调度
+        return callScheduler.callAs(ModelPriority.INTERACTIVE, () -> callModel("chat", promptVersion, prompt));
     }
 
     @Override
@@ -75,16 +176,22 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String extractConcepts(String subtitleContent, String promptVersion) {
-        String userPrompt = promptTemplateService.render(
-                "extract-concepts",
-                promptVersion,
-                Map.of("subtitle", subtitleContent)
-        );
+        return extractConcepts(subtitleStore.save(subtitleContent), promptVersion);
+    }
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+    @Override
+    public String extractConcepts(SubtitleSession subtitle, String promptVersion) {
+        return responseCache.getOrCompute(cacheKey(subtitle, "extract-concepts", promptVersion), () -> {
+            ModelPrompt prompt = renderWithSubtitle(
+                    "extract-concepts",
+                    promptVersion,
+                    subtitle,
+                    subtitle.getCompactText(),
+                    Map.of()
+            );
+
+            return callModel("extract-concepts", promptVersion, prompt);
+        });
     }
 
     @Override
@@ -94,16 +201,57 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String extractQuotes(String subtitleContent, String promptVersion) {
-        String userPrompt = promptTemplateService.render(
-                "extract-quotes",
-                promptVersion,
-                Map.of("subtitle", subtitleContent)
-        );
+        return extractQuotes(subtitleStore.save(subtitleContent), promptVersion);
+    }
+
+    @Override
+    public String extractQuotes(SubtitleSession subtitle, String promptVersion) {
+        return responseCache.getOrCompute(cacheKey(subtitle, "extract-quotes", promptVersion), () -> {
+            ModelPrompt prompt = renderWithSubtitle(
+                    "extract-quotes",
+                    promptVersion,
+                    subtitle,
+                    subtitle.getCompactText(),
+                    Map.of()
+            );
+
+            return callModel("extract-quotes", promptVersion, prompt);
+        });
+    }
+
+    @Override
+    public VideoAnalysis analyzeAll(SubtitleSession subtitle, String promptVersion) {
+        // 单项缓存中同一版本已有的结果直接使用
+        String summary = responseCache.get(cacheKey(subtitle, "summarize", promptVersion));
+        String concepts = responseCache.get(cacheKey(subtitle, "extract-concepts", promptVersion));
+        String quotes = responseCache.get(cacheKey(subtitle, "extract-quotes", promptVersion));
+
+        // 缺两项及以上才合并：只缺一项时单项调用输出更短；超长字幕的总结需要分段，不走单次调用
+        // 合并输出按 analyze-all 自身的版本缓存，读取时再拆分，不写入单项缓存：单项 Prompt 升级版本后不会命中旧的合并结果
+        int missing = (summary == null ? 1 : 0) + (concepts == null ? 1 : 0) + (quotes == null ? 1 : 0);
+        if (missing >= 2 && !needsMapReduce(subtitle)) {
+            String output = responseCache.getOrCompute(cacheKey(subtitle, "analyze-all", promptVersion), () -> {
+                ModelPrompt prompt = renderWithSubtitle(
+                        "analyze-all",
+                        promptVersion,
+                        subtitle,
+                        subtitle.getCompactText(),
+                        Map.of()
+                );
+                return callModel("analyze-all", promptVersion, prompt);
+            });
+            AnalysisSections sections = AnalysisSections.parse(output);
+            summary = summary != null ? summary : sections.summary();
+            concepts = concepts != null ? concepts : sections.concepts();
+            quotes = quotes != null ? quotes : sections.quotes();
+        }
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+        // 仍然缺失（合并输出中缺少或无法解析）的部分回退到单项调用
+        return new VideoAnalysis(
+                summary != null ? summary : summarize(subtitle, promptVersion),
+                concepts != null ? concepts : extractConcepts(subtitle, promptVersion),
+                quotes != null ? quotes : extractQuotes(subtitle, promptVersion)
+        );
     }
 
     @Override
@@ -113,16 +261,25 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String searchKeyword(String subtitleContent, String keyword, String promptVersion) {
-        String userPrompt = promptTemplateService.render(
+        return searchKeyword(subtitleStore.save(subtitleContent), keyword, promptVersion);
+    }
+
+    @Override
+    public String searchKeyword(SubtitleSession subtitle, String keyword, String promptVersion) {
+        // 带时间轴的字幕直接查倒排索引，无需把整份字幕发给模型
+        if (!subtitle.getCues().isEmpty()) {
+            return searchLocally(subtitle, keyword);
+        }
+
+        ModelPrompt prompt = renderWithSubtitle(
                 "search-keyword",
                 promptVersion,
-                Map.of("subtitle", subtitleContent, "keyword", keyword)
+                subtitle,
+                subtitle.getCompactText(),
+                Map.of("keyword", keyword)
         );
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+        return callModel("search-keyword", promptVersion, prompt);
     }
 
     @Override
@@ -132,25 +289,54 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String smartAsk(String subtitleContent, String question, String promptVersion) {
-        // Step 1: 意图分类
-        IntentResult intentResult = intentClassificationService.classifyIntentWithCache(question);
-        UserIntent intent = intentResult.getIntent();
+        return smartAsk(subtitleStore.save(subtitleContent), question, promptVersion);
+    }
+
+    @Override
+    public String smartAsk(SubtitleSession subtitle, String question, String promptVersion) {
+        // 用户在同步等待回答，其中的模型调用（包括总结、提取）与流式问答一样按交互优先级调度
+        return callScheduler.callAs(ModelPriority.INTERACTIVE, () -> routeSmartAsk(subtitle, question, promptVersion));
+    }
+
+    private String routeSmartAsk(SubtitleSession subtitle, String question, String promptVersion) {
+        // Step 1: 意图分类（本地可判断时无需推测）
+        IntentResult localResult = intentClassificationService.classifyLocally(question);
+        if (localResult == null && speculationProperties.isEnabled()) {
+            return speculativeAsk(subtitle, question, promptVersion);
+        }
+        IntentResult intentResult = localResult != null
+                ? localResult
+                : intentClassificationService.classifyIntentWithCache(question);
 
         // Step 2: 根据意图路由到对应的专用 Prompt
+        return routeAsk(subtitle, question, intentResult.getIntent(), promptVersion);
+    }
+
+    private String routeAsk(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion) {
         return switch (intent) {
-            case SUMMARIZE -> summarize(subtitleContent, promptVersion);
-            case QA -> chat(subtitleContent, question, promptVersion);
-            case EXTRACT_CONCEPTS -> extractConcepts(subtitleContent, promptVersion);
-            case EXTRACT_QUOTES -> extractQuotes(subtitleContent, promptVersion);
+            case SUMMARIZE -> summarize(subtitle, promptVersion);
+            case QA -> chat(subtitle, question, promptVersion);
+            case EXTRACT_CONCEPTS -> extractConcepts(subtitle, promptVersion);
+            case EXTRACT_QUOTES -> extractQuotes(subtitle, promptVersion);
             case SEARCH_KEYWORD -> {
                 // 从问题中提取关键词
                 String keyword = extractKeywordFromQuestion(question);
-                yield searchKeyword(subtitleContent, keyword, promptVersion);
+                yield searchKeyword(subtitle, keyword, promptVersion);
             }
-            case DEEP_QA -> deepAnalyze(subtitleContent, question, promptVersion);
+            case DEEP_QA -> deepAnalyze(subtitle, question, promptVersion);
         };
     }
 
+    /**
+     * 推测执行：LLM 分类期间同时按 QA 生成回答，分类为 QA 时直接复用，否则取消
+     * 推测的 QA 基于流式调用，未命中时取消订阅即可中断生成；同步调用一旦发出无法中途取消
+     */
+    private String speculativeAsk(SubtitleSession subtitle, String question, String promptVersion) {
+        return join(speculativeAskStream(subtitle, question, promptVersion))
+                .contextWrite(ModelCallScheduler.withPriority(ModelPriority.INTERACTIVE))
+                .block();
+    }
+
     @Override
     public String deepAnalyze(String subtitleContent, String question) {
         return deepAnalyze(subtitleContent, question, null);
@@ -158,6 +344,11 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public String deepAnalyze(String subtitleContent, String question, String promptVersion) {
+        return deepAnalyze(subtitleStore.save(subtitleContent), question, promptVersion);
+    }
+
+    @Override
+    public String deepAnalyze(SubtitleSession subtitle, String question, String promptVersion) {
         // 移除前缀，获取真实问题
         String realQuestion = question;
         if (question.startsWith("/deep ")) {
@@ -166,16 +357,15 @@ public class VideoServiceImpl implements VideoService {
             realQuestion = question.substring(5).trim();
         }
 
-        String userPrompt = promptTemplateService.render(
+        ModelPrompt prompt = renderWithSubtitle(
                 "deep-qa",
                 promptVersion,
-                Map.of("subtitle", subtitleContent, "question", realQuestion)
+                subtitle,
+                relevantSubtitle(subtitle, realQuestion),
+                Map.of("question", realQuestion)
         );
 
-        return chatClient.prompt()
-                .user(userPrompt)
-                .call()
-                .content();
+        return callModel("deep-qa", promptVersion, prompt);
     }
 
     @Override
@@ -185,37 +375,347 @@ public class VideoServiceImpl implements VideoService {
 
     @Override
     public Flux<String> smartAskStream(String subtitleContent, String question, String promptVersion) {
-        // Step 1: 意图分类（复用现有逻辑）
-        IntentResult intentResult = intentClassificationService.classifyIntentWithCache(question);
-        UserIntent intent = intentResult.getIntent();
+        return smartAskStream(subtitleStore.save(subtitleContent), question, promptVersion);
+    }
 
-        // Step 2: 根据意图构建 Prompt
-        String userPrompt = buildPromptByIntent(subtitleContent, question, intent, promptVersion);
+    @Override
+    public Flux<String> smartAskStream(SubtitleSession subtitle, String question, String promptVersion) {
+        // Step 1: 意图分类（本地可判断时无需推测）
+        IntentResult localResult = intentClassificationService.classifyLocally(question);
+        Flux<String> answer;
+        if (localResult == null && speculationProperties.isEnabled()) {
+            answer = speculativeAskStream(subtitle, question, promptVersion);
+        } else {
+            IntentResult intentResult = localResult != null
+                    ? localResult
+                    : intentClassificationService.classifyIntentWithCache(question);
+            answer = routeAskStream(subtitle, question, intentResult.getIntent(), promptVersion);
+        }
+        // 用户在等待首字，流中的模型调用（包括总结、提取）按交互优先级调度
+        return answer.contextWrite(ModelCallScheduler.withPriority(ModelPriority.INTERACTIVE));
+    }
+
+    private Flux<String> routeAskStream(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion) {
+        // 关键词搜索在本地完成，整段结果作为单个事件返回
+        if (intent == UserIntent.SEARCH_KEYWORD && !subtitle.getCues().isEmpty()) {
+            String keyword = extractKeywordFromQuestion(question);
+            return Flux.defer(() -> Flux.just(searchLocally(subtitle, keyword)));
+        }
 
-        // Step 3: 流式调用 AI
-        return chatClient.prompt()
-                .user(userPrompt)
-                .stream()
-                .content();
+        // 总结、知识点、金句的结果只取决于字幕和模板，命中缓存时整段返回
+        String cacheKey = cacheKeyForIntent(subtitle, intent, promptVersion);
+        if (cacheKey != null) {
+            String cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                return Flux.just(cached);
+            }
+        }
+
+        Flux<String> answer;
+        if (intent == UserIntent.SUMMARIZE && needsMapReduce(subtitle)) {
+            // 超长字幕的总结先并行完成分段摘要，再流式输出合并结果
+            answer = concurrencyLimiter.stream(MAP_REDUCE_OPERATION, () -> mapReduceSummarizePrompt(subtitle)
+                    .flatMapMany(userPrompt -> streamModel("summarize-reduce", null, userPrompt)));
+        } else {
+            // Step 2: 根据意图构建 Prompt
+            ModelPrompt prompt = buildPromptByIntent(subtitle, question, intent, promptVersion);
+
+            // Step 3: 流式调用 AI
+            answer = streamModel(promptNameOf(intent), promptVersion, prompt);
+        }
+        return cacheKey != null ? cacheOnComplete(cacheKey, answer) : answer;
+    }
+
+    /**
+     * 流式推测执行：订阅时同时开始 LLM 分类和 QA 流式生成，QA 的分片先行缓冲；
+     * 分类为 QA 时回放已缓冲的分片并接上后续分片，否则取消 QA 流并按实际意图重新路由
+     */
+    private Flux<String> speculativeAskStream(SubtitleSession subtitle, String question, String promptVersion) {
+        return Flux.deferContextual(context -> {
+            // 推测的 QA 流在此处单独连接，需带上调用方的上下文（如交互优先级）
+            ConnectableFlux<String> speculativeAnswer = streamModel("chat", promptVersion,
+                            buildPromptByIntent(subtitle, question, UserIntent.QA, promptVersion))
+                    .contextWrite(context)
+                    .replay();
+            Disposable connection = speculativeAnswer.connect();
+
+            return Mono.fromCallable(() -> intentClassificationService.classifyIntentWithCache(question))
+                    .subscribeOn(modelScheduler)
+                    .flatMapMany(intentResult -> {
+                        if (intentResult.getIntent() == UserIntent.QA) {
+                            speculationHits.incrementAndGet();
+                            return speculativeAnswer;
+                        }
+                        speculationMisses.incrementAndGet();
+                        connection.dispose();
+                        return routeAskStream(subtitle, question, intentResult.getIntent(), promptVersion);
+                    })
+                    // 下游取消或出错时一并取消推测的 QA 流
+                    .doFinally(signal -> connection.dispose());
+        });
+    }
+
+    @Override
+    public Mono<String> summarizeAsync(SubtitleSession subtitle, String promptVersion) {
+        return join(routeAskStream(subtitle, null, UserIntent.SUMMARIZE, promptVersion));
+    }
+
+    @Override
+    public Mono<String> chatAsync(SubtitleSession subtitle, String question, String promptVersion) {
+        return join(routeAskStream(subtitle, question, UserIntent.QA, promptVersion));
+    }
+
+    @Override
+    public Mono<String> extractConceptsAsync(SubtitleSession subtitle, String promptVersion) {
+        return join(routeAskStream(subtitle, null, UserIntent.EXTRACT_CONCEPTS, promptVersion));
+    }
+
+    @Override
+    public Mono<String> extractQuotesAsync(SubtitleSession subtitle, String promptVersion) {
+        return join(routeAskStream(subtitle, null, UserIntent.EXTRACT_QUOTES, promptVersion));
+    }
+
+    @Override
+    public Flux<Concept> extractConceptsStream(SubtitleSession subtitle, String promptVersion) {
+        return JsonArrayElements.parse(
+                routeAskStream(subtitle, null, UserIntent.EXTRACT_CONCEPTS, promptVersion), Concept.class);
+    }
+
+    @Override
+    public Flux<Quote> extractQuotesStream(SubtitleSession subtitle, String promptVersion) {
+        return JsonArrayElements.parse(
+                routeAskStream(subtitle, null, UserIntent.EXTRACT_QUOTES, promptVersion), Quote.class);
+    }
+
+    @Override
+    public Mono<String> searchKeywordAsync(SubtitleSession subtitle, String keyword, String promptVersion) {
+        if (!subtitle.getCues().isEmpty()) {
+            Mono<String> local = Mono.fromCallable(() -> searchLocally(subtitle, keyword));
+            // 开启 LLM 摘要时本地搜索内含一次同步模型调用
+            return searchProperties.isLlmSummary() ? local.subscribeOn(modelScheduler) : local;
+        }
+        return join(Flux.defer(() -> streamModel("search-keyword", promptVersion, renderWithSubtitle(
+                "search-keyword",
+                promptVersion,
+                subtitle,
+                subtitle.getCompactText(),
+                Map.of("keyword", keyword)
+        ))));
+    }
+
+    @Override
+    public Mono<String> smartAskAsync(SubtitleSession subtitle, String question, String promptVersion) {
+        IntentResult localResult = intentClassificationService.classifyLocally(question);
+        if (localResult == null && speculationProperties.isEnabled()) {
+            return join(speculativeAskStream(subtitle, question, promptVersion));
+        }
+        // LLM 意图分类是同步调用，放到模型调度器上执行
+        Mono<UserIntent> intent = localResult != null
+                ? Mono.just(localResult.getIntent())
+                : Mono.fromCallable(() -> intentClassificationService.classifyIntentWithCache(question).getIntent())
+                        .subscribeOn(modelScheduler);
+        return intent.flatMap(resolved -> join(routeAskStream(subtitle, question, resolved, promptVersion)));
+    }
+
+    /**
+     * 把流式分块拼接为完整回答
+     */
+    private static Mono<String> join(Flux<String> chunks) {
+        return chunks.collect(Collectors.joining());
+    }
+
+    @Override
+    public SpeculationStats getSpeculationStats() {
+        return new SpeculationStats(speculationHits.get(), speculationMisses.get());
+    }
+
+    @Override
+    public TokenEstimate estimateTokens(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion) {
+        String resolvedQuestion = question != null ? question : "";
+        UserIntent resolvedIntent = intent;
+        if (resolvedIntent == null) {
+            // 只用本地规则判断意图，估算本身不调用模型
+            IntentResult localResult = intentClassificationService.classifyLocally(resolvedQuestion);
+            resolvedIntent = localResult != null ? localResult.getIntent() : UserIntent.QA;
+        }
+
+        if (resolvedIntent == UserIntent.SEARCH_KEYWORD && !subtitle.getCues().isEmpty()) {
+            // 本地搜索不调用模型（可选的 LLM 摘要只包含命中片段，忽略不计）
+            return tokenBudget.estimate(List.of(), false);
+        }
+        if (resolvedIntent == UserIntent.SUMMARIZE && needsMapReduce(subtitle)) {
+            // 各窗口的字幕 token 数在切分时已算出，只渲染模板部分
+            CueWindows windows = CueWindows.split(subtitle.getCues(), summarizeProperties.getWindowTokens());
+            int[] estimatedTokens = new int[windows.size()];
+            for (int window = 0; window < windows.size(); window++) {
+                estimatedTokens[window] = windows.estimatedTokens(window) + TokenEstimator.estimate(
+                        promptTemplateService.render("summarize-map", null, Map.of(
+                                "subtitle", "",
+                                "range", Timestamps.format(windows.startMillis(window)) + " - " + Timestamps.format(windows.endMillis(window)),
+                                "index", window + 1,
+                                "total", windows.size())));
+            }
+            return tokenBudget.estimate(estimatedTokens, true);
+        }
+        int estimatedTokens = renderByIntent(subtitle, resolvedQuestion, resolvedIntent, promptVersion, this::estimateWithSubtitle);
+        return tokenBudget.estimate(new int[]{estimatedTokens}, false);
+    }
+
+    private String callModel(String promptName, String promptVersion, String userPrompt) {
+        return callModel(promptName, promptVersion, ModelPrompt.of(userPrompt));
+    }
+
+    /**
+     * 同步调用模型；相同 Prompt（名称、版本、渲染结果）的并发请求只调用一次，只占用一个许可
+     * 先在调度器中排队获得槽位，再进入隔离舱：排队期间不占用隔离舱许可，隔离舱只计量模型调用本身的延迟
+     */
+    private String callModel(String promptName, String promptVersion, ModelPrompt prompt) {
+        tokenBudget.admit(promptName, prompt.text());
+        String version = promptTemplateService.resolveVersion(promptName, promptVersion);
+        return singleFlight.call(flightKey(promptName, version, prompt), () -> callScheduler.call(
+                callScheduler.priorityOf(promptName),
+                () -> concurrencyLimiter.call(
+                        promptName,
+                        () -> modelMetrics.call(
+                                modelCall(promptName, version),
+                                () -> request(prompt)
+                                        .call()
+                                        .chatResponse()))));
+    }
+
+    private Flux<String> streamModel(String promptName, String promptVersion, String userPrompt) {
+        return streamModel(promptName, promptVersion, ModelPrompt.of(userPrompt));
+    }
+
+    /**
+     * 流式调用模型；相同 Prompt 的并发请求共享同一个上游流，后加入者先回放已输出的分片
+     * 与同步调用相同，先获得调度器槽位再进入隔离舱
+     */
+    private Flux<String> streamModel(String promptName, String promptVersion, ModelPrompt prompt) {
+        try {
+            tokenBudget.admit(promptName, prompt.text());
+        } catch (IllegalArgumentException e) {
+            return Flux.error(e);
+        }
+        String version = promptTemplateService.resolveVersion(promptName, promptVersion);
+        // 优先级在进入单飞之前从订阅者上下文中取出，合并的请求沿用首个请求的优先级
+        return Flux.deferContextual(context -> singleFlight.stream(flightKey(promptName, version, prompt),
+                () -> callScheduler.stream(
+                        callScheduler.priorityOf(promptName, context),
+                        () -> concurrencyLimiter.stream(
+                                promptName,
+                                () -> modelMetrics.stream(
+                                        modelCall(promptName, version),
+                                        () -> request(prompt)
+                                                .stream()
+                                                .chatResponse())))));
+    }
+
+    /**
+     * 构建模型请求：单条用户消息，或 (系统提示, 字幕, 指令) 的前缀缓存布局
+     */
+    private ChatClient.ChatClientRequestSpec request(ModelPrompt prompt) {
+        if (prompt.prefix() == null) {
+            return chatClient.prompt().user(prompt.user());
+        }
+        // 前两条消息只取决于字幕，同一视频的所有请求共享这段前缀
+        return prefixChatClient.prompt()
+                .messages(new SystemMessage(PromptConstants.SYSTEM_PROMPT), new UserMessage(prompt.prefix()))
+                .user(prompt.user());
+    }
+
+    private static String flightKey(String promptName, String version, ModelPrompt prompt) {
+        return promptName + '|' + version + '|' + SubtitleStore.hash(prompt.text().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ModelMetrics.ModelCall modelCall(String promptName, String version) {
+        UserIntent intent = intentOf(promptName);
+        return new ModelMetrics.ModelCall(promptName, version, intent != null ? intent.name() : "none");
+    }
+
+    /**
+     * Prompt 所属的意图（分段总结、搜索摘要归入对应意图），用于指标标签
+     */
+    private static UserIntent intentOf(String promptName) {
+        return switch (promptName) {
+            case "summarize", "summarize-map", "summarize-reduce" -> UserIntent.SUMMARIZE;
+            case "chat" -> UserIntent.QA;
+            case "extract-concepts" -> UserIntent.EXTRACT_CONCEPTS;
+            case "extract-quotes" -> UserIntent.EXTRACT_QUOTES;
+            case "search-keyword", "search-summary" -> UserIntent.SEARCH_KEYWORD;
+            case "deep-qa" -> UserIntent.DEEP_QA;
+            default -> null;
+        };
+    }
+
+    private static String promptNameOf(UserIntent intent) {
+        return switch (intent) {
+            case SUMMARIZE -> "summarize";
+            case QA -> "chat";
+            case EXTRACT_CONCEPTS -> "extract-concepts";
+            case EXTRACT_QUOTES -> "extract-quotes";
+            case SEARCH_KEYWORD -> "search-keyword";
+            case DEEP_QA -> "deep-qa";
+        };
+    }
+
+    /**
+     * 响应缓存 key：字幕内容哈希 + Prompt 名称 + 实际版本（模型由 ResponseCache 追加）
+     */
+    private String cacheKey(SubtitleSession subtitle, String promptName, String promptVersion) {
+        return responseCache.key(subtitle.getId(), promptName,
+                promptTemplateService.resolveVersion(promptName, promptVersion));
+    }
+
+    /**
+     * 可缓存意图对应的缓存 key，其余意图（依赖问题内容）返回 null
+     */
+    private String cacheKeyForIntent(SubtitleSession subtitle, UserIntent intent, String promptVersion) {
+        return switch (intent) {
+            case SUMMARIZE -> cacheKey(subtitle, "summarize", promptVersion);
+            case EXTRACT_CONCEPTS -> cacheKey(subtitle, "extract-concepts", promptVersion);
+            case EXTRACT_QUOTES -> cacheKey(subtitle, "extract-quotes", promptVersion);
+            default -> null;
+        };
+    }
+
+    /**
+     * 流正常结束后把完整回答写入缓存；中途取消或出错不缓存
+     */
+    private Flux<String> cacheOnComplete(String cacheKey, Flux<String> chunks) {
+        return Flux.defer(() -> {
+            StringBuilder full = new StringBuilder();
+            return chunks
+                    .doOnNext(full::append)
+                    .doOnComplete(() -> responseCache.put(cacheKey, full.toString()));
+        });
     }
 
     /**
      * 根据意图构建对应的 Prompt
      */
-    private String buildPromptByIntent(String subtitleContent, String question, UserIntent intent, String promptVersion) {
+    private ModelPrompt buildPromptByIntent(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion) {
+        return renderByIntent(subtitle, question, intent, promptVersion, this::renderWithSubtitle);
+    }
+
+    /**
+     * 按意图选择模板与字幕内容（整份紧凑字幕或检索片段），交给 renderer 渲染或估算
+     */
+    private <T> T renderByIntent(SubtitleSession subtitle, String question, UserIntent intent, String promptVersion,
+                                 SubtitleRenderer<T> renderer) {
         return switch (intent) {
-            case SUMMARIZE -> promptTemplateService.render(
-                    "summarize", promptVersion, Map.of("subtitle", subtitleContent));
-            case QA -> promptTemplateService.render(
-                    "chat", promptVersion, Map.of("subtitle", subtitleContent, "question", question));
-            case EXTRACT_CONCEPTS -> promptTemplateService.render(
-                    "extract-concepts", promptVersion, Map.of("subtitle", subtitleContent));
-            case EXTRACT_QUOTES -> promptTemplateService.render(
-                    "extract-quotes", promptVersion, Map.of("subtitle", subtitleContent));
+            case SUMMARIZE -> renderer.render(
+                    "summarize", promptVersion, subtitle, subtitle.getCompactText(), Map.of());
+            case QA -> renderer.render(
+                    "chat", promptVersion, subtitle, relevantSubtitle(subtitle, question), Map.of("question", question));
+            case EXTRACT_CONCEPTS -> renderer.render(
+                    "extract-concepts", promptVersion, subtitle, subtitle.getCompactText(), Map.of());
+            case EXTRACT_QUOTES -> renderer.render(
+                    "extract-quotes", promptVersion, subtitle, subtitle.getCompactText(), Map.of());
             case SEARCH_KEYWORD -> {
                 String keyword = extractKeywordFromQuestion(question);
-                yield promptTemplateService.render(
-                        "search-keyword", promptVersion, Map.of("subtitle", subtitleContent, "keyword", keyword));
+                yield renderer.render(
+                        "search-keyword", promptVersion, subtitle, subtitle.getCompactText(), Map.of("keyword", keyword));
             }
             case DEEP_QA -> {
                 String realQuestion = question;
@@ -224,12 +724,250 @@ public class VideoServiceImpl implements VideoService {
                 } else if (question.startsWith("深度分析：") || question.startsWith("深度分析:")) {
                     realQuestion = question.substring(5).trim();
                 }
-                yield promptTemplateService.render(
-                        "deep-qa", promptVersion, Map.of("subtitle", subtitleContent, "question", realQuestion));
+                yield renderer.render(
+                        "deep-qa", promptVersion, subtitle, relevantSubtitle(subtitle, realQuestion), Map.of("question", realQuestion));
             }
         };
     }
 
+    /**
+     * 渲染包含字幕的 Prompt
+     * 开启前缀缓存布局且发送的是整份字幕时，字幕单独作为前缀消息，模板中的字幕替换为引用说明；
+     * 检索裁剪后的片段随问题变化，不作为前缀
+     *
+     * @param subtitleText 填入模板 subtitle 占位符的字幕文本；整份字幕传入 {@link SubtitleSession#getCompactText()} 本身
+     * @param params       其余模板参数
+     */
+    private ModelPrompt renderWithSubtitle(String promptName, String promptVersion, SubtitleSession subtitle,
+                                           CharSequence subtitleText, Map<String, Object> params) {
+        Map<String, Object> allParams = new HashMap<>(params);
+        // 整份字幕在此处才从堆外解码，每次发送只解码一次
+        String text = subtitleText.toString();
+        if (prefixChatClient != null && subtitleText == subtitle.getCompactText()) {
+            allParams.put("subtitle", SUBTITLE_REFERENCE);
+            return new ModelPrompt(SUBTITLE_PREFIX + text,
+                    promptTemplateService.render(promptName, promptVersion, allParams));
+        }
+        allParams.put("subtitle", text);
+        return ModelPrompt.of(promptTemplateService.render(promptName, promptVersion, allParams));
+    }
+
+    /**
+     * 估算包含字幕的 Prompt 的 token 数（未校准），参数同 {@link #renderWithSubtitle}
+     * 整份字幕使用会话上传时缓存的估算值，模板中的字幕留空，不解码也不拼接整份字幕
+     */
+    private int estimateWithSubtitle(String promptName, String promptVersion, SubtitleSession subtitle,
+                                     CharSequence subtitleText, Map<String, Object> params) {
+        if (subtitleText != subtitle.getCompactText()) {
+            return TokenEstimator.estimate(
+                    renderWithSubtitle(promptName, promptVersion, subtitle, subtitleText, params).text());
+        }
+        Map<String, Object> allParams = new HashMap<>(params);
+        int layoutTokens = 0;
+        if (prefixChatClient != null) {
+            allParams.put("subtitle", SUBTITLE_REFERENCE);
+            layoutTokens = TokenEstimator.estimate(SUBTITLE_PREFIX + "\n\n");
+        } else {
+            allParams.put("subtitle", "");
+        }
+        return TokenEstimator.estimate(promptTemplateService.render(promptName, promptVersion, allParams))
+                + layoutTokens + subtitle.getEstimatedTokens();
+    }
+
+    /**
+     * 把字幕填入模板：生成实际发送的 Prompt，或只估算 token 数
+     */
+    @FunctionalInterface
+    private interface SubtitleRenderer<T> {
+        T render(String promptName, String promptVersion, SubtitleSession subtitle,
+                 CharSequence subtitleText, Map<String, Object> params);
+    }
+
+    /**
+     * 发送给模型的 Prompt
+     *
+     * @param prefix 前缀缓存布局中的字幕消息，单条消息布局时为 null
+     * @param user   用户消息（指令与问题）
+     */
+    private record ModelPrompt(String prefix, String user) {
+
+        static ModelPrompt of(String user) {
+            return new ModelPrompt(null, user);
+        }
+
+        /**
+         * 所有消息拼接后的文本，用于 token 估算与单飞去重
+         */
+        String text() {
+            return prefix == null ? user : prefix + "\n\n" + user;
+        }
+    }
+
+    /**
+     * 问答 Prompt 中的字幕：长字幕只保留与问题最相关的窗口及相邻窗口（保留时间戳），
+     * 短字幕、纯文本字幕或问题没有命中任何窗口时返回完整字幕
+     */
+    private CharSequence relevantSubtitle(SubtitleSession subtitle, String question) {
+        if (!retrievalProperties.isEnabled()
+                || subtitle.getCues().isEmpty()
+                || subtitle.getEstimatedTokens() <= retrievalProperties.getMinTranscriptTokens()) {
+            return subtitle.getCompactText();
+        }
+        String excerpt = subtitle.getRelevanceIndex().excerpt(
+                question, retrievalProperties.getTopK(), retrievalProperties.getNeighbors());
+        return excerpt != null ? excerpt : subtitle.getCompactText();
+    }
+
+    /**
+     * 字幕超过 map-reduce 阈值时，整份发送会超出上下文窗口或过慢；
+     * 阈值配置得比上下文窗口还大时，以窗口为准
+     */
+    private boolean needsMapReduce(SubtitleSession subtitle) {
+        return !subtitle.getCues().isEmpty()
+                && (subtitle.getEstimatedTokens() > summarizeProperties.getMapReduceThresholdTokens()
+                        || tokenBudget.calibrate(subtitle.getEstimatedTokens()) > tokenBudget.maxPromptTokens());
+    }
+
+    /**
+     * 分段总结的 map 阶段：按 token 预算切分时间轴，各窗口并行生成要点，
+     * 返回用于最终合并的 summarize-reduce Prompt
+     */
+    private Mono<String> mapReduceSummarizePrompt(SubtitleSession subtitle) {
+        CueWindows windows = CueWindows.split(subtitle.getCues(), summarizeProperties.getWindowTokens());
+        int total = windows.size();
+        return Flux.range(0, total)
+                .flatMapSequential(window -> summarizePart(
+                        Timestamps.format(windows.startMillis(window)) + " - " + Timestamps.format(windows.endMillis(window)),
+                        windows.render(window), window + 1, total),
+                        summarizeProperties.getMaxConcurrency())
+                .collectList()
+                .flatMap(this::collapsePartials)
+                .map(partials -> promptTemplateService.render(
+                        "summarize-reduce",
+                        null,
+                        Map.of("summaries", joinPartials(partials))
+                ));
+    }
+
+    /**
+     * 分段要点合计仍超过阈值时（极长视频），把相邻要点分组再提炼一轮，直到可以一次合并
+     */
+    private Mono<List<PartialSummary>> collapsePartials(List<PartialSummary> partials) {
+        if (partials.size() <= 1
+                || TokenEstimator.estimate(joinPartials(partials)) <= summarizeProperties.getMapReduceThresholdTokens()) {
+            return Mono.just(partials);
+        }
+
+        // 每组至少两段，保证每轮分段数严格减少
+        List<List<PartialSummary>> groups = new ArrayList<>();
+        List<PartialSummary> group = new ArrayList<>();
+        int groupTokens = 0;
+        for (PartialSummary partial : partials) {
+            int tokens = TokenEstimator.estimate(partial.text());
+            if (group.size() >= 2 && groupTokens + tokens > summarizeProperties.getWindowTokens()) {
+                groups.add(group);
+                group = new ArrayList<>();
+                groupTokens = 0;
+            }
+            group.add(partial);
+            groupTokens += tokens;
+        }
+        if (group.size() == 1 && !groups.isEmpty()) {
+            groups.get(groups.size() - 1).add(group.get(0));
+        } else {
+            groups.add(group);
+        }
+
+        int total = groups.size();
+        return Flux.range(0, total)
+                .flatMapSequential(i -> {
+                    List<PartialSummary> members = groups.get(i);
+                    String range = members.get(0).range().split(" - ")[0]
+                            + " - " + members.get(members.size() - 1).range().split(" - ")[1];
+                    return summarizePart(range, joinPartials(members), i + 1, total);
+                }, summarizeProperties.getMaxConcurrency())
+                .collectList()
+                .flatMap(this::collapsePartials);
+    }
+
+    private Mono<PartialSummary> summarizePart(String range, String text, int index, int total) {
+        return Mono.fromCallable(() -> {
+                    String userPrompt = promptTemplateService.render(
+                            "summarize-map",
+                            null,
+                            Map.of("subtitle", text, "range", range, "index", index, "total", total)
+                    );
+                    String content = callModel("summarize-map", null, userPrompt);
+                    return new PartialSummary(range, content != null ? content.trim() : "");
+                })
+                .subscribeOn(modelScheduler);
+    }
+
+    private static String joinPartials(List<PartialSummary> partials) {
+        StringBuilder sb = new StringBuilder();
+        for (PartialSummary partial : partials) {
+            sb.append("### ").append(partial.range()).append('\n')
+                    .append(partial.text()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 一段时间范围的要点摘要
+     */
+    private record PartialSummary(String range, String text) {}
+
+    /**
+     * 使用字幕会话的倒排索引搜索关键词，输出与 search-keyword 模板相同结构的 JSON
+     */
+    private String searchLocally(SubtitleSession subtitle, String keyword) {
+        CueTable cues = subtitle.getCues();
+        int[] hits = subtitle.getKeywordIndex().search(keyword);
+
+        int limit = Math.min(hits.length, searchProperties.getMaxOccurrences());
+        List<KeywordSearchResult.Occurrence> occurrences = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            int cue = hits[i];
+            occurrences.add(new KeywordSearchResult.Occurrence(
+                    Timestamps.format(cues.startMillis(cue)),
+                    cues.text(cue).replace('\n', ' ')));
+        }
+
+        String summary;
+        if (hits.length == 0) {
+            summary = "视频中未提到 " + keyword;
+        } else if (searchProperties.isLlmSummary()) {
+            summary = summarizeOccurrences(keyword, hits.length, occurrences);
+        } else {
+            summary = "视频中 " + hits.length + " 处提到 " + keyword;
+        }
+
+        try {
+            return objectMapper.writeValueAsString(new KeywordSearchResult(keyword, occurrences, summary));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("搜索结果序列化失败", e);
+        }
+    }
+
+    /**
+     * 让模型根据命中的字幕片段写一句话 summary（只发送命中片段，不发送整份字幕）
+     */
+    private String summarizeOccurrences(String keyword, int count, List<KeywordSearchResult.Occurrence> occurrences) {
+        StringBuilder lines = new StringBuilder();
+        for (KeywordSearchResult.Occurrence occurrence : occurrences) {
+            lines.append('[').append(occurrence.getTimestamp()).append("] ")
+                    .append(occurrence.getContext()).append('\n');
+        }
+        String userPrompt = promptTemplateService.render(
+                "search-summary",
+                null,
+                Map.of("keyword", keyword, "count", count, "occurrences", lines.toString())
+        );
+
+        String summary = callModel("search-summary", null, userPrompt);
+        return summary != null ? summary.trim() : "";
+    }
+
     /**
      * 从问题中提取搜索关键词
      * 简单实现：移除常见前缀词
@@ -243,6 +981,8 @@ public class VideoServiceImpl implements VideoService {
                 .replace("查找", "")
                 .replace("找到", "")
                 .trim();
+        // 去掉首尾的问号、引号等标点
+        keyword = keyword.replaceAll("^[\\p{Punct}\\p{IsPunctuation}\\s]+|[\\p{Punct}\\p{IsPunctuation}\\s]+$", "");
 
         // 如果关键词为空，返回原问题
         return keyword.isEmpty() ? question : keyword;
@@ -0,0 +1,253 @@
+package com.example.videoagent.subtitle;
+
+import java.util.Arrays;
+
+/**
+ * 字幕相关性索引（BM25）
+ * 把时间轴按 token 预算切成连续窗口，每个窗口作为一篇文档，词项与 {@link KeywordIndex} 相同
+ * （中文 bigram、拉丁单词）；上传时构建一次，问答时按问题给窗口打分，
+ * 只把最相关的窗口及其前后相邻窗口（保留时间戳）发给模型
+ */
+public final class Bm25Index {
+
+    /**
+     * 默认窗口大小，约为一两分钟的口播内容
+     */
+    public static final int DEFAULT_WINDOW_TOKENS = 300;
+
+    private static final int WINDOW_BITS = 24;
+    private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+    // BM25 参数：词频饱和度与文档长度归一化程度
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 不连续的片段之间插入的分隔行
+    static final String GAP = "……\n";
+
+    private static final Bm25Index EMPTY = new Bm25Index(
+            CueWindows.split(CueTable.empty(), DEFAULT_WINDOW_TOKENS),
+            new long[0], new int[1], new int[0], new int[0], new int[0], 0);
+
+    private final CueWindows windows;
+    // 已排序的词项
+    private final long[] terms;
+    // terms[i] 的倒排表为 postings / frequencies 的 [postingOffsets[i], postingOffsets[i + 1])
+    private final int[] postingOffsets;
+    private final int[] postings;
+    private final int[] frequencies;
+    // 每个窗口的词项总数（文档长度）
+    private final int[] windowLengths;
+    private final double averageLength;
+
+    private Bm25Index(CueWindows windows, long[] terms, int[] postingOffsets, int[] postings,
+                      int[] frequencies, int[] windowLengths, double averageLength) {
+        this.windows = windows;
+        this.terms = terms;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.frequencies = frequencies;
+        this.windowLengths = windowLengths;
+        this.averageLength = averageLength;
+    }
+
+    public static Bm25Index empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 为字幕表构建索引
+     *
+     * @param windowTokens 每个窗口的 token 上限
+     */
+    public static Bm25Index build(CueTable cues, int windowTokens) {
+        if (cues.isEmpty()) {
+            return EMPTY;
+        }
+        CueWindows windows = CueWindows.split(cues, windowTokens);
+        if (windows.size() > WINDOW_MASK) {
+            throw new IllegalArgumentException("Too many windows to index: " + windows.size());
+        }
+
+        // 每个 (词项, 窗口下标) 打包成一个 long，排序后相同的连续项数即为词频
+        long[] pairs = new long[cues.totalTextLength() + cues.size()];
+        int[] windowLengths = new int[windows.size()];
+        int count = 0;
+        long[] termBuffer = new long[64];
+        for (int window = 0; window < windows.size(); window++) {
+            for (int cue = windows.firstCue(window); cue < windows.endCue(window); cue++) {
+                int from = cues.textStart(cue);
+                int length = cues.textLength(cue);
+                if (termBuffer.length < length + 1) {
+                    termBuffer = new long[length + 1];
+                }
+                int termCount = KeywordIndex.tokenize(i -> cues.charAt(from + i), length, termBuffer);
+                for (int t = 0; t < termCount; t++) {
+                    pairs[count++] = (termBuffer[t] << WINDOW_BITS) | window;
+                }
+                windowLengths[window] += termCount;
+            }
+        }
+        Arrays.sort(pairs, 0, count);
+
+        long[] terms = new long[count];
+        int[] offsets = new int[count + 1];
+        int[] postings = new int[count];
+        int[] frequencies = new int[count];
+        int termCount = 0;
+        int postingCount = 0;
+        long previous = -1;
+        for (int i = 0; i < count; i++) {
+            long pair = pairs[i];
+            if (pair == previous) {
+                frequencies[postingCount - 1]++;
+                continue;
+            }
+            previous = pair;
+            long term = pair >>> WINDOW_BITS;
+            if (termCount == 0 || terms[termCount - 1] != term) {
+                terms[termCount] = term;
+                offsets[termCount] = postingCount;
+                termCount++;
+            }
+            postings[postingCount] = (int) (pair & WINDOW_MASK);
+            frequencies[postingCount] = 1;
+            postingCount++;
+        }
+        offsets[termCount] = postingCount;
+
+        return new Bm25Index(windows,
+                Arrays.copyOf(terms, termCount),
+                Arrays.copyOf(offsets, termCount + 1),
+                Arrays.copyOf(postings, postingCount),
+                Arrays.copyOf(frequencies, postingCount),
+                windowLengths,
+                (double) count / windows.size());
+    }
+
+    /**
+     * 按 BM25 给每个窗口打分
+     *
+     * @return 下标为窗口序号的分数，未命中任何有区分度的词项的窗口为 0
+     */
+    public double[] score(String question) {
+        double[] scores = new double[windowLengths.length];
+        if (scores.length == 0) {
+            return scores;
+        }
+        char[] chars = question.toCharArray();
+        long[] queryTerms = new long[chars.length + 1];
+        int queryCount = KeywordIndex.tokenize(i -> chars[i], chars.length, queryTerms);
+        // 问题中重复出现的词项只计一次
+        Arrays.sort(queryTerms, 0, queryCount);
+
+        int documents = windowLengths.length;
+        for (int q = 0; q < queryCount; q++) {
+            if (q > 0 && queryTerms[q] == queryTerms[q - 1]) {
+                continue;
+            }
+            int slot = Arrays.binarySearch(terms, queryTerms[q]);
+            if (slot < 0) {
+                continue;
+            }
+            int from = postingOffsets[slot];
+            int to = postingOffsets[slot + 1];
+            int df = to - from;
+            // 超过半数窗口都出现的词项（"什么"、"这个"等）不具备定位作用，
+            // 问题只由这类词项组成时没有命中，调用方回退为完整字幕
+            if (df * 2 > documents) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            for (int p = from; p < to; p++) {
+                int window = postings[p];
+                double tf = frequencies[p];
+                double norm = K1 * (1 - B + B * windowLengths[window] / averageLength);
+                scores[window] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * 分数最高的 topK 个窗口，按分数从高到低；分数为 0 的窗口不返回
+     */
+    public int[] topWindows(String question, int topK) {
+        double[] scores = score(question);
+        int[] top = new int[Math.min(Math.max(topK, 0), scores.length)];
+        if (top.length == 0) {
+            return top;
+        }
+        int found = 0;
+        for (int window = 0; window < scores.length; window++) {
+            if (scores[window] <= 0) {
+                continue;
+            }
+            // 插入排序维护前 topK 名，分数相同时靠前的窗口优先
+            int slot;
+            if (found < top.length) {
+                slot = found++;
+            } else if (scores[top[top.length - 1]] < scores[window]) {
+                slot = top.length - 1;
+            } else {
+                continue;
+            }
+            while (slot > 0 && scores[top[slot - 1]] < scores[window]) {
+                top[slot] = top[slot - 1];
+                slot--;
+            }
+            top[slot] = window;
+        }
+        return Arrays.copyOf(top, found);
+    }
+
+    /**
+     * 渲染与问题最相关的字幕片段：topK 个窗口及各自前后 neighbors 个窗口，按时间顺序排列，
+     * 保留每行时间戳，不连续的片段之间以省略行分隔
+     *
+     * @return 片段文本；问题没有命中任何窗口时返回 null，由调用方改为发送完整字幕
+     */
+    public String excerpt(String question, int topK, int neighbors) {
+        int[] top = topWindows(question, topK);
+        if (top.length == 0) {
+            return null;
+        }
+        boolean[] selected = new boolean[windows.size()];
+        for (int window : top) {
+            int from = Math.max(0, window - neighbors);
+            int to = Math.min(windows.size() - 1, window + neighbors);
+            Arrays.fill(selected, from, to + 1, true);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int window = 0; window < selected.length; window++) {
+            if (!selected[window]) {
+                continue;
+            }
+            if (window > 0 && !selected[window - 1]) {
+                sb.append(GAP);
+            }
+            sb.append(windows.render(window));
+        }
+        if (!selected[selected.length - 1]) {
+            sb.append(GAP);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 窗口数
+     */
+    public int windowCount() {
+        return windowLengths.length;
+    }
+
+    /**
+     * 估算占用的堆内存字节数
+     */
+    public int estimatedSize() {
+        return terms.length * (Long.BYTES + Integer.BYTES)
+                + postings.length * Integer.BYTES * 2
+                + windowLengths.length * Integer.BYTES * 2;
+    }
+}
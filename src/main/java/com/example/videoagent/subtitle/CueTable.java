@@ -0,0 +1,224 @@
+package com.example.videoagent.subtitle;
+
+import java.util.Arrays;
+
+/**
+ * 列式字幕索引
+ * 每条字幕（cue）的起止时间存放在基本类型数组中，文本统一打包进一段堆外文本（{@link OffHeapText}），通过偏移量定位，
+ * 下游的切窗、检索、时间戳校验直接在基本类型上运算，无需反复扫描原始文本
+ *
+ * 同一条字幕内的多行文本以 '\n' 连接
+ */
+public final class CueTable {
+
+    private static final CueTable EMPTY = new CueTable(0, new long[0], new int[0], OffHeapText.copyOf(""), new int[1], 0);
+
+    private final int size;
+    private final long[] startMillis;
+    private final int[] durationMillis;
+    private final OffHeapText text;
+    private final int[] textOffsets;
+    private final int skippedTextLines;
+
+    private CueTable(int size, long[] startMillis, int[] durationMillis, OffHeapText text, int[] textOffsets,
+                     int skippedTextLines) {
+        this.size = size;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.text = text;
+        this.textOffsets = textOffsets;
+        this.skippedTextLines = skippedTextLines;
+    }
+
+    public static CueTable empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long startMillis(int cue) {
+        return startMillis[cue];
+    }
+
+    public long endMillis(int cue) {
+        return startMillis[cue] + durationMillis[cue];
+    }
+
+    public int textStart(int cue) {
+        return textOffsets[cue];
+    }
+
+    public int textEnd(int cue) {
+        return textOffsets[cue + 1];
+    }
+
+    public int textLength(int cue) {
+        return textOffsets[cue + 1] - textOffsets[cue];
+    }
+
+    /**
+     * 所有字幕文本的字符总数
+     */
+    public int totalTextLength() {
+        return textOffsets[size];
+    }
+
+    /**
+     * 解析时落在任何字幕之外、被忽略的正文行数（不含 SRT 序号、VTT cue 标识与 NOTE 块）
+     * 大于 0 说明字幕表没有覆盖原文的全部内容
+     */
+    public int skippedTextLines() {
+        return skippedTextLines;
+    }
+
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    /**
+     * 取出单条字幕文本（会分配新的 String，热路径请使用 {@link #appendText}）
+     */
+    public String text(int cue) {
+        return text.subSequence(textOffsets[cue], textOffsets[cue + 1]).toString();
+    }
+
+    /**
+     * 将单条字幕文本追加到 StringBuilder
+     */
+    public void appendText(int cue, StringBuilder target) {
+        text.appendTo(target, textOffsets[cue], textOffsets[cue + 1]);
+    }
+
+    /**
+     * 二分查找指定时间点所在（或之前最近）的字幕下标，早于第一条字幕时返回 -1
+     */
+    public int cueAt(long millis) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (startMillis[mid] <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * 估算占用的内存字节数（堆上的时间与偏移数组 + 堆外文本）
+     */
+    public int estimatedSize() {
+        return size * (Long.BYTES + Integer.BYTES * 2) + text.sizeInBytes();
+    }
+
+    /**
+     * 增量构建器：数组按需倍增，分配量与字幕条数成正比
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] startMillis = new long[64];
+        private long[] ends = new long[64];
+        private char[] text = new char[4096];
+        private int textLength;
+        private int[] textOffsets = new int[65];
+        private boolean inCue;
+        private boolean cueHasText;
+        private int skippedTextLines;
+
+        /**
+         * 开始一条新字幕
+         *
+         * @param start 开始时间（毫秒）
+         * @param end   结束时间（毫秒），未知时传 -1，构建时取下一条字幕的开始时间
+         */
+        public void beginCue(long start, long end) {
+            endCue();
+            if (size == startMillis.length) {
+                startMillis = Arrays.copyOf(startMillis, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                textOffsets = Arrays.copyOf(textOffsets, size * 2 + 1);
+            }
+            startMillis[size] = start;
+            ends[size] = end;
+            textOffsets[size] = textLength;
+            inCue = true;
+            cueHasText = false;
+        }
+
+        /**
+         * 向当前字幕追加一行文本
+         */
+        public void appendLine(char[] buf, int offset, int length) {
+            if (!inCue || length == 0) {
+                return;
+            }
+            int required = textLength + length + 1;
+            if (required > text.length) {
+                text = Arrays.copyOf(text, Math.max(required, text.length * 2));
+            }
+            if (cueHasText) {
+                text[textLength++] = '\n';
+            }
+            System.arraycopy(buf, offset, text, textLength, length);
+            textLength += length;
+            cueHasText = true;
+        }
+
+        /**
+         * 结束当前字幕；没有文本的字幕会被丢弃
+         */
+        public void endCue() {
+            if (!inCue) {
+                return;
+            }
+            inCue = false;
+            if (cueHasText) {
+                size++;
+                textOffsets[size] = textLength;
+            } else {
+                textLength = textOffsets[size];
+            }
+        }
+
+        public boolean inCue() {
+            return inCue;
+        }
+
+        /**
+         * 记录一行落在字幕之外、未收录的正文
+         */
+        public void skipTextLine() {
+            skippedTextLines++;
+        }
+
+        public CueTable build() {
+            endCue();
+            if (size == 0) {
+                return EMPTY;
+            }
+            int[] durations = new int[size];
+            for (int i = 0; i < size; i++) {
+                long end = ends[i];
+                if (end < 0) {
+                    end = i + 1 < size ? startMillis[i + 1] : startMillis[i];
+                }
+                durations[i] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, end - startMillis[i]));
+            }
+            return new CueTable(size,
+                    Arrays.copyOf(startMillis, size),
+                    durations,
+                    OffHeapText.copyOf(text, 0, textLength),
+                    Arrays.copyOf(textOffsets, size + 1),
+                    skippedTextLines);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.videoagent.subtitle;
+
+import java.util.Arrays;
+
+/**
+ * 按 token 预算把字幕时间轴切分为连续窗口
+ * 每个窗口以紧凑的 "[HH:MM:SS] 文本" 形式渲染，用于分段调用模型
+ */
+public final class CueWindows {
+
+    // 每行 "[HH:MM:SS] " 前缀与换行的估算 token 数
+    private static final int LINE_OVERHEAD_TOKENS = 6;
+
+    private final CueTable cues;
+    // 窗口 w 覆盖字幕 [starts[w], starts[w + 1])
+    private final int[] starts;
+    // 窗口 w 渲染后的估算 token 数
+    private final int[] tokens;
+
+    private CueWindows(CueTable cues, int[] starts, int[] tokens) {
+        this.cues = cues;
+        this.starts = starts;
+        this.tokens = tokens;
+    }
+
+    /**
+     * 贪心切分：窗口估算 token 数不超过 maxTokens，单条超长字幕独占一个窗口
+     */
+    public static CueWindows split(CueTable cues, int maxTokens) {
+        int[] starts = new int[16];
+        int[] windowTokens = new int[16];
+        int count = 0;
+        for (int cue = 0; cue < cues.size(); cue++) {
+            int tokens = TokenEstimator.estimate(cues, cue) + LINE_OVERHEAD_TOKENS;
+            if (cue == 0 || windowTokens[count - 1] + tokens > maxTokens) {
+                if (count + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                    windowTokens = Arrays.copyOf(windowTokens, windowTokens.length * 2);
+                }
+                starts[count++] = cue;
+            }
+            windowTokens[count - 1] += tokens;
+        }
+        starts[count] = cues.size();
+        return new CueWindows(cues, Arrays.copyOf(starts, count + 1), Arrays.copyOf(windowTokens, count));
+    }
+
+    public int size() {
+        return starts.length - 1;
+    }
+
+    public int firstCue(int window) {
+        return starts[window];
+    }
+
+    /**
+     * 窗口最后一条字幕之后的下标（不含）
+     */
+    public int endCue(int window) {
+        return starts[window + 1];
+    }
+
+    /**
+     * 窗口渲染后的估算 token 数（切分时已累加，不需要渲染）
+     */
+    public int estimatedTokens(int window) {
+        return tokens[window];
+    }
+
+    public long startMillis(int window) {
+        return cues.startMillis(starts[window]);
+    }
+
+    public long endMillis(int window) {
+        return cues.endMillis(starts[window + 1] - 1);
+    }
+
+    /**
+     * 渲染窗口文本，多行字幕合并为一行
+     */
+    public String render(int window) {
+        StringBuilder sb = new StringBuilder();
+        for (int cue = starts[window]; cue < starts[window + 1]; cue++) {
+            sb.append('[');
+            Timestamps.appendTo(sb, cues.startMillis(cue));
+            sb.append("] ");
+            int lineStart = sb.length();
+            cues.appendText(cue, sb);
+            for (int i = lineStart; i < sb.length(); i++) {
+                if (sb.charAt(i) == '\n') {
+                    sb.setCharAt(i, ' ');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
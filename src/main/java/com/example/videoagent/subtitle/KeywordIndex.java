@@ -0,0 +1,283 @@
+package com.example.videoagent.subtitle;
+
+import java.util.Arrays;
+
+/**
+ * 字幕关键词倒排索引
+ * 中日韩文字按相邻字符二元组（bigram）建索引，拉丁字母和数字按单词（小写）建索引，
+ * 倒排表以 CSR 形式存放在基本类型数组中，上传时构建一次，查询只需二分查找和有序数组求交
+ *
+ * 候选字幕最终都会做一次忽略大小写的子串校验，因此单词哈希冲突和 bigram 误命中不会出现在结果中；
+ * 索引无法覆盖的查询（单个汉字、拉丁单词片段）退化为顺序扫描
+ */
+public final class KeywordIndex {
+
+    private static final int CUE_BITS = 24;
+    private static final long CUE_MASK = (1L << CUE_BITS) - 1;
+    private static final long TAG_BIGRAM = 1L << 32;
+    private static final long TAG_WORD = 2L << 32;
+
+    private static final KeywordIndex EMPTY =
+            new KeywordIndex(CueTable.empty(), new long[0], new int[1], new int[0]);
+
+    private final CueTable cues;
+    // 已排序的词项
+    private final long[] terms;
+    // terms[i] 的倒排表为 postings[postingOffsets[i], postingOffsets[i + 1])
+    private final int[] postingOffsets;
+    private final int[] postings;
+
+    private KeywordIndex(CueTable cues, long[] terms, int[] postingOffsets, int[] postings) {
+        this.cues = cues;
+        this.terms = terms;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+    }
+
+    public static KeywordIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 为字幕表构建索引
+     */
+    public static KeywordIndex build(CueTable cues) {
+        if (cues.isEmpty()) {
+            return EMPTY;
+        }
+        if (cues.size() > CUE_MASK) {
+            throw new IllegalArgumentException("Too many cues to index: " + cues.size());
+        }
+
+        // 每个 (词项, 字幕下标) 打包成一个 long，排序去重后即为按词项分组、组内按时间排序的倒排表
+        // 每个字符位置（含每条字幕末尾的哨兵）最多产生一个词项
+        long[] pairs = new long[cues.totalTextLength() + cues.size()];
+        int count = 0;
+        long[] termBuffer = new long[64];
+        for (int cue = 0; cue < cues.size(); cue++) {
+            int from = cues.textStart(cue);
+            int length = cues.textLength(cue);
+            if (termBuffer.length < length + 1) {
+                termBuffer = new long[length + 1];
+            }
+            int termCount = tokenize(i -> cues.charAt(from + i), length, termBuffer);
+            for (int t = 0; t < termCount; t++) {
+                pairs[count++] = (termBuffer[t] << CUE_BITS) | cue;
+            }
+        }
+        Arrays.sort(pairs, 0, count);
+
+        long[] terms = new long[count];
+        int[] offsets = new int[count + 1];
+        int[] postings = new int[count];
+        int termCount = 0;
+        int postingCount = 0;
+        long previous = -1;
+        for (int i = 0; i < count; i++) {
+            long pair = pairs[i];
+            if (pair == previous) {
+                continue;
+            }
+            previous = pair;
+            long term = pair >>> CUE_BITS;
+            if (termCount == 0 || terms[termCount - 1] != term) {
+                terms[termCount] = term;
+                offsets[termCount] = postingCount;
+                termCount++;
+            }
+            postings[postingCount++] = (int) (pair & CUE_MASK);
+        }
+        offsets[termCount] = postingCount;
+
+        return new KeywordIndex(cues,
+                Arrays.copyOf(terms, termCount),
+                Arrays.copyOf(offsets, termCount + 1),
+                Arrays.copyOf(postings, postingCount));
+    }
+
+    /**
+     * 查找包含关键词的字幕（忽略大小写）
+     * 拉丁单词按整词匹配；关键词没有任何整词命中时（如单词片段）按子串匹配
+     *
+     * @return 按时间顺序排列的字幕下标
+     */
+    public int[] search(String keyword) {
+        char[] needle = keyword.trim().toCharArray();
+        for (int i = 0; i < needle.length; i++) {
+            needle[i] = Character.toLowerCase(needle[i]);
+        }
+        if (needle.length == 0 || cues.isEmpty()) {
+            return new int[0];
+        }
+
+        int[] candidates = lookup(needle);
+        if (candidates != null) {
+            int[] hits = verify(candidates, needle);
+            // 拉丁单词片段（如 "Trans"）不会命中整词索引，无结果时再扫描一遍
+            if (hits.length > 0 || !hasWordChar(needle)) {
+                return hits;
+            }
+        }
+        return scan(needle);
+    }
+
+    /**
+     * 索引中的词项数
+     */
+    public int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * 估算占用的堆内存字节数
+     */
+    public int estimatedSize() {
+        return terms.length * (Long.BYTES + Integer.BYTES) + postings.length * Integer.BYTES;
+    }
+
+    /**
+     * 用倒排表求交得到候选字幕，查询无法由索引回答时返回 null
+     */
+    private int[] lookup(char[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            boolean isolatedCjk = isCjk(needle[i])
+                    && (i == 0 || !isCjk(needle[i - 1]))
+                    && (i + 1 == needle.length || !isCjk(needle[i + 1]));
+            if (isolatedCjk) {
+                return null;
+            }
+        }
+        long[] queryTerms = new long[needle.length + 1];
+        int queryCount = tokenize(i -> needle[i], needle.length, queryTerms);
+        if (queryCount == 0) {
+            return null;
+        }
+
+        int[] candidates = null;
+        for (int q = 0; q < queryCount; q++) {
+            int slot = Arrays.binarySearch(terms, queryTerms[q]);
+            if (slot < 0) {
+                return new int[0];
+            }
+            int[] list = Arrays.copyOfRange(postings, postingOffsets[slot], postingOffsets[slot + 1]);
+            candidates = candidates == null ? list : intersect(candidates, list);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private int[] verify(int[] candidates, char[] needle) {
+        int[] hits = new int[candidates.length];
+        int found = 0;
+        for (int cue : candidates) {
+            if (containsIgnoreCase(cue, needle)) {
+                hits[found++] = cue;
+            }
+        }
+        return Arrays.copyOf(hits, found);
+    }
+
+    private int[] scan(char[] needle) {
+        int[] hits = new int[cues.size()];
+        int found = 0;
+        for (int cue = 0; cue < cues.size(); cue++) {
+            if (containsIgnoreCase(cue, needle)) {
+                hits[found++] = cue;
+            }
+        }
+        return Arrays.copyOf(hits, found);
+    }
+
+    private boolean containsIgnoreCase(int cue, char[] needle) {
+        int start = cues.textStart(cue);
+        int last = cues.textEnd(cue) - needle.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (Character.toLowerCase(cues.charAt(i + j)) != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    interface CharSource {
+        char charAt(int index);
+    }
+
+    /**
+     * 切分词项：相邻中文字符产生 bigram，拉丁单词在结束处产生小写单词哈希
+     * 与 {@link Bm25Index} 共用同一套词项
+     *
+     * @param out 至少 length + 1 的缓冲区
+     * @return 写入的词项数
+     */
+    static int tokenize(CharSource source, int length, long[] out) {
+        int count = 0;
+        char previous = 0;
+        int wordHash = 0;
+        boolean inWord = false;
+        for (int i = 0; i <= length; i++) {
+            // 末尾追加一个空格作为哨兵，用于结束最后一个单词
+            char c = i < length ? source.charAt(i) : ' ';
+            if (isWordChar(c)) {
+                wordHash = 31 * wordHash + Character.toLowerCase(c);
+                inWord = true;
+            } else {
+                if (inWord) {
+                    out[count++] = TAG_WORD | (wordHash & 0xFFFFFFFFL);
+                    wordHash = 0;
+                    inWord = false;
+                } else if (isCjk(c) && isCjk(previous)) {
+                    out[count++] = TAG_BIGRAM | ((long) previous << 16) | c;
+                }
+            }
+            previous = c;
+        }
+        return count;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c < 0x3000 && Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= 0x4E00 && c <= 0x9FFF)      // CJK 统一表意文字
+                || (c >= 0x3400 && c <= 0x4DBF)  // 扩展 A
+                || (c >= 0x3040 && c <= 0x30FF)  // 日文假名
+                || (c >= 0xAC00 && c <= 0xD7AF)  // 韩文音节
+                || (c >= 0xF900 && c <= 0xFAFF); // 兼容表意文字
+    }
+
+    private static boolean hasWordChar(char[] chars) {
+        for (char c : chars) {
+            if (isWordChar(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
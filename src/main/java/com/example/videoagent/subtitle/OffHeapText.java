@@ -0,0 +1,164 @@
+package com.example.videoagent.subtitle;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 堆外文本：字符以 UTF-16 存放在直接内存中，堆上只有一个缓冲区对象，GC 标记与复制时不需要扫描或搬动字幕正文
+ * - 字幕以中文为主，UTF-16 每字 2 字节（UTF-8 为 3 字节），且按字符偏移随机访问，下游索引的偏移量无需换算
+ * - 只使用绝对位置读取，多线程并发读安全
+ * - 对象不可达后直接内存由 GC 回收；总量受 -XX:MaxDirectMemorySize 限制（默认等于最大堆）
+ */
+public final class OffHeapText implements CharSequence {
+
+    private static final OffHeapText EMPTY = new OffHeapText(CharBuffer.wrap(new char[0]));
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final AtomicLong ALLOCATED_BYTES = new AtomicLong();
+
+    private final CharBuffer chars;
+
+    private OffHeapText(CharBuffer chars) {
+        this.chars = chars;
+    }
+
+    public static OffHeapText copyOf(CharSequence text) {
+        if (text.length() == 0) {
+            return EMPTY;
+        }
+        CharBuffer chars = allocate(text.length());
+        chars.put(text.toString()).clear();
+        return track(chars);
+    }
+
+    public static OffHeapText copyOf(char[] text, int offset, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        CharBuffer chars = allocate(length);
+        chars.put(text, offset, length).clear();
+        return track(chars);
+    }
+
+    private static CharBuffer allocate(int length) {
+        return ByteBuffer.allocateDirect(length * Character.BYTES).order(ByteOrder.nativeOrder()).asCharBuffer();
+    }
+
+    private static OffHeapText track(CharBuffer chars) {
+        OffHeapText text = new OffHeapText(chars);
+        long bytes = (long) chars.capacity() * Character.BYTES;
+        ALLOCATED_BYTES.addAndGet(bytes);
+        CLEANER.register(text, () -> ALLOCATED_BYTES.addAndGet(-bytes));
+        return text;
+    }
+
+    /**
+     * 当前仍可达的堆外文本占用的直接内存字节数
+     */
+    public static long allocatedBytes() {
+        return ALLOCATED_BYTES.get();
+    }
+
+    @Override
+    public int length() {
+        return chars.capacity();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars.get(index);
+    }
+
+    /**
+     * 返回指定区间的视图，不复制字符
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return chars.subSequence(start, end);
+    }
+
+    /**
+     * 把指定区间追加到 StringBuilder，只解码需要的部分
+     */
+    public void appendTo(StringBuilder target, int start, int end) {
+        target.append(chars, start, end);
+    }
+
+    /**
+     * 与给定文本逐字符比较，不生成 String
+     */
+    public boolean contentEquals(CharSequence other) {
+        int length = length();
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars.get(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 占用的直接内存字节数
+     */
+    public int sizeInBytes() {
+        return chars.capacity() * Character.BYTES;
+    }
+
+    /**
+     * 解码为新的 String
+     */
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+
+    /**
+     * 增量构建器：边读边写入直接内存，容量按需倍增，构建过程中不在堆上保留文本
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 8192;
+
+        private CharBuffer chars = allocate(INITIAL_CAPACITY);
+
+        public Builder append(char[] text, int offset, int length) {
+            if (chars.remaining() < length) {
+                int capacity = chars.capacity();
+                while (capacity - chars.position() < length) {
+                    capacity = Math.multiplyExact(capacity, 2);
+                }
+                CharBuffer grown = allocate(capacity);
+                chars.flip();
+                grown.put(chars);
+                chars = grown;
+            }
+            chars.put(text, offset, length);
+            return this;
+        }
+
+        public int length() {
+            return chars.position();
+        }
+
+        /**
+         * 按实际长度复制到新的直接内存，构建器之后不可再用
+         */
+        public OffHeapText build() {
+            int length = chars.position();
+            if (length == 0) {
+                return EMPTY;
+            }
+            chars.flip();
+            CharBuffer exact = chars.capacity() == length ? chars : allocate(length).put(chars);
+            chars = null;
+            exact.clear();
+            return track(exact);
+        }
+    }
+}
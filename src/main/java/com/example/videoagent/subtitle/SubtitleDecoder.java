@@ -0,0 +1,151 @@
+package com.example.videoagent.subtitle;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字幕文件解码：从文件头探测编码后以流的方式解码，不把整份文件读入内存
+ * - 有 BOM 时按 BOM（UTF-8 / UTF-16LE / UTF-16BE），BOM 本身不进入解码结果
+ * - 无 BOM 时：文件头中的 0 字节集中在奇数或偶数位置判定为 UTF-16；能按 UTF-8 严格解码判定为 UTF-8；否则按 GB18030（兼容 GBK / GB2312）
+ * - 探测之后出现的非法字节替换为 U+FFFD，不中断上传
+ */
+public final class SubtitleDecoder {
+
+    /**
+     * 用于探测编码的文件头长度
+     */
+    static final int SNIFF_BYTES = 64 * 1024;
+
+    static final Charset GB18030 = Charset.forName("GB18030");
+
+    private SubtitleDecoder() {}
+
+    /**
+     * 探测编码并返回解码后的字符流，调用方负责关闭
+     */
+    public static Reader open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, SNIFF_BYTES);
+        buffered.mark(SNIFF_BYTES);
+        byte[] head = buffered.readNBytes(SNIFF_BYTES);
+        buffered.reset();
+
+        int bom = bomLength(head, head.length);
+        Charset charset = detect(head, head.length);
+        buffered.skipNBytes(bom);
+        return new InputStreamReader(buffered, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    }
+
+    /**
+     * 探测编码并解码为完整文本
+     */
+    public static String decode(InputStream in) throws IOException {
+        StringWriter content = new StringWriter();
+        try (Reader reader = open(in)) {
+            reader.transferTo(content);
+        }
+        return content.toString();
+    }
+
+    /**
+     * 根据文件头判断编码
+     */
+    static Charset detect(byte[] head, int length) {
+        if (startsWith(head, length, 0xEF, 0xBB, 0xBF)) {
+            return StandardCharsets.UTF_8;
+        }
+        if (startsWith(head, length, 0xFF, 0xFE)) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (startsWith(head, length, 0xFE, 0xFF)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        Charset utf16 = detectUtf16(head, length);
+        if (utf16 != null) {
+            return utf16;
+        }
+        return isUtf8(head, length) ? StandardCharsets.UTF_8 : GB18030;
+    }
+
+    private static int bomLength(byte[] head, int length) {
+        if (startsWith(head, length, 0xEF, 0xBB, 0xBF)) {
+            return 3;
+        }
+        if (startsWith(head, length, 0xFF, 0xFE) || startsWith(head, length, 0xFE, 0xFF)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * 无 BOM 的 UTF-16：字幕以 ASCII 数字、时间轴和换行为主，高位字节为 0 的位置集中在奇数或偶数一侧
+     */
+    private static Charset detectUtf16(byte[] head, int length) {
+        int pairs = length / 2;
+        if (pairs < 4) {
+            return null;
+        }
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            if (head[i] == 0) {
+                evenZeros++;
+            }
+            if (head[i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        if (oddZeros * 10 >= pairs * 3 && evenZeros * 10 < pairs) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (evenZeros * 10 >= pairs * 3 && oddZeros * 10 < pairs) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * 严格按 UTF-8 解码文件头；末尾被截断的多字节序列不算错误
+     */
+    private static boolean isUtf8(byte[] head, int length) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(4096);
+        ByteBuffer in = ByteBuffer.wrap(head, 0, length);
+        while (true) {
+            CoderResult result = decoder.decode(in, out, false);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isUnderflow()) {
+                return true;
+            }
+            out.clear();
+        }
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((head[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
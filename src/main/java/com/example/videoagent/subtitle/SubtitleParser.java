@@ -0,0 +1,285 @@
+package com.example.videoagent.subtitle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * 流式字幕解析器
+ * 单遍扫描 SRT / WebVTT（以及 Prompt 示例中使用的 "[00:01:00] 文本" 紧凑格式），生成 {@link CueTable}
+ *
+ * 按块读取字符并复用同一个行缓冲区，不为每一行创建 String，
+ * 内存分配只与字幕条数和文本总量相关
+ */
+public final class SubtitleParser {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private SubtitleParser() {}
+
+    public static CueTable parse(String content) {
+        try {
+            return parse(new StringReader(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CueTable parse(Reader reader) throws IOException {
+        LineHandler handler = new LineHandler();
+        char[] chunk = new char[READ_BUFFER_SIZE];
+        char[] line = new char[256];
+        int lineLength = 0;
+        boolean first = true;
+
+        int read;
+        while ((read = reader.read(chunk)) != -1) {
+            int i = 0;
+            if (first && read > 0) {
+                first = false;
+                if (chunk[0] == '\uFEFF') {
+                    i = 1;
+                }
+            }
+            for (; i < read; i++) {
+                char c = chunk[i];
+                if (c == '\n') {
+                    handler.onLine(line, lineLength);
+                    lineLength = 0;
+                } else if (c != '\r') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = c;
+                }
+            }
+        }
+        if (lineLength > 0) {
+            handler.onLine(line, lineLength);
+        }
+        handler.flushPendingLine();
+        return handler.builder.build();
+    }
+
+    /**
+     * 逐行状态机
+     */
+    private static final class LineHandler {
+
+        private final CueTable.Builder builder = new CueTable.Builder();
+        private boolean firstLine = true;
+        // 只有 WebVTT 才去除 <i>、<c.cls> 等标签，SRT 与紧凑格式中的 "<" 均为正文
+        private boolean webVtt;
+        // WebVTT 头部及 NOTE / STYLE / REGION 块，直到空行为止都跳过
+        private boolean skippingBlock;
+        // 上一行落在字幕之外被忽略；紧跟时间行时它是 SRT 序号或 VTT cue 标识，否则是未收录的正文
+        private boolean pendingLine;
+
+        void onLine(char[] line, int length) {
+            int from = 0;
+            int to = length;
+            while (from < to && Character.isWhitespace(line[from])) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(line[to - 1])) {
+                to--;
+            }
+
+            if (firstLine) {
+                firstLine = false;
+                if (startsWith(line, from, to, "WEBVTT")) {
+                    webVtt = true;
+                    skippingBlock = true;
+                    return;
+                }
+            }
+
+            if (from == to) {
+                // 空行结束当前字幕或跳过块
+                flushPendingLine();
+                skippingBlock = false;
+                builder.endCue();
+                return;
+            }
+            if (skippingBlock) {
+                return;
+            }
+
+            int arrow = indexOf(line, from, to, "-->");
+            if (arrow >= 0) {
+                pendingLine = false;
+                onTimingLine(line, from, arrow, to);
+                return;
+            }
+
+            if (line[from] == '[') {
+                int close = indexOf(line, from, to, "]");
+                if (close > from) {
+                    long start = Timestamps.parse(line, from + 1, close);
+                    if (start >= 0) {
+                        flushPendingLine();
+                        // 紧凑格式：时间戳开始一条字幕，之后不带时间戳的行属于同一条，直到下一个时间戳或空行；
+                        // 结束时间取下一条的开始时间
+                        builder.beginCue(start, -1);
+                        appendText(line, close + 1, to);
+                        return;
+                    }
+                }
+            }
+
+            if (builder.inCue()) {
+                appendText(line, from, to);
+                return;
+            }
+
+            if (startsWith(line, from, to, "NOTE")
+                    || startsWith(line, from, to, "STYLE")
+                    || startsWith(line, from, to, "REGION")) {
+                flushPendingLine();
+                skippingBlock = true;
+                return;
+            }
+            // 其余行（SRT 序号、VTT cue 标识、无时间戳的纯文本）忽略，等下一行确定是否为正文
+            flushPendingLine();
+            pendingLine = true;
+        }
+
+        /**
+         * 上一行被忽略且没有紧跟时间行，计为未收录的正文
+         */
+        void flushPendingLine() {
+            if (pendingLine) {
+                pendingLine = false;
+                builder.skipTextLine();
+            }
+        }
+
+        private void onTimingLine(char[] line, int from, int arrow, int to) {
+            int startTo = arrow;
+            while (startTo > from && Character.isWhitespace(line[startTo - 1])) {
+                startTo--;
+            }
+            int endFrom = arrow + 3;
+            while (endFrom < to && Character.isWhitespace(line[endFrom])) {
+                endFrom++;
+            }
+            // WebVTT 结束时间后可能跟随 cue 设置（如 align:start），只取第一个词
+            int endTo = endFrom;
+            while (endTo < to && !Character.isWhitespace(line[endTo])) {
+                endTo++;
+            }
+
+            long start = Timestamps.parse(line, from, startTo);
+            long end = Timestamps.parse(line, endFrom, endTo);
+            if (start < 0) {
+                return;
+            }
+            builder.beginCue(start, end >= 0 ? end : -1);
+        }
+
+        /**
+         * 追加字幕文本；WebVTT 原地移除 <i>、<c.color>、<v 讲师>、<00:00:01.000> 等标签，
+         * 不构成合法标签的 "<"（如 "x < 5"）按正文保留
+         */
+        private void appendText(char[] line, int from, int to) {
+            int write = from;
+            for (int i = from; i < to; i++) {
+                char c = line[i];
+                if (c == '<' && webVtt) {
+                    int close = tagEnd(line, i, to);
+                    if (close > 0) {
+                        i = close;
+                        continue;
+                    }
+                }
+                line[write++] = c;
+            }
+            int start = from;
+            while (start < write && Character.isWhitespace(line[start])) {
+                start++;
+            }
+            while (write > start && Character.isWhitespace(line[write - 1])) {
+                write--;
+            }
+            builder.appendLine(line, start, write - start);
+        }
+
+        /**
+         * open 处的 "<" 开始一个合法的 WebVTT 标签时返回对应 ">" 的下标，否则返回 -1
+         * 标签形如 <b>、</b>、<c.cls1.cls2>、<v 讲师>、<lang en>，或时间戳 <00:01.000>、<00:00:01.000>
+         */
+        private static int tagEnd(char[] line, int open, int to) {
+            int i = open + 1;
+            if (i < to && Character.isDigit(line[i])) {
+                while (i < to && (Character.isDigit(line[i]) || line[i] == ':' || line[i] == '.')) {
+                    i++;
+                }
+                return i < to && line[i] == '>' && Timestamps.parse(line, open + 1, i) >= 0 ? i : -1;
+            }
+            if (i < to && line[i] == '/') {
+                i++;
+            }
+            int name = i;
+            while (i < to && isAsciiLetter(line[i])) {
+                i++;
+            }
+            if (i == name) {
+                return -1;
+            }
+            // 类名：.cls
+            while (i < to && line[i] == '.') {
+                i++;
+                int cls = i;
+                while (i < to && (isAsciiLetter(line[i]) || Character.isDigit(line[i]) || line[i] == '-' || line[i] == '_')) {
+                    i++;
+                }
+                if (i == cls) {
+                    return -1;
+                }
+            }
+            // 注解：<v 讲师>、<lang en>，注解中不能再出现 "<"
+            if (i < to && line[i] == ' ') {
+                while (i < to && line[i] != '>' && line[i] != '<') {
+                    i++;
+                }
+            }
+            return i < to && line[i] == '>' ? i : -1;
+        }
+
+        private static boolean isAsciiLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean startsWith(char[] line, int from, int to, String prefix) {
+            if (to - from < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (line[from + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int indexOf(char[] line, int from, int to, String target) {
+            char first = target.charAt(0);
+            int last = to - target.length();
+            outer:
+            for (int i = from; i <= last; i++) {
+                if (line[i] != first) {
+                    continue;
+                }
+                for (int j = 1; j < target.length(); j++) {
+                    if (line[i + j] != target.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
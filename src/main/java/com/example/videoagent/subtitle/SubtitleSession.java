@@ -0,0 +1,136 @@
+package com.example.videoagent.subtitle;
+
+/**
+ * 服务端字幕会话
+ * 以解码后字幕文本（UTF-8 编码）的 SHA-256 作为 ID（内容寻址），同一份字幕不论以何种编码上传都只保存一次
+ *
+ * 原始字幕、紧凑字幕与字幕索引的文本都存放在堆外（{@link OffHeapText}），堆上只保留时间轴、偏移量与检索索引，
+ * 大量常驻会话不会增加 GC 扫描与复制的负担；分段与检索 Prompt 只按字幕区间渲染，只有单次发送整份字幕时才解码为 String
+ */
+public class SubtitleSession {
+
+    private final String id;
+    private final OffHeapText content;
+    private final OffHeapText compactContent;
+    private final int byteSize;
+    private final CueTable cues;
+    private final KeywordIndex keywordIndex;
+    private final Bm25Index relevanceIndex;
+    private final int rawEstimatedTokens;
+    private final int estimatedTokens;
+
+    public SubtitleSession(String id, String content, int byteSize, CueTable cues) {
+        this(id, OffHeapText.copyOf(content), byteSize, cues);
+    }
+
+    /**
+     * 使用已写入堆外的字幕文本构建会话，流式上传时整份文本不经过堆
+     */
+    public SubtitleSession(String id, OffHeapText content, int byteSize, CueTable cues) {
+        this.id = id;
+        this.content = content;
+        this.byteSize = byteSize;
+        this.cues = cues;
+        // 随会话一起构建，后续关键词搜索直接查索引
+        this.keywordIndex = KeywordIndex.build(cues);
+        this.relevanceIndex = Bm25Index.build(cues, Bm25Index.DEFAULT_WINDOW_TOKENS);
+        // 上传时压缩一次，之后所有 Prompt 都使用紧凑格式；
+        // 纯文本字幕，或有正文行落在字幕之外（压缩后会丢失内容）时原样使用
+        String compact = cues.isEmpty() || cues.skippedTextLines() > 0 ? null : TranscriptCompactor.compact(cues);
+        this.compactContent = compact == null ? content : OffHeapText.copyOf(compact);
+        this.rawEstimatedTokens = TokenEstimator.estimate(content);
+        this.estimatedTokens = compact == null
+                ? rawEstimatedTokens : TokenEstimator.estimate(compact);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 上传的原始字幕文本，每次调用从堆外解码出新的 String
+     */
+    public String getContent() {
+        return content.toString();
+    }
+
+    /**
+     * 原始字幕的字符数
+     */
+    public int getContentLength() {
+        return content.length();
+    }
+
+    /**
+     * 发送给模型的紧凑字幕："[HH:MM:SS] 文本" 每条一行，已合并折行、去除滚动重复
+     * 每次调用从堆外解码出新的 String，用完即可回收
+     */
+    public String getCompactContent() {
+        return compactContent.toString();
+    }
+
+    /**
+     * 紧凑字幕的堆外文本本身，不解码；只在整份字幕确实要发送给模型时由调用方解码一次
+     */
+    public OffHeapText getCompactText() {
+        return compactContent;
+    }
+
+    /**
+     * 给定文本是否就是整份紧凑字幕，逐字符比较，不解码
+     */
+    public boolean isCompactContent(CharSequence text) {
+        return compactContent.contentEquals(text);
+    }
+
+    /**
+     * 原始字幕的 UTF-8 字节数
+     */
+    public int getByteSize() {
+        return byteSize;
+    }
+
+    /**
+     * 解析后的字幕索引；无时间戳的纯文本字幕为空表
+     */
+    public CueTable getCues() {
+        return cues;
+    }
+
+    /**
+     * 关键词倒排索引
+     */
+    public KeywordIndex getKeywordIndex() {
+        return keywordIndex;
+    }
+
+    /**
+     * 问答检索用的 BM25 相关性索引
+     */
+    public Bm25Index getRelevanceIndex() {
+        return relevanceIndex;
+    }
+
+    /**
+     * 原始字幕的估算 token 数
+     */
+    public int getRawEstimatedTokens() {
+        return rawEstimatedTokens;
+    }
+
+    /**
+     * 紧凑字幕（即 Prompt 中整份字幕）的估算 token 数
+     */
+    public int getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    /**
+     * 估算该会话占用的内存字节数（堆上索引 + 堆外文本），用于存储容量淘汰
+     */
+    public int estimatedSize() {
+        int compactSize = compactContent == content ? 0 : compactContent.sizeInBytes();
+        return content.sizeInBytes() + compactSize + id.length() * 2 + cues.estimatedSize()
+                + keywordIndex.estimatedSize() + relevanceIndex.estimatedSize();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.videoagent.subtitle;
+
+/**
+ * 字幕时间戳解析与格式化
+ * 支持 HH:MM:SS,mmm（SRT）、HH:MM:SS.mmm / MM:SS.mmm（WebVTT）以及 HH:MM:SS
+ */
+public final class Timestamps {
+
+    private Timestamps() {}
+
+    /**
+     * 解析 buf[from, to) 区间内的时间戳
+     *
+     * @return 毫秒数，格式不合法时返回 -1
+     */
+    public static long parse(char[] buf, int from, int to) {
+        long[] parts = new long[3];
+        int partCount = 0;
+        long value = 0;
+        int digits = 0;
+        int i = from;
+        for (; i < to; i++) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c == ':') {
+                if (digits == 0 || partCount == 2) {
+                    return -1;
+                }
+                parts[partCount++] = value;
+                value = 0;
+                digits = 0;
+            } else if (c == ',' || c == '.') {
+                break;
+            } else {
+                return -1;
+            }
+        }
+        if (digits == 0 || partCount == 0) {
+            return -1;
+        }
+        parts[partCount++] = value;
+
+        long hours = partCount == 3 ? parts[0] : 0;
+        long minutes = parts[partCount - 2];
+        long seconds = parts[partCount - 1];
+        if (minutes >= 60 || seconds >= 60) {
+            return -1;
+        }
+
+        long millis = 0;
+        if (i < to) {
+            // 小数部分：按毫秒取前三位
+            int scale = 100;
+            for (i++; i < to; i++) {
+                char c = buf[i];
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                millis += (c - '0') * scale;
+                scale /= 10;
+            }
+        }
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    public static long parse(String value) {
+        char[] chars = value.trim().toCharArray();
+        return parse(chars, 0, chars.length);
+    }
+
+    /**
+     * 格式化为 HH:MM:SS
+     */
+    public static String format(long millis) {
+        StringBuilder sb = new StringBuilder(8);
+        appendTo(sb, millis);
+        return sb.toString();
+    }
+
+    /**
+     * 以 HH:MM:SS 格式追加到 StringBuilder，不产生中间字符串
+     */
+    public static void appendTo(StringBuilder sb, long millis) {
+        long totalSeconds = millis / 1000;
+        appendTwoDigits(sb, totalSeconds / 3600);
+        sb.append(':');
+        appendTwoDigits(sb, (totalSeconds / 60) % 60);
+        sb.append(':');
+        appendTwoDigits(sb, totalSeconds % 60);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, long value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+}
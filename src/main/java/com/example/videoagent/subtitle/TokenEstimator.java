@@ -0,0 +1,66 @@
+package com.example.videoagent.subtitle;
+
+/**
+ * Token 数估算
+ * 不加载分词器，按字符类别查表累加权重（单位：千分之一 token），权重按 Qwen 分词器的切分特点取值：
+ * - 常用汉字约 1.4 字/token，假名、谚文、全角标点及其他全角字符约 1 token/字
+ * - 数字逐位切分，每位 1 token；英文单词约 4 字符/token，空格并入后一个词
+ * - 换行、ASCII 标点通常单独成 token 或与相邻符号合并
+ * 查表为单次顺序扫描，1 MB 文本亚毫秒级完成
+ */
+public final class TokenEstimator {
+
+    private static final int MILLI = 1000;
+
+    // 每个 UTF-16 字符的权重
+    private static final short[] WEIGHTS = new short[Character.MAX_VALUE + 1];
+
+    static {
+        fill(0x0000, 0xFFFF, 1000);          // 未单独列出的字符（私用区、代理对半字等）
+        fill(0x0080, 0x2E7F, 600);           // 拉丁扩展、希腊、西里尔及各类符号
+        fill(0x2E80, 0xFFEF, 1000);          // 中日韩部首、全角标点、假名、谚文等
+        fill(0x3400, 0x4DBF, 700);           // 中日韩统一表意文字扩展 A
+        fill(0x4E00, 0x9FFF, 700);           // 中日韩统一表意文字
+        fill(0xF900, 0xFAFF, 700);           // 中日韩兼容表意文字
+        fill(0x0000, 0x001F, 0);             // 控制字符
+        fill('\t', '\t', 500);
+        fill('\n', '\n', 500);
+        fill('\r', '\r', 0);                 // \r\n 按一个换行计
+        fill(0x0021, 0x007E, 700);           // ASCII 标点
+        fill('0', '9', 1000);
+        fill('A', 'Z', 250);
+        fill('a', 'z', 250);
+        fill(' ', ' ', 100);
+    }
+
+    private TokenEstimator() {}
+
+    public static int estimate(CharSequence text) {
+        long milli = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            milli += WEIGHTS[text.charAt(i)];
+        }
+        return toTokens(milli);
+    }
+
+    /**
+     * 估算单条字幕文本的 token 数
+     */
+    public static int estimate(CueTable cues, int cue) {
+        long milli = 0;
+        for (int i = cues.textStart(cue), end = cues.textEnd(cue); i < end; i++) {
+            milli += WEIGHTS[cues.charAt(i)];
+        }
+        return toTokens(milli);
+    }
+
+    private static int toTokens(long milli) {
+        return (int) ((milli + MILLI - 1) / MILLI);
+    }
+
+    private static void fill(int from, int to, int weight) {
+        for (int c = from; c <= to; c++) {
+            WEIGHTS[c] = (short) weight;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.videoagent.subtitle;
+
+/**
+ * 把解析后的字幕渲染为 Prompt 使用的紧凑格式 "[HH:MM:SS] 文本"，每条字幕一行（末行不带换行）
+ * 去掉 SRT 序号、"-->" 时间行、VTT 设置和空行：
+ * - 同一条字幕的折行合并为一行，中日韩文字之间直接相连，其余以空格连接
+ * - 滚动字幕（自动生成的 VTT 常见）每条都会重复上一条的末尾几行，重复部分只保留一次；
+ *   与上一条完全相同的字幕整条省略
+ */
+public final class TranscriptCompactor {
+
+    private TranscriptCompactor() {}
+
+    public static String compact(CueTable cues) {
+        StringBuilder sb = new StringBuilder(cues.totalTextLength() + cues.size() * 12);
+        String[] previous = new String[0];
+        for (int cue = 0; cue < cues.size(); cue++) {
+            String[] lines = cues.text(cue).split("\n");
+            int skip = overlap(previous, lines);
+            previous = lines;
+            if (skip == lines.length) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append('[');
+            Timestamps.appendTo(sb, cues.startMillis(cue));
+            sb.append("] ");
+            for (int i = skip; i < lines.length; i++) {
+                if (i > skip && !joinsWithoutSpace(sb.charAt(sb.length() - 1), lines[i].charAt(0))) {
+                    sb.append(' ');
+                }
+                sb.append(lines[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * current 开头与 previous 末尾重合的最长行数
+     */
+    private static int overlap(String[] previous, String[] current) {
+        for (int k = Math.min(previous.length, current.length); k > 0; k--) {
+            boolean matches = true;
+            for (int i = 0; i < k && matches; i++) {
+                matches = previous[previous.length - k + i].equals(current[i]);
+            }
+            if (matches) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean joinsWithoutSpace(char before, char after) {
+        return isWide(before) && isWide(after);
+    }
+
+    /**
+     * 中日文字及全角标点；韩文按词以空格分隔，不在此列
+     */
+    private static boolean isWide(char c) {
+        return (c >= 0x2E80 && c <= 0xA4CF)      // 部首、标点、假名、统一表意文字
+                || (c >= 0xF900 && c <= 0xFAFF)  // 兼容表意文字
+                || (c >= 0xFE30 && c <= 0xFE4F)  // 竖排标点
+                || (c >= 0xFF00 && c <= 0xFFEF); // 全角字符
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.videoagent.controller;
+
+import com.example.videoagent.config.ExecutionConfig;
+import com.example.videoagent.config.ExecutionProperties;
+import com.example.videoagent.config.StreamProperties;
+import com.example.videoagent.dto.ChatRequest;
+import com.example.videoagent.dto.Concept;
+import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelOverloadedException;
+import com.example.videoagent.service.PromptOptimizeService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
+import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.CueTable;
+import com.example.videoagent.subtitle.SubtitleSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 响应式 /api 接口测试：处理方法返回 Mono / Flux，经异步分派后写出响应
+ */
+@WebMvcTest(value = ReactiveVideoApiController.class, properties = "video-agent.web.reactive=true")
+@Import({ExecutionConfig.class, ExecutionProperties.class, SseChunkCoalescer.class, StreamProperties.class})
+class ReactiveVideoApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private VideoService videoService;
+
+    @MockBean
+    private IntentClassificationService intentClassificationService;
+
+    @MockBean
+    private PromptOptimizeService promptOptimizeService;
+
+    @MockBean
+    private SubtitleStore subtitleStore;
+
+    private static final SubtitleSession SESSION = new SubtitleSession("abc123", "test content", 12, CueTable.empty());
+
+    @Test
+    @DisplayName("/summarize - 异步返回摘要")
+    void summarize_withSubtitleId_ReturnsSummaryAsync() throws Exception {
+        // Arrange
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.summarizeAsync(eq(SESSION), isNull())).thenReturn(Mono.just("Stored summary"));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/summarize").param("subtitleId", "abc123"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true))
+            .andExpect(jsonPath("$.content").value("Stored summary"));
+    }
+
+    @Test
+    @DisplayName("/summarize - 字幕失效返回错误响应")
+    void summarize_withExpiredSubtitleId_ReturnsError() throws Exception {
+        // Arrange
+        when(subtitleStore.get("missing"))
+            .thenThrow(new IllegalArgumentException("字幕不存在或已过期，请重新上传: missing"));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/summarize").param("subtitleId", "missing"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(false))
+            .andExpect(jsonPath("$.message").value(containsString("字幕不存在或已过期")));
+    }
+
+    @Test
+    @DisplayName("/ask - 模型并发已满时返回 429 和 Retry-After")
+    void ask_whenModelOverloaded_Returns429() throws Exception {
+        // Arrange
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.smartAskAsync(eq(SESSION), eq("question"), isNull()))
+            .thenReturn(Mono.error(new ModelOverloadedException("interactive", 2)));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/ask")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"subtitleId\":\"abc123\",\"question\":\"question\"}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(jsonPath("$.message").value(containsString("模型服务繁忙")));
+    }
+
+    @Test
+    @DisplayName("/ask - 异步返回智能问答结果")
+    void ask_withSubtitleId_ReturnsAnswerAsync() throws Exception {
+        // Arrange
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.smartAskAsync(eq(SESSION), eq("question"), isNull())).thenReturn(Mono.just("Stored answer"));
+        ChatRequest request = new ChatRequest();
+        request.setSubtitleId("abc123");
+        request.setQuestion("question");
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/ask")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value("Stored answer"));
+    }
+
+    @Test
+    @DisplayName("/stream/ask - 分块合并后以 ServerSentEvent 推送，错误转为 error 事件")
+    void streamAsk_EmitsChunksAndErrorEvent() throws Exception {
+        // Arrange
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.smartAskStream(eq(SESSION), eq("question"), isNull()))
+            .thenReturn(Flux.concat(Flux.just("第一块", "第二块"), Flux.error(new RuntimeException("AI 服务异常"))));
+        ChatRequest request = new ChatRequest();
+        request.setSubtitleId("abc123");
+        request.setQuestion("question");
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/stream/ask")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(StandardCharsets.UTF_8);
+        // 同一窗口内的分块合并为一帧
+        assertTrue(body.contains("data:第一块第二块"));
+        assertTrue(body.contains("event:error"));
+        assertTrue(body.contains("生成失败: AI 服务异常"));
+    }
+
+    @Test
+    @DisplayName("/stream/extract - 每个概念以 concept 事件推送 JSON，错误转为 error 事件")
+    void streamExtract_EmitsConceptEvents() throws Exception {
+        // Arrange
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.extractConceptsStream(eq(SESSION), isNull()))
+            .thenReturn(Flux.concat(
+                Flux.just(new Concept("00:01:00", "00:02:00", "梯度下降", "迭代优化")),
+                Flux.error(new IllegalStateException("模型输出的 JSON 数组不完整"))));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/stream/extract?subtitleId=abc123")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("event:concept"));
+        assertTrue(body.contains("\"concept\":\"梯度下降\""));
+        assertTrue(body.contains("event:error"));
+        assertTrue(body.contains("提取失败: 模型输出的 JSON 数组不完整"));
+    }
+}
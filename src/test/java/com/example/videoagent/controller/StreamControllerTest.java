@@ -1,23 +1,37 @@
 package com.example.videoagent.controller;
 
+import com.example.videoagent.config.ExecutionConfig;
+import com.example.videoagent.config.ExecutionProperties;
+import com.example.videoagent.config.StreamProperties;
 import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
 import com.example.videoagent.service.VideoService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.mock.web.MockAsyncContext;
 import reactor.core.publisher.Flux;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +40,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * 流式端点测试
  */
 @WebMvcTest(VideoController.class)
+@Import({ExecutionConfig.class, ExecutionProperties.class, SseChunkCoalescer.class, StreamProperties.class})
 class StreamControllerTest {
 
     @Autowired
@@ -37,6 +52,9 @@ class StreamControllerTest {
     @MockBean
     private IntentClassificationService intentClassificationService;
 
+    @MockBean
+    private SubtitleStore subtitleStore;
+
     private static final String SAMPLE_SUBTITLE = "[00:00:05] 测试字幕内容";
 
     // ==================== /stream/ask 端点测试 ====================
@@ -125,7 +143,7 @@ class StreamControllerTest {
         // Arrange
         String question = "什么是 RAG？";
         String encodedQuestion = "什么是%20RAG%EF%BC%9F";
-        when(videoService.smartAskStream(any(), any(), any()))
+        when(videoService.smartAskStream(anyString(), any(), any()))
                 .thenReturn(Flux.just("回答"));
 
         // Act & Assert
@@ -153,4 +171,54 @@ class StreamControllerTest {
             .andExpect(status().isOk())
             .andExpect(request().asyncStarted());
     }
+
+    @Test
+    @DisplayName("/stream/ask - 连接超时后取消模型流")
+    void streamAsk_Timeout_CancelsUpstream() throws Exception {
+        // Arrange - 模型流一直不结束，记录取消
+        String question = "超时问题";
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(videoService.smartAskStream(SAMPLE_SUBTITLE, question, null))
+                .thenReturn(Flux.<String>never().doOnCancel(cancelled::countDown));
+        MvcResult result = mockMvc.perform(get("/stream/ask")
+                .param("subtitleContent", SAMPLE_SUBTITLE)
+                .param("question", question)
+                .accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Act - 模拟容器触发异步超时
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        // Assert
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS), "超时后模型流应被取消");
+    }
+
+    @Test
+    @DisplayName("/stream/ask - 客户端断开后取消模型流")
+    void streamAsk_ClientDisconnect_CancelsUpstream() throws Exception {
+        // Arrange
+        String question = "断开问题";
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(videoService.smartAskStream(SAMPLE_SUBTITLE, question, null))
+                .thenReturn(Flux.<String>never().doOnCancel(cancelled::countDown));
+        MvcResult result = mockMvc.perform(get("/stream/ask")
+                .param("subtitleContent", SAMPLE_SUBTITLE)
+                .param("question", question)
+                .accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Act - 模拟容器因连接断开而报错并结束异步请求
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+        }
+
+        // Assert
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS), "断开后模型流应被取消");
+    }
 }
@@ -1,28 +1,42 @@
 package com.example.videoagent.controller;
 
+import com.example.videoagent.config.ExecutionConfig;
+import com.example.videoagent.config.ExecutionProperties;
+import com.example.videoagent.config.StreamProperties;
 import com.example.videoagent.dto.IntentResult;
 import com.example.videoagent.dto.SmartAskResponse;
 import com.example.videoagent.dto.VideoResponse;
 import com.example.videoagent.enums.UserIntent;
 import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.ModelOverloadedException;
 import com.example.videoagent.service.PromptOptimizeService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
 import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.CueTable;
+import com.example.videoagent.subtitle.SubtitleSession;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(VideoApiController.class)
+@Import({ExecutionConfig.class, ExecutionProperties.class, SseChunkCoalescer.class, StreamProperties.class})
 class VideoApiControllerTest {
 
     @Autowired
@@ -40,19 +54,31 @@ class VideoApiControllerTest {
     @MockBean
     private PromptOptimizeService promptOptimizeService;
 
+    @MockBean
+    private SubtitleStore subtitleStore;
+
+    private static final SubtitleSession SESSION = new SubtitleSession("abc123", "test content", 12, CueTable.empty());
+
     @Test
     void upload_withFile_shouldReturnSuccess() throws Exception {
+        when(subtitleStore.save(any(InputStream.class))).thenReturn(SESSION);
         MockMultipartFile file = new MockMultipartFile(
             "file", "test.srt", "text/plain", "test content".getBytes());
 
         mockMvc.perform(multipart("/api/upload").file(file))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.success").value(true))
-            .andExpect(jsonPath("$.fileName").value("test.srt"));
+            .andExpect(jsonPath("$.fileName").value("test.srt"))
+            .andExpect(jsonPath("$.subtitleId").value("abc123"))
+            // 纯文本字幕不压缩
+            .andExpect(jsonPath("$.data.rawTokens").value(SESSION.getRawEstimatedTokens()))
+            .andExpect(jsonPath("$.data.savedTokens").value(0));
     }
 
     @Test
     void upload_content_shouldReturnSample() throws Exception {
+        when(subtitleStore.save(anyString())).thenReturn(SESSION);
+
         mockMvc.perform(post("/api/upload/content")
                 .contentType(MediaType.TEXT_PLAIN)
                 .content(""))
@@ -73,6 +99,50 @@ class VideoApiControllerTest {
             .andExpect(jsonPath("$.content").value("Test summary"));
     }
 
+    @Test
+    void summarize_withSubtitleId_shouldUseStoredSubtitle() throws Exception {
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.summarize(eq(SESSION), isNull())).thenReturn("Stored summary");
+
+        mockMvc.perform(post("/api/summarize").param("subtitleId", "abc123"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true))
+            .andExpect(jsonPath("$.content").value("Stored summary"));
+    }
+
+    @Test
+    void summarize_withExpiredSubtitleId_shouldReturnError() throws Exception {
+        when(subtitleStore.get("missing"))
+            .thenThrow(new IllegalArgumentException("字幕不存在或已过期，请重新上传: missing"));
+
+        mockMvc.perform(post("/api/summarize").param("subtitleId", "missing"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void summarize_whenModelOverloaded_shouldReturn429WithRetryAfter() throws Exception {
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.summarize(eq(SESSION), isNull())).thenThrow(new ModelOverloadedException("analysis", 3));
+
+        mockMvc.perform(post("/api/summarize").param("subtitleId", "abc123"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "3"))
+            .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void ask_withSubtitleId_shouldUseStoredSubtitle() throws Exception {
+        when(subtitleStore.get("abc123")).thenReturn(SESSION);
+        when(videoService.smartAsk(eq(SESSION), eq("question"), isNull())).thenReturn("Stored answer");
+
+        mockMvc.perform(post("/api/ask")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"subtitleId\":\"abc123\",\"question\":\"question\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value("Stored answer"));
+    }
+
     @Test
     void ask_shouldReturnAnswer() throws Exception {
         when(videoService.smartAsk(anyString(), anyString())).thenReturn("Test answer");
@@ -1,20 +1,34 @@
 package com.example.videoagent.controller;
 
+import com.example.videoagent.config.ExecutionConfig;
+import com.example.videoagent.config.ExecutionProperties;
+import com.example.videoagent.config.StreamProperties;
 import com.example.videoagent.dto.IntentResult;
 import com.example.videoagent.enums.UserIntent;
 import com.example.videoagent.service.IntentClassificationService;
+import com.example.videoagent.service.SseChunkCoalescer;
+import com.example.videoagent.service.SubtitleStore;
+import com.example.videoagent.service.SubtitleTooLargeException;
 import com.example.videoagent.service.VideoService;
+import com.example.videoagent.subtitle.CueTable;
+import com.example.videoagent.subtitle.SubtitleSession;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -22,6 +36,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * VideoController 单元测试
  */
 @WebMvcTest(VideoController.class)
+@Import({ExecutionConfig.class, ExecutionProperties.class, SseChunkCoalescer.class, StreamProperties.class})
 class VideoControllerTest {
 
     @Autowired
@@ -33,8 +48,51 @@ class VideoControllerTest {
     @MockBean
     private IntentClassificationService intentClassificationService;
 
+    @MockBean
+    private SubtitleStore subtitleStore;
+
     private static final String SAMPLE_SUBTITLE = "[00:00:05] 测试字幕内容";
 
+    // ==================== /upload 端点测试 ====================
+
+    @Test
+    @DisplayName("/upload - 字幕保存到服务端，页面只携带 subtitleId")
+    void upload_SavesSessionAndReturnsSubtitleId() throws Exception {
+        // Arrange
+        SubtitleSession session = new SubtitleSession("abc123", SAMPLE_SUBTITLE, 30, CueTable.empty());
+        when(subtitleStore.save(any(InputStream.class))).thenReturn(session);
+        when(subtitleStore.get("abc123")).thenReturn(session);
+        when(videoService.summarize(session, null)).thenReturn("这是总结");
+
+        // Act & Assert
+        mockMvc.perform(multipart("/upload")
+                .file(new MockMultipartFile("file", "a.srt", "text/plain", SAMPLE_SUBTITLE.getBytes())))
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("subtitleId", "abc123"))
+            .andExpect(model().attribute("charCount", SAMPLE_SUBTITLE.length()))
+            .andExpect(model().attributeDoesNotExist("subtitleContent"));
+        mockMvc.perform(post("/summarize")
+                .param("subtitleId", "abc123"))
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("summary", "这是总结"))
+            .andExpect(model().attribute("subtitleId", "abc123"));
+    }
+
+    @Test
+    @DisplayName("/upload - 字幕超过存储容量时提示错误")
+    void upload_TooLarge_ReturnsError() throws Exception {
+        // Arrange
+        when(subtitleStore.save(any(InputStream.class)))
+            .thenThrow(new SubtitleTooLargeException(300L * 1024 * 1024, 256L * 1024 * 1024));
+
+        // Act & Assert
+        mockMvc.perform(multipart("/upload")
+                .file(new MockMultipartFile("file", "big.srt", "text/plain", SAMPLE_SUBTITLE.getBytes())))
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("error", containsString("字幕过大")))
+            .andExpect(model().attributeDoesNotExist("subtitleLoaded"));
+    }
+
     // ==================== /ask 端点测试 ====================
 
     @Test
@@ -115,7 +173,7 @@ class VideoControllerTest {
                 .param("question", question))
             .andExpect(status().isOk())
             .andExpect(view().name("index"))
-            .andExpect(model().attribute("error", org.hamcrest.Matchers.containsString("智能问答失败")))
+            .andExpect(model().attribute("error", containsString("智能问答失败")))
             .andExpect(model().attribute("subtitleLoaded", true));
     }
 
@@ -0,0 +1,49 @@
+package com.example.videoagent.intent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AhoCorasick 单元测试
+ */
+class AhoCorasickTest {
+
+    private static List<String> matches(AhoCorasick automaton, List<String> patterns, String text) {
+        List<String> found = new ArrayList<>();
+        automaton.match(text, (pattern, end) -> found.add(patterns.get(pattern) + "@" + end));
+        return found;
+    }
+
+    @Test
+    @DisplayName("match - 经典示例：重叠与后缀模式全部命中")
+    void match_OverlappingPatterns() {
+        List<String> patterns = List.of("he", "she", "his", "hers");
+        AhoCorasick automaton = new AhoCorasick(patterns);
+
+        List<String> found = matches(automaton, patterns, "ushers");
+
+        assertEquals(List.of("he@4", "hers@6", "she@4"), found.stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("match - 中文触发词")
+    void match_ChineseTriggers() {
+        List<String> patterns = List.of("总结", "总结一下", "金句", "哪里提到");
+        AhoCorasick automaton = new AhoCorasick(patterns);
+
+        assertEquals(List.of("总结@2", "总结一下@4"), matches(automaton, patterns, "总结一下"));
+        assertEquals(List.of("哪里提到@7"), matches(automaton, patterns, "视频里哪里提到了RAG"));
+        assertTrue(matches(automaton, patterns, "什么是RAG").isEmpty());
+    }
+
+    @Test
+    @DisplayName("构建 - 空模式抛出异常")
+    void build_EmptyPattern_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasick(List.of("a", "")));
+    }
+}
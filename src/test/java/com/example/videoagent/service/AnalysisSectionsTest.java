@@ -0,0 +1,63 @@
+package com.example.videoagent.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AnalysisSections 单元测试
+ */
+class AnalysisSectionsTest {
+
+    @Test
+    @DisplayName("parse - 容忍等号个数差异与代码块包裹")
+    void parse_LooseMarkersAndCodeFences_ExtractsAllSections() {
+        // Arrange
+        String output = """
+                ===SUMMARY===
+                ## 核心主题
+                梯度下降
+
+                ======= CONCEPTS =======
+                ```json
+                [{"concept": "学习率", "description": "步长"}]
+                ```
+                =====QUOTES=====
+                [ ]
+                """;
+
+        // Act
+        AnalysisSections sections = AnalysisSections.parse(output);
+
+        // Assert
+        assertEquals("## 核心主题\n梯度下降", sections.summary());
+        assertEquals("[{\"concept\": \"学习率\", \"description\": \"步长\"}]", sections.concepts());
+        assertEquals("[ ]", sections.quotes());
+    }
+
+    @Test
+    @DisplayName("parse - 缺少分隔标记或 JSON 不合法的部分为 null")
+    void parse_MissingOrInvalidSections_ReturnsNull() {
+        // Arrange
+        String unmarked = "## 核心主题\n没有按格式输出";
+        String invalid = """
+                =====SUMMARY=====
+
+                =====CONCEPTS=====
+                {"concept": "不是数组"}
+                """;
+
+        // Act
+        AnalysisSections none = AnalysisSections.parse(unmarked);
+        AnalysisSections partial = AnalysisSections.parse(invalid);
+
+        // Assert
+        assertNull(none.summary());
+        assertNull(none.concepts());
+        assertNull(none.quotes());
+        assertNull(partial.summary());
+        assertNull(partial.concepts());
+        assertNull(partial.quotes());
+    }
+}
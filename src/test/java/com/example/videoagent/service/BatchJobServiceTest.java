@@ -0,0 +1,148 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.BatchJobProperties;
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.dto.BatchJobStatus;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.enums.BatchTaskState;
+import com.example.videoagent.subtitle.SubtitleSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * BatchJobService / TokenRateLimiter 单元测试
+ */
+class BatchJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Scheduler scheduler = Schedulers.newBoundedElastic(4, 100, "batch-test");
+    private final VideoService videoService = mock(VideoService.class);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("目录提交 - 每个视频执行三项分析并落盘；失败的分析在重启后可继续，已完成的不再调用模型")
+    void submitDirectory_PersistsResultsAndResumesAfterRestart() throws Exception {
+        // Arrange
+        Path courses = Files.createDirectories(tempDir.resolve("courses/week1"));
+        Files.writeString(courses.resolve("01.srt"), "1\n00:00:01,000 --> 00:00:03,000\n第一讲\n");
+        Files.writeString(courses.resolve("02.srt"), "1\n00:00:01,000 --> 00:00:03,000\n第二讲\n");
+        Files.writeString(courses.resolve("notes.md"), "不是字幕");
+        when(videoService.estimateTokens(any(SubtitleSession.class), isNull(), any(), isNull()))
+                .thenReturn(new TokenEstimate(100, 1, 8192, 120000, true, false, 0, 0));
+        when(videoService.summarize(any(SubtitleSession.class), isNull()))
+                .thenAnswer(invocation -> "总结:" + invocation.getArgument(0, SubtitleSession.class).getCues().text(0));
+        when(videoService.extractConcepts(any(SubtitleSession.class), isNull())).thenReturn("[]");
+        when(videoService.extractQuotes(any(SubtitleSession.class), isNull()))
+                .thenThrow(new IllegalStateException("上游超时"))
+                .thenReturn("[{\"quote\":\"金句\"}]");
+        BatchJobService service = newService();
+
+        // Act
+        BatchJobStatus submitted = service.submitDirectory(tempDir.resolve("courses").toString());
+        BatchJobStatus finished = awaitIdle(service, submitted.getId());
+
+        // Assert - 首次金句提取失败，其余完成
+        assertEquals(6, finished.getTotalTasks());
+        assertEquals(5, finished.getDoneTasks());
+        assertEquals(1, finished.getFailedTasks());
+        assertEquals("week1/01.srt", finished.getItems().get(0).getName());
+        Map<String, String> results = service.results(submitted.getId(), 1);
+        assertEquals("总结:第二讲", results.get("summarize"));
+        assertEquals("[]", results.get("extract-concepts"));
+
+        // Act - 重启后继续
+        service.close();
+        BatchJobService restarted = newService();
+        BatchJobStatus restored = restarted.status(submitted.getId());
+        assertFalse(restored.isRunning());
+        assertEquals(1, restored.getFailedTasks());
+        restarted.resume(submitted.getId());
+        BatchJobStatus resumed = awaitIdle(restarted, submitted.getId());
+
+        // Assert
+        assertEquals(6, resumed.getDoneTasks());
+        assertTrue(resumed.getItems().stream()
+                .allMatch(item -> item.getTasks().values().stream().allMatch(BatchTaskState.DONE::equals)));
+        verify(videoService, times(2)).summarize(any(SubtitleSession.class), isNull());
+        verify(videoService, times(3)).extractQuotes(any(SubtitleSession.class), isNull());
+    }
+
+    @Test
+    @DisplayName("目录提交 - 不在允许范围内的目录与空上传被拒绝")
+    void submit_RejectsDisallowedDirectoryAndEmptyUpload() throws Exception {
+        // Arrange
+        BatchJobService service = newService();
+        Path outside = Files.createDirectories(tempDir.resolve("outside"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> service.submitDirectory(outside.toString()));
+        assertThrows(IllegalArgumentException.class, () -> service.submitDirectory(
+                tempDir.resolve("courses/../outside").toString()));
+        assertThrows(IllegalArgumentException.class, () -> service.submit(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.status("missing"));
+    }
+
+    @Test
+    @DisplayName("令牌桶 - 一分钟配额内立即放行，超出后按预约先后错开，未发出的调用归还配额")
+    void tokenRateLimiter_SpacesCallsWithinBudget() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        TokenRateLimiter limiter = new TokenRateLimiter(60_000, now::get);
+
+        // Act & Assert - 桶满时一分钟的配额立即可用
+        assertEquals(0, limiter.reserve(40_000));
+        assertEquals(0, limiter.reserve(20_000));
+        // 透支 10000 个 token，每秒补充 1000 个
+        assertEquals(TimeUnit.SECONDS.toNanos(10), limiter.reserve(10_000));
+        assertEquals(TimeUnit.SECONDS.toNanos(20), limiter.reserve(10_000));
+
+        limiter.refund(10_000);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.reserve(0));
+        assertEquals(0, new TokenRateLimiter(0).reserve(Long.MAX_VALUE));
+    }
+
+    private BatchJobService newService() throws IOException {
+        BatchJobProperties properties = new BatchJobProperties();
+        properties.setStoragePath(tempDir.resolve("jobs").toString());
+        properties.setAllowedDirectories(List.of(tempDir.resolve("courses").toString()));
+        properties.setParallelism(2);
+        Files.createDirectories(tempDir.resolve("courses"));
+        return new BatchJobService(properties, videoService,
+                new SubtitleStore(new SubtitleStoreProperties()), scheduler);
+    }
+
+    private static BatchJobStatus awaitIdle(BatchJobService service, String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        BatchJobStatus status = service.status(jobId);
+        while (status.isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = service.status(jobId);
+        }
+        assertFalse(status.isRunning(), "任务未在限定时间内结束");
+        return status;
+    }
+}
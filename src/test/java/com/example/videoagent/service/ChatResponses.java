@@ -0,0 +1,25 @@
+package com.example.videoagent.service;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 测试用 ChatResponse 构造工具，模拟 ChatClient 的 chatResponse() 返回值
+ */
+final class ChatResponses {
+
+    private ChatResponses() {
+    }
+
+    static ChatResponse of(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    static Flux<ChatResponse> of(Flux<String> chunks) {
+        return chunks.map(ChatResponses::of);
+    }
+}
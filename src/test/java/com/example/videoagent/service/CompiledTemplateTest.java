@@ -0,0 +1,66 @@
+package com.example.videoagent.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompiledTemplate 单元测试
+ */
+class CompiledTemplateTest {
+
+    private static final CompiledTemplate TEMPLATE = CompiledTemplate.compile("""
+            字幕：
+            <subtitle>
+
+            用户问题：<question>
+            """);
+
+    @Test
+    @DisplayName("参数值不会被再次扫描 - 字幕中的 <question> 原样保留")
+    void render_ValueContainingPlaceholder_NotSubstituted() {
+        // Given
+        Map<String, Object> params = Map.of(
+                "subtitle", "[00:00:01] 模板里写 <question> 表示问题",
+                "question", "这是什么？");
+
+        // When
+        String result = TEMPLATE.render(params);
+
+        // Then
+        assertThat(result).contains("[00:00:01] 模板里写 <question> 表示问题");
+        assertThat(result).endsWith("用户问题：这是什么？\n");
+    }
+
+    @Test
+    @DisplayName("缺失参数保留占位符，null 值渲染为空串")
+    void render_MissingAndNullParams() {
+        // Given
+        Map<String, Object> params = new HashMap<>();
+        params.put("subtitle", null);
+
+        // When
+        String result = TEMPLATE.render(params);
+
+        // Then
+        assertThat(result).isEqualTo("字幕：\n\n\n用户问题：<question>\n");
+    }
+
+    @Test
+    @DisplayName("非占位符的尖括号文本保持不变")
+    void compile_NonPlaceholderBrackets_KeptAsLiteral() {
+        // Given
+        CompiledTemplate template = CompiledTemplate.compile("a < b, <1x>, < name>, {\"k\": <value>}<");
+
+        // When
+        String result = template.render(Map.of("value", 42));
+
+        // Then
+        assertThat(result).isEqualTo("a < b, <1x>, < name>, {\"k\": 42}<");
+        assertThat(template.getSource()).contains("<value>");
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.videoagent.service;
 
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import com.example.videoagent.config.IntentRuleProperties;
+import com.example.videoagent.config.ModelSchedulerProperties;
 import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.IntentStats;
 import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.intent.IntentRuleMatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +16,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -37,7 +51,10 @@ class IntentClassificationServiceTest {
     @BeforeEach
     void setUp() {
         when(mockBuilder.build()).thenReturn(mockChatClient);
-        service = new IntentClassificationService(mockBuilder);
+        service = new IntentClassificationService(mockBuilder, new IntentRuleMatcher(new IntentRuleProperties()),
+                new ModelMetrics(new SimpleMeterRegistry(), "qwen-plus"),
+                new ModelConcurrencyLimiter(new ConcurrencyLimitProperties()),
+                new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry()));
     }
 
     @Test
@@ -50,7 +67,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -70,7 +87,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -90,7 +107,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -109,7 +126,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -128,7 +145,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -147,7 +164,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -167,7 +184,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(invalidResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(invalidResponse));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -187,7 +204,7 @@ class IntentClassificationServiceTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(responseWithExtraText);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(responseWithExtraText));
 
         // Act
         IntentResult result = service.classifyIntent(question);
@@ -200,14 +217,14 @@ class IntentClassificationServiceTest {
     @Test
     @DisplayName("classifyIntentWithCache - 相同问题返回缓存结果")
     void classifyIntentWithCache_SameQuestion_ReturnsCachedResult() {
-        // Arrange
-        String question = "总结一下";
+        // Arrange - 规则无法判断的问题
+        String question = "这段讲得对吗";
         String llmResponse = "{\"intent\": \"SUMMARIZE\", \"confidence\": 0.95}";
 
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(llmResponse);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(llmResponse));
 
         // Act - 第一次调用
         IntentResult result1 = service.classifyIntentWithCache(question);
@@ -225,15 +242,15 @@ class IntentClassificationServiceTest {
     @DisplayName("classifyIntentWithCache - 不同问题分别调用 LLM")
     void classifyIntentWithCache_DifferentQuestions_CallsLlmForEach() {
         // Arrange
-        String question1 = "总结一下";
-        String question2 = "什么是 RAG？";
+        String question1 = "这段讲得对吗";
+        String question2 = "作者的观点站得住吗";
         String response1 = "{\"intent\": \"SUMMARIZE\", \"confidence\": 0.95}";
         String response2 = "{\"intent\": \"QA\", \"confidence\": 0.88}";
 
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(response1, response2);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(response1), ChatResponses.of(response2));
 
         // Act
         service.classifyIntentWithCache(question1);
@@ -242,4 +259,108 @@ class IntentClassificationServiceTest {
         // Assert - LLM 被调用两次
         verify(mockChatClient, times(2)).prompt();
     }
+
+    @Test
+    @DisplayName("classifyIntentWithCache - 明确的触发词由规则本地识别，不调用 LLM")
+    void classifyIntentWithCache_ClearTrigger_ResolvedLocally() {
+        // Act
+        IntentResult summarize = service.classifyIntentWithCache("总结一下");
+        IntentResult quotes = service.classifyIntentWithCache("有哪些金句");
+        IntentResult search = service.classifyIntentWithCache("哪里提到了 Transformer");
+
+        // Assert
+        assertEquals(UserIntent.SUMMARIZE, summarize.getIntent());
+        assertEquals(UserIntent.EXTRACT_QUOTES, quotes.getIntent());
+        assertEquals(UserIntent.SEARCH_KEYWORD, search.getIntent());
+        verifyNoInteractions(mockChatClient);
+        assertEquals(3, service.getStats().getLocal());
+        assertEquals(0, service.getStats().getRemote());
+    }
+
+    @Test
+    @DisplayName("classifyIntentWithCache - 命中多种意图的问题交给 LLM")
+    void classifyIntentWithCache_AmbiguousTriggers_FallsBackToLlm() {
+        // Arrange - 同时命中 SEARCH_KEYWORD（搜索）和 QA（是什么）
+        String question = "搜索引擎是什么";
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("{\"intent\": \"QA\", \"confidence\": 0.9}"));
+
+        // Act
+        IntentResult result = service.classifyIntentWithCache(question);
+        service.classifyIntentWithCache(question);
+
+        // Assert
+        assertEquals(UserIntent.QA, result.getIntent());
+        IntentStats stats = service.getStats();
+        assertEquals(0, stats.getLocal());
+        assertEquals(1, stats.getRemote());
+        assertEquals(1, stats.getCached());
+    }
+
+    @Test
+    @DisplayName("classifyIntentWithCache - 深度分析问题由规则识别为 DEEP_QA，不再被当作普通问答")
+    void classifyIntentWithCache_DeepQaTrigger_ResolvedAsDeepQa() {
+        // Act
+        IntentResult explain = service.classifyIntentWithCache("详细解释一下为什么注意力机制有效");
+        IntentResult analyze = service.classifyIntentWithCache("深入分析作者的论证");
+
+        // Assert
+        assertEquals(UserIntent.DEEP_QA, explain.getIntent());
+        assertEquals(UserIntent.DEEP_QA, analyze.getIntent());
+        verifyNoInteractions(mockChatClient);
+    }
+
+    @Test
+    @DisplayName("classifyIntentWithCache - 同时命中 DEEP_QA 与 QA 的问题交给 LLM")
+    void classifyIntentWithCache_DeepQaAndQaTriggers_FallsBackToLlm() {
+        // Arrange - 同时命中 DEEP_QA（详细解释）和 QA（什么是）
+        String question = "详细解释一下什么是自注意力";
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("{\"intent\": \"DEEP_QA\", \"confidence\": 0.92}"));
+
+        // Act
+        IntentResult result = service.classifyIntentWithCache(question);
+
+        // Assert
+        assertEquals(UserIntent.DEEP_QA, result.getIntent());
+        assertEquals(0, service.getStats().getLocal());
+        assertEquals(1, service.getStats().getRemote());
+    }
+
+    @Test
+    @DisplayName("classifyIntentWithCache - 同一问题的并发未命中只调用一次 LLM")
+    void classifyIntentWithCache_ConcurrentMisses_CallLlmOnce() throws Exception {
+        // Arrange
+        String question = "这段讲得对吗";
+        CountDownLatch started = new CountDownLatch(1);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(200);
+            return ChatResponses.of("{\"intent\": \"QA\", \"confidence\": 0.9}");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        List<Future<IntentResult>> results = new ArrayList<>();
+        results.add(executor.submit(() -> service.classifyIntentWithCache(question)));
+        started.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> service.classifyIntentWithCache(question)));
+        }
+
+        // Assert
+        for (Future<IntentResult> result : results) {
+            assertEquals(UserIntent.QA, result.get(5, TimeUnit.SECONDS).getIntent());
+        }
+        verify(mockChatClient, times(1)).prompt();
+        assertEquals(1, service.getStats().getRemote());
+        executor.shutdown();
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.dto.Concept;
+import com.example.videoagent.dto.Quote;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonArrayElements 单元测试
+ */
+class JsonArrayElementsTest {
+
+    private static final String CONCEPTS = """
+            这是提取结果：
+            ```json
+            [
+              {"concept": "梯度下降", "timestampFrom": "00:01:00", "timestampTo": "00:02:00", "description": "沿负梯度方向迭代, 步长称为\\"学习率\\"", "extra": {"level": [1, 2]}},
+              "无效元素",
+              {"concept": "反向传播", "timestampFrom": "00:03:00", "timestampTo": "00:04:00", "description": "链式法则[逐层]求导"}
+            ]
+            ```
+            以上。""";
+
+    @Test
+    @DisplayName("任意位置切分的分片 - 每个对象闭合即产出，忽略前后说明文字与标量元素")
+    void parse_ArbitraryChunkBoundaries_EmitsEachObjectOnClose() {
+        for (int size = 1; size <= 7; size++) {
+            // Arrange
+            List<String> chunks = split(CONCEPTS, size);
+
+            // Act
+            List<Concept> concepts = JsonArrayElements.parse(Flux.fromIterable(chunks), Concept.class)
+                    .collectList()
+                    .block();
+
+            // Assert
+            assertEquals(2, concepts.size(), "分片大小 " + size);
+            assertEquals("梯度下降", concepts.get(0).getConcept());
+            assertEquals("沿负梯度方向迭代, 步长称为\"学习率\"", concepts.get(0).getDescription());
+            assertEquals("链式法则[逐层]求导", concepts.get(1).getDescription());
+            assertEquals("00:04:00", concepts.get(1).getTimestampTo());
+        }
+    }
+
+    @Test
+    @DisplayName("第一个对象闭合时立即产出，不等待数组结束")
+    void feed_EmitsBeforeArrayCloses() {
+        // Arrange
+        List<Quote> received = new ArrayList<>();
+        Sinks.Many<String> chunks = Sinks.many().unicast().onBackpressureBuffer();
+        JsonArrayElements.parse(chunks.asFlux(), Quote.class).subscribe(received::add);
+
+        // Act
+        chunks.tryEmitNext("[{\"timestamp\": \"00:00:10\", \"quote\": \"少即是多\"");
+        assertTrue(received.isEmpty());
+        chunks.tryEmitNext(", \"context\": \"开场\"}, {\"quote\": ");
+
+        // Assert
+        assertEquals(1, received.size());
+        assertEquals("少即是多", received.get(0).getQuote());
+        assertEquals("开场", received.get(0).getContext());
+    }
+
+    @Test
+    @DisplayName("没有数组时为空流；数组被截断时以错误结束，已闭合的元素照常产出")
+    void parse_NoArrayOrTruncated() {
+        // Act & Assert
+        assertEquals(0, JsonArrayElements.parse(Flux.just("未找到相关内容"), Quote.class).count().block());
+
+        List<Quote> received = new ArrayList<>();
+        Flux<Quote> truncated = JsonArrayElements.parse(
+                Flux.just("[{\"quote\": \"第一句\"}, {\"quote\": \"第二"), Quote.class)
+                .doOnNext(received::add);
+        Exception e = assertThrows(Exception.class, truncated::blockLast);
+        assertInstanceOf(JsonParseException.class, e.getCause());
+        assertEquals(1, received.size());
+    }
+
+    private static List<String> split(String text, int size) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += size) {
+            chunks.add(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return chunks;
+    }
+}
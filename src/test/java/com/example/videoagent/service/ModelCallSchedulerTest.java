@@ -0,0 +1,134 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.enums.ModelPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ModelCallScheduler 单元测试
+ */
+class ModelCallSchedulerTest {
+
+    @Test
+    @DisplayName("槽位用满时按权重轮流放行，批量任务也能按比例得到槽位")
+    void release_DispatchesByWeight() {
+        // Arrange
+        ModelSchedulerProperties properties = properties(1, 0);
+        properties.setWeights(Map.of(ModelPriority.INTERACTIVE, 2, ModelPriority.STANDARD, 1, ModelPriority.BATCH, 1));
+        ModelCallScheduler scheduler = new ModelCallScheduler(properties, new SimpleMeterRegistry());
+        ModelCallScheduler.Slot running = scheduler.acquire(ModelPriority.BATCH).block();
+
+        List<ModelPriority> order = new ArrayList<>();
+        List<ModelCallScheduler.Slot> slots = new ArrayList<>();
+        for (ModelPriority priority : List.of(ModelPriority.BATCH, ModelPriority.STANDARD, ModelPriority.INTERACTIVE)) {
+            for (int i = 0; i < 3; i++) {
+                scheduler.acquire(priority).subscribe(slot -> {
+                    order.add(priority);
+                    slots.add(slot);
+                });
+            }
+        }
+        assertEquals(3, scheduler.getQueueDepth(ModelPriority.BATCH));
+
+        // Act - 每释放一个槽位放行一个排队的调用
+        running.release();
+        for (int i = 0; i < 3; i++) {
+            slots.get(i).release();
+        }
+
+        // Assert - 权重 2:1:1 的平滑轮询
+        assertEquals(List.of(ModelPriority.INTERACTIVE, ModelPriority.STANDARD, ModelPriority.BATCH,
+                ModelPriority.INTERACTIVE), order);
+        assertEquals(1, scheduler.getRunning());
+    }
+
+    @Test
+    @DisplayName("预留槽位只给交互调用；等待超时的调用不受预留限制")
+    void acquire_ReservedSlotsAndStarvationBound() {
+        // Arrange
+        ModelCallScheduler scheduler = new ModelCallScheduler(properties(2, 1), new SimpleMeterRegistry());
+        scheduler.acquire(ModelPriority.BATCH).block();
+
+        // Act
+        List<ModelCallScheduler.Slot> batch = new ArrayList<>();
+        scheduler.acquire(ModelPriority.BATCH).subscribe(batch::add);
+        ModelCallScheduler.Slot interactive = scheduler.acquire(ModelPriority.INTERACTIVE).block();
+
+        // Assert - 第二个批量调用等在预留槽位之外，交互调用直接拿到预留槽位
+        assertTrue(batch.isEmpty());
+        assertEquals(1, scheduler.getQueueDepth(ModelPriority.BATCH));
+        assertNotNull(interactive);
+
+        // Arrange - 等待上限为 0：排队的调用立即视为等待过久
+        ModelSchedulerProperties aged = properties(2, 1);
+        aged.setMaxWaitMillis(0);
+        ModelCallScheduler agedScheduler = new ModelCallScheduler(aged, new SimpleMeterRegistry());
+        agedScheduler.acquire(ModelPriority.BATCH).block();
+
+        // Act & Assert
+        assertNotNull(agedScheduler.acquire(ModelPriority.BATCH).block());
+        assertEquals(2, agedScheduler.getRunning());
+    }
+
+    @Test
+    @DisplayName("队列已满时拒绝；取消排队与取消流都归还资源")
+    void stream_QueueFullRejectsAndCancelReleases() {
+        // Arrange
+        ModelSchedulerProperties properties = properties(1, 0);
+        properties.setMaxQueueDepth(1);
+        ModelCallScheduler scheduler = new ModelCallScheduler(properties, new SimpleMeterRegistry());
+
+        // Act - 一个进行中的流占用唯一槽位，一个流在排队
+        Disposable running = scheduler.stream(ModelPriority.STANDARD, Flux::never).subscribe();
+        Disposable queued = scheduler.stream(ModelPriority.STANDARD, () -> Flux.just("排队")).subscribe();
+
+        // Assert
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(1, scheduler.getQueueDepth(ModelPriority.STANDARD));
+        ModelOverloadedException e = assertThrows(ModelOverloadedException.class,
+                () -> scheduler.call(ModelPriority.STANDARD, () -> "溢出"));
+        assertEquals(1, e.getRetryAfterSeconds());
+
+        queued.dispose();
+        assertEquals(0, scheduler.getQueueDepth(ModelPriority.STANDARD));
+        running.dispose();
+        assertEquals(0, scheduler.getRunning());
+        assertEquals("完成", scheduler.call(ModelPriority.BATCH, () -> "完成"));
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    @DisplayName("callAs - 同步调用链中的操作按指定优先级调度，结束后恢复按配置")
+    void callAs_OverridesConfiguredPriorityOnCurrentThread() {
+        // Arrange
+        ModelCallScheduler scheduler = new ModelCallScheduler(properties(1, 0), new SimpleMeterRegistry());
+
+        // Act
+        ModelPriority inside = scheduler.callAs(ModelPriority.INTERACTIVE, () -> scheduler.priorityOf("summarize"));
+        ModelPriority nested = scheduler.callAs(ModelPriority.INTERACTIVE,
+                () -> scheduler.callAs(ModelPriority.BATCH, () -> scheduler.priorityOf("chat")));
+
+        // Assert
+        assertEquals(ModelPriority.INTERACTIVE, inside);
+        assertEquals(ModelPriority.BATCH, nested);
+        assertEquals(ModelPriority.BATCH, scheduler.priorityOf("summarize"));
+        assertEquals(ModelPriority.STANDARD, scheduler.priorityOf("chat"));
+    }
+
+    private static ModelSchedulerProperties properties(int maxConcurrency, int reserved) {
+        ModelSchedulerProperties properties = new ModelSchedulerProperties();
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.setReservedInteractiveSlots(reserved);
+        return properties;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ModelConcurrencyLimiter / AdaptiveBulkhead 单元测试
+ */
+class ModelConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("隔离舱已满时立即拒绝，不影响其他隔离舱，流结束后释放许可")
+    void stream_BulkheadFull_RejectsFastAndIsolatesOthers() {
+        // Arrange
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setBulkheads(Map.of(
+                "long-summary", new ConcurrencyLimitProperties.Bulkhead(List.of("summarize-map-reduce"), 1, 1, 1),
+                "interactive", new ConcurrencyLimitProperties.Bulkhead(List.of("chat"), 4, 1, 4)));
+        ModelConcurrencyLimiter limiter = new ModelConcurrencyLimiter(properties);
+
+        // Act - 一个进行中的分段总结占满隔离舱
+        Disposable running = limiter.stream("summarize-map-reduce", Flux::never).subscribe();
+
+        // Assert
+        ModelOverloadedException e = assertThrows(ModelOverloadedException.class,
+                () -> limiter.stream("summarize-map-reduce", () -> Flux.just("摘要")).blockLast());
+        assertEquals("long-summary", e.getBulkhead());
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals("回答", limiter.call("chat", () -> "回答"));
+        // 未列入隔离舱的操作不受限制
+        assertEquals("分段", limiter.call("summarize-map", () -> "分段"));
+
+        running.dispose();
+        assertEquals("摘要", limiter.stream("summarize-map-reduce", () -> Flux.just("摘要")).blockLast());
+    }
+
+    @Test
+    @DisplayName("同步调用失败时释放许可；关闭并发限制后不再拒绝")
+    void call_ReleasesPermitOnErrorAndCanBeDisabled() {
+        // Arrange
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setBulkheads(Map.of(
+                "optimize", new ConcurrencyLimitProperties.Bulkhead(List.of("prompt-optimize"), 1, 1, 1)));
+        ModelConcurrencyLimiter limiter = new ModelConcurrencyLimiter(properties);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> limiter.call("prompt-optimize", () -> {
+            throw new IllegalStateException("上游超时");
+        }));
+        assertEquals("ok", limiter.call("prompt-optimize", () -> "ok"));
+
+        properties.setEnabled(false);
+        ModelConcurrencyLimiter disabled = new ModelConcurrencyLimiter(properties);
+        Disposable running = disabled.stream("prompt-optimize", Flux::never).subscribe();
+        assertEquals("ok", disabled.call("prompt-optimize", () -> "ok"));
+        running.dispose();
+    }
+
+    @Test
+    @DisplayName("调用内部被本地限流拒绝时只释放许可，不收缩上限")
+    void localRejection_ReleasesPermitWithoutShrinkingLimit() {
+        // Arrange
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setBulkheads(Map.of(
+                "analysis", new ConcurrencyLimitProperties.Bulkhead(List.of("summarize"), 4, 1, 8)));
+        ModelConcurrencyLimiter limiter = new ModelConcurrencyLimiter(properties);
+        AdaptiveBulkhead bulkhead = limiter.getBulkheads().iterator().next();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertThrows(ModelOverloadedException.class, () -> limiter.call("summarize", () -> {
+                throw new ModelOverloadedException("batch 队列", 1);
+            }));
+            StepVerifier.create(limiter.stream("summarize",
+                            () -> Flux.error(new ModelOverloadedException("batch 队列", 1))))
+                    .expectError(ModelOverloadedException.class)
+                    .verify();
+        }
+
+        // Assert
+        assertEquals(4, bulkhead.getLimit());
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    @DisplayName("自适应上限 - 延迟稳定时增长到上限，延迟飙升或调用失败时收缩")
+    void adaptiveBulkhead_AdjustsLimitByLatency() {
+        // Arrange
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("analysis", 4, 1, 8, 2.0, 0.2);
+        long fast = TimeUnit.MILLISECONDS.toNanos(100);
+        long slow = TimeUnit.SECONDS.toNanos(1);
+
+        // Act - 并发用满、延迟稳定
+        for (int round = 0; round < 50; round++) {
+            saturate(bulkhead, fast);
+        }
+
+        // Assert
+        assertEquals(8, bulkhead.getLimit());
+
+        // Act - 上游开始排队，延迟变为 10 倍
+        saturate(bulkhead, slow);
+        int afterSlow = bulkhead.getLimit();
+
+        // Assert
+        assertTrue(afterSlow < 8, "延迟飙升后上限应收缩: " + afterSlow);
+
+        // Act - 连续失败（限流、超时）
+        for (int i = 0; i < 30; i++) {
+            assertTrue(bulkhead.tryAcquire());
+            bulkhead.onDropped();
+        }
+
+        // Assert
+        assertEquals(1, bulkhead.getLimit());
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    /**
+     * 占满当前上限后逐个以给定延迟完成
+     */
+    private static void saturate(AdaptiveBulkhead bulkhead, long rttNanos) {
+        int acquired = 0;
+        while (bulkhead.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            bulkhead.onSuccess(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.videoagent.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ModelMetrics 单元测试
+ */
+class ModelMetricsTest {
+
+    private static final ModelMetrics.ModelCall CALL = new ModelMetrics.ModelCall("summarize", "v1", "SUMMARIZE");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ModelMetrics metrics = new ModelMetrics(registry, "qwen-plus");
+
+    @Test
+    @DisplayName("同步调用 - 记录耗时和响应元数据中的 token 用量")
+    void call_RecordsLatencyAndTokens() {
+        // Act
+        String content = metrics.call(CALL, () -> response("总结内容", 1200, 300));
+
+        // Assert
+        assertEquals("总结内容", content);
+        assertEquals(1, registry.get("videoagent.model.latency")
+                .tags("prompt", "summarize", "version", "v1", "intent", "SUMMARIZE", "model", "qwen-plus",
+                        "outcome", "success")
+                .timer().count());
+        assertEquals(1200, registry.get("videoagent.model.tokens").tag("type", "input").counter().count());
+        assertEquals(300, registry.get("videoagent.model.tokens").tag("type", "output").counter().count());
+    }
+
+    @Test
+    @DisplayName("流式调用 - 记录首 token 延迟、分块间隔，用量以最后一个分块为准")
+    void stream_RecordsTtftAndChunkGaps() {
+        // Arrange
+        Flux<ChatResponse> chunks = Flux.just(
+                ChatResponses.of("第一段"), ChatResponses.of(""), response("第二段", 1200, 80));
+
+        // Act & Assert
+        StepVerifier.create(metrics.stream(CALL, () -> chunks))
+                .expectNext("第一段", "第二段")
+                .verifyComplete();
+
+        assertEquals(1, registry.get("videoagent.model.ttft").timer().count());
+        assertEquals(2, registry.get("videoagent.model.chunk.gap").timer().count());
+        assertEquals(80, registry.get("videoagent.model.tokens").tag("type", "output").counter().count());
+        assertEquals(1, registry.get("videoagent.model.latency").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("上下文缓存 - 从原始用量读取 cached_tokens，区分命中与未命中的输入 token")
+    void call_RecordsCachedInputTokens() {
+        // Arrange - 原始 JSON 形式与访问器形式各一次，另有一次不带缓存信息
+        Map<String, Object> json = Map.of("prompt_tokens_details", Map.of("cached_tokens", 900));
+        record Details(Integer cachedTokens) {}
+        record NativeUsage(Details promptTokensDetails) {}
+
+        // Act
+        metrics.call(CALL, () -> response("回答", new DefaultUsage(1000, 50, 1050, json)));
+        metrics.call(CALL, () -> response("回答", new DefaultUsage(1000, 50, 1050, new NativeUsage(new Details(600)))));
+        metrics.call(CALL, () -> response("回答", 1000, 50));
+
+        // Assert
+        assertEquals(1500, registry.get("videoagent.model.input.tokens").tag("cache", "hit").counter().count());
+        assertEquals(1500, registry.get("videoagent.model.input.tokens").tag("cache", "miss").counter().count());
+        assertEquals(3000, registry.get("videoagent.model.tokens").tag("type", "input").counter().count());
+    }
+
+    @Test
+    @DisplayName("调用失败 - 按异常类型计数并继续抛出")
+    void call_Error_CountedByType() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> metrics.call(CALL, () -> {
+                    throw new IllegalStateException("模型服务不可用");
+                }));
+        StepVerifier.create(metrics.stream(CALL, () -> Flux.error(new IllegalStateException("超时"))))
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(2, registry.get("videoagent.model.errors")
+                .tag("error", "IllegalStateException").counter().count());
+        assertEquals(2, registry.get("videoagent.model.latency").tag("outcome", "error").timer().count());
+    }
+
+    private static ChatResponse response(String text, int promptTokens, int completionTokens) {
+        return response(text, new DefaultUsage(promptTokens, completionTokens));
+    }
+
+    private static ChatResponse response(String text, DefaultUsage usage) {
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .usage(usage)
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+}
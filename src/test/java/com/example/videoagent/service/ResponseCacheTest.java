@@ -0,0 +1,179 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.ResponseCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCache 单元测试
+ */
+class ResponseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ResponseCache newCache(Path log) {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setDiskPath(log != null ? log.toString() : "");
+        return new ResponseCache(properties, "qwen-plus");
+    }
+
+    @Test
+    @DisplayName("getOrCompute - 命中后不再调用 loader")
+    void getOrCompute_SecondCall_Hits() {
+        ResponseCache cache = newCache(null);
+        AtomicInteger calls = new AtomicInteger();
+        String key = cache.key("abc", "summarize", "v1");
+
+        cache.getOrCompute(key, () -> "总结-" + calls.incrementAndGet());
+        String result = cache.getOrCompute(key, () -> "总结-" + calls.incrementAndGet());
+
+        assertEquals("总结-1", result);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("key - 版本和模型不同视为不同条目")
+    void key_IncludesVersionAndModel() {
+        ResponseCache cache = newCache(null);
+        cache.put(cache.key("abc", "summarize", "v1"), "v1 结果");
+
+        assertNull(cache.get(cache.key("abc", "summarize", "v2")));
+        assertNotEquals(cache.key("abc", "summarize", "v1"),
+                new ResponseCache(new ResponseCacheProperties(), "qwen-max").key("abc", "summarize", "v1"));
+    }
+
+    @Test
+    @DisplayName("key - 采样参数不同视为不同条目")
+    void key_IncludesSamplingOptions() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        ResponseCache cold = new ResponseCache(properties, "qwen-plus", "0.2", "", "2048");
+        ResponseCache warm = new ResponseCache(properties, "qwen-plus", "0.9", "", "2048");
+        ResponseCache longer = new ResponseCache(properties, "qwen-plus", "0.2", "", "8192");
+
+        assertNotEquals(cold.key("abc", "summarize", "v1"), warm.key("abc", "summarize", "v1"));
+        assertNotEquals(cold.key("abc", "summarize", "v1"), longer.key("abc", "summarize", "v1"));
+        assertEquals(cold.key("abc", "summarize", "v1"),
+                new ResponseCache(properties, "qwen-plus", "0.2", "", "2048").key("abc", "summarize", "v1"));
+    }
+
+    @Test
+    @DisplayName("磁盘层 - 重启后仍然命中")
+    void diskTier_SurvivesRestart() {
+        Path log = tempDir.resolve("cache/response-cache.log");
+        ResponseCache first = newCache(log);
+        first.put(first.key("abc", "extract-quotes", "v1"), "[{\"quote\": \"金句\"}]");
+        first.close();
+
+        ResponseCache second = newCache(log);
+        String result = second.get(second.key("abc", "extract-quotes", "v1"));
+
+        assertEquals("[{\"quote\": \"金句\"}]", result);
+        assertEquals(1, second.getDiskHits());
+        second.close();
+    }
+
+    @Test
+    @DisplayName("磁盘层 - 末尾不完整记录被截断，之前的记录仍可用")
+    void diskTier_TruncatesTornTail() throws Exception {
+        Path log = tempDir.resolve("response-cache.log");
+        ResponseCache first = newCache(log);
+        first.put(first.key("abc", "summarize", "v1"), "完整记录");
+        first.close();
+        Path segment = tempDir.resolve("response-cache.log.1");
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 10, 0, 0}, StandardOpenOption.APPEND);
+
+        ResponseCache second = newCache(log);
+
+        assertEquals("完整记录", second.get(second.key("abc", "summarize", "v1")));
+        assertEquals(validSize, Files.size(segment));
+        second.close();
+    }
+
+    @Test
+    @DisplayName("磁盘层 - 超出大小上限时删除最旧的段，重复写入同一 key 只追加一次")
+    void diskTier_EvictsOldestSegmentWhenOverLimit() {
+        // Arrange - 上限 1MB，每段 256KB
+        Path log = tempDir.resolve("response-cache.log");
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setDiskPath(log.toString());
+        properties.setDiskMaxMb(1);
+        ResponseCache cache = new ResponseCache(properties, "qwen-plus");
+        String value = "x".repeat(100 * 1024);
+
+        // Act
+        cache.put(cache.key("first", "summarize", "v1"), value);
+        long afterFirst = cache.getDiskBytes();
+        cache.put(cache.key("first", "summarize", "v1"), value);
+        long afterDuplicate = cache.getDiskBytes();
+        for (int i = 0; i < 20; i++) {
+            cache.put(cache.key("video-" + i, "summarize", "v1"), value);
+        }
+        cache.invalidateMemory();
+
+        // Assert
+        assertEquals(afterFirst, afterDuplicate);
+        assertTrue(cache.getDiskBytes() <= 1024 * 1024, "磁盘层大小: " + cache.getDiskBytes());
+        assertNull(cache.get(cache.key("first", "summarize", "v1")));
+        assertEquals(value, cache.get(cache.key("video-19", "summarize", "v1")));
+        assertFalse(Files.exists(tempDir.resolve("response-cache.log.1")));
+        cache.close();
+
+        ResponseCache reopened = new ResponseCache(properties, "qwen-plus");
+        assertEquals(value, reopened.get(reopened.key("video-19", "summarize", "v1")));
+        assertTrue(reopened.getDiskBytes() <= 1024 * 1024);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("磁盘层 - 请求线程被中断时写入与读取不影响后续请求")
+    void diskTier_SurvivesInterruptedCaller() {
+        // Arrange
+        Path log = tempDir.resolve("response-cache.log");
+        ResponseCache cache = newCache(log);
+
+        // Act - 在已中断的线程上写入和读取
+        String readWhileInterrupted;
+        Thread.currentThread().interrupt();
+        try {
+            cache.put(cache.key("interrupted", "summarize", "v1"), "中断时写入");
+            cache.invalidateMemory();
+            readWhileInterrupted = cache.get(cache.key("interrupted", "summarize", "v1"));
+        } finally {
+            Thread.interrupted();
+        }
+        cache.put(cache.key("later", "summarize", "v1"), "之后写入");
+        cache.invalidateMemory();
+
+        // Assert
+        assertEquals("中断时写入", readWhileInterrupted);
+        assertEquals("中断时写入", cache.get(cache.key("interrupted", "summarize", "v1")));
+        assertEquals("之后写入", cache.get(cache.key("later", "summarize", "v1")));
+        assertEquals(3, cache.getDiskHits());
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("禁用时不缓存")
+    void disabled_NeverCaches() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(false);
+        ResponseCache cache = new ResponseCache(properties, "qwen-plus");
+        String key = cache.key("abc", "summarize", "v1");
+
+        cache.put(key, "结果");
+
+        assertNull(cache.get(key));
+    }
+}
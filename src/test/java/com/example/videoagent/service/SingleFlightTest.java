@@ -0,0 +1,174 @@
+package com.example.videoagent.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlight 单元测试
+ */
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("call - 并发的相同请求只执行一次上游调用")
+    void call_ConcurrentSameKey_ExecutesOnce() throws Exception {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.call("summarize|v1|abc", () -> {
+                upstreamCalls.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "总结";
+            })));
+        }
+        // 等待其余调用方加入后再放行上游调用
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getCoalescedCount() < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("总结", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(7, singleFlight.getCoalescedCount());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("call - 调用结束后不再合并，上游异常传递给调用方")
+    void call_AfterCompletion_CallsAgain() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        singleFlight.call("k", () -> "r" + upstreamCalls.incrementAndGet());
+        String second = singleFlight.call("k", () -> "r" + upstreamCalls.incrementAndGet());
+
+        assertEquals("r2", second);
+        assertThrows(IllegalStateException.class,
+                () -> singleFlight.call("k", () -> { throw new IllegalStateException("boom"); }));
+    }
+
+    @Test
+    @DisplayName("call - 上游抛出 Error 时等待方同样收到 Error，key 被移除")
+    void call_UpstreamError_ReleasesWaitersAndKey() throws Exception {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> leader = executor.submit(() -> singleFlight.call("k", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new AssertionError("boom");
+        }));
+        Thread.sleep(50);
+        Future<String> waiter = executor.submit(() -> singleFlight.call("k", () -> "不应执行"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getCoalescedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // Act
+        release.countDown();
+
+        // Assert
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception waiterFailure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, leaderFailure.getCause());
+        assertInstanceOf(AssertionError.class, waiterFailure.getCause());
+        assertEquals("r", singleFlight.call("k", () -> "r"));
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("stream - 后加入的订阅者先回放已输出分片，再接收后续分片")
+    void stream_LateJoiner_ReplaysThenReceivesTail() {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight();
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flux<String> first = singleFlight.stream("chat|v1|abc",
+                () -> upstream.asFlux().doOnSubscribe(s -> subscriptions.incrementAndGet()));
+
+        List<String> firstChunks = new ArrayList<>();
+        first.subscribe(firstChunks::add);
+        upstream.tryEmitNext("你好");
+        upstream.tryEmitNext("，");
+
+        // Act - 第二个请求在流进行中加入
+        Flux<String> late = singleFlight.stream("chat|v1|abc", () -> Flux.error(new AssertionError("不应再次调用")));
+
+        // Assert
+        StepVerifier.create(late)
+                .expectNext("你好", "，")
+                .then(() -> {
+                    upstream.tryEmitNext("世界");
+                    upstream.tryEmitComplete();
+                })
+                .expectNext("世界")
+                .verifyComplete();
+        assertEquals(List.of("你好", "，", "世界"), firstChunks);
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("stream - 回放缓冲有界：慢订阅者限制上游请求量，输出超过缓冲后相同请求不再加入")
+    void stream_BoundedReplay_BackpressuresAndStopsJoining() {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight(4);
+        AtomicLong requested = new AtomicLong();
+        Flux<String> upstream = Flux.range(0, 100).map(String::valueOf)
+                .doOnRequest(n -> requested.addAndGet(Math.min(n, 1000)));
+        BaseSubscriber<String> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                subscription.request(1);
+            }
+        };
+
+        // Act
+        singleFlight.stream("chat|v1|abc", () -> upstream).subscribe(slow);
+        AtomicInteger secondUpstream = new AtomicInteger();
+        List<String> second = singleFlight.stream("chat|v1|abc",
+                () -> Flux.just("独立").doOnSubscribe(s -> secondUpstream.incrementAndGet())).collectList().block();
+
+        // Assert - 上游只按缓冲容量请求；缓冲已满后新请求独立调用，不会拿到残缺的回放
+        assertTrue(requested.get() <= 4, "上游请求量: " + requested.get());
+        assertEquals(List.of("独立"), second);
+        assertEquals(1, secondUpstream.get());
+        assertEquals(0, singleFlight.getCoalescedCount());
+        slow.dispose();
+    }
+}
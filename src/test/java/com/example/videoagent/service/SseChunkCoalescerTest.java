@@ -0,0 +1,104 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.StreamProperties;
+import com.example.videoagent.config.StreamProperties.SlowClientPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SseChunkCoalescer 单元测试
+ */
+class SseChunkCoalescerTest {
+
+    @Test
+    @DisplayName("coalesce - 窗口内的分块合并为一帧，窗口到期后输出")
+    void coalesce_MergesChunksWithinWindow() {
+        // Arrange
+        StreamProperties properties = new StreamProperties();
+        properties.setCoalesceWindowMillis(30);
+        SseChunkCoalescer coalescer = new SseChunkCoalescer(properties);
+
+        // Act & Assert：前三块间隔 5ms 落在同一窗口，第四块在 100ms 后单独成帧
+        StepVerifier.withVirtualTime(() -> coalescer.coalesce(Flux.concat(
+                        Flux.just("提示", "工程", "是").delayElements(Duration.ofMillis(5)),
+                        Flux.just("技术").delaySequence(Duration.ofMillis(100)))))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("提示工程是")
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("技术")
+                .verifyComplete();
+        assertEquals(4, coalescer.getChunks());
+        assertEquals(2, coalescer.getFrames());
+    }
+
+    @Test
+    @DisplayName("coalesce - 分块数达到上限时不等窗口到期立即输出")
+    void coalesce_FlushesWhenFrameIsFull() {
+        // Arrange
+        StreamProperties properties = new StreamProperties();
+        properties.setCoalesceWindowMillis(1000);
+        properties.setMaxChunksPerFrame(2);
+        SseChunkCoalescer coalescer = new SseChunkCoalescer(properties);
+
+        // Act & Assert
+        StepVerifier.create(coalescer.coalesce(Flux.just("a", "b", "c", "d", "e")))
+                .expectNext("ab", "cd", "e")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("coalesce - DROP_CLIENT 积压超过上限时以错误结束")
+    void coalesce_DropClient_ErrorsWhenBacklogExceeded() {
+        // Arrange
+        StreamProperties properties = new StreamProperties();
+        properties.setCoalesceWindowMillis(0);
+        properties.setMaxPendingFrames(2);
+        properties.setSlowClientPolicy(SlowClientPolicy.DROP_CLIENT);
+        SseChunkCoalescer coalescer = new SseChunkCoalescer(properties);
+
+        Sinks.Many<String> model = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new ArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        BaseSubscriber<String> client = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(String frame) {
+                received.add(frame);
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                error.set(throwable);
+            }
+        };
+
+        // Act：客户端只取走一帧，模型继续输出
+        coalescer.coalesce(model.asFlux()).subscribe(client);
+        for (int i = 0; i < 10; i++) {
+            model.tryEmitNext(String.valueOf(i));
+        }
+
+        // Assert：积压满后立即取消模型调用，已积压的帧写完再收到错误
+        assertEquals(List.of("0"), received);
+        assertEquals(0, model.currentSubscriberCount());
+        client.request(Long.MAX_VALUE);
+        assertEquals("客户端接收过慢，连接已断开", error.get().getMessage());
+        assertEquals(1, coalescer.getDroppedStreams());
+    }
+}
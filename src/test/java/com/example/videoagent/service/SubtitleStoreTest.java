@@ -0,0 +1,147 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.subtitle.SubtitleSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SubtitleStore 单元测试
+ */
+class SubtitleStoreTest {
+
+    private static final String SAMPLE_SUBTITLE = "[00:00:05] 测试字幕内容";
+
+    private SubtitleStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new SubtitleStore(new SubtitleStoreProperties());
+    }
+
+    @Test
+    @DisplayName("save - 返回内容寻址 ID，相同内容得到相同会话")
+    void save_SameContent_ReturnsSameSession() {
+        SubtitleSession first = store.save(SAMPLE_SUBTITLE);
+        SubtitleSession second = store.save(SAMPLE_SUBTITLE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(64, first.getId().length());
+        assertEquals(first.getId(), second.getId());
+        assertSame(first, second);
+        assertEquals(SAMPLE_SUBTITLE, first.getContent());
+    }
+
+    @Test
+    @DisplayName("save - 不同内容得到不同 ID")
+    void save_DifferentContent_ReturnsDifferentIds() {
+        SubtitleSession first = store.save(SAMPLE_SUBTITLE);
+        SubtitleSession second = store.save(SAMPLE_SUBTITLE + "！");
+
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    @DisplayName("get - 按 ID 取回已保存的字幕")
+    void get_ExistingId_ReturnsSession() {
+        SubtitleSession saved = store.save(SAMPLE_SUBTITLE);
+
+        assertSame(saved, store.get(saved.getId()));
+        assertTrue(store.contains(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("get - 未知 ID 抛出 IllegalArgumentException")
+    void get_UnknownId_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> store.get("unknown"));
+        assertFalse(store.contains("unknown"));
+    }
+
+    @Test
+    @DisplayName("容量超限时按大小淘汰字幕")
+    void save_OverCapacity_EvictsSessions() {
+        SubtitleStoreProperties properties = new SubtitleStoreProperties();
+        properties.setMaxSizeMb(1);
+        SubtitleStore smallStore = new SubtitleStore(properties);
+
+        // 每份约 0.8 MB（UTF-16 估算），两份无法同时驻留
+        String first = "字".repeat(400_000);
+        String second = "幕".repeat(400_000);
+        String firstId = smallStore.save(first).getId();
+        String secondId = smallStore.save(second).getId();
+        smallStore.cleanUp();
+
+        assertTrue(smallStore.contains(secondId) ^ smallStore.contains(firstId));
+    }
+
+    @Test
+    @DisplayName("save - 单份字幕超过存储容量时拒绝保存，上传流读到超出处即停止")
+    void save_LargerThanCapacity_Rejects() {
+        // Arrange
+        SubtitleStoreProperties properties = new SubtitleStoreProperties();
+        properties.setMaxSizeMb(1);
+        SubtitleStore smallStore = new SubtitleStore(properties);
+        String kept = smallStore.save(SAMPLE_SUBTITLE).getId();
+        String oversized = "字".repeat(600_000);
+        byte[] upload = "a".repeat(8 * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(upload);
+
+        // Act & Assert
+        SubtitleTooLargeException e = assertThrows(SubtitleTooLargeException.class, () -> smallStore.save(oversized));
+        assertTrue(e.getRequiredBytes() > e.getCapacityBytes());
+        assertThrows(SubtitleTooLargeException.class, () -> smallStore.save(in));
+        assertTrue(in.available() > 0, "超出容量后应停止读取");
+        smallStore.cleanUp();
+        assertTrue(smallStore.contains(kept));
+    }
+
+    @Test
+    @DisplayName("save(InputStream) - 探测 GBK / UTF-16 / 带 BOM 的 UTF-8，解码后内容相同则得到同一会话")
+    void saveStream_DetectsCharset() throws Exception {
+        // Arrange
+        String srt = "1\n00:00:01,000 --> 00:00:03,000\n大家好，欢迎来到课程\n\n2\n00:00:04,000 --> 00:00:06,000\n今天讲注意力机制\n";
+        SubtitleSession utf8 = store.save(srt);
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] utf8Bytes = srt.getBytes(StandardCharsets.UTF_8);
+        byte[] utf8WithBom = new byte[bom.length + utf8Bytes.length];
+        System.arraycopy(bom, 0, utf8WithBom, 0, bom.length);
+        System.arraycopy(utf8Bytes, 0, utf8WithBom, bom.length, utf8Bytes.length);
+
+        // Act
+        List<SubtitleSession> uploads = List.of(
+                store.save(new ByteArrayInputStream(srt.getBytes(Charset.forName("GBK")))),
+                store.save(new ByteArrayInputStream(srt.getBytes(StandardCharsets.UTF_16))),
+                store.save(new ByteArrayInputStream(srt.getBytes(StandardCharsets.UTF_16LE))),
+                store.save(new ByteArrayInputStream(utf8WithBom)));
+
+        // Assert
+        for (SubtitleSession upload : uploads) {
+            assertSame(utf8, upload);
+        }
+        assertEquals(2, utf8.getCues().size());
+        assertEquals(utf8Bytes.length, utf8.getByteSize());
+    }
+
+    @Test
+    @DisplayName("save(InputStream) - 编码探测窗口之后的中文与跨分段的代理对正确解码")
+    void saveStream_LargeFile_DecodesBeyondSniffWindow() throws Exception {
+        // Arrange - 开头 100 KB 纯 ASCII，中文与 emoji 出现在探测窗口之后
+        String srt = "1\n00:00:01,000 --> 00:00:03,000\n" + "a".repeat(100 * 1024)
+                + "\n\n2\n00:00:04,000 --> 00:00:06,000\n注意力机制 \uD83D\uDE00\n";
+
+        // Act
+        SubtitleSession session = store.save(new ByteArrayInputStream(srt.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(srt, session.getContent());
+        assertSame(session, store.save(srt));
+        assertEquals(srt.getBytes(StandardCharsets.UTF_8).length, session.getByteSize());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.videoagent.service;
+
+import com.example.videoagent.config.TokenBudgetProperties;
+import com.example.videoagent.dto.TokenEstimate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBudget 单元测试
+ */
+class TokenBudgetTest {
+
+    @Test
+    @DisplayName("estimate - 汉字、英文单词、数字按各自权重估算并应用校准系数")
+    void estimate_WeightsCharacterClassesAndCalibrates() {
+        // Arrange
+        TokenBudgetProperties properties = new TokenBudgetProperties();
+        TokenBudget budget = new TokenBudget(properties);
+
+        // Act & Assert：10 个汉字 7 token；8 个字母 2 token；4 位数字 4 token
+        assertEquals(7, budget.estimate("提示工程核心在于沟通"));
+        assertEquals(2, budget.estimate("Transfor"));
+        assertEquals(4, budget.estimate("2024"));
+
+        properties.setCalibration(1.5);
+        assertEquals(6, budget.estimate("2024"));
+    }
+
+    @Test
+    @DisplayName("admit - 超过上下文窗口减去预留输出时拒绝")
+    void admit_RejectsPromptBeyondWindow() {
+        // Arrange
+        TokenBudgetProperties properties = new TokenBudgetProperties();
+        properties.setContextWindowTokens(100);
+        properties.setMaxOutputTokens(30);
+        TokenBudget budget = new TokenBudget(properties);
+
+        // Act & Assert：100 个汉字 70 token 恰好放得下，再多一个字即超出
+        assertDoesNotThrow(() -> budget.admit("chat", "字".repeat(100)));
+        assertThrows(IllegalArgumentException.class, () -> budget.admit("chat", "字".repeat(101)));
+        assertEquals(1, budget.getAdmitted());
+        assertEquals(1, budget.getRejected());
+
+        properties.setEnabled(false);
+        assertDoesNotThrow(() -> budget.admit("chat", "字".repeat(1000)));
+    }
+
+    @Test
+    @DisplayName("estimate - 分段总结额外计入一次合并调用的输入与输出上限")
+    void estimate_MapReduceAddsReduceCall() {
+        // Arrange
+        TokenBudgetProperties properties = new TokenBudgetProperties();
+        properties.setMaxOutputTokens(1000);
+        properties.setInputPricePerMillion(1.0);
+        properties.setOutputPricePerMillion(2.0);
+        TokenBudget budget = new TokenBudget(properties);
+        String part = "字".repeat(10_000);
+
+        // Act
+        TokenEstimate estimate = budget.estimate(List.of(part, part), true);
+
+        // Assert：输入 2 × 7000；合并调用输入上限 2 × 1000；输出上限 3 × 1000
+        assertEquals(14_000, estimate.getPromptTokens());
+        assertEquals(3, estimate.getModelCalls());
+        assertEquals(3000, estimate.getMaxOutputTokens());
+        assertEquals(0.014, estimate.getInputCost(), 1e-9);
+        assertEquals(0.014 + 0.002 + 0.006, estimate.getMaxCost(), 1e-9);
+        assertTrue(estimate.isMapReduce());
+    }
+}
@@ -1,16 +1,38 @@
 package com.example.videoagent.service;
 
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.config.PromptCacheProperties;
+import com.example.videoagent.config.PromptConstants;
+import com.example.videoagent.config.ResponseCacheProperties;
+import com.example.videoagent.config.RetrievalProperties;
+import com.example.videoagent.config.SearchProperties;
+import com.example.videoagent.config.SpeculationProperties;
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.config.SummarizeProperties;
+import com.example.videoagent.config.TokenBudgetProperties;
 import com.example.videoagent.dto.IntentResult;
+import com.example.videoagent.dto.TokenEstimate;
+import com.example.videoagent.dto.VideoAnalysis;
 import com.example.videoagent.enums.UserIntent;
+import com.example.videoagent.subtitle.SubtitleSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +57,9 @@ class VideoServiceImplTest {
     @Mock
     private ChatClient.CallResponseSpec mockResponseSpec;
 
+    @Mock
+    private ChatClient.StreamResponseSpec mockStreamResponseSpec;
+
     @Mock
     private ChatClient.Builder mockBuilder;
 
@@ -46,14 +71,44 @@ class VideoServiceImplTest {
 
     private VideoServiceImpl videoService;
 
+    private SpeculationProperties speculationProperties;
+
+    private SearchProperties searchProperties;
+
+    private SummarizeProperties summarizeProperties;
+    private RetrievalProperties retrievalProperties;
+
+    private TokenBudgetProperties tokenBudgetProperties;
+
+    private SubtitleStore subtitleStore;
+
     private static final String SAMPLE_SUBTITLE = "[00:00:05] 测试字幕内容";
+    // 无时间戳的纯文本字幕，关键词搜索回退到模型
+    private static final String PLAIN_SUBTITLE = "测试字幕内容";
+    private static final String SEARCH_SUBTITLE = """
+            [00:01:00] 今天我们来聊聊 Transformer 架构
+            [00:05:30] 自注意力机制是核心
+            [00:10:00] 相比 RNN，transformer 可以并行计算
+            """;
     private static final String RENDERED_PROMPT = "渲染后的 Prompt 内容";
 
     @BeforeEach
     void setUp() {
         when(mockBuilder.defaultSystem(any(String.class))).thenReturn(mockBuilder);
         when(mockBuilder.build()).thenReturn(mockChatClient);
-        videoService = new VideoServiceImpl(mockBuilder, mockIntentService, mockPromptTemplateService);
+        searchProperties = new SearchProperties();
+        summarizeProperties = new SummarizeProperties();
+        retrievalProperties = new RetrievalProperties();
+        speculationProperties = new SpeculationProperties();
+        tokenBudgetProperties = new TokenBudgetProperties();
+        subtitleStore = new SubtitleStore(new SubtitleStoreProperties());
+        videoService = new VideoServiceImpl(mockBuilder, mockIntentService, mockPromptTemplateService,
+                subtitleStore, searchProperties, summarizeProperties,
+                retrievalProperties, new PromptCacheProperties(), new ResponseCache(new ResponseCacheProperties(), "qwen-plus"), speculationProperties,
+                new TokenBudget(tokenBudgetProperties),
+                new ModelConcurrencyLimiter(new ConcurrencyLimitProperties()),
+                new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry()),
+                new ModelMetrics(new SimpleMeterRegistry(), "qwen-plus"), Schedulers.boundedElastic());
     }
 
     // ==================== smartAsk 路由测试 ====================
@@ -71,7 +126,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
@@ -95,7 +150,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
@@ -117,7 +172,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
@@ -139,7 +194,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
@@ -161,15 +216,92 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
+        String result = videoService.smartAsk(PLAIN_SUBTITLE, question);
 
         // Assert
         assertEquals(expectedAnswer, result);
     }
 
+    @Test
+    @DisplayName("smartAsk - 推测执行命中：分类为 QA 时复用并行生成的回答")
+    void smartAsk_Speculation_HitReusesAnswer() {
+        // Arrange
+        speculationProperties.setEnabled(true);
+        String question = "这个方法的复杂度是多少";
+        when(mockIntentService.classifyIntentWithCache(question)).thenReturn(new IntentResult(UserIntent.QA, 0.9));
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.just("QA ", "回答")));
+
+        // Act
+        String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
+
+        // Assert - 只调用一次模型
+        assertEquals("QA 回答", result);
+        verify(mockChatClient, times(1)).prompt();
+        assertEquals(1, videoService.getSpeculationStats().getHits());
+        assertEquals(0, videoService.getSpeculationStats().getMisses());
+    }
+
+    @Test
+    @DisplayName("smartAsk - 推测执行未命中：取消推测的 QA 生成，按实际意图重新路由")
+    void smartAsk_Speculation_MissReroutes() {
+        // Arrange
+        speculationProperties.setEnabled(true);
+        String question = "帮我整体梳理一下";
+        AtomicBoolean qaCancelled = new AtomicBoolean();
+        ChatClient.ChatClientRequestSpec summarySpec = mock(ChatClient.ChatClientRequestSpec.class);
+        ChatClient.StreamResponseSpec summaryStream = mock(ChatClient.StreamResponseSpec.class);
+        when(mockIntentService.classifyIntentWithCache(question)).thenReturn(new IntentResult(UserIntent.SUMMARIZE, 0.9));
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn("QA Prompt");
+        when(mockPromptTemplateService.render(eq("summarize"), any(), anyMap())).thenReturn("总结 Prompt");
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user("QA Prompt")).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(
+                ChatResponses.of(Flux.<String>never().doOnCancel(() -> qaCancelled.set(true))));
+        when(mockRequestSpec.user("总结 Prompt")).thenReturn(summarySpec);
+        when(summarySpec.stream()).thenReturn(summaryStream);
+        when(summaryStream.chatResponse()).thenReturn(ChatResponses.of(Flux.just("总结", "回答")));
+
+        // Act
+        String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
+
+        // Assert
+        assertEquals("总结回答", result);
+        assertTrue(qaCancelled.get());
+        assertEquals(0, videoService.getSpeculationStats().getHits());
+        assertEquals(1, videoService.getSpeculationStats().getMisses());
+    }
+
+    @Test
+    @DisplayName("smartAsk - 本地已能判断意图时不推测")
+    void smartAsk_Speculation_SkippedForLocalIntent() {
+        // Arrange
+        speculationProperties.setEnabled(true);
+        String question = "总结一下";
+        when(mockIntentService.classifyLocally(question)).thenReturn(new IntentResult(UserIntent.SUMMARIZE, 0.9));
+        when(mockPromptTemplateService.render(eq("summarize"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("总结回答"));
+
+        // Act
+        String result = videoService.smartAsk(SAMPLE_SUBTITLE, question);
+
+        // Assert
+        assertEquals("总结回答", result);
+        verify(mockIntentService, never()).classifyIntentWithCache(any());
+        verify(mockPromptTemplateService, never()).render(eq("chat"), any(), anyMap());
+        assertEquals(0, videoService.getSpeculationStats().getHits() + videoService.getSpeculationStats().getMisses());
+    }
+
     // ==================== extractKeywordFromQuestion 测试 ====================
 
     @Test
@@ -185,10 +317,10 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        videoService.smartAsk(SAMPLE_SUBTITLE, question);
+        videoService.smartAsk(PLAIN_SUBTITLE, question);
 
         // Assert - 验证 render 被调用时 keyword 参数为 "Transformer"
         verify(mockPromptTemplateService).render(
@@ -211,10 +343,10 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        videoService.smartAsk(SAMPLE_SUBTITLE, question);
+        videoService.smartAsk(PLAIN_SUBTITLE, question);
 
         // Assert
         verify(mockPromptTemplateService).render(
@@ -237,10 +369,10 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        videoService.smartAsk(SAMPLE_SUBTITLE, question);
+        videoService.smartAsk(PLAIN_SUBTITLE, question);
 
         // Assert
         verify(mockPromptTemplateService).render(
@@ -263,10 +395,10 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        videoService.smartAsk(SAMPLE_SUBTITLE, question);
+        videoService.smartAsk(PLAIN_SUBTITLE, question);
 
         // Assert - 关键词为空时使用原问题
         verify(mockPromptTemplateService).render(
@@ -288,7 +420,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.extractQuotes(SAMPLE_SUBTITLE);
@@ -302,11 +434,349 @@ class VideoServiceImplTest {
         );
     }
 
+    @Test
+    @DisplayName("summarize - 相同字幕和版本第二次命中响应缓存")
+    void summarize_SameSubtitle_HitsResponseCache() {
+        // Arrange
+        String expectedAnswer = "这是总结内容";
+        when(mockPromptTemplateService.resolveVersion("summarize", null)).thenReturn("v1");
+        when(mockPromptTemplateService.resolveVersion("summarize", "v2")).thenReturn("v2");
+        when(mockPromptTemplateService.render(eq("summarize"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
+
+        // Act
+        String first = videoService.summarize(SAMPLE_SUBTITLE);
+        String second = videoService.summarize(SAMPLE_SUBTITLE);
+        videoService.summarize(SAMPLE_SUBTITLE, "v2");
+
+        // Assert - 默认版本只调用一次模型，切换版本后重新调用
+        assertEquals(expectedAnswer, first);
+        assertEquals(expectedAnswer, second);
+        verify(mockChatClient, times(2)).prompt();
+    }
+
+    @Test
+    @DisplayName("analyzeAll - 一次调用拆分为三项结果，合并输出按自身版本缓存，不写入单项缓存")
+    void analyzeAll_CombinedOutput_SplitsAndCachesUnderOwnKey() {
+        // Arrange
+        SubtitleSession session = subtitleStore.save(SAMPLE_SUBTITLE);
+        String output = """
+                =====SUMMARY=====
+                ## 核心主题
+                测试
+                =====CONCEPTS=====
+                [{"timestampFrom": "00:00:05", "timestampTo": "00:00:05", "concept": "测试", "description": "说明"}]
+                =====QUOTES=====
+                []
+                """;
+        // analyze-all 的版本可切换；其余 Prompt 按默认行为解析为 null 版本
+        AtomicReference<String> analyzeAllVersion = new AtomicReference<>("v1");
+        lenient().when(mockPromptTemplateService.resolveVersion("analyze-all", null))
+                .thenAnswer(invocation -> analyzeAllVersion.get());
+        when(mockPromptTemplateService.render(eq("analyze-all"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockPromptTemplateService.render(eq("extract-concepts"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(output));
+
+        // Act
+        VideoAnalysis analysis = videoService.analyzeAll(session, null);
+        VideoAnalysis cached = videoService.analyzeAll(session, null);
+        verify(mockChatClient, times(1)).prompt();
+        analyzeAllVersion.set("v2");
+        videoService.analyzeAll(session, null);
+        verify(mockChatClient, times(2)).prompt();
+        videoService.extractConcepts(session, null);
+
+        // Assert - 重复分析命中合并缓存，analyze-all 升级版本后重新生成；单项接口不使用合并输出
+        assertEquals("## 核心主题\n测试", analysis.getSummary());
+        assertTrue(analysis.getConcepts().startsWith("[{") && analysis.getConcepts().endsWith("}]"));
+        assertEquals("[]", analysis.getQuotes());
+        assertEquals(analysis.getConcepts(), cached.getConcepts());
+        verify(mockChatClient, times(3)).prompt();
+        verify(mockPromptTemplateService, times(1)).render(eq("extract-concepts"), any(), anyMap());
+    }
+
+    @Test
+    @DisplayName("analyzeAll - 合并输出中无法解析的部分回退到单项调用")
+    void analyzeAll_UnparsableSection_FallsBackToSingleTask() {
+        // Arrange
+        SubtitleSession session = subtitleStore.save(SAMPLE_SUBTITLE);
+        String output = """
+                =====SUMMARY=====
+                总结内容
+                =====CONCEPTS=====
+                []
+                =====QUOTES=====
+                [{"timestamp": "00:00:05", "quote": "被截断
+                """;
+        String quotes = "[{\"timestamp\": \"00:00:05\", \"quote\": \"金句\", \"context\": \"说明\"}]";
+        when(mockPromptTemplateService.render(eq("analyze-all"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockPromptTemplateService.render(eq("extract-quotes"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(output), ChatResponses.of(quotes));
+
+        // Act
+        VideoAnalysis analysis = videoService.analyzeAll(session, null);
+
+        // Assert - 总结和知识点来自合并输出，只有金句单独调用
+        assertEquals("总结内容", analysis.getSummary());
+        assertEquals("[]", analysis.getConcepts());
+        assertEquals(quotes, analysis.getQuotes());
+        verify(mockChatClient, times(2)).prompt();
+        verify(mockPromptTemplateService, never()).render(eq("summarize"), any(), anyMap());
+    }
+
+    @Test
+    @DisplayName("analyzeAll - 单项缓存与回退调用使用请求的 Prompt 版本")
+    void analyzeAll_PromptVersion_UsedForSectionCacheAndFallbacks() {
+        // Arrange - 未指定版本时解析为 v1
+        SubtitleSession session = subtitleStore.save(SAMPLE_SUBTITLE);
+        String output = """
+                =====SUMMARY=====
+                v2 总结
+                =====CONCEPTS=====
+                []
+                =====QUOTES=====
+                [{"timestamp": "00:00:05", "quote": "被截断
+                """;
+        lenient().when(mockPromptTemplateService.resolveVersion(anyString(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1) != null ? invocation.getArgument(1) : "v1");
+        when(mockPromptTemplateService.render(anyString(), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(
+                ChatResponses.of("v1 总结"), ChatResponses.of("[]"), ChatResponses.of("[]"),
+                ChatResponses.of(output), ChatResponses.of("[]"));
+        videoService.summarize(session, "v1");
+        videoService.extractConcepts(session, "v1");
+        videoService.extractQuotes(session, "v1");
+
+        // Act
+        VideoAnalysis v1 = videoService.analyzeAll(session, "v1");
+        VideoAnalysis v2 = videoService.analyzeAll(session, "v2");
+
+        // Assert - v1 全部命中单项缓存；v2 不使用 v1 的结果，合并调用缺失的金句按 v2 单独生成
+        assertEquals("v1 总结", v1.getSummary());
+        assertEquals("v2 总结", v2.getSummary());
+        verify(mockChatClient, times(5)).prompt();
+        verify(mockPromptTemplateService, never()).render(eq("analyze-all"), eq("v1"), anyMap());
+        verify(mockPromptTemplateService).render(eq("analyze-all"), eq("v2"), anyMap());
+        verify(mockPromptTemplateService).render(eq("extract-quotes"), eq("v2"), anyMap());
+    }
+
+    @Test
+    @DisplayName("summarize - 超过阈值的长字幕分段总结后合并")
+    void summarize_LongSubtitle_UsesMapReduce() {
+        // Arrange - 30 条字幕，每个窗口约容纳 10 条
+        StringBuilder subtitle = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            subtitle.append("[00:").append(String.format("%02d", i)).append(":00] 第").append(i).append("段讲解内容\n");
+        }
+        // 整份字幕约 450 token 超过阈值，三段要点合计约 90 token 可以一次合并
+        summarizeProperties.setMapReduceThresholdTokens(200);
+        summarizeProperties.setWindowTokens(130);
+
+        when(mockPromptTemplateService.render(eq("summarize-map"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockPromptTemplateService.render(eq("summarize-reduce"), any(), anyMap())).thenReturn("合并 Prompt");
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("- [00:00:00] 要点"));
+
+        // Act
+        String result = videoService.summarize(subtitle.toString());
+
+        // Assert
+        assertEquals("- [00:00:00] 要点", result);
+        verify(mockPromptTemplateService, times(3)).render(eq("summarize-map"), any(), anyMap());
+        verify(mockPromptTemplateService).render(
+                eq("summarize-reduce"),
+                any(),
+                argThat(map -> map.get("summaries").toString().contains("### 00:00:00 - 00:10:00"))
+        );
+        verify(mockPromptTemplateService, never()).render(eq("summarize"), any(), anyMap());
+        verify(mockRequestSpec).user("合并 Prompt");
+    }
+
+    @Test
+    @DisplayName("summarize - 整份字幕放不进上下文窗口时改走分段总结")
+    void summarize_ExceedsContextWindow_UsesMapReduce() {
+        // Arrange - 阈值保持默认，上下文窗口只够放下单个分段
+        StringBuilder subtitle = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            subtitle.append("[00:").append(String.format("%02d", i)).append(":00] 第").append(i).append("段讲解内容\n");
+        }
+        tokenBudgetProperties.setContextWindowTokens(150);
+        tokenBudgetProperties.setMaxOutputTokens(20);
+        summarizeProperties.setWindowTokens(130);
+
+        when(mockPromptTemplateService.render(eq("summarize-map"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockPromptTemplateService.render(eq("summarize-reduce"), any(), anyMap())).thenReturn("合并 Prompt");
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("- [00:00:00] 要点"));
+
+        // Act
+        String result = videoService.summarize(subtitle.toString());
+
+        // Assert
+        assertEquals("- [00:00:00] 要点", result);
+        verify(mockPromptTemplateService, times(3)).render(eq("summarize-map"), any(), anyMap());
+        verify(mockPromptTemplateService, never()).render(eq("summarize"), any(), anyMap());
+    }
+
+    @Test
+    @DisplayName("chat - 渲染后的 Prompt 超出上下文窗口时拒绝，不调用模型")
+    void chat_PromptExceedsContextWindow_RejectedBeforeModelCall() {
+        // Arrange
+        tokenBudgetProperties.setContextWindowTokens(100);
+        tokenBudgetProperties.setMaxOutputTokens(20);
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn("长".repeat(200));
+
+        // Act & Assert
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> videoService.chat(SAMPLE_SUBTITLE, "什么是 RAG？"));
+        assertTrue(error.getMessage().contains("超过单次调用上限 80 tokens"));
+        verify(mockChatClient, never()).prompt();
+    }
+
+    @Test
+    @DisplayName("chat - 长字幕只发送与问题相关的窗口及相邻窗口，保留时间戳")
+    void chat_LongSubtitle_SendsRelevantWindowsOnly() {
+        // Arrange - 200 条字幕约 9 个窗口，只有第 150 条讲到量子计算
+        String subtitle = longSubtitleWithTopicAt(150, "这里讲量子计算的实际应用");
+        retrievalProperties.setMinTranscriptTokens(100);
+        retrievalProperties.setTopK(1);
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("回答"));
+
+        // Act
+        videoService.chat(subtitle, "量子计算有什么应用？");
+
+        // Assert
+        verify(mockPromptTemplateService).render(eq("chat"), any(), argThat(map -> {
+            String sent = map.get("subtitle").toString();
+            return sent.contains("[00:25:00] 这里讲量子计算的实际应用")
+                    && sent.startsWith("……")
+                    && !sent.contains("第0段")
+                    && sent.length() * 3 < subtitle.length();
+        }));
+    }
+
+    @Test
+    @DisplayName("chat - 问题没有命中任何窗口时发送完整字幕")
+    void chat_LongSubtitle_NoRelevantWindow_SendsFullSubtitle() {
+        // Arrange - "讲解内容" 出现在每个窗口，不具备区分度
+        String subtitle = longSubtitleWithTopicAt(150, "这里讲量子计算的实际应用");
+        retrievalProperties.setMinTranscriptTokens(100);
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("回答"));
+
+        // Act
+        videoService.chat(subtitle, "讲解内容是什么");
+
+        // Assert
+        verify(mockPromptTemplateService).render(eq("chat"), any(),
+                argThat(map -> subtitle.stripTrailing().equals(map.get("subtitle"))));
+    }
+
+    @Test
+    @DisplayName("前缀缓存布局 - 系统提示和字幕作为固定前缀，不同问题只有最后一条消息不同")
+    void chat_PromptCacheLayout_SharesSubtitlePrefix() {
+        // Arrange
+        ChatClient.Builder prefixBuilder = mock(ChatClient.Builder.class);
+        ChatClient prefixClient = mock(ChatClient.class);
+        when(mockBuilder.clone()).thenReturn(prefixBuilder);
+        when(prefixBuilder.build()).thenReturn(prefixClient);
+        PromptCacheProperties promptCacheProperties = new PromptCacheProperties();
+        promptCacheProperties.setEnabled(true);
+        VideoServiceImpl service = new VideoServiceImpl(mockBuilder, mockIntentService, mockPromptTemplateService,
+                new SubtitleStore(new SubtitleStoreProperties()), searchProperties, summarizeProperties,
+                retrievalProperties, promptCacheProperties, new ResponseCache(new ResponseCacheProperties(), "qwen-plus"),
+                speculationProperties, new TokenBudget(tokenBudgetProperties),
+                new ModelConcurrencyLimiter(new ConcurrencyLimitProperties()),
+                new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry()),
+                new ModelMetrics(new SimpleMeterRegistry(), "qwen-plus"), Schedulers.boundedElastic());
+
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(prefixClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.messages(any(Message.class), any(Message.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("回答"));
+        ArgumentCaptor<Message> system = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<Message> subtitle = ArgumentCaptor.forClass(Message.class);
+
+        // Act
+        service.chat(SAMPLE_SUBTITLE, "什么是 RAG？");
+        service.chat(SAMPLE_SUBTITLE, "提示工程有什么用？");
+
+        // Assert
+        verify(mockRequestSpec, times(2)).messages(system.capture(), subtitle.capture());
+        assertEquals(List.of(PromptConstants.SYSTEM_PROMPT, PromptConstants.SYSTEM_PROMPT),
+                system.getAllValues().stream().map(Message::getText).toList());
+        assertEquals(List.of("字幕内容：\n" + SAMPLE_SUBTITLE, "字幕内容：\n" + SAMPLE_SUBTITLE),
+                subtitle.getAllValues().stream().map(Message::getText).toList());
+        // 模板中的字幕只剩引用说明
+        verify(mockPromptTemplateService, times(2)).render(eq("chat"), any(),
+                argThat(map -> !map.get("subtitle").toString().contains("测试字幕内容")));
+        verify(mockChatClient, never()).prompt();
+    }
+
+    /**
+     * 每 10 秒一条 "第 i 段讲解内容"，第 topicCue 条替换为指定内容
+     */
+    private static String longSubtitleWithTopicAt(int topicCue, String topic) {
+        StringBuilder subtitle = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            int seconds = i * 10;
+            subtitle.append(String.format("[00:%02d:%02d] ", seconds / 60, seconds % 60))
+                    .append(i == topicCue ? topic : "第" + i + "段讲解内容")
+                    .append('\n');
+        }
+        return subtitle.toString();
+    }
+
+    @Test
+    @DisplayName("estimateTokens - 整份字幕使用会话缓存的估算值，模板中不填入字幕，不调用模型")
+    void estimateTokens_UsesSessionEstimateWithoutRenderingTranscript() {
+        // Arrange
+        SubtitleSession session = new SubtitleStore(new SubtitleStoreProperties()).save(SAMPLE_SUBTITLE);
+        when(mockPromptTemplateService.render(eq("extract-quotes"), any(), anyMap())).thenReturn("金".repeat(1000));
+
+        // Act
+        TokenEstimate estimate = videoService.estimateTokens(session, null, UserIntent.EXTRACT_QUOTES, null);
+
+        // Assert
+        assertEquals(700 + session.getEstimatedTokens(), estimate.getPromptTokens());
+        assertEquals(1, estimate.getModelCalls());
+        assertTrue(estimate.isWithinWindow());
+        assertFalse(estimate.isMapReduce());
+        verify(mockPromptTemplateService).render(eq("extract-quotes"), any(),
+                argThat(map -> "".equals(map.get("subtitle"))));
+        verify(mockChatClient, never()).prompt();
+    }
+
     // ==================== searchKeyword 测试 ====================
 
     @Test
-    @DisplayName("searchKeyword - 返回搜索结果")
-    void searchKeyword_ReturnsSearchResult() {
+    @DisplayName("searchKeyword - 无时间戳字幕回退到模型搜索")
+    void searchKeyword_PlainText_FallsBackToModel() {
         // Arrange
         String keyword = "Transformer";
         String expectedAnswer = "{\"keyword\": \"Transformer\", \"occurrences\": []}";
@@ -315,17 +785,57 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
-        String result = videoService.searchKeyword(SAMPLE_SUBTITLE, keyword);
+        String result = videoService.searchKeyword(PLAIN_SUBTITLE, keyword);
 
         // Assert
         assertEquals(expectedAnswer, result);
         verify(mockPromptTemplateService).render(
                 eq("search-keyword"),
                 any(),
-                argThat(map -> keyword.equals(map.get("keyword")) && SAMPLE_SUBTITLE.equals(map.get("subtitle")))
+                argThat(map -> keyword.equals(map.get("keyword")) && PLAIN_SUBTITLE.equals(map.get("subtitle")))
+        );
+    }
+
+    @Test
+    @DisplayName("searchKeyword - 带时间轴字幕使用本地索引，不调用模型")
+    void searchKeyword_TimedSubtitle_AnswersLocally() {
+        // Act
+        String result = videoService.searchKeyword(SEARCH_SUBTITLE, "Transformer");
+
+        // Assert
+        assertTrue(result.contains("\"keyword\":\"Transformer\""));
+        assertTrue(result.contains("\"timestamp\":\"00:01:00\""));
+        assertTrue(result.contains("\"timestamp\":\"00:10:00\""));
+        assertFalse(result.contains("00:05:30"));
+        assertTrue(result.contains("视频中 2 处提到 Transformer"));
+        verifyNoInteractions(mockChatClient);
+        verifyNoInteractions(mockPromptTemplateService);
+    }
+
+    @Test
+    @DisplayName("searchKeyword - 开启 llm-summary 时只把命中片段发给模型")
+    void searchKeyword_LlmSummaryEnabled_SendsOnlyOccurrences() {
+        // Arrange
+        searchProperties.setLlmSummary(true);
+        when(mockPromptTemplateService.render(eq("search-summary"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of("视频中 1 处提到自注意力，介绍其核心地位\n"));
+
+        // Act
+        String result = videoService.searchKeyword(SEARCH_SUBTITLE, "自注意力");
+
+        // Assert
+        assertTrue(result.contains("\"summary\":\"视频中 1 处提到自注意力，介绍其核心地位\""));
+        verify(mockPromptTemplateService).render(
+                eq("search-summary"),
+                any(),
+                argThat(map -> map.get("occurrences").toString().contains("[00:05:30] 自注意力机制是核心")
+                        && !map.containsKey("subtitle"))
         );
     }
 
@@ -342,7 +852,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.summarize(SAMPLE_SUBTITLE, promptVersion);
@@ -364,7 +874,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.chat(SAMPLE_SUBTITLE, question, promptVersion);
@@ -392,7 +902,7 @@ class VideoServiceImplTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.call()).thenReturn(mockResponseSpec);
-        when(mockResponseSpec.content()).thenReturn(expectedAnswer);
+        when(mockResponseSpec.chatResponse()).thenReturn(ChatResponses.of(expectedAnswer));
 
         // Act
         String result = videoService.smartAsk(SAMPLE_SUBTITLE, question, promptVersion);
@@ -1,7 +1,18 @@
 package com.example.videoagent.service;
 
+import com.example.videoagent.config.ConcurrencyLimitProperties;
+import com.example.videoagent.config.ModelSchedulerProperties;
+import com.example.videoagent.config.PromptCacheProperties;
+import com.example.videoagent.config.ResponseCacheProperties;
+import com.example.videoagent.config.RetrievalProperties;
+import com.example.videoagent.config.SearchProperties;
+import com.example.videoagent.config.SpeculationProperties;
+import com.example.videoagent.config.SubtitleStoreProperties;
+import com.example.videoagent.config.SummarizeProperties;
+import com.example.videoagent.config.TokenBudgetProperties;
 import com.example.videoagent.dto.IntentResult;
 import com.example.videoagent.enums.UserIntent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,12 +21,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.contains;
@@ -48,6 +64,8 @@ class VideoServiceStreamTest {
 
     private VideoServiceImpl videoService;
 
+    private SpeculationProperties speculationProperties;
+
     private static final String SAMPLE_SUBTITLE = "[00:00:05] 测试字幕内容";
     private static final String RENDERED_PROMPT = "渲染后的 Prompt 内容";
 
@@ -55,7 +73,14 @@ class VideoServiceStreamTest {
     void setUp() {
         when(mockBuilder.defaultSystem(any(String.class))).thenReturn(mockBuilder);
         when(mockBuilder.build()).thenReturn(mockChatClient);
-        videoService = new VideoServiceImpl(mockBuilder, mockIntentService, mockPromptTemplateService);
+        speculationProperties = new SpeculationProperties();
+        videoService = new VideoServiceImpl(mockBuilder, mockIntentService, mockPromptTemplateService,
+                new SubtitleStore(new SubtitleStoreProperties()), new SearchProperties(), new SummarizeProperties(),
+                new RetrievalProperties(), new PromptCacheProperties(), new ResponseCache(new ResponseCacheProperties(), "qwen-plus"), speculationProperties,
+                new TokenBudget(new TokenBudgetProperties()),
+                new ModelConcurrencyLimiter(new ConcurrencyLimitProperties()),
+                new ModelCallScheduler(new ModelSchedulerProperties(), new SimpleMeterRegistry()),
+                new ModelMetrics(new SimpleMeterRegistry(), "qwen-plus"), Schedulers.boundedElastic());
     }
 
     // ==================== smartAskStream 流式输出测试 ====================
@@ -73,7 +98,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.fromIterable(expectedChunks));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(expectedChunks)));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -97,7 +122,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.fromIterable(expectedChunks));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(expectedChunks)));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -124,7 +149,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.fromIterable(expectedChunks));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(expectedChunks)));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -139,7 +164,7 @@ class VideoServiceStreamTest {
     }
 
     @Test
-    @DisplayName("smartAskStream - SEARCH_KEYWORD 意图提取关键词")
+    @DisplayName("smartAskStream - SEARCH_KEYWORD 无时间戳字幕回退到模型")
     void smartAskStream_SearchKeywordIntent_ExtractsKeyword() {
         // Arrange
         String question = "哪里提到了 Transformer";
@@ -151,10 +176,10 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.fromIterable(expectedChunks));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(expectedChunks)));
 
         // Act
-        Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
+        Flux<String> result = videoService.smartAskStream("测试字幕内容", question);
 
         // Assert
         StepVerifier.create(result)
@@ -165,6 +190,81 @@ class VideoServiceStreamTest {
         verify(mockPromptTemplateService).render(eq("search-keyword"), any(), anyMap());
     }
 
+    @Test
+    @DisplayName("smartAskStream - SEARCH_KEYWORD 本地搜索，单个事件返回 JSON")
+    void smartAskStream_SearchKeywordIntent_AnswersLocally() {
+        // Arrange
+        String question = "哪里提到了测试？";
+        IntentResult intentResult = new IntentResult(UserIntent.SEARCH_KEYWORD, 0.85);
+        when(mockIntentService.classifyIntentWithCache(question)).thenReturn(intentResult);
+
+        // Act
+        Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
+
+        // Assert
+        StepVerifier.create(result)
+                .expectNextMatches(json -> json.contains("\"keyword\":\"测试\"")
+                        && json.contains("\"timestamp\":\"00:00:05\""))
+                .verifyComplete();
+        verifyNoInteractions(mockChatClient);
+    }
+
+    @Test
+    @DisplayName("smartAskStream - 推测执行命中：回放已缓冲的 QA 分片")
+    void smartAskStream_Speculation_HitReplaysBufferedChunks() {
+        // Arrange
+        speculationProperties.setEnabled(true);
+        String question = "这个方法的复杂度是多少";
+        List<String> chunks = List.of("复杂度", "是", "O(n)");
+        when(mockIntentService.classifyIntentWithCache(question)).thenReturn(new IntentResult(UserIntent.QA, 0.9));
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(chunks)));
+
+        // Act
+        Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
+
+        // Assert
+        StepVerifier.create(result)
+                .expectNextSequence(chunks)
+                .verifyComplete();
+        verify(mockChatClient, times(1)).prompt();
+        assertEquals(1, videoService.getSpeculationStats().getHits());
+    }
+
+    @Test
+    @DisplayName("smartAskStream - 推测执行未命中：取消 QA 流并按实际意图输出")
+    void smartAskStream_Speculation_MissCancelsQaStream() {
+        // Arrange
+        speculationProperties.setEnabled(true);
+        String question = "帮我整体梳理一下";
+        AtomicBoolean qaCancelled = new AtomicBoolean();
+        ChatClient.ChatClientRequestSpec summarySpec = mock(ChatClient.ChatClientRequestSpec.class);
+        ChatClient.StreamResponseSpec summaryStream = mock(ChatClient.StreamResponseSpec.class);
+        when(mockIntentService.classifyIntentWithCache(question)).thenReturn(new IntentResult(UserIntent.SUMMARIZE, 0.9));
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn("QA Prompt");
+        when(mockPromptTemplateService.render(eq("summarize"), any(), anyMap())).thenReturn("总结 Prompt");
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user("QA Prompt")).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.<String>never().doOnCancel(() -> qaCancelled.set(true))));
+        when(mockRequestSpec.user("总结 Prompt")).thenReturn(summarySpec);
+        when(summarySpec.stream()).thenReturn(summaryStream);
+        when(summaryStream.chatResponse()).thenReturn(ChatResponses.of(Flux.just("总结", "回答")));
+
+        // Act
+        Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
+
+        // Assert
+        StepVerifier.create(result)
+                .expectNext("总结", "回答")
+                .verifyComplete();
+        assertTrue(qaCancelled.get());
+        assertEquals(1, videoService.getSpeculationStats().getMisses());
+    }
+
     @Test
     @DisplayName("smartAskStream - DEEP_QA 意图移除前缀")
     void smartAskStream_DeepQaIntent_RemovesPrefix() {
@@ -179,7 +279,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.fromIterable(expectedChunks));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.fromIterable(expectedChunks)));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -205,7 +305,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.empty());
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.empty()));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -228,7 +328,7 @@ class VideoServiceStreamTest {
         when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
         when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
         when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
-        when(mockStreamResponseSpec.content()).thenReturn(Flux.error(expectedError));
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.error(expectedError)));
 
         // Act
         Flux<String> result = videoService.smartAskStream(SAMPLE_SUBTITLE, question);
@@ -238,4 +338,53 @@ class VideoServiceStreamTest {
                 .expectError(RuntimeException.class)
                 .verify(Duration.ofSeconds(5));
     }
+
+    // ==================== 非阻塞版本测试 ====================
+
+    @Test
+    @DisplayName("chatAsync - 流式分块拼接为完整回答")
+    void chatAsync_JoinsStreamedChunks() {
+        // Arrange
+        String question = "什么是 RAG？";
+        when(mockPromptTemplateService.render(eq("chat"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse())
+                .thenReturn(ChatResponses.of(Flux.just("RAG", "是", "检索增强生成")));
+
+        // Act
+        Mono<String> result = videoService.chatAsync(
+                new SubtitleStore(new SubtitleStoreProperties()).save(SAMPLE_SUBTITLE), question, null);
+
+        // Assert
+        StepVerifier.create(result)
+                .expectNext("RAG是检索增强生成")
+                .verifyComplete();
+        verify(mockIntentService, never()).classifyIntentWithCache(any());
+    }
+
+    @Test
+    @DisplayName("smartAskAsync - 本地规则命中时不调用 LLM 分类，按意图路由")
+    void smartAskAsync_LocalRuleHit_RoutesWithoutLlmClassification() {
+        // Arrange
+        String question = "总结一下这个视频";
+        when(mockIntentService.classifyLocally(question)).thenReturn(new IntentResult(UserIntent.SUMMARIZE, 0.9));
+        when(mockPromptTemplateService.render(eq("summarize"), any(), anyMap())).thenReturn(RENDERED_PROMPT);
+        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.user(any(String.class))).thenReturn(mockRequestSpec);
+        when(mockRequestSpec.stream()).thenReturn(mockStreamResponseSpec);
+        when(mockStreamResponseSpec.chatResponse()).thenReturn(ChatResponses.of(Flux.just("这是", "总结")));
+
+        // Act
+        Mono<String> result = videoService.smartAskAsync(
+                new SubtitleStore(new SubtitleStoreProperties()).save(SAMPLE_SUBTITLE), question, null);
+
+        // Assert
+        StepVerifier.create(result)
+                .expectNext("这是总结")
+                .verifyComplete();
+        verify(mockIntentService, never()).classifyIntentWithCache(any());
+        verify(mockPromptTemplateService).render(eq("summarize"), any(), anyMap());
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bm25Index 单元测试
+ */
+class Bm25IndexTest {
+
+    // 窗口上限很小，每条字幕独占一个窗口
+    private static final String SUBTITLE = """
+            [00:01:00] 今天我们来聊聊 Transformer 架构
+            [00:05:30] Transformer 的核心是自注意力机制，注意力让模型关注关键信息
+            [00:10:00] 相比 RNN，Transformer 可以并行计算
+            [00:15:20] 注意力不是唯一的机制
+            [00:20:00] BERT 和 GPT 都基于 Transformer
+            [00:25:00] 最后我们回顾一下今天的内容
+            """;
+
+    private final Bm25Index index = Bm25Index.build(SubtitleParser.parse(SUBTITLE), 1);
+
+    @Test
+    @DisplayName("topWindows - 按 BM25 分数从高到低返回命中窗口")
+    void topWindows_RanksByScore() {
+        // 第 2 条出现两次 "注意力"，排在只出现一次的第 4 条之前
+        assertEquals(6, index.windowCount());
+        assertArrayEquals(new int[]{1, 3}, index.topWindows("注意力", 5));
+        assertArrayEquals(new int[]{1}, index.topWindows("注意力", 1));
+        assertArrayEquals(new int[]{2}, index.topWindows("rnn 并行", 3));
+    }
+
+    @Test
+    @DisplayName("topWindows - 超过半数窗口出现的词项不参与打分")
+    void topWindows_IgnoresCommonTerms() {
+        // Transformer 出现在 4 个窗口中，问题没有其他可区分的词项
+        assertArrayEquals(new int[0], index.topWindows("Transformer", 3));
+        assertArrayEquals(new int[]{4}, index.topWindows("Transformer 和 GPT", 3));
+    }
+
+    @Test
+    @DisplayName("excerpt - 按时间顺序拼接命中窗口及相邻窗口，不连续处插入省略行")
+    void excerpt_IncludesNeighborsInTimeOrder() {
+        String excerpt = index.excerpt("RNN 和 GPT", 2, 0);
+
+        assertEquals(Bm25Index.GAP
+                + "[00:10:00] 相比 RNN，Transformer 可以并行计算\n"
+                + Bm25Index.GAP
+                + "[00:20:00] BERT 和 GPT 都基于 Transformer\n"
+                + Bm25Index.GAP, excerpt);
+
+        String withNeighbors = index.excerpt("回顾", 1, 1);
+        assertEquals(Bm25Index.GAP
+                + "[00:20:00] BERT 和 GPT 都基于 Transformer\n"
+                + "[00:25:00] 最后我们回顾一下今天的内容\n", withNeighbors);
+    }
+
+    @Test
+    @DisplayName("excerpt - 没有命中或空字幕表返回 null")
+    void excerpt_NoHit_ReturnsNull() {
+        assertNull(index.excerpt("Mamba", 3, 1));
+        assertNull(Bm25Index.empty().excerpt("注意力", 3, 1));
+        assertNull(Bm25Index.build(CueTable.empty(), 300).excerpt("注意力", 3, 1));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CueWindows 单元测试
+ */
+class CueWindowsTest {
+
+    @Test
+    @DisplayName("split - 按 token 预算切分为连续窗口")
+    void split_RespectsTokenBudget() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append('[').append(Timestamps.format(i * 10_000L)).append("] 这是第十句话\n");
+        }
+        CueTable cues = SubtitleParser.parse(sb.toString());
+
+        // 每条字幕约 6 字 + 6 token 行开销
+        CueWindows windows = CueWindows.split(cues, 120);
+
+        assertEquals(10, windows.size());
+        int covered = 0;
+        for (int w = 0; w < windows.size(); w++) {
+            assertEquals(covered, windows.firstCue(w));
+            covered = windows.endCue(w);
+        }
+        assertEquals(100, covered);
+        // 切分时累加的估算与逐条估算一致，不需要渲染窗口
+        int expected = 0;
+        for (int cue = windows.firstCue(0); cue < windows.endCue(0); cue++) {
+            expected += TokenEstimator.estimate(cues, cue) + 6;
+        }
+        assertEquals(expected, windows.estimatedTokens(0));
+        assertTrue(windows.estimatedTokens(0) <= 120);
+        assertEquals(0, windows.startMillis(0));
+        assertEquals(100_000, windows.startMillis(1));
+    }
+
+    @Test
+    @DisplayName("split - 单条超长字幕独占一个窗口")
+    void split_OversizedCue_GetsOwnWindow() {
+        String subtitle = "[00:00:01] 短句\n[00:00:02] " + "长".repeat(500) + "\n[00:00:03] 短句\n";
+
+        CueWindows windows = CueWindows.split(SubtitleParser.parse(subtitle), 100);
+
+        assertEquals(3, windows.size());
+        assertEquals(1, windows.firstCue(1));
+        assertEquals(2, windows.endCue(1));
+    }
+
+    @Test
+    @DisplayName("render - 多行字幕合并为单行紧凑格式")
+    void render_CompactsMultiLineCues() {
+        String srt = """
+                1
+                00:00:05,000 --> 00:00:12,000
+                第一行
+                第二行
+
+                2
+                01:02:03,000 --> 01:02:05,000
+                结束
+                """;
+
+        CueWindows windows = CueWindows.split(SubtitleParser.parse(srt), 1000);
+
+        assertEquals(1, windows.size());
+        assertEquals("[00:00:05] 第一行 第二行\n[01:02:03] 结束\n", windows.render(0));
+        assertEquals(3_725_000, windows.endMillis(0));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeywordIndex 单元测试
+ */
+class KeywordIndexTest {
+
+    private static final String SUBTITLE = """
+            [00:01:00] 今天我们来聊聊 Transformer 架构
+            [00:05:30] Transformer 的核心是自注意力机制
+            [00:10:00] 相比 RNN，transformers 可以并行计算
+            [00:15:20] 注意力不是唯一的机制
+            [00:20:00] BERT 和 GPT 都基于 TRANSFORMER
+            """;
+
+    private final KeywordIndex index = KeywordIndex.build(SubtitleParser.parse(SUBTITLE));
+
+    @Test
+    @DisplayName("英文关键词 - 按整词索引命中，忽略大小写")
+    void search_LatinWord_IgnoresCase() {
+        // 第 3 条的 "transformers" 是另一个单词，整词命中时不包含
+        assertArrayEquals(new int[]{0, 1, 4}, index.search("transformer"));
+    }
+
+    @Test
+    @DisplayName("英文单词片段 - 回退扫描仍能命中")
+    void search_LatinFragment_FallsBackToScan() {
+        assertArrayEquals(new int[]{0, 1, 2, 4}, index.search("Trans"));
+    }
+
+    @Test
+    @DisplayName("中文关键词 - bigram 求交后校验子串")
+    void search_ChineseKeyword_MatchesSubstring() {
+        assertArrayEquals(new int[]{1, 3}, index.search("注意力"));
+        assertArrayEquals(new int[]{1}, index.search("自注意力机制"));
+        // "注意" 和 "机制" 的 bigram 都出现在第 3 条，但 "注意机制" 并不连续出现
+        assertArrayEquals(new int[0], index.search("注意机制"));
+    }
+
+    @Test
+    @DisplayName("单个汉字 - 回退扫描")
+    void search_SingleChineseChar_Scans() {
+        assertArrayEquals(new int[]{1, 3}, index.search("力"));
+    }
+
+    @Test
+    @DisplayName("中英混合与首尾空白")
+    void search_MixedKeyword() {
+        assertArrayEquals(new int[]{4}, index.search("  基于 TRANSFORMER "));
+        assertArrayEquals(new int[0], index.search("Mamba"));
+        assertArrayEquals(new int[0], index.search("   "));
+    }
+
+    @Test
+    @DisplayName("空字幕表 - 查询返回空结果")
+    void search_EmptyIndex() {
+        assertArrayEquals(new int[0], KeywordIndex.build(CueTable.empty()).search("Transformer"));
+        assertEquals(0, KeywordIndex.empty().termCount());
+    }
+
+    @Test
+    @DisplayName("大规模字幕 - 索引构建与查询")
+    void build_LargeSubtitle() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append('[').append(Timestamps.format(i * 1000L)).append("] 第").append(i)
+                    .append("句 关于 topic").append(i % 100).append(" 的讨论\n");
+        }
+        KeywordIndex large = KeywordIndex.build(SubtitleParser.parse(sb.toString()));
+
+        assertEquals(200, large.search("topic42").length);
+        assertEquals(20000, large.search("讨论").length);
+        assertTrue(large.estimatedSize() > 0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapText 单元测试
+ */
+class OffHeapTextTest {
+
+    @Test
+    @DisplayName("按字符偏移随机读取、截取区间与逐字符比较，结果与原文一致")
+    void copyOf_PreservesCharOffsets() {
+        // Arrange
+        String source = "注意力机制 attention 😀 结束";
+        long before = OffHeapText.allocatedBytes();
+
+        // Act
+        OffHeapText text = OffHeapText.copyOf(source);
+        StringBuilder window = new StringBuilder("窗口:");
+        text.appendTo(window, 0, 5);
+
+        // Assert
+        assertEquals(source.length(), text.length());
+        assertEquals(source.length() * 2, text.sizeInBytes());
+        assertTrue(OffHeapText.allocatedBytes() - before >= text.sizeInBytes());
+        assertEquals('a', text.charAt(6));
+        assertEquals("attention", text.subSequence(6, 15).toString());
+        assertEquals("窗口:注意力机制", window.toString());
+        assertTrue(text.contentEquals(source));
+        assertFalse(text.contentEquals(source + "!"));
+        assertEquals(source, text.toString());
+        assertSame(OffHeapText.copyOf(""), OffHeapText.copyOf(new char[0], 0, 0));
+    }
+
+    @Test
+    @DisplayName("字幕会话 - 原始字幕、紧凑字幕与字幕索引文本存放在堆外，按需解码")
+    void session_KeepsTextOffHeap() {
+        // Arrange
+        String srt = "1\n00:00:01,000 --> 00:00:03,000\n大家好\n欢迎来到课程\n\n"
+                + "2\n00:00:04,000 --> 00:00:06,000\n<i>今天讲注意力机制</i>\n";
+
+        // Act
+        SubtitleSession session = new SubtitleSession("id", srt, srt.length(), SubtitleParser.parse(srt));
+
+        // Assert
+        assertEquals(srt, session.getContent());
+        assertEquals(srt.length(), session.getContentLength());
+        assertTrue(session.isCompactContent(session.getCompactContent()));
+        assertFalse(session.isCompactContent(srt));
+        assertEquals("大家好\n欢迎来到课程", session.getCues().text(0));
+        assertEquals("<i>今天讲注意力机制</i>", session.getCues().text(1));
+    }
+
+    @Test
+    @DisplayName("字幕会话 - 时间戳行与纯文本行混排时不压缩，整份原文发送给模型")
+    void session_MixedTimestampedAndPlainLines_KeepsRawContent() {
+        // Arrange - 第一段续行属于 [00:00:01]，空行之后的两行不在任何字幕内
+        String content = "[00:00:01] 开场白\n第二行内容\n\n附录：参考资料\n课后作业\n[00:00:09] 正题\n";
+
+        // Act
+        SubtitleSession session = new SubtitleSession("id", content, content.length(), SubtitleParser.parse(content));
+
+        // Assert
+        assertEquals(2, session.getCues().size());
+        assertEquals(2, session.getCues().skippedTextLines());
+        assertEquals(content, session.getCompactContent());
+        assertTrue(session.getCompactContent().contains("附录：参考资料\n课后作业"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SubtitleParser 单元测试
+ */
+class SubtitleParserTest {
+
+    @Test
+    @DisplayName("parse - SRT 多行字幕解析为 cue 表")
+    void parse_Srt_BuildsCueTable() {
+        String srt = """
+                1
+                00:00:00,000 --> 00:00:05,000
+                大家好，欢迎来到今天的 AI 工程课程。
+
+                2
+                00:00:05,000 --> 00:00:12,500
+                今天我们要讨论的是提示工程（Prompt Engineering），
+                这是构建 AI 应用的核心技能之一。
+                """;
+
+        CueTable cues = SubtitleParser.parse(srt);
+
+        assertEquals(2, cues.size());
+        assertEquals(0, cues.startMillis(0));
+        assertEquals(5_000, cues.endMillis(0));
+        assertEquals(5_000, cues.startMillis(1));
+        assertEquals(12_500, cues.endMillis(1));
+        assertEquals("大家好，欢迎来到今天的 AI 工程课程。", cues.text(0));
+        assertEquals("今天我们要讨论的是提示工程（Prompt Engineering），\n这是构建 AI 应用的核心技能之一。", cues.text(1));
+        assertEquals(0, cues.skippedTextLines());
+    }
+
+    @Test
+    @DisplayName("parse - WebVTT 跳过头部、NOTE 块、cue 设置与标签")
+    void parse_WebVtt_SkipsHeaderNotesAndTags() {
+        String vtt = """
+                WEBVTT
+                Kind: captions
+
+                NOTE 这是一段注释
+                不应出现在结果中
+
+                intro
+                00:01.000 --> 00:04.250 align:start position:10%
+                <v 讲师>欢迎<c.yellow>收看</c>
+
+                01:02:03.400 --> 01:02:05.000
+                <i>长视频</i>结尾
+                """;
+
+        CueTable cues = SubtitleParser.parse(vtt);
+
+        assertEquals(2, cues.size());
+        assertEquals(1_000, cues.startMillis(0));
+        assertEquals(4_250, cues.endMillis(0));
+        assertEquals("欢迎收看", cues.text(0));
+        assertEquals(3_723_400, cues.startMillis(1));
+        assertEquals("长视频结尾", cues.text(1));
+        assertEquals(0, cues.skippedTextLines());
+    }
+
+    @Test
+    @DisplayName("parse - 紧凑格式 [HH:MM:SS] 按下一条字幕推断结束时间")
+    void parse_BracketFormat_InfersEndFromNextCue() {
+        String compact = """
+                [00:01:00] 今天我们来聊聊 Transformer 架构
+                [00:05:30] Transformer 的核心是自注意力机制
+                """;
+
+        CueTable cues = SubtitleParser.parse(compact);
+
+        assertEquals(2, cues.size());
+        assertEquals(60_000, cues.startMillis(0));
+        assertEquals(330_000, cues.endMillis(0));
+        assertEquals("Transformer 的核心是自注意力机制", cues.text(1));
+        assertEquals(cues.startMillis(1), cues.endMillis(1));
+    }
+
+    @Test
+    @DisplayName("parse - 紧凑格式时间戳后的续行归入同一条字幕，空行结束")
+    void parse_BracketFormat_KeepsContinuationLines() {
+        String compact = "[00:00:01] 开场白\n第二行内容\n第三行内容\n[00:00:09] 正题\n\n散落的一行";
+
+        CueTable cues = SubtitleParser.parse(compact);
+
+        assertEquals(2, cues.size());
+        assertEquals("开场白\n第二行内容\n第三行内容", cues.text(0));
+        assertEquals(9_000, cues.endMillis(0));
+        assertEquals("正题", cues.text(1));
+        assertEquals(1, cues.skippedTextLines());
+    }
+
+    @Test
+    @DisplayName("parse - 只有 WebVTT 的合法标签被移除，正文中的 < 与 > 原样保留")
+    void parse_AngleBrackets_KeptUnlessWellFormedVttTag() {
+        String srt = """
+                1
+                00:00:01,000 --> 00:00:03,000
+                当 x < 5 并且 y > 3 时成立，<i> 也保留
+                """;
+        String vtt = """
+                WEBVTT
+
+                00:01.000 --> 00:03.000
+                <v 讲师>当 x < 5 并且 y > 3 时成立</v>
+
+                00:03.000 --> 00:05.000
+                a<b 且 <00:00:04.000><b>加粗</b> <c.red.big>彩色</c>
+                """;
+
+        CueTable srtCues = SubtitleParser.parse(srt);
+        CueTable vttCues = SubtitleParser.parse(vtt);
+
+        assertEquals("当 x < 5 并且 y > 3 时成立，<i> 也保留", srtCues.text(0));
+        assertEquals("当 x < 5 并且 y > 3 时成立", vttCues.text(0));
+        assertEquals("a<b 且 加粗 彩色", vttCues.text(1));
+    }
+
+    @Test
+    @DisplayName("parse - 处理 BOM 与 CRLF 换行")
+    void parse_BomAndCrlf_Handled() throws IOException {
+        String srt = "\uFEFF1\r\n00:00:01,000 --> 00:00:02,000\r\n第一句\r\n\r\n2\r\n00:00:02,000 --> 00:00:03,000\r\n第二句";
+
+        CueTable cues = SubtitleParser.parse(new StringReader(srt));
+
+        assertEquals(2, cues.size());
+        assertEquals("第一句", cues.text(0));
+        assertEquals("第二句", cues.text(1));
+    }
+
+    @Test
+    @DisplayName("parse - 无时间戳的纯文本返回空表")
+    void parse_PlainText_ReturnsEmpty() {
+        CueTable cues = SubtitleParser.parse("这是一段没有时间戳的文字\n第二行");
+
+        assertTrue(cues.isEmpty());
+        assertEquals(0, cues.totalTextLength());
+    }
+
+    @Test
+    @DisplayName("parse - 多小时长字幕单遍解析")
+    void parse_MultiHourFile_ParsesAllCues() {
+        StringBuilder srt = new StringBuilder();
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            long start = i * 1_000L;
+            srt.append(i + 1).append('\n')
+               .append(srtTime(start)).append(" --> ").append(srtTime(start + 900)).append('\n')
+               .append("第 ").append(i).append(" 句字幕").append("\n\n");
+        }
+
+        CueTable cues = SubtitleParser.parse(srt.toString());
+
+        assertEquals(count, cues.size());
+        assertEquals((count - 1) * 1_000L, cues.startMillis(count - 1));
+        assertEquals("第 19999 句字幕", cues.text(count - 1));
+        assertEquals(12_345, cues.cueAt(12_345_678));
+        assertEquals(-1, cues.cueAt(-1));
+    }
+
+    @Test
+    @DisplayName("Timestamps - 解析与格式化")
+    void timestamps_ParseAndFormat() {
+        assertEquals(3_723_004, Timestamps.parse("01:02:03,004"));
+        assertEquals(63_500, Timestamps.parse("01:03.5"));
+        assertEquals(-1, Timestamps.parse("1:75:00"));
+        assertEquals(-1, Timestamps.parse("abc"));
+        assertEquals("01:02:03", Timestamps.format(3_723_004));
+    }
+
+    private static String srtTime(long millis) {
+        return String.format("%02d:%02d:%02d,%03d",
+                millis / 3_600_000, (millis / 60_000) % 60, (millis / 1_000) % 60, millis % 1_000);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.videoagent.subtitle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TranscriptCompactor 单元测试
+ */
+class TranscriptCompactorTest {
+
+    @Test
+    @DisplayName("SRT - 去掉序号和时间行，折行合并为一行")
+    void compact_Srt_MergesWrappedLines() {
+        // Arrange
+        String srt = """
+                1
+                00:00:00,000 --> 00:00:05,000
+                大家好，欢迎来到
+                今天的 AI 工程课程。
+
+                2
+                00:00:05,000 --> 00:00:12,000
+                Prompt engineering is
+                a core skill.
+                """;
+
+        // Act
+        String compact = TranscriptCompactor.compact(SubtitleParser.parse(srt));
+
+        // Assert
+        assertEquals("""
+                [00:00:00] 大家好，欢迎来到今天的 AI 工程课程。
+                [00:00:05] Prompt engineering is a core skill.""", compact);
+        assertTrue(TokenEstimator.estimate(compact) < TokenEstimator.estimate(srt));
+    }
+
+    @Test
+    @DisplayName("VTT 滚动字幕 - 与上一条重复的行只保留一次")
+    void compact_RollingVtt_DeduplicatesRepeatedLines() {
+        // Arrange - 自动生成字幕：每条重复上一条的末行，夹杂只含重复行的过渡字幕
+        String vtt = """
+                WEBVTT
+                Kind: captions
+
+                00:00:01.000 --> 00:00:03.000 align:start position:0%
+                today we talk about<00:00:02.000><c> attention</c>
+
+                00:00:03.000 --> 00:00:03.010 align:start position:0%
+                today we talk about attention
+
+                00:00:03.010 --> 00:00:06.000 align:start position:0%
+                today we talk about attention
+                and why it<00:00:04.500><c> matters</c>
+
+                00:00:06.000 --> 00:00:06.010 align:start position:0%
+                and why it matters
+                """;
+
+        // Act
+        String compact = TranscriptCompactor.compact(SubtitleParser.parse(vtt));
+
+        // Assert
+        assertEquals("""
+                [00:00:01] today we talk about attention
+                [00:00:03] and why it matters""", compact);
+    }
+
+    @Test
+    @DisplayName("紧凑格式输入与空字幕表 - 原样输出")
+    void compact_CompactInput_Unchanged() {
+        String input = "[00:01:00] 今天我们来聊聊 Transformer 架构\n[00:05:30] 自注意力机制是核心";
+
+        assertEquals(input, TranscriptCompactor.compact(SubtitleParser.parse(input)));
+        assertEquals("", TranscriptCompactor.compact(CueTable.empty()));
+    }
+}